@@ -0,0 +1,88 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+// The arithmetic of one buy (total = quantity * price, balance check, debit, holding credit) done with
+// double, with the long fixed-point units the trading paths use, and with BigDecimal.
+// Run with "-prof gc": the fixed-point and double variants should allocate nothing per trade.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AmountBenchmark {
+
+    private static final int QUANTITY_SCALE = AssetScales.quantityScale("BTC/USD");
+
+    private double doubleBalance;
+    private double doubleHolding;
+    private double doubleQuantity;
+    private double doublePrice;
+
+    private long balance;
+    private long holding;
+    private long quantity;
+    private long price;
+
+    private BigDecimal decimalBalance;
+    private BigDecimal decimalHolding;
+    private BigDecimal decimalQuantity;
+    private BigDecimal decimalPrice;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BigDecimal startBalance = new BigDecimal("1000000000");
+        decimalQuantity = new BigDecimal("0.00012345");
+        decimalPrice = new BigDecimal("28000.12345678");
+
+        doubleBalance = startBalance.doubleValue();
+        doubleHolding = 0;
+        doubleQuantity = decimalQuantity.doubleValue();
+        doublePrice = decimalPrice.doubleValue();
+
+        balance = Amount.toUnits(startBalance, AssetScales.CASH_SCALE);
+        holding = 0;
+        quantity = Amount.toUnits(decimalQuantity, QUANTITY_SCALE);
+        price = Amount.toUnits(decimalPrice, AssetScales.PRICE_SCALE);
+
+        decimalBalance = startBalance.setScale(AssetScales.CASH_SCALE);
+        decimalHolding = BigDecimal.ZERO.setScale(QUANTITY_SCALE);
+    }
+
+    @Benchmark
+    public double doubleBuy() {
+        double total = doubleQuantity * doublePrice;
+        if (doubleBalance >= total) {
+            doubleBalance -= total;
+            doubleHolding += doubleQuantity;
+        }
+        return doubleBalance;
+    }
+
+    @Benchmark
+    public long fixedPointBuy() {
+        long total = Amount.multiply(quantity, QUANTITY_SCALE, price, AssetScales.PRICE_SCALE, AssetScales.CASH_SCALE);
+        if (balance >= total) {
+            balance -= total;
+            holding = Math.addExact(holding, quantity);
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalBuy() {
+        BigDecimal total = decimalQuantity.multiply(decimalPrice).setScale(AssetScales.CASH_SCALE, RoundingMode.HALF_UP);
+        if (decimalBalance.compareTo(total) >= 0) {
+            decimalBalance = decimalBalance.subtract(total);
+            decimalHolding = decimalHolding.add(decimalQuantity);
+        }
+        return decimalBalance;
+    }
+}
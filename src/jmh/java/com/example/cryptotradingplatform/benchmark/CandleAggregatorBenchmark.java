@@ -0,0 +1,32 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.marketdata.CandleAggregator;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of folding one tick into the candles of all four intervals. Each call advances the clock by 10 ms,
+// so a new 1s candle starts every 100 ticks and the rings wrap continuously. Run with "-prof gc": it
+// should not allocate.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CandleAggregatorBenchmark {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final CandleAggregator aggregator = new CandleAggregator(priceBook, 1440);
+    private final int btc = priceBook.idOf("BTC/USD");
+    private long timestamp;
+    private double volume = 1000;
+
+    @Benchmark
+    public void tick() {
+        timestamp += 10;
+        volume += 0.01;
+        aggregator.onPriceUpdate(btc, 27999.5, 28000.5, 28000.0 + (timestamp & 63), volume, timestamp);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.DeadLetterTradeRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import com.example.cryptotradingplatform.repository.ProjectionCheckpointRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Map-backed stand-ins for the Spring Data repositories, implementing only the methods the trade path
+// calls (AccountCache loading an account, TradeEventProjection writing a batch), so the service and the
+// persistence pipeline run as in production minus the database. The ledger is not kept, only numbered.
+final class InMemoryRepositories {
+
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<Long, Holding> holdings = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    final AccountRepository accountRepository = proxy(AccountRepository.class, (proxy, method, args) ->
+            switch (method.getName()) {
+                case "findById" -> Optional.ofNullable(accounts.get((Long) args[0]));
+                case "findAllById" -> {
+                    List<Account> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        Account account = accounts.get((Long) id);
+                        if (account != null) {
+                            found.add(account);
+                        }
+                    }
+                    yield found;
+                }
+                default -> unsupported(method.getName());
+            });
+
+    final HoldingRepository holdingRepository = proxy(HoldingRepository.class, (proxy, method, args) ->
+            switch (method.getName()) {
+                case "findByAccountId" -> holdingsOf(List.of((Long) args[0]));
+                case "findByAccountIdIn" -> holdingsOf((Collection<?>) args[0]);
+                case "save" -> {
+                    Holding holding = (Holding) args[0];
+                    if (holding.getId() == null) {
+                        holding.setId(ids.incrementAndGet());
+                    }
+                    holdings.put(holding.getId(), holding);
+                    yield holding;
+                }
+                case "delete" -> {
+                    holdings.remove(((Holding) args[0]).getId());
+                    yield null;
+                }
+                default -> unsupported(method.getName());
+            });
+
+    final TransactionRepository transactionRepository = proxy(TransactionRepository.class, (proxy, method, args) ->
+            switch (method.getName()) {
+                case "saveAll" -> {
+                    List<Transaction> saved = new ArrayList<>();
+                    for (Object transaction : (Iterable<?>) args[0]) {
+                        ((Transaction) transaction).setId(ids.incrementAndGet());
+                        saved.add((Transaction) transaction);
+                    }
+                    yield saved;
+                }
+                default -> unsupported(method.getName());
+            });
+
+    //Only journal batches and dead letters use these, and the benchmark writes neither.
+    final ProjectionCheckpointRepository checkpointRepository = proxy(ProjectionCheckpointRepository.class,
+            (proxy, method, args) -> unsupported(method.getName()));
+
+    final DeadLetterTradeRepository deadLetterRepository = proxy(DeadLetterTradeRepository.class,
+            (proxy, method, args) -> unsupported(method.getName()));
+
+    //Runs callbacks directly; there is nothing to commit.
+    final TransactionTemplate transactionTemplate = new TransactionTemplate(new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    });
+
+    Account addAccount(Amount balance) {
+        Account account = new Account(balance, new Timestamp(System.currentTimeMillis()));
+        account.setId(ids.incrementAndGet());
+        accounts.put(account.getId(), account);
+        return account;
+    }
+
+    void addHolding(Account account, String cryptoSymbol, Amount quantity) {
+        Holding holding = new Holding(account, cryptoSymbol, quantity);
+        holding.setId(ids.incrementAndGet());
+        holdings.put(holding.getId(), holding);
+    }
+
+    private List<Holding> holdingsOf(Collection<?> accountIds) {
+        List<Holding> found = new ArrayList<>();
+        for (Holding holding : holdings.values()) {
+            if (accountIds.contains(holding.getAccount().getId())) {
+                found.add(holding);
+            }
+        }
+        return found;
+    }
+
+    private static Object unsupported(String method) {
+        throw new UnsupportedOperationException(method + " is not implemented by the in-memory stand-in");
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InMemoryRepositories.class.getClassLoader(), new Class<?>[]{type},
+                handler));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Cost the live price check adds to an order: symbol lookup, seqlock read, staleness and slippage checks
+// and the fill-age metric. "priced" reads a book nobody writes to; "pricedWhileUpdating" has a feed
+// thread publishing the pair continuously, so reads sometimes retry. Run with "-prof gc": neither
+// should allocate.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class MarketPricerBenchmark {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final MarketPricer pricer = new MarketPricer(priceBook, new SimpleMeterRegistry(), true, 60_000, 50);
+    private final int btc = priceBook.idOf("BTC/USD");
+    private final long reference = AssetScales.priceUnits(new BigDecimal("28000"));
+
+    @Setup
+    public void setUp() {
+        priceBook.update(btc, 27999.5, 28000.5, 28000.0, 5.0, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    @Group("priced")
+    public long priced() {
+        return pricer.executionPrice("BTC/USD", TransactionType.BUY, reference);
+    }
+
+    @Benchmark
+    @Group("pricedWhileUpdating")
+    public long reader() {
+        return pricer.executionPrice("BTC/USD", TransactionType.BUY, reference);
+    }
+
+    @Benchmark
+    @Group("pricedWhileUpdating")
+    public void writer() {
+        priceBook.update(btc, 27999.5, 28000.5, 28000.0, 5.0, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.orders.OrderBook;
+import com.example.cryptotradingplatform.orders.OrderType;
+import com.example.cryptotradingplatform.orders.RestingOrder;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Latency of matching one price update against a pair with a million resting orders, reported as
+// percentiles (sample mode). Triggers are spread over a $2,000 band around the price in cent steps and
+// the price takes a random walk of up to a dollar per tick. Most ticks cross nothing; a move into a
+// range the price has not visited recently triggers up to a few hundred orders, which sets the tail.
+// Every triggered order is replaced by a new one so the book stays at the same size.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+
+    private static final long CENT = 1_000_000;
+    private static final long MID = 28_000 * 100 * CENT;
+    private static final OrderType[] TYPES = OrderType.values();
+
+    @Param("1000000")
+    private int restingOrders;
+
+    private final SplittableRandom random = new SplittableRandom(1);
+    private final List<RestingOrder> triggered = new ArrayList<>();
+    private OrderBook book;
+    private long price;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        book = new OrderBook(1);
+        price = MID;
+        for (int i = 0; i < restingOrders; i++) {
+            book.add(newOrder());
+        }
+    }
+
+    @Benchmark
+    public int matchTick() {
+        price = Math.max(MID - 1_000 * 100 * CENT, Math.min(MID + 1_000 * 100 * CENT,
+                price + random.nextLong(-100, 101) * CENT));
+        triggered.clear();
+        int count = book.match(0, price + CENT, price - CENT, triggered::add);
+        for (int i = 0; i < triggered.size(); i++) {
+            book.add(newOrder());
+        }
+        return count;
+    }
+
+    private RestingOrder newOrder() {
+        long trigger = MID + random.nextLong(-100_000, 100_001) * CENT;
+        return new RestingOrder(++nextId, nextId, "BTC/USD", 0, TYPES[random.nextInt(TYPES.length)],
+                random.nextBoolean() ? TransactionType.BUY : TransactionType.SELL, BigDecimal.ONE, trigger, 0L);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceMerger;
+import com.example.cryptotradingplatform.marketdata.VenueFeed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of a venue tick reaching the consolidated book, listeners left out: "direct" is the PriceBook write
+// a single-venue feed used to make; "oneVenue" and "threeVenues" go through a VenueFeed, which writes the
+// venue's book, claims the pair and merges it across that many venues. Run with "-prof gc": none should
+// allocate.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceMergerBenchmark {
+
+    private final PriceBook direct = new PriceBook();
+    private final VenueFeed oneVenue = merger(1);
+    private final VenueFeed threeVenues = merger(3);
+    private long tick;
+
+    @Benchmark
+    public void direct() {
+        long t = ++tick;
+        direct.update(0, 27999.5, 28000.5, 28000.0 + (t & 1023) * 0.01, 5.0, t);
+    }
+
+    @Benchmark
+    public void oneVenue() {
+        long t = ++tick;
+        oneVenue.update(0, 27999.5, 28000.5, 28000.0 + (t & 1023) * 0.01, 5.0, t);
+    }
+
+    @Benchmark
+    public void threeVenues() {
+        long t = ++tick;
+        threeVenues.update(0, 27999.5, 28000.5, 28000.0 + (t & 1023) * 0.01, 5.0, t);
+    }
+
+    //A merger whose other venues have priced every pair once; returns the feed of the first.
+    private static VenueFeed merger(int venues) {
+        PriceMerger merger = new PriceMerger(new PriceBook(), List.of(), new SimpleMeterRegistry(), Long.MAX_VALUE);
+        VenueFeed first = merger.register("venue-0");
+        for (int v = 1; v < venues; v++) {
+            VenueFeed other = merger.register("venue-" + v);
+            for (int id = 0; id < other.size(); id++) {
+                other.update(id, 27999.0, 28001.0, 28000.0, 5.0, 1);
+            }
+        }
+        return first;
+    }
+}
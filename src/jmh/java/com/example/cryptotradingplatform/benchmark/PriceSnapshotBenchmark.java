@@ -0,0 +1,59 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.marketdata.CandleAggregator;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceMerger;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshot;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshotCache;
+import com.example.cryptotradingplatform.service.CryptoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Serializing the live prices for GET /api/cryptos with every pair priced. "unchanged" is a read between
+// ticks, served from the cached snapshot; "afterTick" publishes a tick first, so each read re-encodes the
+// JSON; "livePrices" is CryptoService.getLivePrices, which also decodes the bytes into a String.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceSnapshotBenchmark {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final PriceSnapshotCache cache = new PriceSnapshotCache(priceBook);
+    private final CryptoService cryptoService = new CryptoService(priceBook, cache,
+            new PriceMerger(priceBook, List.of(), new SimpleMeterRegistry(), 5000), new CandleAggregator(priceBook, 1),
+            Optional.empty());
+    private long tick;
+
+    @Setup
+    public void setUp() {
+        for (int id = 0; id < priceBook.size(); id++) {
+            priceBook.update(id, 27999.5 + id, 28000.5 + id, 28000.0 + id, 5.0, System.currentTimeMillis());
+        }
+    }
+
+    @Benchmark
+    public PriceSnapshot unchanged() {
+        return cache.get();
+    }
+
+    @Benchmark
+    public PriceSnapshot afterTick() {
+        tick++;
+        priceBook.update(0, 27999.5, 28000.5, 28000.0 + (tick & 1023) * 0.01, 5.0, tick);
+        return cache.get();
+    }
+
+    @Benchmark
+    public String livePrices() {
+        tick++;
+        priceBook.update(0, 27999.5, 28000.5, 28000.0 + (tick & 1023) * 0.01, 5.0, tick);
+        return cryptoService.getLivePrices();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.history.TickConsumer;
+import com.example.cryptotradingplatform.history.TickHistoryStore;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Time to scan one pair's full day of history: 864,000 ticks (ten a second) with a random-walk price,
+// decoded from the memory-mapped file and fed to a consumer. Setup reports the compressed size per tick.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TickHistoryBenchmark {
+
+    private static final long DAY = 86_400_000L;
+    private static final long START = 19_700 * DAY;
+
+    private final PriceBook priceBook = new PriceBook();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Path directory;
+    private TickHistoryStore store;
+    private int btc;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("tick-history-benchmark");
+        store = new TickHistoryStore(priceBook, meterRegistry, directory.toString(), 1 << 20, 1024, 64, 60_000, 31);
+        btc = priceBook.idOf("BTC/USD");
+        store.start();
+        double price = 60_000;
+        double volume = 1000;
+        java.util.Random random = new java.util.Random(1);
+        for (long t = START; t < START + DAY; t += 100) {
+            price = Math.round((price + (random.nextInt(3) - 1) * 0.1) * 10) / 10.0;
+            volume = Math.round((volume + random.nextInt(3) * 0.01) * 100) / 100.0;
+            while (!offered(price, volume, t)) {
+                Thread.onSpinWait();
+            }
+        }
+        store.stop();
+        System.out.printf("%n%.2f bytes per tick%n", meterRegistry.get("trading.history.bytes").counter().count()
+                / meterRegistry.get("trading.history.ticks").counter().count());
+    }
+
+    private boolean offered(double price, double volume, long t) {
+        double dropped = meterRegistry.get("trading.history.dropped").counter().count();
+        store.onPriceUpdate(btc, price - 0.1, price, price, volume, t);
+        return meterRegistry.get("trading.history.dropped").counter().count() == dropped;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int scanDay(Blackhole blackhole) {
+        TickConsumer consumer = (timestamp, bid, ask, last, volume) -> blackhole.consume(last);
+        return store.scan(btc, START, START + DAY - 1, Integer.MAX_VALUE, consumer);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.marketdata.TickerDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Compares the streaming TickerDecoder with the split/replace parsing CryptoService.onMessage used to do.
+// Run with "-prof gc" to see gc.alloc.rate.norm, the bytes allocated per decoded frame.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TickerDecoderBenchmark {
+
+    static final String V1_FRAME = "[340,{\"a\":[\"28000.10000\",1,\"1.000\"],\"b\":[\"27999.90000\",2,\"2.000\"],"
+            + "\"c\":[\"28000.00000\",\"0.00398963\"],\"v\":[\"2634.11501494\",\"3591.17907851\"],"
+            + "\"p\":[\"27990.12345\",\"27980.54321\"],\"t\":[11493,16267],\"l\":[\"27900.00000\",\"27850.00000\"],"
+            + "\"h\":[\"28100.00000\",\"28150.00000\"],\"o\":[\"27950.00000\",\"27900.00000\"]},\"ticker\",\"XBT/USD\"]";
+
+    static final String V2_FRAME = "{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[{\"symbol\":\"BTC/USD\","
+            + "\"bid\":27999.9,\"bid_qty\":2.0,\"ask\":28000.1,\"ask_qty\":1.0,\"last\":28000.0,"
+            + "\"volume\":3591.17907851,\"vwap\":27980.54321,\"low\":27850.0,\"high\":28150.0,"
+            + "\"change\":100.0,\"change_pct\":0.36}]}";
+
+    private final TickerDecoder decoder = new TickerDecoder();
+    private Blackhole blackhole;
+    private TickerDecoder.Listener listener;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        this.listener = (frame, symbolStart, symbolEnd, bid, ask, last, volume) -> {
+            this.blackhole.consume(symbolStart);
+            this.blackhole.consume(last);
+            this.blackhole.consume(volume);
+        };
+    }
+
+    @Benchmark
+    public int decoderV1() {
+        return decoder.decode(V1_FRAME, listener);
+    }
+
+    @Benchmark
+    public int decoderV2() {
+        return decoder.decode(V2_FRAME, listener);
+    }
+
+    @Benchmark
+    public void splitV1(Blackhole bh) {
+        legacyParse(V1_FRAME, bh);
+    }
+
+    //The parsing CryptoService.onMessage did before the decoder, kept verbatim as the baseline.
+    //On a full frame its fixed split indexes miss and it ends in the exception branch, as it did in production.
+    static void legacyParse(String message, Blackhole bh) {
+        if (message.contains("\"ticker\"")) {
+            try {
+                String[] parts = message.split(",");
+                String pair = parts[3].replace("\"", "").replace("]", "");
+                String priceString = parts[1].split(":")[2].replace("[", "").replace("]", "").replace("\"", "");
+                double price = Double.parseDouble(priceString);
+                bh.consume(pair);
+                bh.consume(price);
+            } catch (Exception e) {
+                bh.consume(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.engine.TradeEventProjection;
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.service.AccountCache;
+import com.example.cryptotradingplatform.service.AccountService;
+import com.example.cryptotradingplatform.service.TradePersistencePipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// AccountService.buyCrypto and sellCrypto end to end minus the database: live pricing, validation under
+// the account lock in AccountCache, and the hand-off to the persistence pipeline, whose writer projects
+// the trades into InMemoryRepositories. "buy" and "sell" trade each thread's own account; "contended"
+// has four threads buying and selling on one account, so every trade waits its turn for the account lock.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TradingBenchmark {
+
+    private static final BigDecimal QUANTITY = new BigDecimal("0.0001");
+
+    private final InMemoryRepositories repositories = new InMemoryRepositories();
+    private TradePersistencePipeline pipeline;
+    private AccountService accountService;
+    private Long sharedAccountId;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PriceBook priceBook = new PriceBook();
+        priceBook.update(priceBook.idOf("BTC/USD"), 27999.5, 28000.5, 28000.0, 5.0, System.currentTimeMillis());
+        MarketPricer pricer = new MarketPricer(priceBook, meterRegistry, true, TimeUnit.HOURS.toMillis(1), 50);
+        TradeEventProjection projection = new TradeEventProjection(repositories.accountRepository,
+                repositories.holdingRepository, repositories.transactionRepository, repositories.checkpointRepository,
+                repositories.deadLetterRepository, repositories.transactionTemplate, List.of());
+        // A full queue makes a trade wait for the writer rather than fail, so the score is what the writer sustains.
+        pipeline = new TradePersistencePipeline(projection, meterRegistry, 65536, 500, 60_000);
+        pipeline.start();
+        AccountCache accountCache = new AccountCache(repositories.accountRepository, repositories.holdingRepository,
+                pipeline, meterRegistry, 10_000);
+        accountService = new AccountService(accountCache, pricer, meterRegistry, 1000);
+        sharedAccountId = fundedAccount();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipeline.stop();
+    }
+
+    //Enough cash and BTC that no benchmark runs out.
+    private Long fundedAccount() {
+        Account account = repositories.addAccount(Amount.of(new BigDecimal("1000000000")));
+        repositories.addHolding(account, "BTC", Amount.of(new BigDecimal("1000000")));
+        return account.getId();
+    }
+
+    @State(Scope.Thread)
+    public static class OwnAccount {
+
+        Long accountId;
+
+        @Setup
+        public void setUp(TradingBenchmark benchmark) {
+            accountId = benchmark.fundedAccount();
+        }
+    }
+
+    @Benchmark
+    public String buy(OwnAccount own) {
+        return accountService.buyCrypto(own.accountId, "BTC", QUANTITY, null);
+    }
+
+    @Benchmark
+    public String sell(OwnAccount own) {
+        return accountService.sellCrypto(own.accountId, "BTC", QUANTITY, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String contended() {
+        accountService.buyCrypto(sharedAccountId, "BTC", QUANTITY, null);
+        return accountService.sellCrypto(sharedAccountId, "BTC", QUANTITY, null);
+    }
+}
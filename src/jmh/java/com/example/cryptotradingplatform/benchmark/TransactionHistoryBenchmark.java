@@ -0,0 +1,197 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one 50-row page of an account's history in a ledger of `rows` transactions spread over
+// `accounts` accounts, in an H2 file database standing in for MySQL. The schema and indexes are the ones
+// Hibernate generates for Transaction, and the statements are what TransactionHistoryRepositoryImpl's
+// JPQL becomes, minus the JPA layer. Pages are taken halfway into each account's history: by keyset,
+// the way the API pages, and by OFFSET for comparison; the symbol filter uses the second index.
+// The ledger is built once under target/benchmark-ledger and reused; 50M rows take a while and about
+// 8 GB of disk, so -p rows=5000000 gives a quicker run.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionHistoryBenchmark {
+
+    private static final String[] SYMBOLS = {"BTC", "ETH", "SOL", "DOT", "SHIB"};
+    private static final long START = 1_700_000_000_000L;
+    private static final int PAGE = 50;
+    private static final int SAMPLED_ACCOUNTS = 64;
+    private static final String COLUMNS =
+            "select id, crypto_symbol, type, quantity, price_per_unit, total_price, transaction_date from transaction";
+
+    @Param({"50000000"})
+    public long rows;
+
+    @Param({"1000"})
+    public int accounts;
+
+    private Connection connection;
+    private PreparedStatement keyset;
+    private PreparedStatement offset;
+    private PreparedStatement keysetBySymbol;
+    private final long[] cursorDates = new long[SAMPLED_ACCOUNTS];
+    private final long[] cursorIds = new long[SAMPLED_ACCOUNTS];
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path directory = Paths.get("target", "benchmark-ledger", rows + "x" + accounts);
+        boolean built = Files.exists(directory.resolve("ready"));
+        Files.createDirectories(directory);
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.toAbsolutePath().resolve("ledger")
+                + ";CACHE_SIZE=262144");
+        if (!built) {
+            build();
+            Files.createFile(directory.resolve("ready"));
+        }
+        keyset = connection.prepareStatement(COLUMNS + " where account_id = ? and transaction_date <= ?"
+                + " and (transaction_date < ? or id < ?) order by account_id, transaction_date desc, id desc limit ?");
+        offset = connection.prepareStatement(COLUMNS
+                + " where account_id = ? order by account_id, transaction_date desc, id desc limit ? offset ?");
+        keysetBySymbol = connection.prepareStatement(COLUMNS + " where account_id = ? and crypto_symbol = ?"
+                + " and transaction_date <= ? and (transaction_date < ? or id < ?)"
+                + " order by account_id, crypto_symbol, transaction_date desc, id desc limit ?");
+        // The row halfway down each sampled account's history is where both kinds of deep page start.
+        for (int i = 0; i < SAMPLED_ACCOUNTS; i++) {
+            offset.setLong(1, account(i));
+            offset.setInt(2, 1);
+            offset.setLong(3, middle() - 1);
+            try (ResultSet result = offset.executeQuery()) {
+                result.next();
+                cursorIds[i] = result.getLong("id");
+                cursorDates[i] = result.getTimestamp("transaction_date").getTime();
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("explain analyze " + COLUMNS + " where account_id = 1"
+                     + " and crypto_symbol = 'BTC' and transaction_date <= timestamp '2024-01-01 00:00:00'"
+                     + " and (transaction_date < timestamp '2024-01-01 00:00:00' or id < 1000)"
+                     + " order by account_id, crypto_symbol, transaction_date desc, id desc limit 50")) {
+            plan.next();
+            System.out.printf("%n%s%n", plan.getString(1));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void keysetPage(Blackhole blackhole) throws SQLException {
+        int i = next();
+        keyset.setLong(1, account(i));
+        keyset.setTimestamp(2, new Timestamp(cursorDates[i]));
+        keyset.setTimestamp(3, new Timestamp(cursorDates[i]));
+        keyset.setLong(4, cursorIds[i]);
+        keyset.setInt(5, PAGE);
+        consume(keyset, blackhole);
+    }
+
+    @Benchmark
+    public void offsetPage(Blackhole blackhole) throws SQLException {
+        int i = next();
+        offset.setLong(1, account(i));
+        offset.setInt(2, PAGE);
+        offset.setLong(3, middle());
+        consume(offset, blackhole);
+    }
+
+    @Benchmark
+    public void keysetPageBySymbol(Blackhole blackhole) throws SQLException {
+        int i = next();
+        keysetBySymbol.setLong(1, account(i));
+        keysetBySymbol.setString(2, SYMBOLS[i % SYMBOLS.length]);
+        keysetBySymbol.setTimestamp(3, new Timestamp(cursorDates[i]));
+        keysetBySymbol.setTimestamp(4, new Timestamp(cursorDates[i]));
+        keysetBySymbol.setLong(5, cursorIds[i]);
+        keysetBySymbol.setInt(6, PAGE);
+        consume(keysetBySymbol, blackhole);
+    }
+
+    private void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(result.getLong(1));
+                blackhole.consume(result.getString(2));
+                blackhole.consume(result.getBigDecimal(4));
+                blackhole.consume(result.getTimestamp(7));
+            }
+        }
+    }
+
+    private int next() {
+        next = (next + 1) % SAMPLED_ACCOUNTS;
+        return next;
+    }
+
+    private long account(int sample) {
+        return 1 + (long) sample * (accounts / SAMPLED_ACCOUNTS);
+    }
+
+    private long middle() {
+        return rows / accounts / 2;
+    }
+
+    //Same table and indexes as Hibernate's DDL for Transaction; trades arrive ten a second, round-robin
+    //over the accounts, each account cycling through the symbols.
+    private void build() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists transaction");
+            statement.execute("create table transaction (id bigint not null primary key, account_id bigint not null,"
+                    + " crypto_symbol varchar(255) not null, type varchar(255), quantity numeric(38,18) not null,"
+                    + " price_per_unit numeric(38,18), total_price numeric(38,18), transaction_date timestamp(6))");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into transaction values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            BigDecimal quantity = new BigDecimal("0.5");
+            BigDecimal price = new BigDecimal("30000");
+            BigDecimal total = new BigDecimal("15000");
+            for (long id = 1; id <= rows; id++) {
+                long account = 1 + (id - 1) % accounts;
+                insert.setLong(1, id);
+                insert.setLong(2, account);
+                insert.setString(3, SYMBOLS[(int) (((id - 1) / accounts) % SYMBOLS.length)]);
+                insert.setString(4, id % 2 == 0 ? "BUY" : "SELL");
+                insert.setBigDecimal(5, quantity);
+                insert.setBigDecimal(6, price);
+                insert.setBigDecimal(7, total);
+                insert.setTimestamp(8, new Timestamp(START + id * 100));
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        // Indexes built after loading, as a bulk import would.
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index idx_transaction_account_date"
+                    + " on transaction (account_id, transaction_date desc, id desc)");
+            statement.execute("create index idx_transaction_account_symbol_date"
+                    + " on transaction (account_id, crypto_symbol, transaction_date desc, id desc)");
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.cryptotradingplatform.benchmark;
+
+import com.example.cryptotradingplatform.history.Tick;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshot;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshotCache;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.wire.SbeCodec;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// CPU per message of JSON against SbeCodec's binary encoding, for the three messages both are offered in:
+// the price snapshot of every pair, a page of 1000 history ticks and a batch of 10 trades. JSON goes
+// through Jackson as Spring's converters and a typical bot do, except the snapshot, which is pre-encoded
+// by PriceSnapshotCache in both forms; its cost is the client's decoding. The size of each message in
+// both encodings is printed once at setup.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<TradeRequest>> TRADES = new TypeReference<>() {
+    };
+
+    // Writes trades as a client would, without the derived "complete" property.
+    private final ObjectMapper objectMapper = new ObjectMapper().addMixIn(TradeRequest.class, ClientTrade.class);
+    private PriceSnapshot snapshot;
+    private List<Tick> ticks;
+    private List<TradeRequest> trades;
+    private byte[] ticksJson;
+    private byte[] ticksSbe;
+    private byte[] tradesJson;
+    private byte[] tradesSbe;
+
+    @Setup
+    public void setUp() throws IOException {
+        PriceBook priceBook = new PriceBook();
+        for (int id = 0; id < priceBook.size(); id++) {
+            priceBook.update(id, 27999.5 + id, 28000.5 + id, 28000.13 + id, 5.0, System.currentTimeMillis());
+        }
+        snapshot = new PriceSnapshotCache(priceBook).get();
+
+        ticks = new ArrayList<>();
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 1000; i++) {
+            double last = 67341.4 + (i % 37) * 0.1;
+            ticks.add(new Tick(timestamp + i * 250L, last - 0.1, last + 0.1, last, 1543.66 + i * 0.01));
+        }
+        ticksJson = objectMapper.writeValueAsBytes(ticks);
+        ticksSbe = encodeTicksSbe();
+
+        trades = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            trades.add(new TradeRequest(i % 2 == 0 ? TransactionType.BUY : TransactionType.SELL,
+                    i % 3 == 0 ? "ETH" : "BTC", new BigDecimal("0.0125"), new BigDecimal("67341.40")));
+        }
+        tradesJson = objectMapper.writeValueAsBytes(trades);
+        tradesSbe = SbeCodec.encodeTrades(trades);
+
+        System.out.printf("%nBytes per message, JSON / SBE: prices %d / %d, 1000 ticks %d / %d, 10 trades %d / %d%n",
+                snapshot.getJson().length, snapshot.getSbe().length, ticksJson.length, ticksSbe.length,
+                tradesJson.length, tradesSbe.length);
+    }
+
+    @Benchmark
+    public double pricesDecodeJson() throws IOException {
+        double sum = 0;
+        Iterator<Map.Entry<String, JsonNode>> prices = objectMapper.readTree(snapshot.getJson()).fields();
+        while (prices.hasNext()) {
+            sum += prices.next().getValue().doubleValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double pricesDecodeSbe() {
+        double[] sum = new double[1];
+        SbeCodec.decodePrices(snapshot.getSbe(), (message, offset, length, last) -> sum[0] += last);
+        return sum[0];
+    }
+
+    @Benchmark
+    public byte[] ticksEncodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(ticks);
+    }
+
+    @Benchmark
+    public byte[] ticksEncodeSbe() {
+        return encodeTicksSbe();
+    }
+
+    @Benchmark
+    public double ticksDecodeJson() throws IOException {
+        double sum = 0;
+        for (JsonNode tick : objectMapper.readTree(ticksJson)) {
+            sum += tick.get("last").doubleValue() + tick.get("timestamp").longValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double ticksDecodeSbe() {
+        double[] sum = new double[1];
+        SbeCodec.decodeTicks(ticksSbe, (timestamp, bid, ask, last, volume) -> sum[0] += last + timestamp);
+        return sum[0];
+    }
+
+    @Benchmark
+    public byte[] tradesEncodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(trades);
+    }
+
+    @Benchmark
+    public byte[] tradesEncodeSbe() {
+        return SbeCodec.encodeTrades(trades);
+    }
+
+    @Benchmark
+    public List<TradeRequest> tradesDecodeJson() throws IOException {
+        return objectMapper.readValue(tradesJson, TRADES);
+    }
+
+    @Benchmark
+    public List<TradeRequest> tradesDecodeSbe() {
+        return SbeCodec.decodeTrades(tradesSbe);
+    }
+
+    @JsonIgnoreProperties("complete")
+    private interface ClientTrade {
+    }
+
+    //As the ticks endpoint does, straight from the values a history scan passes.
+    private byte[] encodeTicksSbe() {
+        SbeCodec.TicksWriter writer = new SbeCodec.TicksWriter(ticks.size());
+        for (Tick tick : ticks) {
+            writer.onTick(tick.getTimestamp(), tick.getBid(), tick.getAsk(), tick.getLast(), tick.getVolume());
+        }
+        return writer.toBytes("BTC/USD");
+    }
+}
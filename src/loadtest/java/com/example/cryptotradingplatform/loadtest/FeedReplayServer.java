@@ -0,0 +1,312 @@
+package com.example.cryptotradingplatform.loadtest;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for the Kraken v2 ticker channel that pushes frames as fast as the speed factor asks:
+// either a recording, replayed in a loop, or a seeded random walk of every pair, the same on every run.
+// A recording holds one frame per line, optionally after its capture time in epoch millis and a tab; the
+// gaps between capture times are replayed divided by the speed, and frames without one go out at `rate`
+// per second times the speed. Subscribes are answered as Kraken does, with an acknowledgement and the
+// latest frame of each requested pair as its snapshot, and a heartbeat goes out every second.
+// Each ticker sent is handed to the listener with the nanoTime it left, to time when it becomes visible.
+final class FeedReplayServer extends WebSocketServer {
+
+    private static final Pattern SYMBOL = Pattern.compile("\"symbol\":\"([^\"]+)\"");
+    private static final Pattern SYMBOL_LIST = Pattern.compile("\"symbol\":\\[([^]]*)]");
+    private static final Pattern LAST = Pattern.compile("\"last\":(-?[0-9.Ee+-]+)");
+    private static final String HEARTBEAT = "{\"channel\":\"heartbeat\"}";
+
+    //Told of every ticker frame as it is sent, with its pair, last price and the nanoTime.
+    interface Listener {
+        void onSent(String symbol, double last, long sentAt);
+    }
+
+    private final Frames frames;
+    private final Listener listener;
+    private final Map<WebSocket, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, String> latest = new ConcurrentHashMap<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final AtomicLong sent = new AtomicLong();
+    private final Thread replay = new Thread(this::replay, "feed-replay");
+    private volatile double speed = 1;
+    private volatile boolean running;
+
+    private FeedReplayServer(Frames frames, Listener listener) {
+        super(new InetSocketAddress("127.0.0.1", 0));
+        this.frames = frames;
+        this.listener = listener;
+        setReuseAddr(true);
+        setTcpNoDelay(true);
+        for (String frame : frames.initial()) {
+            Matcher symbol = SYMBOL.matcher(frame);
+            if (symbol.find()) {
+                latest.put(symbol.group(1), frame);
+            }
+        }
+    }
+
+    //Replays the recording at the given path.
+    static FeedReplayServer recorded(Path recording, double rate, Listener listener) throws IOException {
+        return new FeedReplayServer(new Recording(Files.readAllLines(recording, StandardCharsets.UTF_8), rate), listener);
+    }
+
+    //Sends a random walk of the given pairs' prices from the seed.
+    static FeedReplayServer synthetic(List<String> pairs, long seed, double rate, Listener listener) {
+        return new FeedReplayServer(new RandomWalk(pairs, seed, rate), listener);
+    }
+
+    //Starts listening and replaying; returns the URL to connect to.
+    String begin() throws InterruptedException {
+        running = true;
+        start();
+        started.await(5, TimeUnit.SECONDS);
+        replay.setDaemon(true);
+        replay.start();
+        return "ws://127.0.0.1:" + getPort();
+    }
+
+    void end() throws InterruptedException {
+        running = false;
+        replay.interrupt();
+        stop(1000);
+    }
+
+    //Multiplies the recorded pace, or the base rate, by the factor from the next frame on.
+    void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
+    //Ticker frames sent so far, counting each connection sent to once.
+    long sent() {
+        return sent.get();
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket connection, ClientHandshake handshake) {
+        connection.send("{\"channel\":\"status\",\"type\":\"update\",\"data\":[{\"system\":\"online\",\"api_version\":\"v2\"}]}");
+    }
+
+    @Override
+    public void onMessage(WebSocket connection, String message) {
+        Matcher list = SYMBOL_LIST.matcher(message);
+        if (!message.contains("\"subscribe\"") || !list.find()) {
+            return;
+        }
+        Set<String> symbols = ConcurrentHashMap.newKeySet();
+        for (String symbol : list.group(1).split(",")) {
+            symbols.add(symbol.trim().replace("\"", ""));
+        }
+        for (String symbol : symbols) {
+            connection.send("{\"method\":\"subscribe\",\"result\":{\"channel\":\"ticker\",\"symbol\":\"" + symbol
+                    + "\"},\"success\":true}");
+            String snapshot = latest.get(symbol);
+            if (snapshot != null) {
+                connection.send(snapshot.replace("\"type\":\"update\"", "\"type\":\"snapshot\""));
+            }
+        }
+        subscriptions.put(connection, symbols);
+    }
+
+    @Override
+    public void onClose(WebSocket connection, int code, String reason, boolean remote) {
+        subscriptions.remove(connection);
+    }
+
+    @Override
+    public void onError(WebSocket connection, Exception e) {
+    }
+
+    //Sends each frame when it falls due. A sender that falls more than 100 ms behind, because the speed is
+    //more than it can push, stops trying to catch up and sends as fast as it can.
+    private void replay() {
+        long due = System.nanoTime();
+        long nextHeartbeat = due + 1_000_000_000L;
+        while (running) {
+            Frames.Next next = frames.next();
+            due += (long) (next.gapNanos() / speed);
+            long now = System.nanoTime();
+            if (now - due > 100_000_000L) {
+                due = now;
+            }
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+                if (!running) {
+                    return;
+                }
+            }
+            if (now >= nextHeartbeat) {
+                sendTo(HEARTBEAT, null);
+                nextHeartbeat = now + 1_000_000_000L;
+            }
+            send(next.frame());
+        }
+    }
+
+    private void send(String frame) {
+        Matcher symbol = SYMBOL.matcher(frame);
+        if (!symbol.find()) {
+            sendTo(frame, null);
+            return;
+        }
+        String target = symbol.group(1);
+        latest.put(target, frame);
+        Matcher last = LAST.matcher(frame);
+        // The listener hears first, so the price cannot show up before it knows when it was sent.
+        if (last.find()) {
+            listener.onSent(target, Double.parseDouble(last.group(1)), System.nanoTime());
+        }
+        sendTo(frame, target);
+    }
+
+    //Sends the frame to every connection subscribed to the symbol, or to all if it is null.
+    private void sendTo(String frame, String symbol) {
+        for (Map.Entry<WebSocket, Set<String>> subscription : subscriptions.entrySet()) {
+            WebSocket connection = subscription.getKey();
+            if (connection.isOpen() && (symbol == null || subscription.getValue().contains(symbol))) {
+                connection.send(frame);
+                if (symbol != null) {
+                    sent.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    //The frames to send, in order, each with the time to wait before it at speed 1. Used by the replay
+    //thread only.
+    private interface Frames {
+
+        record Next(String frame, long gapNanos) {
+        }
+
+        //A frame per pair to answer subscribes with before anything has been sent.
+        List<String> initial();
+
+        Next next();
+    }
+
+    private static final class Recording implements Frames {
+
+        private final List<String> frames = new ArrayList<>();
+        private final List<Long> capturedAt = new ArrayList<>();
+        private final long intervalNanos;
+        private int next;
+
+        private Recording(List<String> lines, double rate) {
+            for (String line : lines) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                frames.add((tab < 0 ? line : line.substring(tab + 1)).trim());
+                capturedAt.add(tab < 0 ? null : Long.valueOf(line.substring(0, tab).trim()));
+            }
+            if (frames.isEmpty()) {
+                throw new IllegalArgumentException("The recording has no frames");
+            }
+            this.intervalNanos = (long) (1e9 / rate);
+        }
+
+        @Override
+        public List<String> initial() {
+            return frames;
+        }
+
+        @Override
+        public Next next() {
+            int index = next;
+            next = (next + 1) % frames.size();
+            Long at = capturedAt.get(index);
+            Long before = index == 0 ? null : capturedAt.get(index - 1);
+            long gap = at != null && before != null ? Math.max(at - before, 0) * 1_000_000L : intervalNanos;
+            return new Next(frames.get(index), gap);
+        }
+    }
+
+    //Every pair in turn takes a step of a random walk, in whole ticks of about a millionth of its price so
+    //that successive prices of a pair differ and print exactly.
+    private static final class RandomWalk implements Frames {
+
+        private static final Map<String, Double> START = Map.of(
+                "BTC/USD", 67341.4, "ETH/USD", 3512.21, "SOL/USD", 171.44, "XRP/USD", 0.52315,
+                "ADA/USD", 0.4521, "DOGE/USD", 0.16132, "LTC/USD", 84.27, "SHIB/USD", 0.00002431);
+
+        private final List<String> pairs;
+        private final SplittableRandom random;
+        private final long intervalNanos;
+        private final int[] decimals;
+        private final long[] ticks;
+        private final long[] volume;
+        private int next;
+
+        private RandomWalk(List<String> pairs, long seed, double rate) {
+            this.pairs = pairs;
+            this.random = new SplittableRandom(seed);
+            this.intervalNanos = (long) (1e9 / rate);
+            this.decimals = new int[pairs.size()];
+            this.ticks = new long[pairs.size()];
+            this.volume = new long[pairs.size()];
+            for (int i = 0; i < pairs.size(); i++) {
+                double start = START.getOrDefault(pairs.get(i), 10.0 + i);
+                decimals[i] = Math.max(0, 6 - (int) Math.floor(Math.log10(start)));
+                ticks[i] = Math.round(start * Math.pow(10, decimals[i]));
+                volume[i] = 1_000_000;
+            }
+        }
+
+        @Override
+        public List<String> initial() {
+            List<String> initial = new ArrayList<>();
+            for (int i = 0; i < pairs.size(); i++) {
+                initial.add(frame(i));
+            }
+            return initial;
+        }
+
+        @Override
+        public Next next() {
+            int i = next;
+            next = (next + 1) % pairs.size();
+            long step = Math.round(random.nextGaussian() * 3);
+            ticks[i] = Math.max(ticks[i] + (step == 0 ? (random.nextBoolean() ? 1 : -1) : step), 2);
+            volume[i] += random.nextInt(1, 1000);
+            return new Next(frame(i), intervalNanos);
+        }
+
+        private String frame(int i) {
+            return "{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[{\"symbol\":\"" + pairs.get(i)
+                    + "\",\"bid\":" + price(ticks[i] - 1, i) + ",\"bid_qty\":1.5,\"ask\":" + price(ticks[i] + 1, i)
+                    + ",\"ask_qty\":2.0,\"last\":" + price(ticks[i], i) + ",\"volume\":"
+                    + BigDecimal.valueOf(volume[i], 2).toPlainString() + "}]}";
+        }
+
+        private String price(long ticks, int i) {
+            return BigDecimal.valueOf(ticks, decimals[i]).toPlainString();
+        }
+    }
+}
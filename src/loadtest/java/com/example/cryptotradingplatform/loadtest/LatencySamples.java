@@ -0,0 +1,42 @@
+package com.example.cryptotradingplatform.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Latencies in nanoseconds from any number of threads, kept whole so percentiles are exact; anything past
+// the capacity is counted but not kept.
+final class LatencySamples {
+
+    private final long[] nanos;
+    private final AtomicInteger size = new AtomicInteger();
+
+    LatencySamples(int capacity) {
+        this.nanos = new long[capacity];
+    }
+
+    void add(long latency) {
+        int index = size.getAndIncrement();
+        if (index < nanos.length) {
+            nanos[index] = latency;
+        }
+    }
+
+    long count() {
+        return size.get();
+    }
+
+    void reset() {
+        size.set(0);
+    }
+
+    //The percentile in milliseconds, NaN if there are no samples.
+    double percentile(double quantile) {
+        int count = Math.min(size.get(), nanos.length);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) (quantile * count))] / 1e6;
+    }
+}
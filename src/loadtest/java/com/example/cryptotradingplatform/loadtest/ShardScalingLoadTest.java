@@ -0,0 +1,312 @@
+package com.example.cryptotradingplatform.loadtest;
+
+import com.example.cryptotradingplatform.CryptoTradingPlatformApplication;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import com.example.cryptotradingplatform.sharding.HashRing;
+import com.example.cryptotradingplatform.sharding.ShardMembership;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Throughput of account sharding as nodes join, with every node started in this JVM on its own in-memory
+// H2 database whose statements each cost db-latency-ms (SlowDataSource). node-1 starts holding all the
+// accounts; each step starts the nodes it adds and joins them through node-1, which moves their share of
+// the accounts over, then `clients` closed-loop clients spread evenly over the nodes, as behind a load
+// balancer, buy a little of one asset for a random account. The report gives trades per second, latency
+// and the share of trades forwarded to another node. At the end every account must be stored on exactly
+// the node the ring gives it, and the nodes' ledgers must hold every accepted trade.
+//
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.main=ShardScalingLoadTest -Dloadtest.args="nodes=1,2,4"
+//
+// All nodes share this machine's CPUs, so the numbers show the routing's cost and whether the per-node
+// write path stops being the limit, not what separate machines would add. Options, with their defaults:
+//   nodes=1,2,4 clients=64 seconds=15 warmup-seconds=5 db-latency-ms=2 accounts=2000
+public final class ShardScalingLoadTest {
+
+    private static final int MAX_SAMPLES = 4_000_000;
+
+    private final Map<String, String> options;
+    private final List<Node> nodes = new ArrayList<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    private final AtomicLong accepted = new AtomicLong();
+    private List<Long> accountIds;
+
+    private ShardScalingLoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "nodes", "1,2,4",
+                "clients", "64",
+                "seconds", "15",
+                "warmup-seconds", "5",
+                "db-latency-ms", "2",
+                "accounts", "2000"));
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (!options.containsKey(option[0]) || option.length != 2) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+        ShardScalingLoadTest test = new ShardScalingLoadTest(options);
+        try {
+            test.run();
+        } finally {
+            test.nodes.forEach(node -> node.context.close());
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        List<String> results = new ArrayList<>();
+        for (String step : options.get("nodes").split(",")) {
+            int count = Integer.parseInt(step.trim());
+            if (count < nodes.size() + (nodes.isEmpty() ? 1 : 0)) {
+                throw new IllegalArgumentException("Steps must not remove nodes: " + options.get("nodes"));
+            }
+            while (nodes.size() < count) {
+                addNode();
+            }
+            results.add(measure());
+        }
+        verify();
+
+        System.out.printf("%n%d clients, %d accounts, %s ms per database statement%n",
+                Integer.parseInt(options.get("clients")), accountIds.size(), options.get("db-latency-ms"));
+        System.out.printf("%-6s %10s %21s %10s %8s%n", "nodes", "trades/s", "p50/p99 ms", "forwarded", "errors");
+        results.forEach(System.out::println);
+    }
+
+    //Starts the next node with the membership it will have once joined, then joins it through node-1.
+    private void addNode() throws Exception {
+        String name = "node-" + (nodes.size() + 1);
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        StringJoiner members = new StringJoiner(",");
+        for (Node node : nodes) {
+            members.add(node.name + "=" + node.url);
+        }
+        URI url = URI.create("http://127.0.0.1:" + port);
+        members.add(name + "=" + url);
+
+        SlowDataSource[] dataSource = new SlowDataSource[1];
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CryptoTradingPlatformApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                if (bean instanceof DataSource target && !(bean instanceof SlowDataSource)) {
+                                    dataSource[0] = new SlowDataSource(target);
+                                    return dataSource[0];
+                                }
+                                return bean;
+                            }
+                        }))
+                .run(applicationArguments(name, port, members.toString()));
+        Node node = new Node(name, url, context);
+        nodes.add(node);
+        if (nodes.size() == 1) {
+            accountIds = seed(context, Integer.parseInt(options.get("accounts")));
+        } else {
+            long start = System.nanoTime();
+            HttpResponse<String> moved = client.send(HttpRequest.newBuilder(
+                            nodes.get(0).url.resolve("/internal/shards/join?node=" + name + "&url=" + url))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            if (moved.statusCode() != 200) {
+                throw new IllegalStateException("Joining " + name + " failed: " + moved.body());
+            }
+            System.out.printf("%s joined in %d ms, accounts handed off: %s%n", name,
+                    (System.nanoTime() - start) / 1_000_000, moved.body());
+        }
+        dataSource[0].setLatencyMillis(Long.parseLong(options.get("db-latency-ms")));
+    }
+
+    private static String[] applicationArguments(String name, int port, String members) {
+        return new String[]{
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:shard-" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--trading.sharding.enabled=true",
+                "--trading.sharding.node-id=" + name,
+                "--trading.sharding.nodes=" + members,
+                "--trading.execution.live-price=false",
+                "--trading.market-data.enabled=false",
+                "--trading.history.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.cryptotradingplatform.sharding=INFO"
+        };
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext context, int accounts) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        List<Account> created = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            created.add(new Account(Amount.of(new BigDecimal("1000000000")), new Timestamp(System.currentTimeMillis())));
+        }
+        return accountRepository.saveAll(created).stream().map(Account::getId).toList();
+    }
+
+    private String measure() throws InterruptedException {
+        int clients = Integer.parseInt(options.get("clients"));
+        System.out.printf("%d nodes: warming up%n", nodes.size());
+        load(clients, Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))), null);
+        System.out.printf("%d nodes: measuring%n", nodes.size());
+        Samples samples = new Samples();
+        double seconds = load(clients, Duration.ofSeconds(Long.parseLong(options.get("seconds"))), samples);
+        return String.format("%-6d %10.0f %10.1f/%-10.1f %9.1f%% %8d", nodes.size(), samples.count() / seconds,
+                samples.percentile(0.50), samples.percentile(0.99),
+                100.0 * samples.forwarded.get() / Math.max(samples.count(), 1), samples.errors.get());
+    }
+
+    //Runs the clients for the duration, recording into samples if given, and returns the seconds it took.
+    private double load(int clients, Duration duration, Samples samples) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Node node = nodes.get(i % nodes.size());
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    trade(node, samples);
+                }
+            }, "client-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private void trade(Node node, Samples samples) {
+        long accountId = accountIds.get(ThreadLocalRandom.current().nextInt(accountIds.size()));
+        HttpRequest request = HttpRequest.newBuilder(node.url.resolve("/api/account/buy"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("accountId=" + accountId
+                        + "&cryptoSymbol=BTC&quantity=0.0001&pricePerUnit=30000"))
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 200) {
+                accepted.incrementAndGet();
+                if (samples != null) {
+                    samples.add(System.nanoTime() - start,
+                            !response.headers().firstValue("X-Shard-Node").orElse(node.name).equals(node.name));
+                }
+                return;
+            }
+        } catch (Exception e) {
+            // Counted below.
+        }
+        if (samples != null) {
+            samples.errors.incrementAndGet();
+        }
+    }
+
+    //Every account on exactly the node the ring gives it, and one ledger row per accepted trade.
+    private void verify() throws InterruptedException {
+        HashRing ring = nodes.get(0).context.getBean(ShardMembership.class).view().ring();
+        Map<Long, String> storedOn = new HashMap<>();
+        long ledger = 0;
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (true) {
+            storedOn.clear();
+            ledger = 0;
+            for (Node node : nodes) {
+                for (Long accountId : node.context.getBean(AccountRepository.class).findAllIds()) {
+                    String other = storedOn.put(accountId, node.name);
+                    if (other != null) {
+                        throw new IllegalStateException("Account " + accountId + " is on " + other + " and " + node.name);
+                    }
+                    if (!ring.owner(accountId).equals(node.name)) {
+                        throw new IllegalStateException("Account " + accountId + " is on " + node.name
+                                + " but belongs to " + ring.owner(accountId));
+                    }
+                }
+                ledger += node.context.getBean(TransactionRepository.class).count();
+            }
+            // Trades are written behind; wait for the last ones.
+            if (ledger >= accepted.get() || System.currentTimeMillis() > deadline) {
+                break;
+            }
+            Thread.sleep(200);
+        }
+        if (storedOn.size() != accountIds.size() || ledger != accepted.get()) {
+            throw new IllegalStateException("Stored " + storedOn.size() + " of " + accountIds.size() + " accounts and "
+                    + ledger + " ledger rows for " + accepted.get() + " accepted trades");
+        }
+        System.out.printf("%nVerified: %d accounts each on its owner, %d ledger rows for %d accepted trades%n",
+                storedOn.size(), ledger, accepted.get());
+    }
+
+    private record Node(String name, URI url, ConfigurableApplicationContext context) {
+    }
+
+    //Latencies in nanoseconds; anything past MAX_SAMPLES is dropped.
+    private static final class Samples {
+
+        private final long[] nanos = new long[MAX_SAMPLES];
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong forwarded = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private void add(long latency, boolean wasForwarded) {
+            int index = size.getAndIncrement();
+            if (index < nanos.length) {
+                nanos[index] = latency;
+            }
+            if (wasForwarded) {
+                forwarded.incrementAndGet();
+            }
+        }
+
+        private long count() {
+            return size.get();
+        }
+
+        //The percentile in milliseconds.
+        private double percentile(double quantile) {
+            int count = Math.min(size.get(), nanos.length);
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) (quantile * count))] / 1e6;
+        }
+    }
+}
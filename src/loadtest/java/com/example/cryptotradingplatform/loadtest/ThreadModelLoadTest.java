@@ -0,0 +1,294 @@
+package com.example.cryptotradingplatform.loadtest;
+
+import com.example.cryptotradingplatform.CryptoTradingPlatformApplication;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load test of the REST layer on Tomcat's platform thread pool against one virtual thread per
+// request (spring.threads.virtual.enabled). Each mode starts the application in process on an in-memory H2
+// database whose every statement and commit costs a simulated round trip (SlowDataSource), seeds a ledger,
+// and has `clients` connections each send its next request as soon as the last one answers. Half the
+// requests page an account's transactions and need the database; the other half read the account's
+// in-memory portfolio, and show how long a request that needs no connection waits behind ones that do.
+//
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--modes=platform,virtual --clients=1000"
+//
+// Virtual threads need Java 21; on an older JVM that mode is skipped. Options, with their defaults:
+//   --modes=platform,virtual --clients=400 --seconds=20 --warmup-seconds=10 --db-latency-ms=20
+//   --accounts=200 --transactions-per-account=100 --history-share=0.5
+public final class ThreadModelLoadTest {
+
+    private static final int MAX_SAMPLES = 4_000_000;
+
+    private ThreadModelLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "modes", "platform,virtual",
+                "clients", "400",
+                "seconds", "20",
+                "warmup-seconds", "10",
+                "db-latency-ms", "20",
+                "accounts", "200",
+                "transactions-per-account", "100",
+                "history-share", "0.5"));
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (!options.containsKey(option[0]) || option.length != 2) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+
+        List<String> results = new ArrayList<>();
+        for (String mode : options.get("modes").split(",")) {
+            if (!mode.equals("platform") && !mode.equals("virtual")) {
+                throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+            if (mode.equals("virtual") && Runtime.version().feature() < 21) {
+                results.add(String.format("%-9s skipped: virtual threads need Java 21, this is Java %d",
+                        mode, Runtime.version().feature()));
+                continue;
+            }
+            results.add(run(mode, options));
+        }
+
+        System.out.printf("%n%d clients, %s ms per database round trip, %s%% history requests%n",
+                Integer.parseInt(options.get("clients")), options.get("db-latency-ms"),
+                Math.round(Double.parseDouble(options.get("history-share")) * 100));
+        System.out.printf("%-9s %9s %21s %21s %8s%n", "mode", "req/s", "history p50/p99 ms",
+                "portfolio p50/p99 ms", "errors");
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static String run(String mode, Map<String, String> options) throws Exception {
+        int clients = Integer.parseInt(options.get("clients"));
+        int accounts = Integer.parseInt(options.get("accounts"));
+        double historyShare = Double.parseDouble(options.get("history-share"));
+
+        SlowDataSource[] dataSource = new SlowDataSource[1];
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CryptoTradingPlatformApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                if (bean instanceof DataSource target && !(bean instanceof SlowDataSource)) {
+                                    dataSource[0] = new SlowDataSource(target);
+                                    return dataSource[0];
+                                }
+                                return bean;
+                            }
+                        }))
+                .run(applicationArguments(mode));
+        try {
+            List<Long> accountIds = seed(context, accounts, Integer.parseInt(options.get("transactions-per-account")));
+            dataSource[0].setLatencyMillis(Long.parseLong(options.get("db-latency-ms")));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            Load load = new Load(port, accountIds, historyShare, clients);
+            // Builds every portfolio once, so the portfolio requests measured afterwards are in memory.
+            for (Long accountId : accountIds) {
+                load.send(load.portfolio(accountId));
+            }
+            System.out.printf("%s: warming up with %d clients%n", mode, clients);
+            load.run(Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))), false);
+            System.out.printf("%s: measuring%n", mode);
+            double seconds = load.run(Duration.ofSeconds(Long.parseLong(options.get("seconds"))), true);
+
+            return String.format("%-9s %9.0f %10.1f/%-10.1f %10.1f/%-10.1f %8d", mode,
+                    (load.history.count() + load.portfolio.count()) / seconds,
+                    load.history.percentile(0.50), load.history.percentile(0.99),
+                    load.portfolio.percentile(0.50), load.portfolio.percentile(0.99), load.errors.get());
+        } finally {
+            context.close();
+        }
+    }
+
+    //Command-line arguments, which take precedence over application.properties.
+    private static String[] applicationArguments(String mode) {
+        return new String[]{
+                "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--trading.history.enabled=false",
+                "--trading.market-data.url=ws://127.0.0.1:9",
+                "--trading.market-data.sessions=1",
+                "--trading.market-data.reconnect.initial-backoff-ms=60000",
+                "--trading.market-data.reconnect.max-backoff-ms=60000",
+                "--logging.level.root=WARN"
+        };
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext context, int accounts, int transactionsPerAccount) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+        List<Long> accountIds = new ArrayList<>();
+        long start = System.currentTimeMillis() - 86_400_000L;
+        for (int a = 0; a < accounts; a++) {
+            Account account = accountRepository.save(new Account(Amount.of(new BigDecimal("100000")),
+                    new Timestamp(start)));
+            List<Transaction> ledger = new ArrayList<>();
+            for (int i = 0; i < transactionsPerAccount; i++) {
+                Transaction transaction = new Transaction(account, i % 2 == 0 ? "BTC" : "ETH", TransactionType.BUY,
+                        Amount.of(new BigDecimal("0.01")), Amount.of(new BigDecimal("30000")),
+                        Amount.of(new BigDecimal("300")));
+                transaction.setTransactionDate(new Timestamp(start + i * 1_000L));
+                ledger.add(transaction);
+            }
+            transactionRepository.saveAll(ledger);
+            accountIds.add(account.getId());
+        }
+        return accountIds;
+    }
+
+    //Closed-loop clients over one HttpClient, each chaining its next request onto the last response.
+    private static final class Load {
+
+        private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).build();
+        private final String base;
+        private final List<Long> accountIds;
+        private final double historyShare;
+        private final int clients;
+        private final Samples history = new Samples();
+        private final Samples portfolio = new Samples();
+        private final AtomicLong errors = new AtomicLong();
+        private volatile boolean running;
+        private volatile boolean measuring;
+
+        private Load(int port, List<Long> accountIds, double historyShare, int clients) {
+            this.base = "http://127.0.0.1:" + port + "/api/account/";
+            this.accountIds = accountIds;
+            this.historyShare = historyShare;
+            this.clients = clients;
+        }
+
+        private HttpRequest history(Long accountId) {
+            return HttpRequest.newBuilder(URI.create(base + accountId + "/transactions?limit=20"))
+                    .timeout(Duration.ofSeconds(30)).build();
+        }
+
+        private HttpRequest portfolio(Long accountId) {
+            return HttpRequest.newBuilder(URI.create(base + accountId + "/portfolio"))
+                    .timeout(Duration.ofSeconds(30)).build();
+        }
+
+        private void send(HttpRequest request) throws Exception {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+            }
+        }
+
+        //Runs the clients for the duration and returns the seconds it took for all of them to stop.
+        private double run(Duration duration, boolean measure) throws InterruptedException {
+            history.reset();
+            portfolio.reset();
+            errors.set(0);
+            CountDownLatch stopped = new CountDownLatch(clients);
+            measuring = measure;
+            running = true;
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                next(stopped);
+            }
+            Thread.sleep(duration.toMillis());
+            running = false;
+            long end = System.nanoTime();
+            stopped.await();
+            measuring = false;
+            return (end - start) / 1e9;
+        }
+
+        private void next(CountDownLatch stopped) {
+            if (!running) {
+                stopped.countDown();
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Long accountId = accountIds.get(random.nextInt(accountIds.size()));
+            boolean isHistory = random.nextDouble() < historyShare;
+            Samples samples = isHistory ? history : portfolio;
+            long start = System.nanoTime();
+            client.sendAsync(isHistory ? history(accountId) : portfolio(accountId),
+                            HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (measuring && running) {
+                            if (failure != null || response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            } else {
+                                samples.add(System.nanoTime() - start);
+                            }
+                        }
+                        next(stopped);
+                    });
+        }
+    }
+
+    //Latencies in nanoseconds; anything past MAX_SAMPLES is dropped.
+    private static final class Samples {
+
+        private final long[] nanos = new long[MAX_SAMPLES];
+        private final AtomicInteger size = new AtomicInteger();
+
+        private void add(long latency) {
+            int index = size.getAndIncrement();
+            if (index < nanos.length) {
+                nanos[index] = latency;
+            }
+        }
+
+        private long count() {
+            return size.get();
+        }
+
+        private void reset() {
+            size.set(0);
+        }
+
+        //The percentile in milliseconds.
+        private double percentile(double quantile) {
+            int count = Math.min(size.get(), nanos.length);
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) (quantile * count))] / 1e6;
+        }
+    }
+}
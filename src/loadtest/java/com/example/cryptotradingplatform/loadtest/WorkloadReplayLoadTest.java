@@ -0,0 +1,384 @@
+package com.example.cryptotradingplatform.loadtest;
+
+import com.example.cryptotradingplatform.CryptoTradingPlatformApplication;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// End-to-end run of the whole service against a replayed market: a local fake Kraken feed
+// (FeedReplayServer) pushes ticker frames into the running application at `speeds` times their recorded
+// pace, or of a seeded random walk, while `clients` closed-loop clients buy, sell and read /api/cryptos.
+// Trades go to accounts drawn from a Zipf distribution of exponent `skew` over a shuffled ranking, so a
+// few hot accounts take most of them (0 spreads them evenly). The feed and every client's choices come
+// from `seed`, so reruns offer the same workload. `watchers` clients poll /api/cryptos with If-None-Match
+// and time each price from the moment the feed sent it to the first response that shows it; a tick a
+// later one replaces before any poll returns it is never visible, and the seen column gives the share that
+// was. The application runs in process on H2 (SlowDataSource adds db-latency-ms per statement), with live
+// pricing and tick history, as deployed.
+//
+//   mvn -Ploadtest test-compile exec:exec -Dloadtest.main=WorkloadReplayLoadTest -Dloadtest.args="speeds=1,10,100 skew=1.2"
+//
+// A recording is a file of Kraken v2 frames, one per line, each optionally after its capture time in
+// epoch millis and a tab. Options, with their defaults:
+//   speeds=1,10,100 rate=20 recording= seed=42 clients=32 watchers=1 seconds=15 warmup-seconds=5
+//   accounts=1000 skew=1.0 buy-share=0.4 sell-share=0.2 symbols=BTC,ETH,SOL db-latency-ms=1
+public final class WorkloadReplayLoadTest {
+
+    private static final int MAX_SAMPLES = 4_000_000;
+    private static final Pattern PRICE = Pattern.compile("\"([^\"]+)\":\\s*(-?[0-9.Ee+-]+)");
+
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    private final Map<String, Map<Long, Long>> pending = new ConcurrentHashMap<>();
+    private final LatencySamples tickToVisible = new LatencySamples(MAX_SAMPLES);
+    private final LatencySamples trades = new LatencySamples(MAX_SAMPLES);
+    private final LatencySamples prices = new LatencySamples(MAX_SAMPLES);
+    private final AtomicLong errors = new AtomicLong();
+    private final Map<Integer, AtomicLong> errorsByStatus = new ConcurrentHashMap<>();
+    private volatile boolean measuring;
+    //nanoTime the measurement began; only ticks sent since count towards it.
+    private volatile long measuringSince;
+    private String base;
+    private List<Long> accountIds;
+    private double[] zipf;
+
+    private WorkloadReplayLoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.ofEntries(
+                Map.entry("speeds", "1,10,100"),
+                Map.entry("rate", "20"),
+                Map.entry("recording", ""),
+                Map.entry("seed", "42"),
+                Map.entry("clients", "32"),
+                Map.entry("watchers", "1"),
+                Map.entry("seconds", "15"),
+                Map.entry("warmup-seconds", "5"),
+                Map.entry("accounts", "1000"),
+                Map.entry("skew", "1.0"),
+                Map.entry("buy-share", "0.4"),
+                Map.entry("sell-share", "0.2"),
+                Map.entry("symbols", "BTC,ETH,SOL"),
+                Map.entry("db-latency-ms", "1")));
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (!options.containsKey(option[0]) || option.length != 2) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+        new WorkloadReplayLoadTest(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        long seed = Long.parseLong(options.get("seed"));
+        double rate = Double.parseDouble(options.get("rate"));
+        FeedReplayServer feed = options.get("recording").isEmpty()
+                ? FeedReplayServer.synthetic(PriceBook.SUBSCRIBED_PAIRS, seed, rate, this::onSent)
+                : FeedReplayServer.recorded(Path.of(options.get("recording")), rate, this::onSent);
+        String feedUrl = feed.begin();
+        Path history = Files.createTempDirectory("replay-history");
+
+        SlowDataSource[] dataSource = new SlowDataSource[1];
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CryptoTradingPlatformApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                if (bean instanceof DataSource target && !(bean instanceof SlowDataSource)) {
+                                    dataSource[0] = new SlowDataSource(target);
+                                    return dataSource[0];
+                                }
+                                return bean;
+                            }
+                        }))
+                .run(applicationArguments(feedUrl, history));
+        List<String> results = new ArrayList<>();
+        try {
+            base = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            accountIds = seed(context, Integer.parseInt(options.get("accounts")), symbols(), new SplittableRandom(seed));
+            zipf = zipf(accountIds.size(), Double.parseDouble(options.get("skew")));
+            dataSource[0].setLatencyMillis(Long.parseLong(options.get("db-latency-ms")));
+            awaitReady();
+            for (String speed : options.get("speeds").split(",")) {
+                feed.setSpeed(Double.parseDouble(speed));
+                results.add(measure(feed, speed.trim(), seed));
+            }
+        } finally {
+            context.close();
+            feed.end();
+            try (Stream<Path> files = Files.walk(history)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+
+        System.out.printf("%n%s feed at %s frames/s base rate, %d clients (%.0f%% buy, %.0f%% sell), %d accounts "
+                        + "at skew %s, %s ms per database statement%n",
+                options.get("recording").isEmpty() ? "Synthetic" : options.get("recording"), options.get("rate"),
+                Integer.parseInt(options.get("clients")), Double.parseDouble(options.get("buy-share")) * 100,
+                Double.parseDouble(options.get("sell-share")) * 100, accountIds.size(), options.get("skew"),
+                options.get("db-latency-ms"));
+        System.out.println("Latencies in milliseconds.");
+        System.out.printf("%-6s %8s %24s %6s %9s %24s %9s %10s %7s%n", "speed", "ticks/s", "tick->visible p50/p99/p999",
+                "seen", "trades/s", "trade p50/p99/p999", "prices/s", "prices p99", "errors");
+        results.forEach(System.out::println);
+        errorsByStatus.forEach((status, count) -> System.out.printf("  %s: %d%n",
+                status == 0 ? "no response" : "HTTP " + status, count.get()));
+    }
+
+    //Command-line arguments, which take precedence over application.properties.
+    private static String[] applicationArguments(String feedUrl, Path history) {
+        return new String[]{
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:replay;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--trading.market-data.url=" + feedUrl,
+                "--trading.history.dir=" + history,
+                "--logging.level.root=WARN"
+        };
+    }
+
+    private List<String> symbols() {
+        return Arrays.stream(options.get("symbols").split(",")).map(String::trim).toList();
+    }
+
+    //Accounts with cash and a holding of every traded symbol to sell from, in a seeded random order that
+    //is their popularity ranking.
+    private static List<Long> seed(ConfigurableApplicationContext context, int accounts, List<String> symbols,
+                                   SplittableRandom random) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        HoldingRepository holdingRepository = context.getBean(HoldingRepository.class);
+        List<Long> accountIds = new ArrayList<>();
+        for (int a = 0; a < accounts; a++) {
+            Account account = accountRepository.save(new Account(Amount.of(new BigDecimal("1000000000")),
+                    new Timestamp(System.currentTimeMillis())));
+            List<Holding> holdings = new ArrayList<>();
+            for (String symbol : symbols) {
+                holdings.add(new Holding(account, symbol, Amount.of(new BigDecimal("1000"))));
+            }
+            holdingRepository.saveAll(holdings);
+            accountIds.add(account.getId());
+        }
+        for (int i = accountIds.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            accountIds.set(i, accountIds.set(j, accountIds.get(i)));
+        }
+        return accountIds;
+    }
+
+    //Cumulative Zipf weights of ranks 1..n.
+    private static double[] zipf(int n, double skew) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        return cumulative;
+    }
+
+    private Long account(SplittableRandom random) {
+        double point = random.nextDouble() * zipf[zipf.length - 1];
+        int rank = Arrays.binarySearch(zipf, point);
+        return accountIds.get(Math.min(rank < 0 ? -rank - 1 : rank, zipf.length - 1));
+    }
+
+    //Waits until the readiness probe, which waits for market data, passes.
+    private void awaitReady() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/actuator/health/readiness")).build();
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Not ready after 60 s; is the feed reachable?");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private String measure(FeedReplayServer feed, String speed, long seed) throws InterruptedException {
+        System.out.printf("speed %s: warming up%n", speed);
+        load(Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))), seed);
+        tickToVisible.reset();
+        trades.reset();
+        prices.reset();
+        errors.set(0);
+        errorsByStatus.clear();
+        System.out.printf("speed %s: measuring%n", speed);
+        long ticksBefore = feed.sent();
+        measuringSince = System.nanoTime();
+        measuring = true;
+        double seconds = load(Duration.ofSeconds(Long.parseLong(options.get("seconds"))), seed);
+        measuring = false;
+        long ticks = feed.sent() - ticksBefore;
+        return String.format("%-6s %8.0f %24s %5.1f%% %9.0f %24s %9.0f %10.1f %7d", speed + "x", ticks / seconds,
+                percentiles(tickToVisible), 100.0 * tickToVisible.count() / Math.max(ticks, 1),
+                trades.count() / seconds, percentiles(trades), prices.count() / seconds, prices.percentile(0.99),
+                errors.get());
+    }
+
+    private static String percentiles(LatencySamples samples) {
+        return String.format("%.1f/%.1f/%.1f", samples.percentile(0.50), samples.percentile(0.99),
+                samples.percentile(0.999));
+    }
+
+    //Runs the clients and watchers for the duration and returns the seconds it took.
+    private double load(Duration duration, long seed) throws InterruptedException {
+        int clients = Integer.parseInt(options.get("clients"));
+        int watchers = Integer.parseInt(options.get("watchers"));
+        double buyShare = Double.parseDouble(options.get("buy-share"));
+        double sellShare = Double.parseDouble(options.get("sell-share"));
+        List<String> symbols = symbols();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            SplittableRandom random = new SplittableRandom(seed + 1 + i);
+            threads.add(new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    double choice = random.nextDouble();
+                    String symbol = symbols.get(random.nextInt(symbols.size()));
+                    if (choice < buyShare) {
+                        trade("buy", account(random), symbol);
+                    } else if (choice < buyShare + sellShare) {
+                        trade("sell", account(random), symbol);
+                    } else {
+                        readPrices();
+                    }
+                }
+            }, "client-" + i));
+        }
+        for (int i = 0; i < watchers; i++) {
+            threads.add(new Thread(() -> watch(end), "watcher-" + i));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private void trade(String side, Long accountId, String symbol) {
+        send(HttpRequest.newBuilder(URI.create(base + "/api/account/" + side))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("accountId=" + accountId + "&cryptoSymbol=" + symbol
+                        + "&quantity=0.0001"))
+                .timeout(Duration.ofSeconds(30))
+                .build(), trades);
+    }
+
+    private void readPrices() {
+        send(HttpRequest.newBuilder(URI.create(base + "/api/cryptos")).timeout(Duration.ofSeconds(30)).build(), prices);
+    }
+
+    private void send(HttpRequest request, LatencySamples samples) {
+        long start = System.nanoTime();
+        int status = 0;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            // Counted below as no response.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!measuring) {
+            return;
+        }
+        if (status == 200) {
+            samples.add(System.nanoTime() - start);
+        } else {
+            errors.incrementAndGet();
+            errorsByStatus.computeIfAbsent(status, code -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    //Polls the prices as a browser tab would, each poll asking only for a newer version.
+    private void watch(long end) {
+        String etag = null;
+        while (System.nanoTime() < end) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + "/api/cryptos"))
+                    .timeout(Duration.ofSeconds(30));
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            try {
+                HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                long seenAt = System.nanoTime();
+                if (response.statusCode() == 200) {
+                    etag = response.headers().firstValue("ETag").orElse(null);
+                    Matcher price = PRICE.matcher(response.body());
+                    while (price.find()) {
+                        onVisible(price.group(1), Double.parseDouble(price.group(2)), seenAt);
+                    }
+                }
+            } catch (IOException e) {
+                // The next poll tries again.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void onSent(String symbol, double last, long sentAt) {
+        pending.computeIfAbsent(symbol, key -> new ConcurrentHashMap<>()).put(priceKey(last), sentAt);
+    }
+
+    //Times the first sighting of a sent price and forgets it along with every earlier tick of the pair,
+    //which can no longer show up.
+    private void onVisible(String symbol, double last, long seenAt) {
+        Map<Long, Long> sent = pending.get(symbol);
+        Long sentAt = sent == null ? null : sent.remove(priceKey(last));
+        if (sentAt == null) {
+            return;
+        }
+        if (measuring && sentAt - measuringSince >= 0) {
+            tickToVisible.add(seenAt - sentAt);
+        }
+        sent.values().removeIf(at -> at - sentAt <= 0);
+    }
+
+    private static long priceKey(double price) {
+        return Math.round(price * 1e8);
+    }
+}
@@ -1,44 +1,134 @@
 package com.example.cryptotradingplatform.controller;
 
+import com.example.cryptotradingplatform.engine.ExecutionEngine;
+import com.example.cryptotradingplatform.model.BatchMode;
+import com.example.cryptotradingplatform.model.PortfolioValuation;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionPage;
+import com.example.cryptotradingplatform.model.TransactionType;
 import com.example.cryptotradingplatform.service.AccountService;
+import com.example.cryptotradingplatform.service.PortfolioService;
+import com.example.cryptotradingplatform.service.TransactionHistoryService;
+import com.example.cryptotradingplatform.wire.SbeCodec;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/account")
 public class AccountController {
 
     private final AccountService accountService;
+    private final ExecutionEngine executionEngine;
+    private final PortfolioService portfolioService;
+    private final TransactionHistoryService transactionHistoryService;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, Optional<ExecutionEngine> executionEngine,
+                             PortfolioService portfolioService, TransactionHistoryService transactionHistoryService) {
         this.accountService = accountService;
+        this.executionEngine = executionEngine.orElse(null);
+        this.portfolioService = portfolioService;
+        this.transactionHistoryService = transactionHistoryService;
+    }
+
+    //Cash, positions and P&L of an account at the latest prices
+    @GetMapping("/{accountId}/portfolio")
+    public PortfolioValuation getPortfolio(@PathVariable Long accountId) {
+        return portfolioService.getPortfolio(accountId);
     }
 
-    //Buy cryptocurrency
+    //Page through an account's transactions newest first, e.g. /api/account/7/transactions?cryptoSymbol=BTC&limit=50;
+    //pass the returned nextCursor to get the following page
+    @GetMapping("/{accountId}/transactions")
+    public ResponseEntity<TransactionPage> getTransactions(@PathVariable Long accountId,
+                                                           @RequestParam(required = false) String cryptoSymbol,
+                                                           @RequestParam(required = false) TransactionType type,
+                                                           @RequestParam(required = false) Long from,
+                                                           @RequestParam(required = false) Long to,
+                                                           @RequestParam(defaultValue = "50") int limit,
+                                                           @RequestParam(required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(transactionHistoryService.getHistory(accountId, cryptoSymbol, type, from, to,
+                    limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    //Buy cryptocurrency at the market price; pricePerUnit, if given, bounds the slippage
     @PostMapping("/buy")
-    public ResponseEntity<String> buyCrypto(@RequestParam Long accountId,
-                                            @RequestParam String cryptoSymbol,
-                                            @RequestParam double quantity,
-                                            @RequestParam double pricePerUnit) {
-        String result = accountService.buyCrypto(accountId, cryptoSymbol, quantity, pricePerUnit);
-        if (result.contains("successful")) {
-            return ResponseEntity.ok(result);
-        } else {
-            return ResponseEntity.badRequest().body(result);
+    public CompletableFuture<ResponseEntity<String>> buyCrypto(@RequestParam Long accountId,
+                                                               @RequestParam String cryptoSymbol,
+                                                               @RequestParam BigDecimal quantity,
+                                                               @RequestParam(required = false) BigDecimal pricePerUnit) {
+        if (executionEngine != null) {
+            return executionEngine.buyCrypto(accountId, cryptoSymbol, quantity, pricePerUnit).thenApply(this::toResponse);
         }
+        String result = accountService.buyCrypto(accountId, cryptoSymbol, quantity, pricePerUnit);
+        return CompletableFuture.completedFuture(toResponse(result));
     }
 
-    //Sell cryptocurrency
+    //Sell cryptocurrency at the market price; pricePerUnit, if given, bounds the slippage
     @PostMapping("/sell")
-    public ResponseEntity<String> sellCrypto(@RequestParam Long accountId,
-                                             @RequestParam String cryptoSymbol,
-                                             @RequestParam double quantity,
-                                             @RequestParam double pricePerUnit) {
+    public CompletableFuture<ResponseEntity<String>> sellCrypto(@RequestParam Long accountId,
+                                                                @RequestParam String cryptoSymbol,
+                                                                @RequestParam BigDecimal quantity,
+                                                                @RequestParam(required = false) BigDecimal pricePerUnit) {
+        if (executionEngine != null) {
+            return executionEngine.sellCrypto(accountId, cryptoSymbol, quantity, pricePerUnit).thenApply(this::toResponse);
+        }
         String result = accountService.sellCrypto(accountId, cryptoSymbol, quantity, pricePerUnit);
+        return CompletableFuture.completedFuture(toResponse(result));
+    }
+
+    //Submit a batch of trades for one account; ATOMIC executes all of them or none
+    @PostMapping("/trades")
+    public CompletableFuture<ResponseEntity<List<TradeResult>>> submitTrades(@RequestParam Long accountId,
+                                                                             @RequestParam(defaultValue = "ATOMIC") BatchMode mode,
+                                                                             @RequestBody List<TradeRequest> trades) {
+        accountService.checkBatchSize(trades);
+        if (executionEngine != null) {
+            return executionEngine.submitTrades(accountId, trades, mode).thenApply(results -> toResponse(results, mode));
+        }
+        List<TradeResult> results = accountService.submitTrades(accountId, trades, mode);
+        return CompletableFuture.completedFuture(toResponse(results, mode));
+    }
+
+    //The same batch as an SbeCodec trades message, answered with a trade results message
+    @PostMapping(path = "/trades", consumes = SbeCodec.MEDIA_TYPE, produces = SbeCodec.MEDIA_TYPE)
+    public CompletableFuture<ResponseEntity<byte[]>> submitTradesSbe(@RequestParam Long accountId,
+                                                                     @RequestParam(defaultValue = "ATOMIC") BatchMode mode,
+                                                                     @RequestBody byte[] body) {
+        List<TradeRequest> trades;
+        try {
+            trades = SbeCodec.decodeTrades(body);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return submitTrades(accountId, mode, trades).thenApply(response -> ResponseEntity.status(response.getStatusCode())
+                .contentType(MediaType.parseMediaType(SbeCodec.MEDIA_TYPE))
+                .body(SbeCodec.encodeTradeResults(response.getBody())));
+    }
+
+    private ResponseEntity<List<TradeResult>> toResponse(List<TradeResult> results, BatchMode mode) {
+        if (mode == BatchMode.BEST_EFFORT || results.stream().allMatch(TradeResult::isExecuted)) {
+            return ResponseEntity.ok(results);
+        } else {
+            return ResponseEntity.badRequest().body(results);
+        }
+    }
+
+    private ResponseEntity<String> toResponse(String result) {
         if (result.contains("successful")) {
             return ResponseEntity.ok(result);
         } else {
             return ResponseEntity.badRequest().body(result);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,22 @@
 package com.example.cryptotradingplatform.controller;
 
+import com.example.cryptotradingplatform.history.Tick;
+import com.example.cryptotradingplatform.marketdata.Candle;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshot;
+import com.example.cryptotradingplatform.marketdata.VenueQuote;
 import com.example.cryptotradingplatform.service.CryptoService;
+import com.example.cryptotradingplatform.wire.SbeCodec;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 public class CryptoController {
 
@@ -13,8 +26,77 @@ public class CryptoController {
         this.cryptoService = cryptoService;
     }
 
+    //Serves the pre-encoded price snapshot; a matching If-None-Match gets 304 Not Modified without a body.
     @GetMapping("/api/cryptos")
-    public String getCryptoPrices() {
-        return cryptoService.getLivePrices();
+    public ResponseEntity<byte[]> getCryptoPrices() {
+        PriceSnapshot snapshot = cryptoService.getPriceSnapshot();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(snapshot.getEtag())
+                .body(snapshot.getJson());
+    }
+
+    //The same snapshot as an SbeCodec prices message, for clients that Accept application/x-sbe
+    @GetMapping(path = "/api/cryptos", produces = SbeCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getCryptoPricesSbe() {
+        PriceSnapshot snapshot = cryptoService.getPriceSnapshot();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(SbeCodec.MEDIA_TYPE))
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(snapshot.getSbeEtag())
+                .body(snapshot.getSbe());
+    }
+
+    //Get each venue's latest quote behind a pair's consolidated price, e.g. /api/cryptos/BTC-USD/venues
+    @GetMapping("/api/cryptos/{pair}/venues")
+    public ResponseEntity<List<VenueQuote>> getVenueQuotes(@PathVariable String pair) {
+        return ResponseEntity.ok(cryptoService.getVenueQuotes(pair));
+    }
+
+    //Get a pair's latest OHLCV candles, e.g. /api/cryptos/BTC-USD/candles?interval=1m&limit=60
+    @GetMapping("/api/cryptos/{pair}/candles")
+    public ResponseEntity<List<Candle>> getCandles(@PathVariable String pair,
+                                                   @RequestParam(defaultValue = "1m") String interval,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(cryptoService.getCandles(pair, interval, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    //Get a pair's stored ticks between two epoch millis, e.g. /api/cryptos/BTC-USD/ticks?from=1700000000000&to=1700003600000
+    @GetMapping("/api/cryptos/{pair}/ticks")
+    public ResponseEntity<List<Tick>> getTicks(@PathVariable String pair,
+                                               @RequestParam long from,
+                                               @RequestParam long to,
+                                               @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(cryptoService.getTicks(pair, from, to, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    //The same ticks as an SbeCodec ticks message, written as the history is scanned, for clients that Accept
+    //application/x-sbe
+    @GetMapping(path = "/api/cryptos/{pair}/ticks", produces = SbeCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getTicksSbe(@PathVariable String pair,
+                                              @RequestParam long from,
+                                              @RequestParam long to,
+                                              @RequestParam(defaultValue = "1000") int limit) {
+        SbeCodec.TicksWriter ticks = new SbeCodec.TicksWriter(limit);
+        String symbol;
+        try {
+            symbol = cryptoService.scanTicks(pair, from, to, limit, ticks);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(SbeCodec.MEDIA_TYPE))
+                .body(ticks.toBytes(symbol));
     }
 }
@@ -0,0 +1,50 @@
+package com.example.cryptotradingplatform.controller;
+
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.orders.OrderType;
+import com.example.cryptotradingplatform.orders.RestingOrder;
+import com.example.cryptotradingplatform.service.OrderService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+
+@RestController
+@ConditionalOnProperty(name = "trading.orders.enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping("/api/orders")
+public class OrderController {
+
+    private final OrderService orderService;
+
+    public OrderController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    //Place a limit, stop-loss or take-profit order that executes once the market reaches triggerPrice
+    @PostMapping
+    public ResponseEntity<RestingOrder> placeOrder(@RequestParam Long accountId,
+                                                   @RequestParam String cryptoSymbol,
+                                                   @RequestParam OrderType type,
+                                                   @RequestParam TransactionType side,
+                                                   @RequestParam BigDecimal quantity,
+                                                   @RequestParam BigDecimal triggerPrice) {
+        return ResponseEntity.ok(orderService.placeOrder(accountId, cryptoSymbol, type, side, quantity, triggerPrice));
+    }
+
+    //Get an order and its status
+    @GetMapping("/{orderId}")
+    public ResponseEntity<RestingOrder> getOrder(@PathVariable Long orderId) {
+        return ResponseEntity.ok(orderService.getOrder(orderId));
+    }
+
+    //Cancel an order that has not triggered yet
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<RestingOrder> cancelOrder(@PathVariable Long orderId) {
+        if (orderService.cancelOrder(orderId)) {
+            return ResponseEntity.ok(orderService.getOrder(orderId));
+        } else {
+            return ResponseEntity.badRequest().body(orderService.getOrder(orderId));
+        }
+    }
+}
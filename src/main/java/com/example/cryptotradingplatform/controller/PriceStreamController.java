@@ -0,0 +1,46 @@
+package com.example.cryptotradingplatform.controller;
+
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.service.PriceStreamService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+public class PriceStreamController {
+
+    private final PriceStreamService priceStreamService;
+    private final PriceBook priceBook;
+
+    public PriceStreamController(PriceStreamService priceStreamService, PriceBook priceBook) {
+        this.priceStreamService = priceStreamService;
+        this.priceBook = priceBook;
+    }
+
+    //Streams live prices as Server-Sent Events, for the requested pairs or for all of them.
+    @GetMapping(path = "/api/cryptos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices(@RequestParam(required = false) List<String> pairs) {
+        int[] pairIds;
+        if (pairs == null || pairs.isEmpty()) {
+            pairIds = new int[priceBook.size()];
+            for (int id = 0; id < pairIds.length; id++) {
+                pairIds[id] = id;
+            }
+        } else {
+            pairIds = new int[pairs.size()];
+            for (int i = 0; i < pairIds.length; i++) {
+                pairIds[i] = priceBook.idOf(pairs.get(i));
+                if (pairIds[i] < 0) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported pair: " + pairs.get(i));
+                }
+            }
+        }
+        return priceStreamService.subscribe(pairIds);
+    }
+}
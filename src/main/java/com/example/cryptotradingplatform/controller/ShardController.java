@@ -0,0 +1,82 @@
+package com.example.cryptotradingplatform.controller;
+
+import com.example.cryptotradingplatform.sharding.AccountHandoff;
+import com.example.cryptotradingplatform.sharding.MembershipChange;
+import com.example.cryptotradingplatform.sharding.ShardHandoff;
+import com.example.cryptotradingplatform.sharding.ShardMembership;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cluster membership of the account shards. join and leave may be sent to any node, which then drives the
+// change across all of them; the other endpoints are those steps, called node to node.
+@RestController
+@RequestMapping("/internal/shards")
+@ConditionalOnProperty(name = "trading.sharding.enabled", havingValue = "true")
+public class ShardController {
+
+    private final ShardMembership membership;
+    private final ShardHandoff handoff;
+
+    public ShardController(ShardMembership membership, ShardHandoff handoff) {
+        this.membership = membership;
+        this.handoff = handoff;
+    }
+
+    //This node's name, the nodes and their URLs, and whether accounts are moving
+    @GetMapping
+    public Map<String, Object> getMembership() {
+        ShardMembership.View view = membership.view();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("node", membership.localNode());
+        result.put("nodes", view.members());
+        result.put("rebalancing", view.previous() != null);
+        return result;
+    }
+
+    //Add a node, already running with the new membership in trading.sharding.nodes; returns the accounts each
+    //node handed off
+    @PostMapping("/join")
+    public Map<String, Integer> join(@RequestParam String node, @RequestParam URI url) {
+        Map<String, URI> nodes = new LinkedHashMap<>(membership.view().members());
+        nodes.put(node, url);
+        return handoff.changeMembership(nodes);
+    }
+
+    //Remove a node once it has handed all its accounts to the others
+    @PostMapping("/leave")
+    public ResponseEntity<Map<String, Integer>> leave(@RequestParam String node) {
+        Map<String, URI> nodes = new LinkedHashMap<>(membership.view().members());
+        if (nodes.remove(node) == null || nodes.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(handoff.changeMembership(nodes));
+    }
+
+    @PostMapping("/prepare")
+    public Map<String, Object> prepare(@RequestBody MembershipChange change) {
+        membership.prepare(change.from(), change.to());
+        return Map.of();
+    }
+
+    @PostMapping("/handoff")
+    public Map<String, Integer> handOff() throws InterruptedException {
+        return Map.of("moved", handoff.handOff());
+    }
+
+    @PostMapping("/complete")
+    public Map<String, Object> complete() {
+        membership.complete();
+        return Map.of();
+    }
+
+    @PostMapping("/accounts")
+    public Map<String, Object> takeOver(@RequestBody AccountHandoff account) {
+        handoff.takeOver(account);
+        return Map.of();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.cryptotradingplatform.engine;
+
+import java.util.Map;
+
+// Point-in-time copy of one account's in-memory state, as written to and read from journal snapshots.
+// Balance and holdings are fixed-point units, as in AccountState.
+public final class AccountSnapshot {
+
+    private final long accountId;
+    private final long balance;
+    private final Map<String, Long> holdings;
+
+    public AccountSnapshot(long accountId, long balance, Map<String, Long> holdings) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.holdings = holdings;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public Map<String, Long> getHoldings() {
+        return holdings;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.cryptotradingplatform.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// In-memory balance and holdings of one account, owned and mutated only by its shard's thread.
+// The balance is in cash units and each holding in units of its asset's quantity scale.
+final class AccountState {
+
+    private final long accountId;
+    private long balance;
+    private final Map<String, long[]> holdings = new HashMap<>();
+
+    AccountState(long accountId, long balance) {
+        this.accountId = accountId;
+        this.balance = balance;
+    }
+
+    long getAccountId() {
+        return accountId;
+    }
+
+    long getBalance() {
+        return balance;
+    }
+
+    void setBalance(long balance) {
+        this.balance = balance;
+    }
+
+    long getHolding(String cryptoSymbol) {
+        long[] quantity = holdings.get(cryptoSymbol);
+        return quantity == null ? 0 : quantity[0];
+    }
+
+    //Copy to try trades on without touching this account.
+    AccountState copy() {
+        AccountState copy = new AccountState(accountId, balance);
+        holdings.forEach((symbol, quantity) -> copy.setHolding(symbol, quantity[0]));
+        return copy;
+    }
+
+    AccountSnapshot snapshot() {
+        Map<String, Long> quantities = new HashMap<>();
+        holdings.forEach((symbol, quantity) -> quantities.put(symbol, quantity[0]));
+        return new AccountSnapshot(accountId, balance, quantities);
+    }
+
+    void setHolding(String cryptoSymbol, long quantity) {
+        if (quantity == 0) {
+            holdings.remove(cryptoSymbol);
+        } else {
+            holdings.computeIfAbsent(cryptoSymbol, symbol -> new long[1])[0] = quantity;
+        }
+    }
+}
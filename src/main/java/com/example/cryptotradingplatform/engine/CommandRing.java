@@ -0,0 +1,92 @@
+package com.example.cryptotradingplatform.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded multi-producer, single-consumer ring of pre-allocated TradeCommand slots, in the style of
+// the LMAX Disruptor. Producers claim a sequence with one atomic increment, fill the slot and publish it
+// by storing the sequence in the slot's availability entry. The consumer walks the sequences in order
+// and frees slots in batches. A full ring makes producers wait, which is the engine's backpressure.
+final class CommandRing {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle CONSUMED;
+
+    static {
+        try {
+            CONSUMED = MethodHandles.lookup().findVarHandle(CommandRing.class, "consumed", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final TradeCommand[] slots;
+    private final long[] available;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    @SuppressWarnings("unused")
+    private volatile long consumed = -1;
+
+    CommandRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two.");
+        }
+        this.slots = new TradeCommand[capacity];
+        this.available = new long[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new TradeCommand();
+        }
+        Arrays.fill(available, -1);
+    }
+
+    //Claims the next sequence, waiting while the ring is full.
+    long claim() {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        int idle = 0;
+        while (wrapPoint > (long) CONSUMED.getAcquire(this)) {
+            idle = idle(idle);
+        }
+        return sequence;
+    }
+
+    TradeCommand slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    //Makes a filled slot visible to the consumer.
+    void publish(long sequence) {
+        LONGS.setRelease(available, (int) sequence & mask, sequence);
+    }
+
+    //Consumer side: true when the given sequence has been published.
+    boolean isAvailable(long sequence) {
+        return (long) LONGS.getAcquire(available, (int) sequence & mask) == sequence;
+    }
+
+    //Consumer side: true when a producer has claimed the sequence, even if it is not published yet.
+    boolean isClaimed(long sequence) {
+        return claimed.get() >= sequence;
+    }
+
+    //Consumer side: hands every slot up to and including the sequence back to producers.
+    void release(long sequence) {
+        CONSUMED.setRelease(this, sequence);
+    }
+
+    //Spins, then yields, then parks briefly; returns the next idle count.
+    static int idle(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+        return idle + 1;
+    }
+}
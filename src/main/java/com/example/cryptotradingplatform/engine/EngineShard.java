@@ -0,0 +1,301 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.exception.InsufficientBalanceException;
+import com.example.cryptotradingplatform.exception.InsufficientHoldingException;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Single-threaded event loop owning a subset of the accounts. Commands for those accounts are applied
+// one at a time on this shard's thread, so balances and holdings need no locks. An account is loaded
+// from the repositories the first time it trades and then stays in memory. A trade is acknowledged
+// once the journal reports it durable; until then its result waits in a queue in journal order.
+// An atomic batch is one command: its trades are tried in order on a scratch copy of the account, and
+// only if every one of them succeeds are they journaled together and applied.
+// Amounts are fixed-point units throughout, so applying a trade does no floating point and no allocation
+// beyond its journal event.
+final class EngineShard implements Runnable {
+
+    private final int index;
+    private final CommandRing ring;
+    private final AccountRepository accountRepository;
+    private final HoldingRepository holdingRepository;
+    private final TradeJournal journal;
+    private final Map<Long, AccountState> accounts = new HashMap<>();
+    private final ArrayDeque<PendingAck<?>> pendingAcks = new ArrayDeque<>();
+    private volatile boolean running = true;
+
+    EngineShard(int index, int ringSize, AccountRepository accountRepository, HoldingRepository holdingRepository,
+                TradeJournal journal) {
+        this.index = index;
+        this.ring = new CommandRing(ringSize);
+        this.accountRepository = accountRepository;
+        this.holdingRepository = holdingRepository;
+        this.journal = journal;
+    }
+
+    //Rebuilds the shard's accounts from the journal; must run before the shard thread starts.
+    void recover() {
+        journal.recover(index,
+                snapshot -> {
+                    AccountState state = new AccountState(snapshot.getAccountId(), snapshot.getBalance());
+                    snapshot.getHoldings().forEach(state::setHolding);
+                    accounts.put(snapshot.getAccountId(), state);
+                },
+                event -> {
+                    AccountState state = accounts.get(event.getAccountId());
+                    if (state == null) {
+                        state = load(event.getAccountId())
+                                .orElseGet(() -> new AccountState(event.getAccountId(), event.getBalanceAfter()));
+                        accounts.put(event.getAccountId(), state);
+                    }
+                    state.setBalance(event.getBalanceAfter());
+                    state.setHolding(event.getCryptoSymbol(), Amount.rescale(event.getHoldingAfter(),
+                            event.getQuantityScale(), AssetScales.quantityScale(event.getCryptoSymbol())));
+                });
+    }
+
+    //Queues a trade for this shard; waits while the shard's ring is full.
+    CompletableFuture<String> submit(long accountId, String cryptoSymbol, TransactionType type,
+                                     int quantityScale, long quantity, long pricePerUnit) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long sequence = ring.claim();
+        TradeCommand command = ring.slot(sequence);
+        command.accountId = accountId;
+        command.cryptoSymbol = cryptoSymbol;
+        command.type = type;
+        command.quantityScale = quantityScale;
+        command.quantity = quantity;
+        command.pricePerUnit = pricePerUnit;
+        command.result = result;
+        ring.publish(sequence);
+        return result;
+    }
+
+    //Queues an atomic batch of one account's trades for this shard; waits while the shard's ring is full.
+    CompletableFuture<List<TradeResult>> submitAll(long accountId, List<TradeCommand.BatchedTrade> trades) {
+        CompletableFuture<List<TradeResult>> result = new CompletableFuture<>();
+        long sequence = ring.claim();
+        TradeCommand command = ring.slot(sequence);
+        command.accountId = accountId;
+        command.batch = trades;
+        command.batchResult = result;
+        ring.publish(sequence);
+        return result;
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    //Drains published commands in sequence order until stopped and every claimed command is applied and acknowledged.
+    @Override
+    public void run() {
+        long next = 0;
+        int idle = 0;
+        while (running || ring.isClaimed(next) || !pendingAcks.isEmpty()) {
+            acknowledgeDurable();
+            if (!ring.isAvailable(next)) {
+                idle = CommandRing.idle(idle);
+                continue;
+            }
+            idle = 0;
+            long last = next;
+            do {
+                TradeCommand command = ring.slot(last);
+                apply(command);
+                command.clear();
+                last++;
+            } while (ring.isAvailable(last));
+            ring.release(last - 1);
+            next = last;
+            if (journal.snapshotDue(index)) {
+                journal.snapshot(index, snapshotAccounts());
+            }
+        }
+    }
+
+    private void apply(TradeCommand command) {
+        if (command.batch != null) {
+            applyAll(command);
+            return;
+        }
+        CompletableFuture<String> result = command.result;
+        try {
+            AccountState account = account(command.accountId);
+            TradeEvent event = trade(account, command.cryptoSymbol, command.type, command.quantityScale,
+                    command.quantity, command.pricePerUnit, System.currentTimeMillis());
+            long position = journal.append(index, event);
+            applyTo(account, event);
+            acknowledge(position, result, successMessage(command.type));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    //Tries the batch in order on a scratch copy of the account, each trade seeing the ones before it. Any
+    //rejected trade rejects the batch and leaves the account as it was; otherwise all of the trades are
+    //journaled together and then applied.
+    private void applyAll(TradeCommand command) {
+        CompletableFuture<List<TradeResult>> result = command.batchResult;
+        try {
+            AccountState account = account(command.accountId);
+            AccountState scratch = account.copy();
+            List<TradeEvent> events = new ArrayList<>(command.batch.size());
+            TradeResult[] results = new TradeResult[command.batch.size()];
+            boolean rejected = false;
+            long timestamp = System.currentTimeMillis();
+            for (int i = 0; i < results.length; i++) {
+                TradeCommand.BatchedTrade trade = command.batch.get(i);
+                try {
+                    TradeEvent event = trade(scratch, trade.cryptoSymbol(), trade.type(), trade.quantityScale(),
+                            trade.quantity(), trade.pricePerUnit(), timestamp);
+                    applyTo(scratch, event);
+                    events.add(event);
+                    results[i] = TradeResult.executed(i, successMessage(trade.type()));
+                } catch (IllegalArgumentException | ArithmeticException | InsufficientBalanceException
+                         | InsufficientHoldingException e) {
+                    results[i] = TradeResult.rejected(i, e.getMessage());
+                    rejected = true;
+                }
+            }
+            if (rejected) {
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i].isExecuted()) {
+                        results[i] = TradeResult.notExecuted(i);
+                    }
+                }
+                result.complete(List.of(results));
+                return;
+            }
+            long position = journal.appendAll(index, events);
+            for (TradeEvent event : events) {
+                applyTo(account, event);
+            }
+            acknowledge(position, result, List.of(results));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    //Computes the outcome of a trade on the account without changing it, or throws if it is refused.
+    private TradeEvent trade(AccountState account, String cryptoSymbol, TransactionType type, int quantityScale,
+                             long quantity, long pricePerUnit, long timestamp) {
+        long totalPrice = Amount.multiply(quantity, quantityScale, pricePerUnit, AssetScales.PRICE_SCALE,
+                AssetScales.CASH_SCALE);
+        long balance;
+        long holding;
+        if (type == TransactionType.BUY) {
+            if (account.getBalance() < totalPrice) {
+                throw new InsufficientBalanceException("Insufficient balance to complete the purchase.");
+            }
+            balance = account.getBalance() - totalPrice;
+            holding = Math.addExact(account.getHolding(cryptoSymbol), quantity);
+        } else {
+            long owned = account.getHolding(cryptoSymbol);
+            if (owned == 0) {
+                throw new InsufficientHoldingException("You do not own any of this cryptocurrency.");
+            }
+            if (owned < quantity) {
+                throw new IllegalArgumentException("Insufficient holdings to complete the sale.");
+            }
+            balance = Math.addExact(account.getBalance(), totalPrice);
+            holding = owned - quantity;
+        }
+        return new TradeEvent(account.getAccountId(), cryptoSymbol, type, quantityScale, quantity, pricePerUnit,
+                totalPrice, balance, holding, timestamp);
+    }
+
+    //Only called once the trade is journaled, so snapshots never hold unjournaled state.
+    private static void applyTo(AccountState account, TradeEvent event) {
+        account.setBalance(event.getBalanceAfter());
+        account.setHolding(event.getCryptoSymbol(), event.getHoldingAfter());
+    }
+
+    private static String successMessage(TransactionType type) {
+        return type == TransactionType.BUY ? "Purchase successful!" : "Sale successful!";
+    }
+
+    //Completes the result once the journal has made the position durable.
+    private <T> void acknowledge(long position, CompletableFuture<T> result, T value) {
+        if (pendingAcks.isEmpty() && position <= journal.durablePosition(index)) {
+            result.complete(value);
+        } else {
+            pendingAcks.add(new PendingAck<>(position, result, value));
+        }
+    }
+
+    //Completes the trades the journal has made durable since the last check.
+    private void acknowledgeDurable() {
+        if (pendingAcks.isEmpty()) {
+            return;
+        }
+        long durable = journal.durablePosition(index);
+        PendingAck<?> ack;
+        while ((ack = pendingAcks.peek()) != null && ack.position <= durable) {
+            pendingAcks.poll();
+            ack.complete();
+        }
+    }
+
+    private List<AccountSnapshot> snapshotAccounts() {
+        List<AccountSnapshot> snapshot = new ArrayList<>(accounts.size());
+        for (AccountState account : accounts.values()) {
+            snapshot.add(account.snapshot());
+        }
+        return snapshot;
+    }
+
+    private AccountState account(long accountId) {
+        AccountState state = accounts.get(accountId);
+        if (state == null) {
+            state = load(accountId).orElseThrow(() -> new AccountNotFoundException("Account not found."));
+            accounts.put(accountId, state);
+        }
+        return state;
+    }
+
+    private Optional<AccountState> load(long accountId) {
+        Optional<Account> account = accountRepository.findById(accountId);
+        if (account.isEmpty()) {
+            return Optional.empty();
+        }
+        AccountState state = new AccountState(accountId, account.get().getBalance().unitsAt(AssetScales.CASH_SCALE));
+        for (Holding holding : holdingRepository.findByAccountId(accountId)) {
+            state.setHolding(holding.getCryptoSymbol(),
+                    holding.getQuantity().unitsAt(AssetScales.quantityScale(holding.getCryptoSymbol())));
+        }
+        return Optional.of(state);
+    }
+
+    private static final class PendingAck<T> {
+
+        private final long position;
+        private final CompletableFuture<T> result;
+        private final T value;
+
+        private PendingAck(long position, CompletableFuture<T> result, T value) {
+            this.position = position;
+            this.result = result;
+            this.value = value;
+        }
+
+        private void complete() {
+            result.complete(value);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.BatchMode;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// In-memory execution engine placed in front of the database when trading.engine.enabled=true.
+// Accounts are partitioned across single-threaded shards by account id; every trade of an account is
+// applied serially by its shard, so concurrent trades on one account can no longer lose updates.
+// Applied trades go to the TradeJournal, which persists them off the trading path and from which the
+// shards rebuild their accounts on restart.
+@Component
+@ConditionalOnProperty(name = "trading.engine.enabled", havingValue = "true")
+public class ExecutionEngine implements SmartLifecycle {
+
+    // Starts before and stops after the web server, and stops before the journal it feeds.
+    static final int PHASE = Integer.MAX_VALUE - 2048;
+
+    private final EngineShard[] shards;
+    private final Thread[] threads;
+    private final MarketPricer marketPricer;
+    private volatile boolean running;
+
+    public ExecutionEngine(AccountRepository accountRepository, HoldingRepository holdingRepository, TradeJournal journal,
+                           MarketPricer marketPricer,
+                           @Value("${trading.engine.shards:4}") int shardCount,
+                           @Value("${trading.engine.ring-size:4096}") int ringSize) {
+        this.shards = new EngineShard[shardCount];
+        this.threads = new Thread[shardCount];
+        this.marketPricer = marketPricer;
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new EngineShard(i, ringSize, accountRepository, holdingRepository, journal);
+            threads[i] = new Thread(shards[i], "engine-shard-" + i);
+        }
+    }
+
+    public CompletableFuture<String> buyCrypto(Long accountId, String cryptoSymbol, BigDecimal quantity, BigDecimal pricePerUnit) {
+        return submit(accountId, cryptoSymbol, TransactionType.BUY, quantity, pricePerUnit);
+    }
+
+    public CompletableFuture<String> sellCrypto(Long accountId, String cryptoSymbol, BigDecimal quantity, BigDecimal pricePerUnit) {
+        return submit(accountId, cryptoSymbol, TransactionType.SELL, quantity, pricePerUnit);
+    }
+
+    //Submits a triggered limit order, refused if the market price is worse than the limit price.
+    public CompletableFuture<String> tradeAtLimit(Long accountId, TransactionType type, String cryptoSymbol,
+                                                  BigDecimal quantity, BigDecimal limitPrice) {
+        return submit(accountId, cryptoSymbol, type, quantity, limitPrice, true);
+    }
+
+    //Submits a batch of one account's trades. An ATOMIC batch goes to the shard as one command, which
+    //executes all of its trades or none; a BEST_EFFORT batch is applied in order, each trade on its own.
+    public CompletableFuture<List<TradeResult>> submitTrades(Long accountId, List<TradeRequest> trades, BatchMode mode) {
+        if (mode == BatchMode.ATOMIC) {
+            return submitAtomic(accountId, trades);
+        }
+        List<CompletableFuture<TradeResult>> results = new ArrayList<>(trades.size());
+        for (int i = 0; i < trades.size(); i++) {
+            int index = i;
+            TradeRequest trade = trades.get(i);
+            CompletableFuture<String> result;
+            try {
+                if (!trade.isComplete()) {
+                    throw new IllegalArgumentException("Each trade needs a type, cryptoSymbol and quantity.");
+                }
+                result = submit(accountId, trade.getCryptoSymbol(), trade.getType(), trade.getQuantity(),
+                        trade.getPricePerUnit());
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            results.add(result.handle((message, failure) -> failure == null
+                    ? TradeResult.executed(index, message)
+                    : TradeResult.rejected(index, unwrap(failure).getMessage())));
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    //Prices every trade first; one that cannot be priced rejects the batch before it reaches the shard.
+    private CompletableFuture<List<TradeResult>> submitAtomic(Long accountId, List<TradeRequest> trades) {
+        List<TradeCommand.BatchedTrade> batch = new ArrayList<>(trades.size());
+        TradeResult[] rejections = new TradeResult[trades.size()];
+        boolean rejected = false;
+        for (int i = 0; i < trades.size(); i++) {
+            TradeRequest trade = trades.get(i);
+            try {
+                if (!trade.isComplete()) {
+                    throw new IllegalArgumentException("Each trade needs a type, cryptoSymbol and quantity.");
+                }
+                batch.add(prepare(trade.getCryptoSymbol(), trade.getType(), trade.getQuantity(),
+                        trade.getPricePerUnit(), false));
+            } catch (RuntimeException e) {
+                rejections[i] = TradeResult.rejected(i, e.getMessage());
+                rejected = true;
+            }
+        }
+        if (rejected) {
+            List<TradeResult> results = new ArrayList<>(trades.size());
+            for (int i = 0; i < rejections.length; i++) {
+                results.add(rejections[i] != null ? rejections[i] : TradeResult.notExecuted(i));
+            }
+            return CompletableFuture.completedFuture(results);
+        }
+        return shardFor(accountId).submitAll(accountId, batch);
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private CompletableFuture<String> submit(Long accountId, String cryptoSymbol, TransactionType type,
+                                             BigDecimal quantity, BigDecimal pricePerUnit) {
+        return submit(accountId, cryptoSymbol, type, quantity, pricePerUnit, false);
+    }
+
+    private CompletableFuture<String> submit(Long accountId, String cryptoSymbol, TransactionType type,
+                                             BigDecimal quantity, BigDecimal pricePerUnit, boolean limit) {
+        TradeCommand.BatchedTrade trade = prepare(cryptoSymbol, type, quantity, pricePerUnit, limit);
+        return shardFor(accountId).submit(accountId, cryptoSymbol, type, trade.quantityScale(), trade.quantity(),
+                trade.pricePerUnit());
+    }
+
+    //Checks a trade and converts it to fixed-point units, priced at the market.
+    private TradeCommand.BatchedTrade prepare(String cryptoSymbol, TransactionType type, BigDecimal quantity,
+                                              BigDecimal pricePerUnit, boolean limit) {
+        if (quantity.signum() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero.");
+        }
+        if (!JournalRecord.fits(cryptoSymbol)) {
+            throw new IllegalArgumentException("Unsupported cryptocurrency symbol.");
+        }
+        if (!running) {
+            throw new IllegalStateException("Execution engine is not running.");
+        }
+        long priceUnits = limit ? marketPricer.limitPrice(cryptoSymbol, type, pricePerUnit)
+                : marketPricer.executionPrice(cryptoSymbol, type, pricePerUnit);
+        return new TradeCommand.BatchedTrade(cryptoSymbol, type, AssetScales.quantityScale(cryptoSymbol),
+                AssetScales.quantityUnits(cryptoSymbol, quantity), priceUnits);
+    }
+
+    private EngineShard shardFor(long accountId) {
+        return shards[Math.floorMod(Long.hashCode(accountId) * 0x9E3779B9, shards.length)];
+    }
+
+    //Recovers every shard from the journal, then starts the shard threads.
+    @Override
+    public void start() {
+        for (EngineShard shard : shards) {
+            shard.recover();
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        running = true;
+    }
+
+    //Stops accepting trades and lets every shard drain what was already queued.
+    @Override
+    public void stop() {
+        running = false;
+        for (EngineShard shard : shards) {
+            shard.stop();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
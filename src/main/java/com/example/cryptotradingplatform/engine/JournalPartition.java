@@ -0,0 +1,170 @@
+package com.example.cryptotradingplatform.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// One shard's journal: a sequence of pre-sized, memory-mapped segment files named by the position of
+// their first byte. Only the owning shard thread appends; the flusher and projector threads read the
+// published positions and the mapped segments.
+final class JournalPartition {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private MappedByteBuffer current;
+    private long currentStart = -1;
+    private volatile long writePosition;
+    private volatile long durablePosition;
+    private volatile long snapshotPosition;
+
+    JournalPartition(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % JournalRecord.SIZE;
+    }
+
+    //Finds the end of the valid records, starting from the given position (that of the latest snapshot).
+    void open(long fromPosition) throws IOException {
+        Files.createDirectories(directory);
+        long position = fromPosition;
+        while (true) {
+            MappedByteBuffer segment = segmentAt(position, false);
+            if (segment == null || JournalRecord.read(segment, offsetOf(position), sequenceAt(position)) == null) {
+                break;
+            }
+            position += JournalRecord.SIZE;
+        }
+        snapshotPosition = fromPosition;
+        writePosition = position;
+        durablePosition = position;
+    }
+
+    //Feeds every record between the two positions to the consumer.
+    void read(long fromPosition, long toPosition, Consumer<TradeEvent> consumer) {
+        for (long position = fromPosition; position < toPosition; position += JournalRecord.SIZE) {
+            TradeEvent event = JournalRecord.read(segmentAt(position, false), offsetOf(position), sequenceAt(position));
+            if (event == null) {
+                throw new IllegalStateException("Corrupt journal record at " + position + " in " + directory);
+            }
+            consumer.accept(event);
+        }
+    }
+
+    //Shard thread only: writes the record and returns the position that makes it durable once forced.
+    long append(TradeEvent event) {
+        long position = writePosition;
+        long segmentStart = position - position % segmentSize;
+        if (segmentStart != currentStart) {
+            current = segmentAt(position, true);
+            currentStart = segmentStart;
+        }
+        JournalRecord.write(current, offsetOf(position), sequenceAt(position), event);
+        writePosition = position + JournalRecord.SIZE;
+        return position + JournalRecord.SIZE;
+    }
+
+    //Shard thread only: as append for several records, mapping every segment they reach before writing any,
+    //so a segment that cannot be created fails the whole group rather than leaving part of it journaled.
+    long appendAll(List<TradeEvent> events) {
+        long end = writePosition + (long) events.size() * JournalRecord.SIZE;
+        for (long segmentStart = writePosition - writePosition % segmentSize; segmentStart < end;
+             segmentStart += segmentSize) {
+            segmentAt(segmentStart, true);
+        }
+        long position = writePosition;
+        for (TradeEvent event : events) {
+            position = append(event);
+        }
+        return position;
+    }
+
+    //Flushes everything appended so far to disk and publishes the new durable position.
+    void force() {
+        long target = writePosition;
+        long from = durablePosition;
+        while (from < target) {
+            long segmentStart = from - from % segmentSize;
+            long until = Math.min(target, segmentStart + segmentSize);
+            segments.get(segmentStart).force(offsetOf(from), (int) (until - from));
+            from = until;
+        }
+        durablePosition = target;
+    }
+
+    //Treats everything written as durable, for the policy that leaves flushing to the operating system.
+    void assumeDurable() {
+        durablePosition = writePosition;
+    }
+
+    long writePosition() {
+        return writePosition;
+    }
+
+    long durablePosition() {
+        return durablePosition;
+    }
+
+    long snapshotPosition() {
+        return snapshotPosition;
+    }
+
+    void snapshotTaken(long position) {
+        snapshotPosition = position;
+    }
+
+    //Deletes the segments that end at or before the position.
+    void deleteBefore(long position) throws IOException {
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.headMap(position - segmentSize, true).entrySet()) {
+            segments.remove(segment.getKey());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".log") && Long.parseLong(name.substring(0, name.length() - 4)) + segmentSize <= position) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    private MappedByteBuffer segmentAt(long position, boolean create) {
+        long segmentStart = position - position % segmentSize;
+        MappedByteBuffer segment = segments.get(segmentStart);
+        if (segment != null) {
+            return segment;
+        }
+        Path file = directory.resolve(String.format("%020d.log", segmentStart));
+        if (!create && !Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map journal segment " + file, e);
+        }
+        MappedByteBuffer existing = segments.putIfAbsent(segmentStart, segment);
+        return existing != null ? existing : segment;
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private static long sequenceAt(long position) {
+        return position / JournalRecord.SIZE + 1;
+    }
+}
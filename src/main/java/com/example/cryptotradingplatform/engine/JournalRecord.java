@@ -0,0 +1,97 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Fixed 96-byte binary layout of one journaled trade: twelve longs, the last a checksum over the others.
+//   0 sequence, 8 timestamp, 16 account id, 24 quantity, 32 price per unit, 40 total price,
+//  48 balance after, 56 holding after, 64..79 symbol (ASCII, zero padded), 80 quantity scale, type and
+//  symbol length, 88 checksum. Amounts are the event's fixed-point units.
+// A record only counts if its checksum matches and its sequence is the one expected at its position,
+// which is how a torn write or the zero-filled tail of a pre-sized segment is recognised.
+final class JournalRecord {
+
+    static final int SIZE = 96;
+    static final int MAX_SYMBOL_LENGTH = 16;
+
+    private JournalRecord() {
+    }
+
+    static void write(ByteBuffer buffer, int offset, long sequence, TradeEvent event) {
+        String symbol = event.getCryptoSymbol();
+        long symbolLow = packSymbol(symbol, 0);
+        long symbolHigh = packSymbol(symbol, 8);
+        long meta = ((long) event.getQuantityScale() << 16) | ((long) event.getType().ordinal() << 8) | symbol.length();
+
+        buffer.putLong(offset, sequence);
+        buffer.putLong(offset + 8, event.getTimestamp());
+        buffer.putLong(offset + 16, event.getAccountId());
+        buffer.putLong(offset + 24, event.getQuantity());
+        buffer.putLong(offset + 32, event.getPricePerUnit());
+        buffer.putLong(offset + 40, event.getTotalPrice());
+        buffer.putLong(offset + 48, event.getBalanceAfter());
+        buffer.putLong(offset + 56, event.getHoldingAfter());
+        buffer.putLong(offset + 64, symbolLow);
+        buffer.putLong(offset + 72, symbolHigh);
+        buffer.putLong(offset + 80, meta);
+        buffer.putLong(offset + 88, checksum(buffer, offset));
+    }
+
+    //Decodes the record at offset, or returns null if it is not a complete record with the expected sequence.
+    static TradeEvent read(ByteBuffer buffer, int offset, long expectedSequence) {
+        if (buffer.getLong(offset) != expectedSequence || buffer.getLong(offset + 88) != checksum(buffer, offset)) {
+            return null;
+        }
+        long meta = buffer.getLong(offset + 80);
+        int symbolLength = (int) (meta & 0xFF);
+        int type = (int) ((meta >>> 8) & 0xFF);
+        int quantityScale = (int) (meta >>> 16);
+        if (symbolLength > MAX_SYMBOL_LENGTH || type >= TransactionType.values().length || quantityScale > Amount.MAX_SCALE) {
+            return null;
+        }
+        byte[] symbol = new byte[MAX_SYMBOL_LENGTH];
+        ByteBuffer.wrap(symbol).putLong(buffer.getLong(offset + 64)).putLong(buffer.getLong(offset + 72));
+        return new TradeEvent(buffer.getLong(offset + 16), new String(symbol, 0, symbolLength, StandardCharsets.US_ASCII),
+                TransactionType.values()[type], quantityScale,
+                buffer.getLong(offset + 24),
+                buffer.getLong(offset + 32),
+                buffer.getLong(offset + 40),
+                buffer.getLong(offset + 48),
+                buffer.getLong(offset + 56),
+                buffer.getLong(offset + 8));
+    }
+
+    //True if the symbol fits the record's fixed-width ASCII field.
+    static boolean fits(String symbol) {
+        if (symbol.length() > MAX_SYMBOL_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length(); i++) {
+            if (symbol.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long packSymbol(String symbol, int from) {
+        long packed = 0;
+        for (int i = 0; i < 8; i++) {
+            int index = from + i;
+            packed = (packed << 8) | (index < symbol.length() ? symbol.charAt(index) & 0xFF : 0);
+        }
+        return packed;
+    }
+
+    private static long checksum(ByteBuffer buffer, int offset) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < 88; i += 8) {
+            hash = (hash ^ buffer.getLong(offset + i)) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.engine.TradeEventProjection.WriteOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Write-ahead journal of engine trades in memory-mapped segment files, one directory per shard.
+// Records are fixed-size (see JournalRecord) and appended by the shard threads without locks.
+// A flusher thread forces them to disk according to the fsync policy:
+//   BATCH    - group commit: everything appended since the last force is flushed together, and shards
+//              only acknowledge a trade once the force covering it has completed
+//   INTERVAL - flush every fsync-interval-ms; trades are acknowledged before they are durable
+//   NONE     - leave flushing to the operating system
+// Shards periodically hand over snapshots of their accounts; on restart each shard loads its latest
+// snapshot and replays the journal after it. The database tables are a projection of the journal,
+// fed from a background thread; how far it got is committed per shard in the same database transaction
+// as the trades, so a crash can never replay a batch into the ledger twice. When a batch fails the
+// projector retries its records one at a time, and a record the database keeps refusing is moved to
+// the dead-letter table rather than stalling the shard. While the database is not answering at all the
+// projector keeps retrying.
+@Component
+@ConditionalOnExpression("${trading.engine.enabled:false} and '${trading.engine.journal.type:mapped}' == 'mapped'")
+public class MappedTradeJournal implements TradeJournal, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedTradeJournal.class);
+
+    public enum FsyncPolicy {
+        BATCH, INTERVAL, NONE
+    }
+
+    //Where the projector recorded its position before checkpoints moved into the database; read once on upgrade.
+    private static final String LEGACY_CHECKPOINT_FILE = "projected.position";
+    //Version of the record and snapshot layouts; 2 stores fixed-point units instead of doubles.
+    private static final int FORMAT = 2;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final long snapshotInterval;
+    private final int batchSize;
+    private final TradeEventProjection projection;
+    private final JournalPartition[] partitions;
+    private final long[] appendedSinceSnapshot;
+    private final AtomicBoolean[] snapshotInFlight;
+    private final long[] projectedPositions;
+    //After a failed batch, records before this position are projected one at a time to find the bad one.
+    private final long[] isolatedUntil;
+    private final List<List<AccountSnapshot>> recoveredSnapshots = new ArrayList<>();
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "trade-journal-snapshots"));
+    private final Thread flusher = new Thread(this::flushLoop, "trade-journal-flusher");
+    private final Thread projector = new Thread(this::projectLoop, "trade-journal-projector");
+    private volatile boolean running;
+
+    public MappedTradeJournal(TradeEventProjection projection,
+                              @Value("${trading.engine.journal.dir:data/journal}") String directory,
+                              @Value("${trading.engine.shards:4}") int shards,
+                              @Value("${trading.engine.journal.segment-size-mb:64}") int segmentSizeMb,
+                              @Value("${trading.engine.journal.fsync:BATCH}") FsyncPolicy fsyncPolicy,
+                              @Value("${trading.engine.journal.fsync-interval-ms:10}") long fsyncIntervalMillis,
+                              @Value("${trading.engine.journal.snapshot-interval:100000}") long snapshotInterval,
+                              @Value("${trading.engine.journal.batch-size:256}") int batchSize) {
+        this.projection = projection;
+        this.directory = Paths.get(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.snapshotInterval = snapshotInterval;
+        this.batchSize = batchSize;
+        this.partitions = new JournalPartition[shards];
+        this.appendedSinceSnapshot = new long[shards];
+        this.snapshotInFlight = new AtomicBoolean[shards];
+        this.projectedPositions = new long[shards];
+        this.isolatedUntil = new long[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            partitions[shard] = new JournalPartition(this.directory.resolve("shard-" + shard), segmentSizeMb << 20);
+            snapshotInFlight[shard] = new AtomicBoolean();
+        }
+    }
+
+    @Override
+    public long append(int shard, TradeEvent event) {
+        appendedSinceSnapshot[shard]++;
+        return partitions[shard].append(event);
+    }
+
+    @Override
+    public long appendAll(int shard, List<TradeEvent> events) {
+        appendedSinceSnapshot[shard] += events.size();
+        return partitions[shard].appendAll(events);
+    }
+
+    @Override
+    public long durablePosition(int shard) {
+        return fsyncPolicy == FsyncPolicy.BATCH ? partitions[shard].durablePosition() : Long.MAX_VALUE;
+    }
+
+    @Override
+    public boolean snapshotDue(int shard) {
+        return appendedSinceSnapshot[shard] >= snapshotInterval && !snapshotInFlight[shard].get();
+    }
+
+    @Override
+    public void snapshot(int shard, List<AccountSnapshot> accounts) {
+        JournalPartition partition = partitions[shard];
+        long position = partition.writePosition();
+        appendedSinceSnapshot[shard] = 0;
+        snapshotInFlight[shard].set(true);
+        snapshotWriter.execute(() -> {
+            try {
+                SnapshotFile.write(partition.directory(), position, accounts);
+                partition.snapshotTaken(position);
+                deleteReplayedSegments(shard);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write journal snapshot: shard={} error=\"{}\"", shard, e.getMessage());
+            } finally {
+                snapshotInFlight[shard].set(false);
+            }
+        });
+    }
+
+    @Override
+    public void recover(int shard, Consumer<AccountSnapshot> snapshotted, Consumer<TradeEvent> replayed) {
+        JournalPartition partition = partitions[shard];
+        recoveredSnapshots.get(shard).forEach(snapshotted);
+        recoveredSnapshots.set(shard, List.of());
+        partition.read(partition.snapshotPosition(), partition.writePosition(), replayed);
+    }
+
+    //Opens every shard's journal, finding its latest snapshot and the end of its valid records.
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+            checkLayout();
+            for (int shard = 0; shard < partitions.length; shard++) {
+                JournalPartition partition = partitions[shard];
+                List<AccountSnapshot> accounts = new ArrayList<>();
+                long snapshotPosition = SnapshotFile.readLatest(partition.directory(), accounts::add);
+                partition.open(snapshotPosition);
+                recoveredSnapshots.add(accounts);
+                projectedPositions[shard] = readCheckpoint(shard, partition);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open trade journal in " + directory, e);
+        }
+        running = true;
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            flusher.start();
+        }
+        projector.start();
+    }
+
+    //Flushes and projects everything appended; called after the engine has drained its shards.
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                flusher.join();
+            }
+            projector.join();
+            snapshotWriter.shutdown();
+            snapshotWriter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return ExecutionEngine.PHASE - 1;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            boolean flushed = false;
+            for (JournalPartition partition : partitions) {
+                if (partition.writePosition() > partition.durablePosition()) {
+                    partition.force();
+                    flushed = true;
+                }
+            }
+            if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis));
+            } else if (!flushed) {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+        for (JournalPartition partition : partitions) {
+            partition.force();
+        }
+    }
+
+    //Feeds durable records to the database projection, which advances each shard's checkpoint per batch.
+    private void projectLoop() {
+        List<TradeEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = !running;
+            boolean progressed = false;
+            boolean failed = false;
+            for (int shard = 0; shard < partitions.length; shard++) {
+                JournalPartition partition = partitions[shard];
+                long from = projectedPositions[shard];
+                boolean isolating = from < isolatedUntil[shard];
+                long to = Math.min(committedPosition(partition),
+                        from + (long) (isolating ? 1 : batchSize) * JournalRecord.SIZE);
+                if (to <= from) {
+                    continue;
+                }
+                batch.clear();
+                partition.read(from, to, batch::add);
+                try {
+                    boolean written = isolating
+                            ? projection.writeOrDeadLetter(shard, from, to, batch) != WriteOutcome.FAILED
+                            : projection.write(shard, from, to, batch);
+                    if (written) {
+                        projectedPositions[shard] = to;
+                        progressed = true;
+                    } else if (isolating) {
+                        failed = true;
+                    } else {
+                        isolatedUntil[shard] = to;
+                        progressed = true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (stopping && (!progressed || failed)) {
+                return;
+            }
+            if (failed) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1000));
+            } else if (!progressed) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+    }
+
+    private long committedPosition(JournalPartition partition) {
+        if (fsyncPolicy == FsyncPolicy.NONE) {
+            partition.assumeDurable();
+        }
+        return partition.durablePosition();
+    }
+
+    //Segments are only needed until both a snapshot and the projection have moved past them.
+    private void deleteReplayedSegments(int shard) throws IOException {
+        JournalPartition partition = partitions[shard];
+        partition.deleteBefore(Math.min(partition.snapshotPosition(), projectedPositions[shard]));
+    }
+
+    private long readCheckpoint(int shard, JournalPartition partition) throws IOException {
+        OptionalLong stored = projection.checkpoint(shard);
+        long position;
+        if (stored.isPresent()) {
+            position = stored.getAsLong();
+        } else {
+            Path legacy = partition.directory().resolve(LEGACY_CHECKPOINT_FILE);
+            position = Files.exists(legacy) ? Long.parseLong(Files.readString(legacy).trim()) : 0;
+        }
+        if (position > partition.writePosition()) {
+            throw new IllegalStateException("Trade journal in " + partition.directory() + " ends at "
+                    + partition.writePosition() + " but the database has projected it up to " + position);
+        }
+        return position;
+    }
+
+    //Accounts are assigned to shards by hash, so replaying with a different shard count would mix them up.
+    private void checkLayout() throws IOException {
+        Path meta = directory.resolve("journal.meta");
+        String expected = "format=" + FORMAT + " shards=" + partitions.length;
+        if (Files.exists(meta)) {
+            String actual = Files.readString(meta).trim();
+            if (!actual.equals(expected)) {
+                throw new IllegalStateException("Trade journal in " + directory + " was written with " + actual
+                        + " but the engine is configured with " + expected);
+            }
+        } else {
+            Files.writeString(meta, expected);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.service.TradePersistencePipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Journal that only queues engine trades on the persistence pipeline, which writes them to the
+// database in batches. Trades still queued are lost if the process dies; use the mapped journal for
+// durability. A full queue makes shards wait.
+@Component
+@ConditionalOnExpression("${trading.engine.enabled:false} and '${trading.engine.journal.type:mapped}' == 'repository'")
+public class RepositoryTradeJournal implements TradeJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryTradeJournal.class);
+
+    private final TradePersistencePipeline pipeline;
+
+    public RepositoryTradeJournal(TradePersistencePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public long append(int shard, TradeEvent event) {
+        try {
+            pipeline.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while journaling trade: account={}", event.getAccountId());
+        }
+        return 0;
+    }
+
+    //Queues the trades as one write, so they reach the database in the same transaction.
+    @Override
+    public long appendAll(int shard, List<TradeEvent> events) {
+        try {
+            pipeline.putAll(events);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while journaling trades: account={} trades={}", events.get(0).getAccountId(),
+                    events.size());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Snapshot of a shard's accounts, stored as snapshot-<journal position>.bin in the shard's journal
+// directory. Written to a temporary file and renamed into place, with a trailing CRC, so a crash while
+// writing leaves the previous snapshot as the latest valid one. Each holding is stored with the quantity
+// scale it was written at and brought to the current scale when read.
+final class SnapshotFile {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotFile.class);
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private SnapshotFile() {
+    }
+
+    static void write(Path directory, long position, List<AccountSnapshot> accounts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(position);
+        out.writeInt(accounts.size());
+        for (AccountSnapshot account : accounts) {
+            out.writeLong(account.getAccountId());
+            out.writeLong(account.getBalance());
+            out.writeInt(account.getHoldings().size());
+            for (Map.Entry<String, Long> holding : account.getHoldings().entrySet()) {
+                out.writeUTF(holding.getKey());
+                out.writeByte(AssetScales.quantityScale(holding.getKey()));
+                out.writeLong(holding.getValue());
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, position, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                long older = positionOf(file);
+                if (older >= 0 && older < position) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    //Reads the newest valid snapshot into the consumer and returns its position, or 0 if there is none.
+    static long readLatest(Path directory, Consumer<AccountSnapshot> consumer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshots = files.filter(file -> positionOf(file) >= 0)
+                    .sorted((a, b) -> Long.compare(positionOf(b), positionOf(a)))
+                    .toList();
+        }
+        for (Path snapshot : snapshots) {
+            List<AccountSnapshot> accounts = read(snapshot);
+            if (accounts != null) {
+                accounts.forEach(consumer);
+                return positionOf(snapshot);
+            }
+            log.warn("Ignoring corrupt journal snapshot: file={}", snapshot);
+        }
+        return 0;
+    }
+
+    private static List<AccountSnapshot> read(Path snapshot) throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        if (bytes.length < Long.BYTES * 2) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - Long.BYTES);
+        if (ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong() != crc.getValue()) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Long.BYTES));
+        in.readLong();
+        int count = in.readInt();
+        List<AccountSnapshot> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long accountId = in.readLong();
+            long balance = in.readLong();
+            int holdingCount = in.readInt();
+            Map<String, Long> holdings = new HashMap<>();
+            for (int j = 0; j < holdingCount; j++) {
+                String symbol = in.readUTF();
+                int scale = in.readByte();
+                holdings.put(symbol, Amount.rescale(in.readLong(), scale, AssetScales.quantityScale(symbol)));
+            }
+            accounts.add(new AccountSnapshot(accountId, balance, holdings));
+        }
+        return accounts;
+    }
+
+    private static long positionOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
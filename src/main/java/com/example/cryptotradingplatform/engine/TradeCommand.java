@@ -0,0 +1,35 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Pre-allocated ring slot a producer fills in and the shard thread consumes; reused for every trade.
+// An atomic batch takes one slot, with its trades in batch and its outcome in batchResult.
+final class TradeCommand {
+
+    long accountId;
+    String cryptoSymbol;
+    TransactionType type;
+    int quantityScale;
+    long quantity;
+    long pricePerUnit;
+    CompletableFuture<String> result;
+    List<BatchedTrade> batch;
+    CompletableFuture<List<TradeResult>> batchResult;
+
+    void clear() {
+        cryptoSymbol = null;
+        type = null;
+        result = null;
+        batch = null;
+        batchResult = null;
+    }
+
+    //One priced trade of an atomic batch, in fixed-point units.
+    record BatchedTrade(String cryptoSymbol, TransactionType type, int quantityScale, long quantity,
+                        long pricePerUnit) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.model.TransactionType;
+
+// An applied trade, including the resulting balance and holding so that a consumer can replay it
+// without reading any other state. Amounts are fixed-point units: quantity and holding at
+// quantityScale, price at AssetScales.PRICE_SCALE, total and balance at AssetScales.CASH_SCALE.
+public final class TradeEvent {
+
+    private final long accountId;
+    private final String cryptoSymbol;
+    private final TransactionType type;
+    private final int quantityScale;
+    private final long quantity;
+    private final long pricePerUnit;
+    private final long totalPrice;
+    private final long balanceAfter;
+    private final long holdingAfter;
+    private final long timestamp;
+
+    public TradeEvent(long accountId, String cryptoSymbol, TransactionType type, int quantityScale, long quantity,
+                      long pricePerUnit, long totalPrice, long balanceAfter, long holdingAfter, long timestamp) {
+        this.accountId = accountId;
+        this.cryptoSymbol = cryptoSymbol;
+        this.type = type;
+        this.quantityScale = quantityScale;
+        this.quantity = quantity;
+        this.pricePerUnit = pricePerUnit;
+        this.totalPrice = totalPrice;
+        this.balanceAfter = balanceAfter;
+        this.holdingAfter = holdingAfter;
+        this.timestamp = timestamp;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public int getQuantityScale() {
+        return quantityScale;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public long getPricePerUnit() {
+        return pricePerUnit;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public long getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public long getHoldingAfter() {
+        return holdingAfter;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
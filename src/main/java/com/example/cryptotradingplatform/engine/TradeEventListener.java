@@ -0,0 +1,10 @@
+package com.example.cryptotradingplatform.engine;
+
+import java.util.List;
+
+// Told about trades once TradeEventProjection has committed them, on the thread that wrote them.
+// transactionIds holds the id of each trade's ledger row, in batch order.
+public interface TradeEventListener {
+
+    void onTradesWritten(List<TradeEvent> batch, long[] transactionIds);
+}
@@ -0,0 +1,271 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.DeadLetterTrade;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.model.ProjectionCheckpoint;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.DeadLetterTradeRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import com.example.cryptotradingplatform.repository.ProjectionCheckpointRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Applies trades to the account, holding and transaction tables, one database transaction per batch.
+// Events carry the resulting balance and holding, so applying them in order leaves the tables matching
+// the writer. Applying one twice would add a second ledger row, which the history API and the portfolio
+// valuations read, so journal batches commit the journal position they reach in the same transaction and
+// skip whatever that position already covers.
+// A trade that still fails after the retries while the database is answering (its account was deleted or
+// handed to another shard) can be moved to the dead-letter table instead, so it stops holding up the others.
+// A batch loads its accounts and holdings with one query each and only touches managed entities, so
+// the flush at commit goes out as JDBC batches of inserts, updates and deletes.
+// Listeners hear about a batch only after it has committed, so they never see trades that were rolled back.
+@Component
+public class TradeEventProjection {
+
+    private static final Logger log = LoggerFactory.getLogger(TradeEventProjection.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AccountRepository accountRepository;
+    private final HoldingRepository holdingRepository;
+    private final TransactionRepository transactionRepository;
+    private final ProjectionCheckpointRepository checkpointRepository;
+    private final DeadLetterTradeRepository deadLetterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<TradeEventListener> listeners;
+
+    public TradeEventProjection(AccountRepository accountRepository, HoldingRepository holdingRepository,
+                                TransactionRepository transactionRepository,
+                                ProjectionCheckpointRepository checkpointRepository,
+                                DeadLetterTradeRepository deadLetterRepository, TransactionTemplate transactionTemplate,
+                                List<TradeEventListener> listeners) {
+        this.accountRepository = accountRepository;
+        this.holdingRepository = holdingRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.listeners = listeners;
+    }
+
+    //Writes a batch, retrying a few times; returns false if the batch had to be given up.
+    public boolean write(List<TradeEvent> batch) throws InterruptedException {
+        return attempt(batch.size(), () -> new Applied(batch, apply(batch))) == null;
+    }
+
+    //Writes the records of a shard's journal between from and to, committing the checkpoint at to with them.
+    //Returns false if the batch had to be given up.
+    public boolean write(int shard, long from, long to, List<TradeEvent> batch) throws InterruptedException {
+        return attempt(batch.size(), () -> {
+            List<TradeEvent> unapplied = advanceCheckpoint(shard, from, to, batch);
+            return new Applied(unapplied, apply(unapplied));
+        }) == null;
+    }
+
+    public enum WriteOutcome {
+        WRITTEN, DEAD_LETTERED, FAILED
+    }
+
+    //As write, but trades that still fail while the database is answering go to the dead-letter table.
+    //FAILED means neither could be done, i.e. the database is not answering.
+    public WriteOutcome writeOrDeadLetter(List<TradeEvent> events) throws InterruptedException {
+        RuntimeException failure = attempt(events.size(), () -> new Applied(events, apply(events)));
+        if (failure == null) {
+            return WriteOutcome.WRITTEN;
+        }
+        return deadLetter(events.size(), failure, () -> {
+            for (TradeEvent event : events) {
+                deadLetterRepository.save(deadLetter(event, null, null, failure));
+            }
+        });
+    }
+
+    //As the journal write, but records that still fail while the database is answering go to the dead-letter
+    //table and the checkpoint moves past them.
+    public WriteOutcome writeOrDeadLetter(int shard, long from, long to, List<TradeEvent> batch)
+            throws InterruptedException {
+        RuntimeException failure = attempt(batch.size(), () -> {
+            List<TradeEvent> unapplied = advanceCheckpoint(shard, from, to, batch);
+            return new Applied(unapplied, apply(unapplied));
+        });
+        if (failure == null) {
+            return WriteOutcome.WRITTEN;
+        }
+        return deadLetter(batch.size(), failure, () -> {
+            List<TradeEvent> unapplied = advanceCheckpoint(shard, from, to, batch);
+            long position = to - (long) unapplied.size() * JournalRecord.SIZE;
+            for (TradeEvent event : unapplied) {
+                deadLetterRepository.save(deadLetter(event, shard, position, failure));
+                position += JournalRecord.SIZE;
+            }
+        });
+    }
+
+    //Position up to which a shard's journal has been written, if it ever has been.
+    public OptionalLong checkpoint(int shard) {
+        return checkpointRepository.findById(shard)
+                .map(checkpoint -> OptionalLong.of(checkpoint.getPosition()))
+                .orElse(OptionalLong.empty());
+    }
+
+    //Stores trades that keep failing in the dead-letter table, unless it is the database itself that is failing.
+    private WriteOutcome deadLetter(int trades, RuntimeException failure, Runnable store) {
+        if (!databaseAvailable()) {
+            return WriteOutcome.FAILED;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> store.run());
+            log.error("Moved trades to the dead-letter table: trades={} error=\"{}\"", trades, failure.getMessage());
+            return WriteOutcome.DEAD_LETTERED;
+        } catch (RuntimeException e) {
+            log.error("Failed to dead-letter trades: trades={} error=\"{}\"", trades, e.getMessage());
+            return WriteOutcome.FAILED;
+        }
+    }
+
+    //Tells a trade the database refuses apart from a database that is not answering at all.
+    private boolean databaseAvailable() {
+        try {
+            checkpointRepository.count();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    //Runs one write transaction, retrying a few times; returns the last failure, or null once it has committed.
+    private RuntimeException attempt(int trades, Supplier<Applied> write) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Applied applied = transactionTemplate.execute(status -> write.get());
+                if (!applied.events().isEmpty()) {
+                    notifyListeners(applied.events(), applied.transactionIds());
+                }
+                return null;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    log.error("Failed to write trades: trades={} attempts={} error=\"{}\"", trades, attempt,
+                            e.getMessage());
+                    return e;
+                }
+                Thread.sleep(100L * attempt);
+            }
+        }
+    }
+
+    //Moves the shard's checkpoint to the end of the batch and returns the records it did not already cover.
+    private List<TradeEvent> advanceCheckpoint(int shard, long from, long to, List<TradeEvent> batch) {
+        ProjectionCheckpoint checkpoint = checkpointRepository.findById(shard).orElse(null);
+        if (checkpoint == null) {
+            checkpointRepository.save(new ProjectionCheckpoint(shard, to));
+            return batch;
+        }
+        long covered = checkpoint.getPosition();
+        if (covered >= to) {
+            return List.of();
+        }
+        checkpoint.setPosition(to);
+        if (covered <= from) {
+            return batch;
+        }
+        return batch.subList((int) ((covered - from) / JournalRecord.SIZE), batch.size());
+    }
+
+    private static DeadLetterTrade deadLetter(TradeEvent event, Integer shard, Long position, RuntimeException failure) {
+        String error = String.valueOf(failure.getMessage());
+        return new DeadLetterTrade(event.getAccountId(), event.getCryptoSymbol(), event.getType(),
+                event.getQuantityScale(), event.getQuantity(), event.getPricePerUnit(), event.getTotalPrice(),
+                event.getBalanceAfter(), event.getHoldingAfter(), event.getTimestamp(), shard, position,
+                error.length() > 1000 ? error.substring(0, 1000) : error, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private void notifyListeners(List<TradeEvent> batch, long[] transactionIds) {
+        for (TradeEventListener listener : listeners) {
+            try {
+                listener.onTradesWritten(batch, transactionIds);
+            } catch (RuntimeException e) {
+                log.warn("Trade listener failed: listener={} trades={} error=\"{}\"",
+                        listener.getClass().getSimpleName(), batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    //Returns the ids of the ledger rows written, in batch order.
+    private long[] apply(List<TradeEvent> batch) {
+        if (batch.isEmpty()) {
+            return new long[0];
+        }
+        Set<Long> accountIds = new HashSet<>();
+        for (TradeEvent event : batch) {
+            accountIds.add(event.getAccountId());
+        }
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findAllById(accountIds).forEach(account -> accounts.put(account.getId(), account));
+        Map<String, Holding> holdings = new HashMap<>();
+        for (Holding holding : holdingRepository.findByAccountIdIn(accountIds)) {
+            holdings.put(holdingKey(holding.getAccount().getId(), holding.getCryptoSymbol()), holding);
+        }
+
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (TradeEvent event : batch) {
+            Account account = accounts.get(event.getAccountId());
+            if (account == null) {
+                throw new AccountNotFoundException("Account not found.");
+            }
+            account.setBalance(Amount.of(event.getBalanceAfter(), AssetScales.CASH_SCALE));
+
+            String key = holdingKey(event.getAccountId(), event.getCryptoSymbol());
+            Holding holding = holdings.get(key);
+            if (event.getHoldingAfter() == 0) {
+                if (holding != null) {
+                    holdingRepository.delete(holding);
+                    holdings.remove(key);
+                }
+            } else if (holding == null) {
+                Amount quantity = Amount.of(event.getHoldingAfter(), event.getQuantityScale());
+                holdings.put(key, holdingRepository.save(new Holding(account, event.getCryptoSymbol(), quantity)));
+            } else {
+                holding.setQuantity(Amount.of(event.getHoldingAfter(), event.getQuantityScale()));
+            }
+
+            Transaction transaction = new Transaction(account, event.getCryptoSymbol(), event.getType(),
+                    Amount.of(event.getQuantity(), event.getQuantityScale()),
+                    Amount.of(event.getPricePerUnit(), AssetScales.PRICE_SCALE),
+                    Amount.of(event.getTotalPrice(), AssetScales.CASH_SCALE));
+            transaction.setTransactionDate(new Timestamp(event.getTimestamp()));
+            transactions.add(transaction);
+        }
+        transactionRepository.saveAll(transactions);
+        long[] transactionIds = new long[transactions.size()];
+        for (int i = 0; i < transactionIds.length; i++) {
+            transactionIds[i] = transactions.get(i).getId();
+        }
+        return transactionIds;
+    }
+
+    private static String holdingKey(Long accountId, String cryptoSymbol) {
+        return accountId + ":" + cryptoSymbol;
+    }
+
+    private record Applied(List<TradeEvent> events, long[] transactionIds) {
+    }
+}
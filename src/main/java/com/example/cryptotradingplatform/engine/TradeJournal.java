@@ -0,0 +1,42 @@
+package com.example.cryptotradingplatform.engine;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Durable record of the trades the execution engine applies, kept per shard.
+// append is called on a shard's thread right after the trade is applied in memory, in the order trades
+// were applied. It must not block on I/O; implementations persist asynchronously and report progress
+// through durablePosition, which the shard uses to hold back acknowledgements until a trade is durable.
+public interface TradeJournal {
+
+    //Appends an applied trade and returns the position the journal has to reach for it to be durable.
+    long append(int shard, TradeEvent event);
+
+    //Appends trades that must be journaled together, all of them or none, and returns the position the
+    //journal has to reach for the last of them to be durable. Journals whose append can fail must override it.
+    default long appendAll(int shard, List<TradeEvent> events) {
+        long position = 0;
+        for (TradeEvent event : events) {
+            position = append(shard, event);
+        }
+        return position;
+    }
+
+    //Position up to which the shard's trades are durable.
+    default long durablePosition(int shard) {
+        return Long.MAX_VALUE;
+    }
+
+    //True when the shard should hand its accounts to snapshot() so older journal entries can be dropped.
+    default boolean snapshotDue(int shard) {
+        return false;
+    }
+
+    //Persists a copy of the shard's accounts as of its last appended trade.
+    default void snapshot(int shard, List<AccountSnapshot> accounts) {
+    }
+
+    //Replays the shard's latest snapshot and every trade journaled after it; called before the shard starts.
+    default void recover(int shard, Consumer<AccountSnapshot> snapshotted, Consumer<TradeEvent> replayed) {
+    }
+}
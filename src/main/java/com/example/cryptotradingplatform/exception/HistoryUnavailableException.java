@@ -0,0 +1,11 @@
+package com.example.cryptotradingplatform.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class HistoryUnavailableException extends RuntimeException {
+    public HistoryUnavailableException(String message) {
+        super(message);
+    }
+}
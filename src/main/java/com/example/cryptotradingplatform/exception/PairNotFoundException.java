@@ -0,0 +1,11 @@
+package com.example.cryptotradingplatform.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class PairNotFoundException extends RuntimeException {
+    public PairNotFoundException(String message) {
+        super(message);
+    }
+}
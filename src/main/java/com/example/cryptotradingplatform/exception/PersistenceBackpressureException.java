@@ -0,0 +1,11 @@
+package com.example.cryptotradingplatform.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PersistenceBackpressureException extends RuntimeException {
+    public PersistenceBackpressureException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.cryptotradingplatform.history;
+
+// One stored ticker update as served by the ticks endpoint. timestamp is epoch millis.
+public final class Tick {
+
+    private final long timestamp;
+    private final double bid;
+    private final double ask;
+    private final double last;
+    private final double volume;
+
+    public Tick(long timestamp, double bid, double ask, double last, double volume) {
+        this.timestamp = timestamp;
+        this.bid = bid;
+        this.ask = ask;
+        this.last = last;
+        this.volume = volume;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getBid() {
+        return bid;
+    }
+
+    public double getAsk() {
+        return ask;
+    }
+
+    public double getLast() {
+        return last;
+    }
+
+    //Kraken's rolling 24h volume at the time of the tick.
+    public double getVolume() {
+        return volume;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.cryptotradingplatform.history;
+
+// Up to capacity ticks of one pair held column by column: the unit TickBlockCodec encodes and decodes.
+final class TickBlock {
+
+    final long[] timestamps;
+    final double[] bids;
+    final double[] asks;
+    final double[] lasts;
+    final double[] volumes;
+    //Room to copy an encoded block of this capacity into for decoding, with the slack BitReader needs.
+    final byte[] scratch;
+    int count;
+
+    TickBlock(int capacity) {
+        this.timestamps = new long[capacity];
+        this.bids = new double[capacity];
+        this.asks = new double[capacity];
+        this.lasts = new double[capacity];
+        this.volumes = new double[capacity];
+        this.scratch = new byte[TickBlockCodec.maxEncodedSize(capacity) + 16];
+    }
+
+    int capacity() {
+        return timestamps.length;
+    }
+
+    boolean isFull() {
+        return count == timestamps.length;
+    }
+
+    void add(long timestamp, double bid, double ask, double last, double volume) {
+        timestamps[count] = timestamp;
+        bids[count] = bid;
+        asks[count] = ask;
+        lasts[count] = last;
+        volumes[count] = volume;
+        count++;
+    }
+
+    void clear() {
+        count = 0;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.cryptotradingplatform.history;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Column-wise compression of a TickBlock. An encoded block is
+//   int count, int body length, long first timestamp, long last timestamp,
+// followed by five columns, each prefixed with its length in bytes so a reader can skip it:
+//   timestamps - zigzag varints of the delta to the previous delta, which is 0 for evenly spaced ticks
+//   bid, ask, last, volume - Gorilla XOR encoding: each value is XORed with the previous one and only the
+//                            differing bits are written, one bit when the value did not change
+// Integers are big-endian, like ByteBuffer's default.
+final class TickBlockCodec {
+
+    static final int HEADER = 24;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private TickBlockCodec() {
+    }
+
+    //Largest encoding of a block of the given capacity; the varints take at most 10 bytes and an XORed
+    //value at most 77 bits.
+    static int maxEncodedSize(int capacity) {
+        return HEADER + 5 * Integer.BYTES + capacity * (10 + 4 * 10) + 8;
+    }
+
+    //Encodes the block into out, which must hold maxEncodedSize bytes, and returns the encoded length.
+    static int encode(TickBlock block, byte[] out) {
+        int count = block.count;
+        int position = HEADER;
+        position = encodeTimestamps(block.timestamps, count, out, position);
+        BitWriter writer = new BitWriter(out);
+        position = encodeDoubles(block.bids, count, writer, position);
+        position = encodeDoubles(block.asks, count, writer, position);
+        position = encodeDoubles(block.lasts, count, writer, position);
+        position = encodeDoubles(block.volumes, count, writer, position);
+        INT.set(out, 0, count);
+        INT.set(out, 4, position - HEADER);
+        LONG.set(out, 8, block.timestamps[0]);
+        LONG.set(out, 16, block.timestamps[count - 1]);
+        return position;
+    }
+
+    static int count(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset);
+    }
+
+    //Total length of the block at offset, header included.
+    static int length(ByteBuffer buffer, int offset) {
+        return HEADER + buffer.getInt(offset + 4);
+    }
+
+    static long firstTimestamp(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    static long lastTimestamp(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 16);
+    }
+
+    //Decodes the block at offset into the holder, which must be at least as large as the block. The block
+    //is copied out of the buffer once and decoded from the copy.
+    static void decode(ByteBuffer buffer, int offset, TickBlock into) {
+        int count = count(buffer, offset);
+        int length = length(buffer, offset);
+        byte[] in = into.scratch;
+        buffer.get(offset, in, 0, length);
+        into.count = count;
+        int position = decodeTimestamps(in, HEADER, firstTimestamp(buffer, offset), into.timestamps, count);
+        BitReader reader = new BitReader(in);
+        position = decodeDoubles(reader, position, into.bids, count);
+        position = decodeDoubles(reader, position, into.asks, count);
+        position = decodeDoubles(reader, position, into.lasts, count);
+        decodeDoubles(reader, position, into.volumes, count);
+    }
+
+    private static int encodeTimestamps(long[] timestamps, int count, byte[] out, int position) {
+        int start = position + Integer.BYTES;
+        int end = start;
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - timestamps[i - 1];
+            end = writeVarLong(out, end, zigzag(delta - previousDelta));
+            previousDelta = delta;
+        }
+        INT.set(out, position, end - start);
+        return end;
+    }
+
+    private static int decodeTimestamps(byte[] in, int position, long first, long[] into, int count) {
+        int length = (int) INT.get(in, position);
+        int cursor = position + Integer.BYTES;
+        long previous = first;
+        long delta = 0;
+        into[0] = first;
+        for (int i = 1; i < count; i++) {
+            long encoded = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in[cursor++];
+                encoded |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            delta += (encoded >>> 1) ^ -(encoded & 1);
+            previous += delta;
+            into[i] = previous;
+        }
+        return position + Integer.BYTES + length;
+    }
+
+    private static int encodeDoubles(double[] values, int count, BitWriter writer, int position) {
+        writer.start(position + Integer.BYTES);
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writer.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            previous = bits;
+            if (xor == 0) {
+                writer.write(0, 1);
+                continue;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // The changed bits fit in the previous window: reuse it.
+                writer.write(0b10, 2);
+                writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                writer.write(0b11, 2);
+                writer.write(leading, 5);
+                writer.write(significant - 1, 6);
+                writer.write(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        int end = writer.finish();
+        INT.set(writer.out, position, end - position - Integer.BYTES);
+        return end;
+    }
+
+    private static int decodeDoubles(BitReader reader, int position, double[] into, int count) {
+        int length = (int) INT.get(reader.in, position);
+        reader.start(position + Integer.BYTES);
+        long previous = reader.read(64);
+        into[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    leading = (int) reader.read(5);
+                    int significant = (int) reader.read(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= reader.read(64 - leading - trailing) << trailing;
+            }
+            into[i] = Double.longBitsToDouble(previous);
+        }
+        return position + Integer.BYTES + length;
+    }
+
+    private static int writeVarLong(byte[] out, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    //Writes bit fields most significant bit first into a byte array.
+    private static final class BitWriter {
+
+        private final byte[] out;
+        private int position;
+        private long pending;
+        private int pendingBits;
+
+        private BitWriter(byte[] out) {
+            this.out = out;
+        }
+
+        private void start(int position) {
+            this.position = position;
+            this.pending = 0;
+            this.pendingBits = 0;
+        }
+
+        //Writes the low bits of value; bits is 1 to 64.
+        private void write(long value, int bits) {
+            if (bits > 32) {
+                write(value >>> 32, bits - 32);
+                write(value, 32);
+                return;
+            }
+            pending = (pending << bits) | (value & (-1L >>> (64 - bits)));
+            pendingBits += bits;
+            while (pendingBits >= 8) {
+                pendingBits -= 8;
+                out[position++] = (byte) (pending >>> pendingBits);
+            }
+            pending &= (1L << pendingBits) - 1;
+        }
+
+        //Pads the last byte with zeros and returns the position after it.
+        private int finish() {
+            if (pendingBits > 0) {
+                out[position++] = (byte) (pending << (8 - pendingBits));
+                pendingBits = 0;
+                pending = 0;
+            }
+            return position;
+        }
+    }
+
+    //Reads what BitWriter wrote, a 64-bit big-endian word at a time. The array must have 8 bytes of slack
+    //after the encoded block.
+    private static final class BitReader {
+
+        private final byte[] in;
+        private long bitPosition;
+
+        private BitReader(byte[] in) {
+            this.in = in;
+        }
+
+        private void start(int position) {
+            this.bitPosition = (long) position << 3;
+        }
+
+        //Reads a bit field of 1 to 64 bits.
+        private long read(int bits) {
+            int index = (int) (bitPosition >>> 3);
+            int shift = (int) (bitPosition & 7);
+            bitPosition += bits;
+            long high = (long) LONG.get(in, index) << shift;
+            if (bits <= 64 - shift) {
+                return high >>> (64 - bits);
+            }
+            int extra = bits - (64 - shift);
+            return (high >>> (64 - bits)) | ((in[index + 8] & 0xFF) >>> (8 - extra));
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.cryptotradingplatform.history;
+
+// Receives ticks from a TickHistoryStore scan, in time order. Called once per tick without allocating.
+public interface TickConsumer {
+    void onTick(long timestamp, double bid, double ask, double last, double volume);
+}
@@ -0,0 +1,126 @@
+package com.example.cryptotradingplatform.history;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One pair's ticks for one UTC day: a memory-mapped file of encoded TickBlocks appended one after another
+// behind a fixed header. The header records how many bytes hold complete blocks, so after a restart
+// appending carries on from there; a block is only counted once fully written. The file grows by
+// doubling its mapping when a block does not fit.
+// Only the TickHistoryStore writer thread appends; query threads read up to committed() concurrently.
+final class TickFile {
+
+    static final int HEADER = 64;
+
+    private static final int MAGIC = 0x5449434B;
+    private static final int FORMAT = 1;
+
+    private final Path path;
+    private final long day;
+    private volatile MappedByteBuffer buffer;
+    private volatile int committed;
+
+    private TickFile(Path path, long day, MappedByteBuffer buffer, int committed) {
+        this.path = path;
+        this.day = day;
+        this.buffer = buffer;
+        this.committed = committed;
+    }
+
+    //Opens the day's file for appending, creating it with the given size if it does not exist.
+    static TickFile openForAppend(Path path, long day, int initialSize) {
+        try {
+            Files.createDirectories(path.getParent());
+            boolean exists = Files.exists(path) && Files.size(path) >= HEADER;
+            int size = exists ? (int) Math.max(Files.size(path), initialSize) : initialSize;
+            MappedByteBuffer buffer = map(path, size, FileChannel.MapMode.READ_WRITE);
+            if (!exists) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT);
+                buffer.putLong(8, day);
+                buffer.putInt(16, HEADER);
+            }
+            checkHeader(path, buffer, day);
+            return new TickFile(path, day, buffer, buffer.getInt(16));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open tick file " + path, e);
+        }
+    }
+
+    //Opens a day's file for reading, or returns null if there is none.
+    static TickFile openForRead(Path path, long day) {
+        try {
+            if (!Files.exists(path) || Files.size(path) < HEADER) {
+                return null;
+            }
+            MappedByteBuffer buffer = map(path, (int) Files.size(path), FileChannel.MapMode.READ_ONLY);
+            checkHeader(path, buffer, day);
+            return new TickFile(path, day, buffer, buffer.getInt(16));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open tick file " + path, e);
+        }
+    }
+
+    long day() {
+        return day;
+    }
+
+    //Bytes at the start of the file that hold complete blocks; read this before buffer().
+    int committed() {
+        return committed;
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    //Writer thread only: appends an encoded block and publishes it to readers.
+    void append(byte[] block, int length) {
+        int position = committed;
+        if (position + length > buffer.capacity()) {
+            grow(position + length);
+        }
+        buffer.put(position, block, 0, length);
+        buffer.putInt(16, position + length);
+        committed = position + length;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    private void grow(int required) {
+        long size = buffer.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Tick file " + path + " is full");
+        }
+        try {
+            buffer = map(path, (int) size, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot grow tick file " + path, e);
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, int size, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private static void checkHeader(Path path, MappedByteBuffer buffer, long day) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT || buffer.getLong(8) != day) {
+            throw new IllegalStateException("Not a tick file of format " + FORMAT + " for day " + day + ": " + path);
+        }
+    }
+}
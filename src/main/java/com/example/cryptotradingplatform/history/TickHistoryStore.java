@@ -0,0 +1,345 @@
+package com.example.cryptotradingplatform.history;
+
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Keeps every tick of the feed for backtesting and charts, in one append-only columnar file per pair and
+// UTC day (see TickFile and TickBlockCodec), under trading.history.dir/<BASE-QUOTE>/<yyyy-MM-dd>.ticks.
+// The listener only copies a tick into the pair's single-producer ring, so no feed thread blocks on disk;
+// when a ring is full the tick is dropped and counted. A writer thread drains the rings into blocks of
+// block-size ticks per pair and appends each one compressed once it is full, the day ends, or it has
+// been open for flush-interval-ms, so queries see ticks at most that late.
+// Queries scan the memory-mapped files directly, skipping blocks outside the range by their header, and
+// may span at most max-query-days. Days before yesterday no longer change, so their read-only mappings
+// are kept for the next query, up to READ_CACHE of them, least recently used dropped first.
+@Component
+@ConditionalOnProperty(name = "trading.history.enabled", havingValue = "true")
+public class TickHistoryStore implements PriceListener, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TickHistoryStore.class);
+
+    //Stops after the market data client, so the last ticks it delivered are written.
+    static final int PHASE = Integer.MAX_VALUE - 1024;
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int READ_CACHE = 256;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final PriceBook priceBook;
+    private final Path directory;
+    private final int blockSize;
+    private final int fileSize;
+    private final long flushIntervalMillis;
+    private final int maxQueryDays;
+    private final TickRing[] rings;
+    private final PairWriter[] writers;
+    private final Map<Long, TickFile> openFiles = new ConcurrentHashMap<>();
+    private final Map<Long, TickFile> readFiles = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TickFile> eldest) {
+            return size() > READ_CACHE;
+        }
+    });
+    private final Thread writer = new Thread(this::writeLoop, "tick-history-writer");
+    private final Counter storedTicks;
+    private final Counter storedBytes;
+    private final Counter droppedTicks;
+    private volatile boolean running;
+
+    public TickHistoryStore(PriceBook priceBook, MeterRegistry meterRegistry,
+                            @Value("${trading.history.dir:data/history}") String directory,
+                            @Value("${trading.history.buffer-size:8192}") int bufferSize,
+                            @Value("${trading.history.block-size:1024}") int blockSize,
+                            @Value("${trading.history.file-size-mb:16}") int fileSizeMb,
+                            @Value("${trading.history.flush-interval-ms:1000}") long flushIntervalMillis,
+                            @Value("${trading.history.max-query-days:31}") int maxQueryDays) {
+        this.priceBook = priceBook;
+        this.directory = Paths.get(directory);
+        this.blockSize = blockSize;
+        this.fileSize = fileSizeMb << 20;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxQueryDays = maxQueryDays;
+        this.rings = new TickRing[priceBook.size()];
+        this.writers = new PairWriter[priceBook.size()];
+        for (int id = 0; id < priceBook.size(); id++) {
+            rings[id] = new TickRing(bufferSize);
+            writers[id] = new PairWriter(id);
+        }
+        this.storedTicks = Counter.builder("trading.history.ticks")
+                .description("Ticks written to the history files")
+                .register(meterRegistry);
+        this.storedBytes = Counter.builder("trading.history.bytes")
+                .description("Compressed bytes written to the history files")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.droppedTicks = Counter.builder("trading.history.dropped")
+                .description("Ticks dropped because the history writer fell behind")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onPriceUpdate(int pairId, double bid, double ask, double last, double volume, long timestamp) {
+        if (!rings[pairId].offer(timestamp, bid, ask, last, volume)) {
+            droppedTicks.increment();
+        }
+    }
+
+    //Feeds the pair's ticks from fromMillis to toMillis inclusive to the consumer in time order, at most
+    //limit of them, and returns how many it fed. Ticks still waiting to be written are not included.
+    //Throws IllegalArgumentException if the range covers more than max-query-days UTC days.
+    public int scan(int pairId, long fromMillis, long toMillis, int limit, TickConsumer consumer) {
+        long firstDay = Math.floorDiv(fromMillis, DAY_MILLIS);
+        long lastDay = Math.floorDiv(toMillis, DAY_MILLIS);
+        if (lastDay - firstDay >= maxQueryDays) {
+            throw new IllegalArgumentException("A tick query may span at most " + maxQueryDays + " days.");
+        }
+        TickBlock block = new TickBlock(blockSize);
+        int fed = 0;
+        for (long day = firstDay; day <= lastDay; day++) {
+            TickFile file = fileForRead(pairId, day);
+            if (file == null) {
+                continue;
+            }
+            int committed = file.committed();
+            MappedByteBuffer buffer = file.buffer();
+            for (int offset = TickFile.HEADER; offset < committed; offset += TickBlockCodec.length(buffer, offset)) {
+                if (TickBlockCodec.lastTimestamp(buffer, offset) < fromMillis
+                        || TickBlockCodec.firstTimestamp(buffer, offset) > toMillis) {
+                    continue;
+                }
+                if (TickBlockCodec.count(buffer, offset) > block.capacity()) {
+                    block = new TickBlock(TickBlockCodec.count(buffer, offset));
+                }
+                TickBlockCodec.decode(buffer, offset, block);
+                for (int i = 0; i < block.count; i++) {
+                    long timestamp = block.timestamps[i];
+                    if (timestamp >= fromMillis && timestamp <= toMillis) {
+                        if (fed == limit) {
+                            return fed;
+                        }
+                        consumer.onTick(timestamp, block.bids[i], block.asks[i], block.lasts[i], block.volumes[i]);
+                        fed++;
+                    }
+                }
+            }
+        }
+        return fed;
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create tick history directory " + directory, e);
+        }
+        running = true;
+        writer.start();
+    }
+
+    //Stops once every buffered tick has been written.
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            boolean stopping = !running;
+            boolean idle = true;
+            long now = System.currentTimeMillis();
+            for (int id = 0; id < rings.length; id++) {
+                idle &= rings[id].drainTo(writers[id]) == 0;
+                writers[id].sealIfDue(now, stopping);
+            }
+            if (stopping) {
+                for (TickFile file : openFiles.values()) {
+                    file.force();
+                }
+                return;
+            }
+            if (idle) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    //The file being appended to if there is one, else a read-only mapping, cached for days that are done.
+    private TickFile fileForRead(int pairId, long day) {
+        long key = fileKey(pairId, day);
+        TickFile file = openFiles.get(key);
+        if (file != null) {
+            return file;
+        }
+        file = readFiles.get(key);
+        if (file != null) {
+            return file;
+        }
+        file = TickFile.openForRead(pathOf(pairId, day), day);
+        if (file != null && day < Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS) - 1) {
+            readFiles.put(key, file);
+        }
+        return file;
+    }
+
+    private Path pathOf(int pairId, long day) {
+        return directory.resolve(priceBook.symbol(pairId).replace('/', '-'))
+                .resolve(LocalDate.ofEpochDay(day) + ".ticks");
+    }
+
+    private long fileKey(int pairId, long day) {
+        return day * priceBook.size() + pairId;
+    }
+
+    //The block of one pair being filled by the writer thread, and the file of the day it belongs to.
+    private final class PairWriter {
+
+        private final int pairId;
+        private final TickBlock block = new TickBlock(blockSize);
+        private final byte[] encoded = new byte[TickBlockCodec.maxEncodedSize(blockSize)];
+        private TickFile file;
+        private long blockDay;
+        private long blockOpenedAt;
+
+        private PairWriter(int pairId) {
+            this.pairId = pairId;
+        }
+
+        private void add(long timestamp, double bid, double ask, double last, double volume) {
+            long day = Math.floorDiv(timestamp, DAY_MILLIS);
+            if (block.count > 0 && day != blockDay) {
+                seal();
+            }
+            if (block.count == 0) {
+                blockDay = day;
+                blockOpenedAt = System.currentTimeMillis();
+            }
+            block.add(timestamp, bid, ask, last, volume);
+            if (block.isFull()) {
+                seal();
+            }
+        }
+
+        private void sealIfDue(long now, boolean force) {
+            if (block.count > 0 && (force || now - blockOpenedAt >= flushIntervalMillis)) {
+                seal();
+            }
+        }
+
+        private void seal() {
+            try {
+                if (file == null || file.day() != blockDay) {
+                    if (file != null) {
+                        file.force();
+                        openFiles.remove(fileKey(pairId, file.day()));
+                    }
+                    file = TickFile.openForAppend(pathOf(pairId, blockDay), blockDay, fileSize);
+                    openFiles.put(fileKey(pairId, blockDay), file);
+                    // A tick arriving days late grows a file whose mapping may be cached.
+                    readFiles.remove(fileKey(pairId, blockDay));
+                }
+                int length = TickBlockCodec.encode(block, encoded);
+                file.append(encoded, length);
+                storedTicks.increment(block.count);
+                storedBytes.increment(length);
+            } catch (RuntimeException e) {
+                droppedTicks.increment(block.count);
+                log.error("Failed to write ticks: pair={} ticks={} error=\"{}\"", priceBook.symbol(pairId),
+                        block.count, e.getMessage());
+            } finally {
+                block.clear();
+            }
+        }
+    }
+
+    //Single-producer single-consumer queue of one pair's ticks: the thread holding the PriceMerger's claim
+    //on the pair offers, so there is one producer at a time; the writer thread drains. Neither side locks
+    //or allocates.
+    private static final class TickRing {
+
+        private static final int FIELDS = 5;
+        // Head and tail on their own cache lines.
+        private static final int HEAD = 8;
+        private static final int TAIL = 16;
+
+        private final long[] slots;
+        private final long[] cursors = new long[24];
+        private final int capacity;
+        private final int mask;
+
+        private TickRing(int capacity) {
+            this.capacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.mask = this.capacity - 1;
+            this.slots = new long[this.capacity * FIELDS];
+        }
+
+        private boolean offer(long timestamp, double bid, double ask, double last, double volume) {
+            long head = (long) LONGS.getOpaque(cursors, HEAD);
+            if (head - (long) LONGS.getAcquire(cursors, TAIL) == capacity) {
+                return false;
+            }
+            int base = (int) (head & mask) * FIELDS;
+            slots[base] = timestamp;
+            slots[base + 1] = Double.doubleToRawLongBits(bid);
+            slots[base + 2] = Double.doubleToRawLongBits(ask);
+            slots[base + 3] = Double.doubleToRawLongBits(last);
+            slots[base + 4] = Double.doubleToRawLongBits(volume);
+            LONGS.setRelease(cursors, HEAD, head + 1);
+            return true;
+        }
+
+        private int drainTo(PairWriter writer) {
+            long tail = (long) LONGS.getOpaque(cursors, TAIL);
+            long head = (long) LONGS.getAcquire(cursors, HEAD);
+            for (long i = tail; i < head; i++) {
+                int base = (int) (i & mask) * FIELDS;
+                writer.add(slots[base],
+                        Double.longBitsToDouble(slots[base + 1]),
+                        Double.longBitsToDouble(slots[base + 2]),
+                        Double.longBitsToDouble(slots[base + 3]),
+                        Double.longBitsToDouble(slots[base + 4]));
+            }
+            LONGS.setRelease(cursors, TAIL, head);
+            return (int) (head - tail);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// One OHLCV candle as served by the candles endpoint. start is the epoch millis the interval begins at.
+public final class Candle {
+
+    private final long start;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final double volume;
+    private final long ticks;
+
+    public Candle(long start, double open, double high, double low, double close, double volume, long ticks) {
+        this.start = start;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.ticks = ticks;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    //Approximate traded volume, see CandleAggregator.
+    public double getVolume() {
+        return volume;
+    }
+
+    //Number of ticker updates folded into the candle.
+    public long getTicks() {
+        return ticks;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds 1s, 1m, 5m and 1h OHLCV candles from the ticker feed as it arrives. Each pair and interval has a
+// ring of its last trading.candles.depth candles; all rings are allocated up front in one long[] and
+// overwrite their oldest candle, so memory stays at pairs x intervals x depth candles and a tick costs a
+// few array writes per interval.
+// Rings are seqlocks like the PriceBook's slots: written only by the thread holding the PriceMerger's
+// claim on the pair, which listeners are called from one at a time, read by copying and retrying if a
+// write overlapped.
+// Kraken's ticker reports the rolling 24h volume rather than individual trades, so a candle's volume is
+// the sum of that figure's increases within the interval; it undercounts when trades leaving the 24h
+// window offset new ones. Intervals without ticks have no candle.
+@Component
+public class CandleAggregator implements PriceListener {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+
+    // Candle fields; prices and volume are raw double bits.
+    private static final int STRIDE = 8;
+    private static final int START = 0;
+    private static final int OPEN = 1;
+    private static final int HIGH = 2;
+    private static final int LOW = 3;
+    private static final int CLOSE = 4;
+    private static final int VOLUME = 5;
+    private static final int TICKS = 6;
+
+    // Ring header, one cache line per ring so sessions writing different pairs do not share lines.
+    private static final int HEADER = 8;
+    private static final int SEQ = 0;
+    private static final int COUNT = 1;
+    // Only used in each pair's first ring: the 24h volume of the pair's previous tick.
+    private static final int LAST_VOLUME = 2;
+
+    private final int depth;
+    private final long[] candles;
+    private final long[] headers;
+
+    public CandleAggregator(PriceBook priceBook, @Value("${trading.candles.depth:1440}") int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("trading.candles.depth must be at least 1");
+        }
+        int rings = priceBook.size() * INTERVALS.length;
+        this.depth = depth;
+        this.candles = new long[Math.multiplyExact(Math.multiplyExact(rings, depth), STRIDE)];
+        // One spare header in front keeps the first ring off the array header's cache line.
+        this.headers = new long[(rings + 1) * HEADER];
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    //Folds a tick into the pair's current candle of every interval, starting new candles as intervals roll over.
+    @Override
+    public void onPriceUpdate(int pairId, double bid, double ask, double last, double volume, long timestamp) {
+        if (!(last > 0)) {
+            return;
+        }
+        int firstRing = pairId * INTERVALS.length;
+        int volumeSlot = (firstRing + 1) * HEADER + LAST_VOLUME;
+        double previous = Double.longBitsToDouble(headers[volumeSlot]);
+        headers[volumeSlot] = Double.doubleToRawLongBits(volume);
+        double traded = previous > 0 && volume > previous ? volume - previous : 0;
+        for (int i = 0; i < INTERVALS.length; i++) {
+            fold(firstRing + i, INTERVALS[i].getMillis(), timestamp, last, traded);
+        }
+    }
+
+    private void fold(int ring, long millis, long timestamp, double price, double traded) {
+        int header = (ring + 1) * HEADER;
+        long seq = (long) SLOTS.getOpaque(headers, header + SEQ);
+        long count = (long) SLOTS.getOpaque(headers, header + COUNT);
+        int base = slot(ring, count - 1);
+        // A tick older than the current candle (the clock stepped back) is folded into it.
+        boolean extend = count > 0 && timestamp < candles[base + START] + millis;
+
+        SLOTS.setOpaque(headers, header + SEQ, seq + 1);
+        VarHandle.storeStoreFence();
+        if (extend) {
+            double high = Double.longBitsToDouble(candles[base + HIGH]);
+            double low = Double.longBitsToDouble(candles[base + LOW]);
+            double volume = Double.longBitsToDouble(candles[base + VOLUME]);
+            if (price > high) {
+                SLOTS.setOpaque(candles, base + HIGH, Double.doubleToRawLongBits(price));
+            }
+            if (price < low) {
+                SLOTS.setOpaque(candles, base + LOW, Double.doubleToRawLongBits(price));
+            }
+            SLOTS.setOpaque(candles, base + CLOSE, Double.doubleToRawLongBits(price));
+            SLOTS.setOpaque(candles, base + VOLUME, Double.doubleToRawLongBits(volume + traded));
+            SLOTS.setOpaque(candles, base + TICKS, candles[base + TICKS] + 1);
+        } else {
+            base = slot(ring, count);
+            long bucket = timestamp - Math.floorMod(timestamp, millis);
+            long bits = Double.doubleToRawLongBits(price);
+            SLOTS.setOpaque(candles, base + START, bucket);
+            SLOTS.setOpaque(candles, base + OPEN, bits);
+            SLOTS.setOpaque(candles, base + HIGH, bits);
+            SLOTS.setOpaque(candles, base + LOW, bits);
+            SLOTS.setOpaque(candles, base + CLOSE, bits);
+            SLOTS.setOpaque(candles, base + VOLUME, Double.doubleToRawLongBits(traded));
+            SLOTS.setOpaque(candles, base + TICKS, 1L);
+            SLOTS.setOpaque(headers, header + COUNT, count + 1);
+        }
+        SLOTS.setRelease(headers, header + SEQ, seq + 2);
+    }
+
+    //Up to limit of the pair's most recent candles, oldest first; the last one may still be forming.
+    public List<Candle> candles(int pairId, CandleInterval interval, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1.");
+        }
+        int ring = pairId * INTERVALS.length + interval.ordinal();
+        int header = (ring + 1) * HEADER;
+        long[] copy = new long[Math.min(limit, depth) * STRIDE];
+        while (true) {
+            long before = (long) SLOTS.getAcquire(headers, header + SEQ);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long count = (long) SLOTS.getOpaque(headers, header + COUNT);
+            int n = (int) Math.min(count, copy.length / STRIDE);
+            for (int j = 0; j < n; j++) {
+                int base = slot(ring, count - n + j);
+                for (int field = 0; field < STRIDE; field++) {
+                    copy[j * STRIDE + field] = (long) SLOTS.getOpaque(candles, base + field);
+                }
+            }
+            VarHandle.loadLoadFence();
+            if ((long) SLOTS.getOpaque(headers, header + SEQ) == before) {
+                List<Candle> result = new ArrayList<>(n);
+                for (int j = 0; j < n; j++) {
+                    int base = j * STRIDE;
+                    result.add(new Candle(copy[base + START],
+                            Double.longBitsToDouble(copy[base + OPEN]),
+                            Double.longBitsToDouble(copy[base + HIGH]),
+                            Double.longBitsToDouble(copy[base + LOW]),
+                            Double.longBitsToDouble(copy[base + CLOSE]),
+                            Double.longBitsToDouble(copy[base + VOLUME]),
+                            copy[base + TICKS]));
+                }
+                return result;
+            }
+        }
+    }
+
+    //Offset of the index-th candle ever started in a ring.
+    private int slot(int ring, long index) {
+        return (int) (((long) ring * depth + Math.floorMod(index, depth)) * STRIDE);
+    }
+}
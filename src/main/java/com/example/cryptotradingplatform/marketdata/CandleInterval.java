@@ -0,0 +1,34 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// Candle widths kept by the CandleAggregator, with the labels the candles endpoint accepts.
+public enum CandleInterval {
+    SECOND_1("1s", 1_000),
+    MINUTE_1("1m", 60_000),
+    MINUTE_5("5m", 300_000),
+    HOUR_1("1h", 3_600_000);
+
+    private final String label;
+    private final long millis;
+
+    CandleInterval(String label, long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public static CandleInterval fromLabel(String label) {
+        for (CandleInterval interval : values()) {
+            if (interval.label.equals(label)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported candle interval: " + label + ". Use 1s, 1m, 5m or 1h.");
+    }
+}
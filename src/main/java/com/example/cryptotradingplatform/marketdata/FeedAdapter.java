@@ -0,0 +1,18 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// A venue streaming quotes into the consolidated PriceBook. An adapter registers its venue with the
+// PriceMerger and writes every ticker through the VenueFeed it gets back; it is a Spring bean that
+// connects on start and reports its sessions so MarketDataHealthIndicator can gate readiness on it.
+// MarketDataClient is the adapter for Kraken; another venue is another implementation of this interface.
+public interface FeedAdapter {
+
+    //The name the venue was registered with.
+    String venue();
+
+    int sessionCount();
+
+    int connectedSessions();
+
+    //Sessions that have stored at least one ticker since start, whether or not they are connected now.
+    int primedSessions();
+}
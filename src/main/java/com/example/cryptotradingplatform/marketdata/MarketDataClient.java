@@ -0,0 +1,373 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import com.example.cryptotradingplatform.metrics.LatencyHistogram;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ServerHandshake;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//The FeedAdapter for Kraken: feeds its venue's quotes from the Kraken v2 ticker channel over several
+//WebSocket sessions, each subscribed to its own share of the pairs, so every pair has exactly one writer.
+//Every ticker goes through the VenueFeed, which merges it into the consolidated PriceBook.
+//A session that closes, fails to connect or receives nothing for heartbeat-timeout-ms (Kraken sends a
+//heartbeat every second) reconnects after an exponential backoff with jitter and subscribes again.
+//From the moment a session drops its pairs are marked stale for the venue, until the ticker snapshot
+//Kraken sends on every subscribe replaces them. The ticker channel has no sequence numbers, so a lost
+//connection is the only gap there is to detect, and that snapshot is its replay.
+//Per frame it counts messages and times the decoding; per tick, the time from the frame's arrival until
+//the consolidated PriceBook and every PriceListener have taken it. Staleness is a gauge per pair, read
+//when scraped. Meters are tagged with the venue, so several instances can share a registry.
+//Sessions connect from start(), which runs after the web server has started and returns without waiting
+//for them; MarketDataHealthIndicator keeps the instance out of readiness until each has delivered prices.
+@Component
+@ConditionalOnProperty(name = "trading.market-data.enabled", havingValue = "true", matchIfMissing = true)
+public class MarketDataClient implements SmartLifecycle, FeedAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataClient.class);
+
+    private final VenueFeed feed;
+    private final URI url;
+    private final long heartbeatTimeoutMillis;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final FeedSession[] sessions;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger primed = new AtomicInteger();
+    private final Counter reconnects;
+    private final Counter heartbeatTimeouts;
+    private final Counter messages;
+    private final LatencyHistogram parseLatency;
+    private final LatencyHistogram tickToStoreLatency;
+    private volatile boolean running;
+
+    public MarketDataClient(PriceMerger priceMerger, MeterRegistry meterRegistry,
+                            @Value("${trading.market-data.venue:kraken}") String venue,
+                            @Value("${trading.market-data.url:wss://ws.kraken.com/v2}") String url,
+                            @Value("${trading.market-data.sessions:2}") int sessions,
+                            @Value("${trading.market-data.heartbeat-timeout-ms:10000}") long heartbeatTimeoutMillis,
+                            @Value("${trading.market-data.reconnect.initial-backoff-ms:500}") long initialBackoffMillis,
+                            @Value("${trading.market-data.reconnect.max-backoff-ms:30000}") long maxBackoffMillis) {
+        if (sessions < 1) {
+            throw new IllegalArgumentException("trading.market-data.sessions must be at least 1");
+        }
+        this.feed = priceMerger.register(venue);
+        this.url = URI.create(url);
+        this.heartbeatTimeoutMillis = heartbeatTimeoutMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        //Pairs are dealt out round-robin by id.
+        int count = Math.min(sessions, Math.max(feed.size(), 1));
+        List<List<Integer>> shares = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shares.add(new ArrayList<>());
+        }
+        for (int id = 0; id < feed.size(); id++) {
+            shares.get(id % count).add(id);
+        }
+        this.sessions = new FeedSession[count];
+        for (int i = 0; i < count; i++) {
+            this.sessions[i] = new FeedSession(i, shares.get(i).stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-data-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("marketdata.sessions.connected", connected, AtomicInteger::get)
+                .description("Market data sessions currently connected")
+                .tag("venue", venue)
+                .register(meterRegistry);
+        this.reconnects = Counter.builder("marketdata.reconnects")
+                .description("Market data sessions reconnected after a drop")
+                .tag("venue", venue)
+                .register(meterRegistry);
+        this.heartbeatTimeouts = Counter.builder("marketdata.heartbeat.timeouts")
+                .description("Market data sessions closed because the feed went quiet")
+                .tag("venue", venue)
+                .register(meterRegistry);
+        this.messages = Counter.builder("marketdata.messages")
+                .description("Frames received from the feed, heartbeats included")
+                .tag("venue", venue)
+                .register(meterRegistry);
+        this.parseLatency = LatencyHistogram.register(meterRegistry, "marketdata.parse.latency",
+                "Time to decode a frame, not counting storing its tickers", "venue", venue);
+        this.tickToStoreLatency = LatencyHistogram.register(meterRegistry, "marketdata.tick.store.latency",
+                "Time from a frame's arrival until a ticker in it is in the PriceBook and every listener",
+                "venue", venue);
+        for (int id = 0; id < feed.size(); id++) {
+            int pairId = id;
+            Gauge.builder("marketdata.staleness", () -> staleness(pairId))
+                    .description("Milliseconds since the pair's last ticker; NaN until it has one")
+                    .tag("symbol", feed.symbol(id))
+                    .tag("venue", venue)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    private double staleness(int id) {
+        Quote quote = new Quote();
+        return feed.read(id, quote) ? System.currentTimeMillis() - quote.getTimestamp() : Double.NaN;
+    }
+
+    //Connects every session without waiting for them; prices arrive as each one subscribes.
+    @Override
+    public void start() {
+        running = true;
+        for (FeedSession session : sessions) {
+            session.connect();
+        }
+        long checkInterval = Math.max(heartbeatTimeoutMillis / 4, 1);
+        scheduler.scheduleWithFixedDelay(this::checkHeartbeats, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        for (FeedSession session : sessions) {
+            session.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public String venue() {
+        return feed.venue();
+    }
+
+    @Override
+    public int sessionCount() {
+        return sessions.length;
+    }
+
+    @Override
+    public int connectedSessions() {
+        return connected.get();
+    }
+
+    @Override
+    public int primedSessions() {
+        return primed.get();
+    }
+
+    private void checkHeartbeats() {
+        long now = System.currentTimeMillis();
+        for (FeedSession session : sessions) {
+            session.checkHeartbeat(now);
+        }
+    }
+
+    //Delay before the given reconnect attempt: half of the capped exponential backoff plus a random part of
+    //the other half, so sessions dropped together do not reconnect together.
+    private long backoff(int attempt) {
+        long ceiling = initialBackoffMillis << Math.min(attempt, 20);
+        if (ceiling <= 0 || ceiling > maxBackoffMillis) {
+            ceiling = maxBackoffMillis;
+        }
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    //One share of the pairs and the connection currently serving it. A connection's frames and the stale
+    //marks made when it drops are applied under the session's lock, so an old connection still finishing
+    //a frame can never write a pair alongside its replacement.
+    private final class FeedSession {
+
+        private final int index;
+        private final int[] pairIds;
+        private final String subscribeMessage;
+        private final TickerDecoder tickerDecoder = new TickerDecoder();
+        private final TickerDecoder.Listener tickerListener = this::onTicker;
+        private Connection current;
+        private int attempts;
+        private boolean primed;
+        private volatile long lastFrameAt;
+        //Timing of the frame being decoded, in nanoTime.
+        private long frameArrivedAt;
+        private long storingNanos;
+
+        private FeedSession(int index, int[] pairIds) {
+            this.index = index;
+            this.pairIds = pairIds;
+            StringBuilder message = new StringBuilder("{\"method\":\"subscribe\",\"params\":{\"channel\":\"ticker\",\"symbol\":[");
+            for (int i = 0; i < pairIds.length; i++) {
+                message.append(i == 0 ? "\"" : ",\"").append(feed.symbol(pairIds[i])).append("\"");
+            }
+            this.subscribeMessage = message.append("]}}").toString();
+        }
+
+        private synchronized void connect() {
+            if (!running) {
+                return;
+            }
+            current = new Connection(this);
+            lastFrameAt = System.currentTimeMillis();
+            current.connect();
+        }
+
+        private void close() {
+            Connection connection;
+            synchronized (this) {
+                connection = current;
+            }
+            if (connection != null) {
+                connection.close(CloseFrame.GOING_AWAY);
+            }
+        }
+
+        private void checkHeartbeat(long now) {
+            Connection connection;
+            synchronized (this) {
+                connection = current;
+            }
+            if (connection != null && connection.isOpen() && now - lastFrameAt > heartbeatTimeoutMillis) {
+                heartbeatTimeouts.increment();
+                log.warn("Market data session silent, reconnecting: session={} silentMs={}", index, now - lastFrameAt);
+                //Calls onClose, which schedules the reconnect.
+                connection.closeConnection(CloseFrame.ABNORMAL_CLOSE, "heartbeat timeout");
+            }
+        }
+
+        private void opened(Connection connection) {
+            synchronized (this) {
+                if (connection != current) {
+                    return;
+                }
+                connection.opened = true;
+                lastFrameAt = System.currentTimeMillis();
+            }
+            connected.incrementAndGet();
+            connection.send(subscribeMessage);
+            log.info("Market data session connected: session={} pairs={}", index, pairIds.length);
+        }
+
+        private synchronized void received(Connection connection, String message) {
+            if (connection != current) {
+                return;
+            }
+            long arrivedAt = System.nanoTime();
+            messages.increment();
+            lastFrameAt = System.currentTimeMillis();
+            attempts = 0;
+            frameArrivedAt = arrivedAt;
+            storingNanos = 0;
+            tickerDecoder.decode(message, tickerListener);
+            parseLatency.record(System.nanoTime() - arrivedAt - storingNanos);
+        }
+
+        //Stores a ticker decoded from a frame, ignoring pairs that belong to another session.
+        private void onTicker(CharSequence frame, int symbolStart, int symbolEnd,
+                              double bid, double ask, double last, double volume) {
+            int id = feed.idOf(frame, symbolStart, symbolEnd);
+            if (id >= 0 && owns(id)) {
+                long start = System.nanoTime();
+                long timestamp = System.currentTimeMillis();
+                feed.update(id, bid, ask, last, volume, timestamp);
+                long stored = System.nanoTime();
+                storingNanos += stored - start;
+                tickToStoreLatency.record(stored - frameArrivedAt);
+                if (!primed) {
+                    primed = true;
+                    MarketDataClient.this.primed.incrementAndGet();
+                }
+            }
+        }
+
+        private boolean owns(int id) {
+            return id % sessions.length == index;
+        }
+
+        private void closed(Connection connection, String reason) {
+            long delay;
+            synchronized (this) {
+                if (connection != current) {
+                    return;
+                }
+                current = null;
+                long now = System.currentTimeMillis();
+                for (int id : pairIds) {
+                    feed.markStale(id, now);
+                }
+                delay = running ? backoff(attempts++) : -1;
+            }
+            if (connection.opened) {
+                connected.decrementAndGet();
+            }
+            if (delay < 0) {
+                return;
+            }
+            log.warn("Market data session disconnected: session={} reason=\"{}\" reconnectInMs={}", index, reason, delay);
+            try {
+                scheduler.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                //The client is stopping.
+            }
+        }
+
+        private void reconnect() {
+            reconnects.increment();
+            connect();
+        }
+    }
+
+    private final class Connection extends WebSocketClient {
+
+        private final FeedSession session;
+        //Set under the session's lock once the session has taken this connection as open.
+        private boolean opened;
+
+        private Connection(FeedSession session) {
+            super(url, new Draft_6455(), null, (int) Math.min(heartbeatTimeoutMillis, Integer.MAX_VALUE));
+            this.session = session;
+            //Silence is detected from the feed's own heartbeats instead of pings.
+            setConnectionLostTimeout(0);
+            setTcpNoDelay(true);
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+            session.opened(this);
+        }
+
+        @Override
+        public void onMessage(String message) {
+            session.received(this, message);
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+            session.closed(this, code + (reason == null || reason.isEmpty() ? "" : " " + reason));
+        }
+
+        @Override
+        public void onError(Exception e) {
+            log.warn("Market data session error: session={} error=\"{}\"", session.index, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The "marketData" health contributor, part of the readiness group. The instance serves requests as soon
+// as the web server is up, but stays OUT_OF_SERVICE for readiness until every session of at least one
+// venue's FeedAdapter has stored its first prices, so a load balancer does not send it trades it would
+// refuse as unpriced; a venue that is down at boot does not hold the others up. Once primed it stays UP
+// through reconnects: pairs no venue is live for are marked stale and trades on them are refused, while
+// everything else keeps being served. With no feed adapter there is nothing to wait for.
+@Component
+public class MarketDataHealthIndicator implements HealthIndicator {
+
+    private final List<FeedAdapter> feedAdapters;
+
+    public MarketDataHealthIndicator(List<FeedAdapter> feedAdapters) {
+        this.feedAdapters = feedAdapters;
+    }
+
+    @Override
+    public Health health() {
+        if (feedAdapters.isEmpty()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        int sessions = 0;
+        int connected = 0;
+        int primed = 0;
+        boolean anyPrimed = false;
+        Map<String, String> venues = new LinkedHashMap<>();
+        for (FeedAdapter adapter : feedAdapters) {
+            sessions += adapter.sessionCount();
+            connected += adapter.connectedSessions();
+            primed += adapter.primedSessions();
+            anyPrimed |= adapter.primedSessions() >= adapter.sessionCount();
+            venues.put(adapter.venue(), adapter.connectedSessions() + "/" + adapter.sessionCount() + " connected");
+        }
+        Health.Builder health = anyPrimed ? Health.up() : Health.outOfService();
+        return health.withDetail("sessions", sessions)
+                .withDetail("connected", connected)
+                .withDetail("primed", primed)
+                .withDetail("venues", venues)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import com.example.cryptotradingplatform.exception.SlippageExceededException;
+import com.example.cryptotradingplatform.exception.StalePriceException;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.TransactionType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+//Decides the price a market order fills at. With trading.execution.live-price=true (the default) buys
+//fill at the PriceBook's ask and sells at its bid, falling back to the last trade price when the feed
+//has no book side. A price older than max-price-age-ms, or from a feed that is down, is refused. The
+//price the client sent, if any, is only a reference: the fill may be at most max-slippage-bps worse
+//than it.
+//With live pricing off, orders fill at the client's price as before.
+//Reading the price is a seqlock read into a per-thread Quote, so the trade path takes no lock and
+//allocates nothing unless it rejects the order.
+@Component
+public class MarketPricer {
+
+    //Reference price meaning the client did not send one.
+    public static final long NO_REFERENCE = 0;
+
+    private static final long BPS = 10_000;
+    private static final double PRICE_FACTOR = Math.pow(10, AssetScales.PRICE_SCALE);
+
+    private final PriceBook priceBook;
+    private final boolean livePrice;
+    private final long maxAgeMillis;
+    private final long maxSlippageBps;
+    private final ThreadLocal<Quote> quotes = ThreadLocal.withInitial(Quote::new);
+    private final Timer priceAge;
+
+    public MarketPricer(PriceBook priceBook, MeterRegistry meterRegistry,
+                        @Value("${trading.execution.live-price:true}") boolean livePrice,
+                        @Value("${trading.execution.max-price-age-ms:5000}") long maxAgeMillis,
+                        @Value("${trading.execution.max-slippage-bps:50}") long maxSlippageBps) {
+        this.priceBook = priceBook;
+        this.livePrice = livePrice;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxSlippageBps = maxSlippageBps;
+        this.priceAge = Timer.builder("trading.execution.price.age")
+                .description("Age of the market price each order was filled at")
+                .register(meterRegistry);
+    }
+
+    //Price units an order fills at, given the price the client sent (null for none).
+    public long executionPrice(String cryptoSymbol, TransactionType type, BigDecimal pricePerUnit) {
+        long reference = NO_REFERENCE;
+        if (pricePerUnit != null) {
+            if (pricePerUnit.signum() <= 0) {
+                throw new IllegalArgumentException("Price must be greater than zero.");
+            }
+            reference = AssetScales.priceUnits(pricePerUnit);
+        }
+        return executionPrice(cryptoSymbol, type, reference);
+    }
+
+    //Price units an order fills at, given a reference price in units or NO_REFERENCE.
+    public long executionPrice(String cryptoSymbol, TransactionType type, long reference) {
+        return price(cryptoSymbol, type, reference, maxSlippageBps);
+    }
+
+    //Price units a limit order fills at: the market price, refused if it is worse than the limit at all.
+    public long limitPrice(String cryptoSymbol, TransactionType type, BigDecimal limit) {
+        return price(cryptoSymbol, type, AssetScales.priceUnits(limit), 0);
+    }
+
+    private long price(String cryptoSymbol, TransactionType type, long reference, long toleranceBps) {
+        if (!livePrice) {
+            if (reference == NO_REFERENCE) {
+                throw new IllegalArgumentException("A price is required when live pricing is disabled.");
+            }
+            return reference;
+        }
+        int id = priceBook.resolve(cryptoSymbol);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unsupported cryptocurrency symbol.");
+        }
+        Quote quote = quotes.get();
+        if (!priceBook.read(id, quote)) {
+            throw new StalePriceException("No market price for " + cryptoSymbol + " yet, please retry.");
+        }
+        long age = System.currentTimeMillis() - quote.getTimestamp();
+        if (age > maxAgeMillis || quote.isStale()) {
+            throw new StalePriceException("The market price for " + cryptoSymbol + " is out of date, please retry.");
+        }
+
+        double side = type == TransactionType.BUY ? quote.getAsk() : quote.getBid();
+        long price = Math.round((side > 0 ? side : quote.getLast()) * PRICE_FACTOR);
+        if (price <= 0) {
+            throw new StalePriceException("No market price for " + cryptoSymbol + " yet, please retry.");
+        }
+        if (reference != NO_REFERENCE && slipped(type, price, reference, toleranceBps)) {
+            throw new SlippageExceededException(toleranceBps == 0
+                    ? "The market price is worse than the limit price."
+                    : "The market price moved more than " + toleranceBps + " basis points from the requested price.");
+        }
+        priceAge.record(Math.max(age, 0), TimeUnit.MILLISECONDS);
+        return price;
+    }
+
+    //Whether the fill is worse for the client than the reference by more than the tolerance.
+    private static boolean slipped(TransactionType type, long price, long reference, long toleranceBps) {
+        if (type == TransactionType.BUY) {
+            return Math.multiplyExact(price, BPS) > Math.multiplyExact(reference, BPS + toleranceBps);
+        }
+        return Math.multiplyExact(price, BPS) < Math.multiplyExact(reference, BPS - toleranceBps);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed-layout store of the latest prices of the subscribed pairs.
+// Pairs are interned to int ids once; each id owns a 64-byte slot in a single long[] holding a sequence
+// counter followed by bid, ask, last, volume (as raw double bits), the update timestamp and the time the
+// pair's feed was lost (0 while it is live).
+// The sequence is a seqlock: odd while the pair's writer is mid-update, so readers retry instead of
+// seeing a torn quote. Writing is wait-free provided each pair has one writer at a time: in a venue's own
+// book the feed connection that subscribed to it, in the consolidated one whichever thread PriceMerger lets
+// merge the pair. Reading never allocates.
+@Component
+public class PriceBook {
+
+    //The pairs MarketDataClient subscribes to, in id order.
+    public static final List<String> SUBSCRIBED_PAIRS = List.of(
+            "BTC/USD", "ETH/USD", "XRP/USD", "ADA/USD", "DOT/USD",
+            "SOL/USD", "SHIB/USD", "LTC/USD", "LINK/USD", "BCH/USD",
+            "XLM/USD", "ATOM/USD", "FIL/USD", "APE/USD", "ICP/USD",
+            "NEAR/USD", "DOGE/USD", "MATIC/USD");
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int STRIDE = 8;
+    private static final int SEQ = 0;
+    private static final int BID = 1;
+    private static final int ASK = 2;
+    private static final int LAST = 3;
+    private static final int VOLUME = 4;
+    private static final int TIMESTAMP = 5;
+    private static final int STALE_SINCE = 6;
+
+    private final String[] symbols;
+    private final Map<String, Integer> idsByBase = new HashMap<>();
+    private final int[] index;
+    private final int mask;
+    private final long[] slots;
+    private final AtomicLong version = new AtomicLong();
+
+    public PriceBook() {
+        this(SUBSCRIBED_PAIRS);
+    }
+
+    public PriceBook(List<String> pairs) {
+        this.symbols = pairs.toArray(new String[0]);
+        int capacity = Integer.highestOneBit(Math.max(symbols.length, 1) * 4);
+        this.mask = capacity - 1;
+        this.index = new int[capacity];
+        for (int id = 0; id < symbols.length; id++) {
+            int bucket = hash(symbols[id], 0, symbols[id].length()) & mask;
+            while (index[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            index[bucket] = id + 1;
+            int slash = symbols[id].indexOf('/');
+            if (slash > 0) {
+                idsByBase.putIfAbsent(symbols[id].substring(0, slash), id);
+            }
+        }
+        // One spare slot in front keeps the first pair off the array header's cache line.
+        this.slots = new long[(symbols.length + 1) * STRIDE];
+    }
+
+    //Number of interned pairs; ids run from 0 to size() - 1.
+    public int size() {
+        return symbols.length;
+    }
+
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    //Resolves a pair name to its id, or -1 when the pair is not in the book.
+    public int idOf(CharSequence symbol) {
+        return idOf(symbol, 0, symbol.length());
+    }
+
+    //Resolves symbol[start, end) to its id without creating a String, or -1 when the pair is not in the book.
+    public int idOf(CharSequence symbol, int start, int end) {
+        int bucket = hash(symbol, start, end) & mask;
+        int entry;
+        while ((entry = index[bucket]) != 0) {
+            if (matches(symbols[entry - 1], symbol, start, end)) {
+                return entry - 1;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        return -1;
+    }
+
+    //Resolves a symbol as traded by accounts, either a pair ("BTC/USD") or the base asset of one ("BTC"),
+    //to its pair id, or -1 when no pair matches.
+    public int resolve(String symbol) {
+        int id = idOf(symbol);
+        if (id >= 0) {
+            return id;
+        }
+        Integer byBase = idsByBase.get(symbol);
+        return byBase != null ? byBase : -1;
+    }
+
+    //Publishes a new quote for a pair, clearing any stale mark. Must only be called by that pair's single writer.
+    public void update(int id, double bid, double ask, double last, double volume, long timestamp) {
+        int base = (id + 1) * STRIDE;
+        long seq = (long) SLOTS.getOpaque(slots, base + SEQ);
+        SLOTS.setOpaque(slots, base + SEQ, seq + 1);
+        VarHandle.storeStoreFence();
+        SLOTS.setOpaque(slots, base + BID, Double.doubleToRawLongBits(bid));
+        SLOTS.setOpaque(slots, base + ASK, Double.doubleToRawLongBits(ask));
+        SLOTS.setOpaque(slots, base + LAST, Double.doubleToRawLongBits(last));
+        SLOTS.setOpaque(slots, base + VOLUME, Double.doubleToRawLongBits(volume));
+        SLOTS.setOpaque(slots, base + TIMESTAMP, timestamp);
+        SLOTS.setOpaque(slots, base + STALE_SINCE, 0L);
+        SLOTS.setRelease(slots, base + SEQ, seq + 2);
+        version.incrementAndGet();
+    }
+
+    //Records that the pair's feed was lost at the given time; the last quote stays readable but is flagged
+    //until the next update. Keeps the earliest time if already stale and ignores pairs never priced.
+    //Must only be called by that pair's single writer.
+    public void markStale(int id, long since) {
+        int base = (id + 1) * STRIDE;
+        long seq = (long) SLOTS.getOpaque(slots, base + SEQ);
+        if (seq == 0 || (long) SLOTS.getOpaque(slots, base + STALE_SINCE) != 0) {
+            return;
+        }
+        SLOTS.setOpaque(slots, base + SEQ, seq + 1);
+        VarHandle.storeStoreFence();
+        SLOTS.setOpaque(slots, base + STALE_SINCE, since);
+        SLOTS.setRelease(slots, base + SEQ, seq + 2);
+    }
+
+    //Copies a consistent quote for a pair into the holder; returns false if the pair has never been priced.
+    public boolean read(int id, Quote into) {
+        int base = (id + 1) * STRIDE;
+        while (true) {
+            long before = (long) SLOTS.getAcquire(slots, base + SEQ);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long bid = (long) SLOTS.getOpaque(slots, base + BID);
+            long ask = (long) SLOTS.getOpaque(slots, base + ASK);
+            long last = (long) SLOTS.getOpaque(slots, base + LAST);
+            long volume = (long) SLOTS.getOpaque(slots, base + VOLUME);
+            long timestamp = (long) SLOTS.getOpaque(slots, base + TIMESTAMP);
+            long staleSince = (long) SLOTS.getOpaque(slots, base + STALE_SINCE);
+            VarHandle.loadLoadFence();
+            if ((long) SLOTS.getOpaque(slots, base + SEQ) == before) {
+                if (before == 0) {
+                    return false;
+                }
+                into.set(Double.longBitsToDouble(bid), Double.longBitsToDouble(ask),
+                        Double.longBitsToDouble(last), Double.longBitsToDouble(volume), timestamp, staleSince);
+                return true;
+            }
+        }
+    }
+
+    //Total number of updates applied to the book; changes whenever any price does.
+    public long version() {
+        return version.get();
+    }
+
+    private static int hash(CharSequence symbol, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + symbol.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String symbol, CharSequence candidate, int start, int end) {
+        if (symbol.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length(); i++) {
+            if (symbol.charAt(i) != candidate.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// Notified after PriceMerger has stored a pair's consolidated quote in the PriceBook, on the thread of the
+// venue feed that merged it; calls for one pair never overlap, though they may come from different threads.
+// Implementations must return quickly and must not block; hand slow work off to another thread.
+public interface PriceListener {
+    void onPriceUpdate(int pairId, double bid, double ask, double last, double volume, long timestamp);
+}
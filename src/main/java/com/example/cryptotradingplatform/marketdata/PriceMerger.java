@@ -0,0 +1,205 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Consolidates the quotes of every venue into the PriceBook that pricing, the price endpoints and every
+// PriceListener read: the best (highest) bid and best (lowest) ask across the venues counted, the last
+// price and timestamp of the freshest of them, and the 24h volume summed over all venues, stale ones
+// included, so that a venue dropping out or coming back does not show up in candles as traded volume.
+// A venue counts for a pair unless its feed of the pair is marked stale or its latest quote lags the
+// freshest venue's by more than venue-max-lag-ms. When no venue counts, the consolidated quote keeps
+// its last prices and is marked stale from the moment the last venue was lost.
+// Each venue writes its own PriceBook; the merge then runs on the writing thread without locks. Whoever
+// finds the pair idle claims it with a CAS and merges; a venue that writes the pair meanwhile flags it
+// and returns at once, and the claimant merges again before letting go. So the consolidated PriceBook
+// keeps a single writer per pair, listeners are called for a pair one at a time, no feed thread ever
+// waits for another, and the last merge of a pair always sees every venue's last write to it.
+@Component
+public class PriceMerger {
+
+    private static final int IDLE = 0;
+    private static final int MERGING = 1;
+    private static final int REMERGE = 2;
+    // Each pair's state on its own 64-byte line.
+    private static final int PAD = 16;
+
+    private final PriceBook priceBook;
+    private final PriceListener[] priceListeners;
+    private final long maxLagMillis;
+    private final List<String> pairs;
+    private final AtomicIntegerArray states;
+    // Holders for the merge of each pair, only touched by the thread that has claimed it.
+    private final Quote[][] scratch;
+    private final Quote[] published;
+    private final Counter handoffs;
+    private volatile VenueFeed[] venues = new VenueFeed[0];
+
+    public PriceMerger(PriceBook priceBook, List<PriceListener> priceListeners, MeterRegistry meterRegistry,
+                       @Value("${trading.market-data.venue-max-lag-ms:5000}") long maxLagMillis) {
+        this.priceBook = priceBook;
+        this.priceListeners = priceListeners.toArray(new PriceListener[0]);
+        this.maxLagMillis = maxLagMillis;
+        this.pairs = new ArrayList<>();
+        for (int id = 0; id < priceBook.size(); id++) {
+            pairs.add(priceBook.symbol(id));
+        }
+        this.states = new AtomicIntegerArray(Math.max(priceBook.size(), 1) * PAD);
+        this.scratch = new Quote[priceBook.size()][0];
+        this.published = new Quote[priceBook.size()];
+        for (int id = 0; id < priceBook.size(); id++) {
+            published[id] = new Quote();
+        }
+        this.handoffs = Counter.builder("marketdata.merge.handoffs")
+                .description("Venue writes merged by the thread already merging the pair")
+                .register(meterRegistry);
+    }
+
+    //Adds a venue; its adapter writes every quote through the returned feed.
+    public synchronized VenueFeed register(String venue) {
+        for (VenueFeed registered : venues) {
+            if (registered.venue().equals(venue)) {
+                throw new IllegalArgumentException("Venue already registered: " + venue);
+            }
+        }
+        VenueFeed feed = new VenueFeed(venue, new PriceBook(pairs), this);
+        VenueFeed[] grown = Arrays.copyOf(venues, venues.length + 1);
+        grown[venues.length] = feed;
+        venues = grown;
+        return feed;
+    }
+
+    //Every venue's latest quote for a pair, in registration order, leaving out venues that never priced it.
+    public List<VenueQuote> venueQuotes(int id) {
+        VenueFeed[] venues = this.venues;
+        Quote[] quotes = quotes(venues.length);
+        long freshest = read(venues, id, quotes);
+        List<VenueQuote> result = new ArrayList<>();
+        for (int v = 0; v < venues.length; v++) {
+            Quote quote = quotes[v];
+            if (quote.getTimestamp() != 0) {
+                result.add(new VenueQuote(venues[v].venue(), quote.getBid(), quote.getAsk(), quote.getLast(),
+                        quote.getVolume(), quote.getTimestamp(), quote.getStaleSince(), counts(quote, freshest)));
+            }
+        }
+        return result;
+    }
+
+    //Merges the pair after a venue has written it, or leaves that to the thread already merging it.
+    void merge(int id) {
+        int slot = id * PAD;
+        while (true) {
+            int state = states.get(slot);
+            if (state == IDLE) {
+                if (states.compareAndSet(slot, IDLE, MERGING)) {
+                    break;
+                }
+            } else if (state == REMERGE || states.compareAndSet(slot, MERGING, REMERGE)) {
+                handoffs.increment();
+                return;
+            }
+        }
+        try {
+            while (true) {
+                publish(id);
+                if (states.compareAndSet(slot, MERGING, IDLE)) {
+                    return;
+                }
+                // A venue wrote the pair during the merge and left it to this thread.
+                states.set(slot, MERGING);
+            }
+        } catch (RuntimeException e) {
+            states.set(slot, IDLE);
+            throw e;
+        }
+    }
+
+    private void publish(int id) {
+        VenueFeed[] venues = this.venues;
+        Quote[] quotes = scratch[id];
+        if (quotes.length < venues.length) {
+            quotes = scratch[id] = quotes(venues.length);
+        }
+        long freshest = read(venues, id, quotes);
+        double bid = 0;
+        double ask = 0;
+        double last = 0;
+        double volume = 0;
+        long timestamp = 0;
+        long lostAt = 0;
+        boolean priced = false;
+        for (int v = 0; v < venues.length; v++) {
+            Quote quote = quotes[v];
+            if (quote.getTimestamp() == 0) {
+                continue;
+            }
+            priced = true;
+            volume += quote.getVolume();
+            if (quote.isStale()) {
+                lostAt = Math.max(lostAt, quote.getStaleSince());
+            }
+            if (!counts(quote, freshest)) {
+                continue;
+            }
+            bid = Math.max(bid, quote.getBid());
+            if (quote.getAsk() > 0 && (ask == 0 || quote.getAsk() < ask)) {
+                ask = quote.getAsk();
+            }
+            if (quote.getTimestamp() >= timestamp) {
+                last = quote.getLast();
+                timestamp = quote.getTimestamp();
+            }
+        }
+        if (!priced) {
+            return;
+        }
+        if (timestamp == 0) {
+            priceBook.markStale(id, lostAt);
+            return;
+        }
+        Quote current = published[id];
+        if (priceBook.read(id, current) && !current.isStale() && current.getBid() == bid && current.getAsk() == ask
+                && current.getLast() == last && current.getVolume() == volume && current.getTimestamp() == timestamp) {
+            // A venue dropped out without changing the best prices.
+            return;
+        }
+        priceBook.update(id, bid, ask, last, volume, timestamp);
+        for (PriceListener listener : priceListeners) {
+            listener.onPriceUpdate(id, bid, ask, last, volume, timestamp);
+        }
+    }
+
+    //Reads each venue's quote for the pair, a never-priced one as all zeros; returns the newest timestamp
+    //among the live ones, or 0 if there are none.
+    private static long read(VenueFeed[] venues, int id, Quote[] into) {
+        long freshest = 0;
+        for (int v = 0; v < venues.length; v++) {
+            Quote quote = into[v];
+            if (!venues[v].quotes().read(id, quote)) {
+                quote.set(0, 0, 0, 0, 0, 0);
+            } else if (!quote.isStale()) {
+                freshest = Math.max(freshest, quote.getTimestamp());
+            }
+        }
+        return freshest;
+    }
+
+    private boolean counts(Quote quote, long freshest) {
+        return quote.getTimestamp() != 0 && !quote.isStale() && freshest - quote.getTimestamp() <= maxLagMillis;
+    }
+
+    private static Quote[] quotes(int count) {
+        Quote[] quotes = new Quote[count];
+        for (int i = 0; i < count; i++) {
+            quotes[i] = new Quote();
+        }
+        return quotes;
+    }
+}
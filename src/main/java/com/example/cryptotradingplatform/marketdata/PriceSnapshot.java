@@ -0,0 +1,44 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// Immutable, pre-encoded view of the PriceBook at one version, in JSON and in SbeCodec's binary encoding,
+// ready to be written to a response as-is.
+public final class PriceSnapshot {
+
+    private final long version;
+    private final byte[] json;
+    private final byte[] sbe;
+    private final String etag;
+    private final String sbeEtag;
+
+    PriceSnapshot(long version, byte[] json, byte[] sbe, String etag) {
+        this.version = version;
+        this.json = json;
+        this.sbe = sbe;
+        this.etag = etag;
+        this.sbeEtag = etag.substring(0, etag.length() - 1) + "-sbe\"";
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    //UTF-8 encoded JSON object of pair to last price. Shared between requests, so never modify it.
+    public byte[] getJson() {
+        return json;
+    }
+
+    //The same prices as an SbeCodec prices message. Shared between requests, so never modify it.
+    public byte[] getSbe() {
+        return sbe;
+    }
+
+    //Strong ETag identifying this version in JSON, quoted as it goes on the wire.
+    public String getEtag() {
+        return etag;
+    }
+
+    //Strong ETag identifying this version in the binary encoding; a representation has an ETag of its own.
+    public String getSbeEtag() {
+        return sbeEtag;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import com.example.cryptotradingplatform.wire.SbeCodec;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps the JSON and binary encodings of the PriceBook so polling readers share one byte array per price
+// version.
+// A reader that finds the book has moved on rebuilds the snapshot; concurrent readers keep serving
+// the previous one meanwhile instead of encoding the same version again.
+@Component
+public class PriceSnapshotCache {
+
+    private final PriceBook priceBook;
+    // Distinguishes ETags handed out by this process from those of a previous run with the same versions.
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile PriceSnapshot snapshot;
+
+    public PriceSnapshotCache(PriceBook priceBook) {
+        this.priceBook = priceBook;
+        this.snapshot = build(priceBook.version());
+    }
+
+    //Returns the snapshot for the current book version, encoding it first if no reader has yet.
+    public PriceSnapshot get() {
+        PriceSnapshot current = snapshot;
+        long version = priceBook.version();
+        if (current.getVersion() == version || !rebuilding.compareAndSet(false, true)) {
+            return current;
+        }
+        try {
+            current = build(version);
+            snapshot = current;
+            return current;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private PriceSnapshot build(long version) {
+        StringBuilder pricesJson = new StringBuilder("{");
+        SbeCodec.PricesWriter pricesSbe = new SbeCodec.PricesWriter(version);
+        Quote quote = new Quote();
+
+        for (int id = 0; id < priceBook.size(); id++) {
+            if (priceBook.read(id, quote)) {
+                pricesJson.append("\"").append(priceBook.symbol(id)).append("\": ").append(quote.getLast()).append(",");
+                pricesSbe.add(priceBook.symbol(id), quote.getLast());
+            }
+        }
+
+        // Remove trailing comma, if any
+        if (pricesJson.length() > 1) {
+            pricesJson.deleteCharAt(pricesJson.length() - 1);
+        }
+
+        pricesJson.append("}");
+        String etag = "\"" + epoch + "-" + Long.toHexString(version) + "\"";
+        return new PriceSnapshot(version, pricesJson.toString().getBytes(StandardCharsets.UTF_8), pricesSbe.toBytes(),
+                etag);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// Mutable holder a PriceBook copies one pair's prices into, so readers can reuse it instead of allocating.
+public final class Quote {
+
+    private double bid;
+    private double ask;
+    private double last;
+    private double volume;
+    private long timestamp;
+    private long staleSince;
+
+    void set(double bid, double ask, double last, double volume, long timestamp, long staleSince) {
+        this.bid = bid;
+        this.ask = ask;
+        this.last = last;
+        this.volume = volume;
+        this.timestamp = timestamp;
+        this.staleSince = staleSince;
+    }
+
+    public double getBid() {
+        return bid;
+    }
+
+    public double getAsk() {
+        return ask;
+    }
+
+    public double getLast() {
+        return last;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    //Epoch millis at which the price was stored.
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    //Epoch millis at which the pair's feed was lost, or 0 while it is live.
+    public long getStaleSince() {
+        return staleSince;
+    }
+
+    public boolean isStale() {
+        return staleSince != 0;
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// Walks a Kraken ticker frame once with a reusable cursor and reports every ticker it contains.
+// Understands the v2 object frames and the legacy v1 array frames. Nothing is allocated on the
+// common path: the symbol is reported as offsets into the frame and numbers are parsed in place.
+// An instance is not thread-safe; keep one per connection.
+public final class TickerDecoder {
+
+    //Receives one decoded ticker. The symbol is frame[symbolStart, symbolEnd).
+    public interface Listener {
+        void onTicker(CharSequence frame, int symbolStart, int symbolEnd,
+                      double bid, double ask, double last, double volume);
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private CharSequence frame;
+    private int pos;
+    private int end;
+
+    private int symbolStart;
+    private int symbolEnd;
+    private double bid;
+    private double ask;
+    private double last;
+    private double volume;
+
+    //Decodes a frame and returns the number of tickers passed to the listener.
+    public int decode(CharSequence frame, Listener listener) {
+        this.frame = frame;
+        this.pos = 0;
+        this.end = frame.length();
+        try {
+            skipWhitespace();
+            if (pos >= end) {
+                return 0;
+            }
+            char first = frame.charAt(pos);
+            if (first == '{') {
+                return decodeV2(listener);
+            }
+            if (first == '[') {
+                return decodeV1(listener);
+            }
+            return 0;
+        } catch (MalformedFrameException e) {
+            return 0;
+        } finally {
+            this.frame = null;
+        }
+    }
+
+    //{"channel":"ticker","type":"update","data":[{"symbol":"BTC/USD","bid":..,"ask":..,"last":..,"volume":..}]}
+    private int decodeV2(Listener listener) {
+        boolean ticker = false;
+        int dataStart = -1;
+        pos++;
+        while (nextMember()) {
+            int keyStart = pos + 1;
+            int keyEnd = skipString();
+            expect(':');
+            if (keyEquals(keyStart, keyEnd, "channel")) {
+                skipWhitespace();
+                int valueStart = pos + 1;
+                int valueEnd = skipString();
+                ticker = keyEquals(valueStart, valueEnd, "ticker");
+            } else if (keyEquals(keyStart, keyEnd, "data")) {
+                skipWhitespace();
+                dataStart = pos;
+                skipValue();
+            } else {
+                skipValue();
+            }
+        }
+        if (!ticker || dataStart < 0) {
+            return 0;
+        }
+        pos = dataStart;
+        if (frame.charAt(pos) != '[') {
+            return 0;
+        }
+        pos++;
+        int decoded = 0;
+        while (nextElement()) {
+            if (frame.charAt(pos) == '{' && decodeV2Entry()) {
+                listener.onTicker(frame, symbolStart, symbolEnd, bid, ask, last, volume);
+                decoded++;
+            } else {
+                skipValue();
+            }
+        }
+        return decoded;
+    }
+
+    private boolean decodeV2Entry() {
+        resetTicker();
+        pos++;
+        while (nextMember()) {
+            int keyStart = pos + 1;
+            int keyEnd = skipString();
+            expect(':');
+            skipWhitespace();
+            if (keyEquals(keyStart, keyEnd, "symbol")) {
+                symbolStart = pos + 1;
+                symbolEnd = skipString();
+            } else if (keyEquals(keyStart, keyEnd, "bid")) {
+                bid = readNumber();
+            } else if (keyEquals(keyStart, keyEnd, "ask")) {
+                ask = readNumber();
+            } else if (keyEquals(keyStart, keyEnd, "last")) {
+                last = readNumber();
+            } else if (keyEquals(keyStart, keyEnd, "volume")) {
+                volume = readNumber();
+            } else {
+                skipValue();
+            }
+        }
+        return symbolStart >= 0 && !Double.isNaN(last);
+    }
+
+    //[340,{"a":["5525.4",1,"1.0"],"b":["5525.1",1,"1.0"],"c":["5525.1","0.1"],"v":["2634.1","3591.1"],..},"ticker","XBT/USD"]
+    private int decodeV1(Listener listener) {
+        resetTicker();
+        boolean ticker = false;
+        boolean payload = false;
+        int index = 0;
+        pos++;
+        while (nextElement()) {
+            char c = frame.charAt(pos);
+            if (index == 1 && c == '{') {
+                decodeV1Payload();
+                payload = true;
+            } else if (c == '"') {
+                int valueStart = pos + 1;
+                int valueEnd = skipString();
+                if (keyEquals(valueStart, valueEnd, "ticker")) {
+                    ticker = true;
+                } else if (ticker) {
+                    symbolStart = valueStart;
+                    symbolEnd = valueEnd;
+                }
+            } else {
+                skipValue();
+            }
+            index++;
+        }
+        if (!ticker || !payload || symbolStart < 0 || Double.isNaN(last)) {
+            return 0;
+        }
+        listener.onTicker(frame, symbolStart, symbolEnd, bid, ask, last, volume);
+        return 1;
+    }
+
+    private void decodeV1Payload() {
+        pos++;
+        while (nextMember()) {
+            int keyStart = pos + 1;
+            int keyEnd = skipString();
+            expect(':');
+            skipWhitespace();
+            if (keyEnd - keyStart != 1 || frame.charAt(pos) != '[') {
+                skipValue();
+                continue;
+            }
+            switch (frame.charAt(keyStart)) {
+                case 'a' -> ask = readArrayElement(0);
+                case 'b' -> bid = readArrayElement(0);
+                case 'c' -> last = readArrayElement(0);
+                case 'v' -> volume = readArrayElement(1);
+                default -> skipValue();
+            }
+        }
+    }
+
+    //Reads the n-th element of a numeric (or quoted numeric) array and skips the rest of it.
+    private double readArrayElement(int wanted) {
+        double value = Double.NaN;
+        int index = 0;
+        pos++;
+        while (nextElement()) {
+            if (index++ == wanted) {
+                value = readNumber();
+            } else {
+                skipValue();
+            }
+        }
+        return value;
+    }
+
+    private void resetTicker() {
+        symbolStart = -1;
+        symbolEnd = -1;
+        bid = Double.NaN;
+        ask = Double.NaN;
+        last = Double.NaN;
+        volume = Double.NaN;
+    }
+
+    //Moves to the next key of the current object; returns false after consuming the closing brace.
+    private boolean nextMember() {
+        skipWhitespace();
+        char c = charAtPos();
+        if (c == ',') {
+            pos++;
+            skipWhitespace();
+            c = charAtPos();
+        }
+        if (c == '}') {
+            pos++;
+            return false;
+        }
+        if (c != '"') {
+            throw MalformedFrameException.INSTANCE;
+        }
+        return true;
+    }
+
+    //Moves to the next element of the current array; returns false after consuming the closing bracket.
+    private boolean nextElement() {
+        skipWhitespace();
+        char c = charAtPos();
+        if (c == ',') {
+            pos++;
+            skipWhitespace();
+            c = charAtPos();
+        }
+        if (c == ']') {
+            pos++;
+            return false;
+        }
+        return true;
+    }
+
+    //Reads a JSON number, optionally wrapped in quotes as Kraken v1 does.
+    private double readNumber() {
+        skipWhitespace();
+        boolean quoted = charAtPos() == '"';
+        if (quoted) {
+            pos++;
+        }
+        int start = pos;
+        boolean negative = false;
+        if (charAtPos() == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean exact = true;
+        char c;
+        while (pos < end && (c = frame.charAt(pos)) >= '0' && c <= '9') {
+            if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = mantissa * 10 + (c - '0');
+            } else {
+                exact = false;
+            }
+            digits++;
+            pos++;
+        }
+        if (pos < end && frame.charAt(pos) == '.') {
+            pos++;
+            while (pos < end && (c = frame.charAt(pos)) >= '0' && c <= '9') {
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    scale++;
+                } else if (c != '0') {
+                    exact = false;
+                }
+                digits++;
+                pos++;
+            }
+        }
+        if (pos < end && ((c = frame.charAt(pos)) == 'e' || c == 'E')) {
+            exact = false;
+            pos++;
+            while (pos < end && ((c = frame.charAt(pos)) == '+' || c == '-' || (c >= '0' && c <= '9'))) {
+                pos++;
+            }
+        }
+        if (digits == 0) {
+            throw MalformedFrameException.INSTANCE;
+        }
+        double value;
+        if (exact && scale < POWERS_OF_TEN.length) {
+            // Both operands are exact doubles, so a single division is correctly rounded.
+            value = mantissa / POWERS_OF_TEN[scale];
+        } else {
+            value = Double.parseDouble(frame.subSequence(start, pos).toString());
+            negative = false;
+        }
+        if (quoted) {
+            expect('"');
+        }
+        return negative ? -value : value;
+    }
+
+    //Skips a string starting at the cursor and returns the index of its closing quote.
+    private int skipString() {
+        skipWhitespace();
+        if (charAtPos() != '"') {
+            throw MalformedFrameException.INSTANCE;
+        }
+        pos++;
+        while (pos < end) {
+            char c = frame.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == '"') {
+                return pos++;
+            } else {
+                pos++;
+            }
+        }
+        throw MalformedFrameException.INSTANCE;
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        char c = charAtPos();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{') {
+            pos++;
+            while (nextMember()) {
+                skipString();
+                expect(':');
+                skipValue();
+            }
+        } else if (c == '[') {
+            pos++;
+            while (nextElement()) {
+                skipValue();
+            }
+        } else {
+            while (pos < end && (c = frame.charAt(pos)) != ',' && c != '}' && c != ']' && !isWhitespace(c)) {
+                pos++;
+            }
+        }
+    }
+
+    private void expect(char expected) {
+        skipWhitespace();
+        if (charAtPos() != expected) {
+            throw MalformedFrameException.INSTANCE;
+        }
+        pos++;
+    }
+
+    private boolean keyEquals(int start, int stop, String literal) {
+        int length = literal.length();
+        if (stop - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (frame.charAt(start + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char charAtPos() {
+        if (pos >= end) {
+            throw MalformedFrameException.INSTANCE;
+        }
+        return frame.charAt(pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && isWhitespace(frame.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    //Thrown internally to unwind out of a truncated or unexpected frame; never escapes decode().
+    private static final class MalformedFrameException extends RuntimeException {
+        private static final MalformedFrameException INSTANCE = new MalformedFrameException();
+
+        private MalformedFrameException() {
+            super("Malformed ticker frame", null, false, false);
+        }
+    }
+}
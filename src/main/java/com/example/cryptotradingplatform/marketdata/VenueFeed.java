@@ -0,0 +1,58 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// One venue's way into the consolidated book, handed out by PriceMerger.register. The venue's quotes go to
+// a PriceBook of its own, with the same pair ids as the consolidated one, and each write then merges the
+// pair across venues. The same single-writer rule holds as for a PriceBook: each pair of a venue must only
+// be written by one thread at a time.
+public final class VenueFeed {
+
+    private final String venue;
+    private final PriceBook quotes;
+    private final PriceMerger merger;
+
+    VenueFeed(String venue, PriceBook quotes, PriceMerger merger) {
+        this.venue = venue;
+        this.quotes = quotes;
+        this.merger = merger;
+    }
+
+    public String venue() {
+        return venue;
+    }
+
+    //Number of pairs; ids run from 0 to size() - 1 and match the consolidated PriceBook's.
+    public int size() {
+        return quotes.size();
+    }
+
+    public String symbol(int id) {
+        return quotes.symbol(id);
+    }
+
+    //Resolves symbol[start, end) to its id without creating a String, or -1 when the pair is not in the book.
+    public int idOf(CharSequence symbol, int start, int end) {
+        return quotes.idOf(symbol, start, end);
+    }
+
+    //Copies the venue's own latest quote for the pair; returns false if the venue has never priced it.
+    public boolean read(int id, Quote into) {
+        return quotes.read(id, into);
+    }
+
+    //Stores the venue's quote for the pair and merges it into the consolidated book.
+    public void update(int id, double bid, double ask, double last, double volume, long timestamp) {
+        quotes.update(id, bid, ask, last, volume, timestamp);
+        merger.merge(id);
+    }
+
+    //Records that the venue's feed of the pair was lost at the given time, which takes it out of the
+    //consolidated quote until its next update.
+    public void markStale(int id, long since) {
+        quotes.markStale(id, since);
+        merger.merge(id);
+    }
+
+    PriceBook quotes() {
+        return quotes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.cryptotradingplatform.marketdata;
+
+// One venue's latest quote for a pair as served by the venues endpoint. included tells whether it counts
+// towards the consolidated quote right now; staleSince is 0 while the venue's feed of the pair is live.
+public final class VenueQuote {
+
+    private final String venue;
+    private final double bid;
+    private final double ask;
+    private final double last;
+    private final double volume;
+    private final long timestamp;
+    private final long staleSince;
+    private final boolean included;
+
+    public VenueQuote(String venue, double bid, double ask, double last, double volume, long timestamp,
+                      long staleSince, boolean included) {
+        this.venue = venue;
+        this.bid = bid;
+        this.ask = ask;
+        this.last = last;
+        this.volume = volume;
+        this.timestamp = timestamp;
+        this.staleSince = staleSince;
+        this.included = included;
+    }
+
+    public String getVenue() {
+        return venue;
+    }
+
+    public double getBid() {
+        return bid;
+    }
+
+    public double getAsk() {
+        return ask;
+    }
+
+    public double getLast() {
+        return last;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getStaleSince() {
+        return staleSince;
+    }
+
+    public boolean isIncluded() {
+        return included;
+    }
+}
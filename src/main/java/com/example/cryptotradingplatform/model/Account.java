@@ -7,18 +7,19 @@ import java.sql.Timestamp;
 @Table(name = "account")
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "balance", nullable = false)
-    private double balance;
+    @Column(name = "balance", nullable = false, precision = 38, scale = 18)
+    private Amount balance;
 
     @Column(name = "created_at", updatable = false)
     private Timestamp createdAt;
 
     public Account() {}
 
-    public Account(double balance, Timestamp createdAt) {
+    public Account(Amount balance, Timestamp createdAt) {
         this.balance = balance;
         this.createdAt = createdAt;
     }
@@ -31,11 +32,11 @@ public class Account {
         this.id = id;
     }
 
-    public double getBalance() {
+    public Amount getBalance() {
         return balance;
     }
 
-    public void setBalance(double balance) {
+    public void setBalance(Amount balance) {
         this.balance = balance;
     }
 
@@ -0,0 +1,199 @@
+package com.example.cryptotradingplatform.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point decimal: a long count of units at a decimal scale, so 1.5 BTC at scale 8 is 150000000.
+// Entities hold Amount values and store them as DECIMAL columns through AmountConverter. The trading
+// paths work on the raw units with the static methods below, which never allocate; only converting to
+// and from BigDecimal at the edges does. Every operation fails with ArithmeticException rather than
+// silently overflowing.
+public final class Amount implements Comparable<Amount> {
+
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long units;
+    private final int scale;
+
+    private Amount(long units, int scale) {
+        this.units = units;
+        this.scale = scale;
+    }
+
+    public static Amount of(long units, int scale) {
+        checkScale(scale);
+        return new Amount(units, scale);
+    }
+
+    //Takes the value at its smallest exact scale, rounding half up beyond MAX_SCALE digits.
+    public static Amount of(BigDecimal value) {
+        BigDecimal normalized = value.stripTrailingZeros();
+        if (normalized.scale() > MAX_SCALE) {
+            normalized = normalized.setScale(MAX_SCALE, RoundingMode.HALF_UP);
+        } else if (normalized.scale() < 0) {
+            normalized = normalized.setScale(0);
+        }
+        return new Amount(normalized.unscaledValue().longValueExact(), normalized.scale());
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    //This amount's units at another scale, rounding half up when the scale shrinks.
+    public long unitsAt(int scale) {
+        return rescale(units, this.scale, scale);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    public boolean isZero() {
+        return units == 0;
+    }
+
+    //Exact conversion of a request value to units; fails if the value has more decimals than the scale allows.
+    public static long toUnits(BigDecimal value, int scale) {
+        checkScale(scale);
+        return value.setScale(scale).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    //Moves units from one scale to another, rounding half up when digits are dropped.
+    public static long rescale(long units, int fromScale, int toScale) {
+        checkScale(fromScale);
+        checkScale(toScale);
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(units, POWERS_OF_TEN[toScale - fromScale]);
+        }
+        long divisor = POWERS_OF_TEN[fromScale - toScale];
+        long quotient = units / divisor;
+        long remainder = Math.abs(units % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += Long.signum(units);
+        }
+        return quotient;
+    }
+
+    //a * b at resultScale, rounding half up. The product is formed in 128 bits, so only a result that
+    //does not fit a long overflows.
+    public static long multiply(long a, int aScale, long b, int bScale, int resultScale) {
+        checkScale(aScale);
+        checkScale(bScale);
+        checkScale(resultScale);
+        int shift = aScale + bScale - resultScale;
+        if (shift <= 0) {
+            return Math.multiplyExact(Math.multiplyExact(a, b), POWERS_OF_TEN[-shift]);
+        }
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.absExact(a);
+        long y = Math.absExact(b);
+        long high = Math.multiplyHigh(x, y);
+        long low = x * y;
+        if (high == 0 && low >= 0 && shift <= MAX_SCALE) {
+            // The usual case: the product fits a long and one division does.
+            long divisor = POWERS_OF_TEN[shift];
+            long quotient = low / divisor;
+            long remainder = low - quotient * divisor;
+            long result = quotient + (remainder >= divisor - remainder ? 1 : 0);
+            return negative ? -result : result;
+        }
+        // Divide the 128-bit product by 10^(shift - 1) in steps of at most 10^18, then by 10, rounding on
+        // that last remainder.
+        int remaining = shift - 1;
+        while (remaining > 0) {
+            int step = Math.min(remaining, MAX_SCALE);
+            long divisor = POWERS_OF_TEN[step];
+            long highQuotient = Long.divideUnsigned(high, divisor);
+            low = divideUnsigned(Long.remainderUnsigned(high, divisor), low, divisor);
+            high = highQuotient;
+            remaining -= step;
+        }
+        long quotient = divideUnsigned(Long.remainderUnsigned(high, 10), low, 10);
+        long lastDigit = low - quotient * 10;
+        long result = quotient + (lastDigit >= 5 ? 1 : 0);
+        if (Long.divideUnsigned(high, 10) != 0 || result < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        return negative ? -result : result;
+    }
+
+    //Quotient of the unsigned 128-bit value high:low by divisor, which must be greater than high.
+    //Long division in 32-bit digits, after Hacker's Delight divlu.
+    private static long divideUnsigned(long high, long low, long divisor) {
+        final long base = 1L << 32;
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long v1 = v >>> 32;
+        long v0 = v & 0xFFFFFFFFL;
+        long u32 = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long u10 = low << shift;
+        long u1 = u10 >>> 32;
+        long u0 = u10 & 0xFFFFFFFFL;
+
+        long q1 = Long.divideUnsigned(u32, v1);
+        long rhat = u32 - q1 * v1;
+        while (q1 >= base || Long.compareUnsigned(q1 * v0, base * rhat + u1) > 0) {
+            q1--;
+            rhat += v1;
+            if (rhat >= base) {
+                break;
+            }
+        }
+        long u21 = u32 * base + u1 - q1 * v;
+        long q0 = Long.divideUnsigned(u21, v1);
+        rhat = u21 - q0 * v1;
+        while (q0 >= base || Long.compareUnsigned(q0 * v0, base * rhat + u0) > 0) {
+            q0--;
+            rhat += v1;
+            if (rhat >= base) {
+                break;
+            }
+        }
+        return q1 * base + q0;
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + ": " + scale);
+        }
+    }
+
+    @Override
+    public int compareTo(Amount other) {
+        int common = Math.max(scale, other.scale);
+        return Long.compare(unitsAt(common), other.unitsAt(common));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Amount amount && compareTo(amount) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return toBigDecimal().stripTrailingZeros().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
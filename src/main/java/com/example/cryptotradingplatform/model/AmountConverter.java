@@ -0,0 +1,22 @@
+package com.example.cryptotradingplatform.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Stores Amount attributes as DECIMAL columns; a value read back keeps its smallest exact scale and is
+// brought to the asset's scale by whoever uses it.
+@Converter(autoApply = true)
+public class AmountConverter implements AttributeConverter<Amount, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Amount amount) {
+        return amount == null ? null : amount.toBigDecimal();
+    }
+
+    @Override
+    public Amount convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Amount.of(value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.cryptotradingplatform.model;
+
+import java.math.BigDecimal;
+
+// Decimal scales of the amounts the platform stores. Cash balances, prices and trade totals are in USD
+// at CASH_SCALE; each asset's quantities use that asset's own scale, which is fixed in code because
+// stored units are only meaningful together with it. A scale also caps the largest quantity a long
+// can hold, so very fine-grained assets get fewer digits than their chain uses (ETH gets 12 rather
+// than wei's 18, which still allows 9.2 million ETH).
+public final class AssetScales {
+
+    public static final int CASH_SCALE = 8;
+    public static final int PRICE_SCALE = 8;
+    public static final int DEFAULT_QUANTITY_SCALE = 8;
+
+    //By base currency; anything not listed uses DEFAULT_QUANTITY_SCALE.
+    private static final String[] BASES = {"BTC", "XBT", "ETH", "SOL", "DOT", "SHIB"};
+    private static final int[] QUANTITY_SCALES = {8, 8, 12, 9, 10, 2};
+
+    private AssetScales() {
+    }
+
+    //Quantity scale of a symbol such as "BTC/USD" or "BTC"; looked up without allocating.
+    public static int quantityScale(String cryptoSymbol) {
+        int slash = cryptoSymbol.indexOf('/');
+        int length = slash < 0 ? cryptoSymbol.length() : slash;
+        for (int i = 0; i < BASES.length; i++) {
+            if (BASES[i].length() == length && cryptoSymbol.regionMatches(true, 0, BASES[i], 0, length)) {
+                return QUANTITY_SCALES[i];
+            }
+        }
+        return DEFAULT_QUANTITY_SCALE;
+    }
+
+    //A requested quantity as units of the symbol's quantity scale.
+    public static long quantityUnits(String cryptoSymbol, BigDecimal quantity) {
+        try {
+            return Amount.toUnits(quantity, quantityScale(cryptoSymbol));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity has more decimal places than " + cryptoSymbol + " supports.");
+        }
+    }
+
+    //A requested price as units of PRICE_SCALE.
+    public static long priceUnits(BigDecimal pricePerUnit) {
+        try {
+            return Amount.toUnits(pricePerUnit, PRICE_SCALE);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price has more than " + PRICE_SCALE + " decimal places.");
+        }
+    }
+}
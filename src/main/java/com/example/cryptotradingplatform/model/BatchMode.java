@@ -0,0 +1,7 @@
+package com.example.cryptotradingplatform.model;
+
+// How a batch of trades is applied: ATOMIC executes all of them or none, BEST_EFFORT executes every
+// trade that can be and rejects the rest.
+public enum BatchMode {
+    ATOMIC, BEST_EFFORT
+}
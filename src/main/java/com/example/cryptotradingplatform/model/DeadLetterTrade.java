@@ -0,0 +1,140 @@
+package com.example.cryptotradingplatform.model;
+
+import jakarta.persistence.*;
+import java.sql.Timestamp;
+
+// A trade the projection could not write although the database was answering, kept with the error so it
+// can be looked into and replayed by hand. Amounts are the event's fixed-point units, unconverted.
+@Entity
+@Table(name = "dead_letter_trade")
+public class DeadLetterTrade {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dead_letter_trade_seq")
+    @SequenceGenerator(name = "dead_letter_trade_seq", sequenceName = "dead_letter_trade_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private long accountId;
+
+    @Column(name = "crypto_symbol", nullable = false)
+    private String cryptoSymbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private TransactionType type;
+
+    @Column(name = "quantity_scale", nullable = false)
+    private int quantityScale;
+
+    @Column(name = "quantity", nullable = false)
+    private long quantity;
+
+    @Column(name = "price_per_unit", nullable = false)
+    private long pricePerUnit;
+
+    @Column(name = "total_price", nullable = false)
+    private long totalPrice;
+
+    @Column(name = "balance_after", nullable = false)
+    private long balanceAfter;
+
+    @Column(name = "holding_after", nullable = false)
+    private long holdingAfter;
+
+    @Column(name = "trade_timestamp", nullable = false)
+    private long tradeTimestamp;
+
+    //Engine shard and journal position of the trade; null for trades that came through the persistence pipeline.
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "journal_position")
+    private Long journalPosition;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private Timestamp failedAt;
+
+    public DeadLetterTrade() {}
+
+    public DeadLetterTrade(long accountId, String cryptoSymbol, TransactionType type, int quantityScale, long quantity,
+                           long pricePerUnit, long totalPrice, long balanceAfter, long holdingAfter,
+                           long tradeTimestamp, Integer shard, Long journalPosition, String error, Timestamp failedAt) {
+        this.accountId = accountId;
+        this.cryptoSymbol = cryptoSymbol;
+        this.type = type;
+        this.quantityScale = quantityScale;
+        this.quantity = quantity;
+        this.pricePerUnit = pricePerUnit;
+        this.totalPrice = totalPrice;
+        this.balanceAfter = balanceAfter;
+        this.holdingAfter = holdingAfter;
+        this.tradeTimestamp = tradeTimestamp;
+        this.shard = shard;
+        this.journalPosition = journalPosition;
+        this.error = error;
+        this.failedAt = failedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public int getQuantityScale() {
+        return quantityScale;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public long getPricePerUnit() {
+        return pricePerUnit;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    public long getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public long getHoldingAfter() {
+        return holdingAfter;
+    }
+
+    public long getTradeTimestamp() {
+        return tradeTimestamp;
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public Long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Timestamp getFailedAt() {
+        return failedAt;
+    }
+}
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Table(name = "holding")
 public class Holding {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "holding_seq")
+    @SequenceGenerator(name = "holding_seq", sequenceName = "holding_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -16,12 +17,12 @@ public class Holding {
     @Column(name = "crypto_symbol", nullable = false)
     private String cryptoSymbol;
 
-    @Column(name = "quantity", nullable = false)
-    private double quantity;
+    @Column(name = "quantity", nullable = false, precision = 38, scale = 18)
+    private Amount quantity;
 
     public Holding() {}
 
-    public Holding(Account account, String cryptoSymbol, double quantity) {
+    public Holding(Account account, String cryptoSymbol, Amount quantity) {
         this.account = account;
         this.cryptoSymbol = cryptoSymbol;
         this.quantity = quantity;
@@ -51,11 +52,11 @@ public class Holding {
         this.cryptoSymbol = cryptoSymbol;
     }
 
-    public double getQuantity() {
+    public Amount getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(double quantity) {
+    public void setQuantity(Amount quantity) {
         this.quantity = quantity;
     }
 }
\ No newline at end of file
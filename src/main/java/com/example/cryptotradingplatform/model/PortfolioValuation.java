@@ -0,0 +1,70 @@
+package com.example.cryptotradingplatform.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// An account's cash and positions marked to market. totalValue is cash plus the market value of every
+// position; the P&L figures are the sums of the positions'.
+public class PortfolioValuation {
+
+    private final long accountId;
+    private final BigDecimal cashBalance;
+    private final BigDecimal marketValue;
+    private final BigDecimal totalValue;
+    private final BigDecimal costBasis;
+    private final BigDecimal unrealizedPnl;
+    private final BigDecimal realizedPnl;
+    private final long pricedAt;
+    private final List<PositionValuation> positions;
+
+    public PortfolioValuation(long accountId, BigDecimal cashBalance, BigDecimal marketValue, BigDecimal totalValue,
+                              BigDecimal costBasis, BigDecimal unrealizedPnl, BigDecimal realizedPnl, long pricedAt,
+                              List<PositionValuation> positions) {
+        this.accountId = accountId;
+        this.cashBalance = cashBalance;
+        this.marketValue = marketValue;
+        this.totalValue = totalValue;
+        this.costBasis = costBasis;
+        this.unrealizedPnl = unrealizedPnl;
+        this.realizedPnl = realizedPnl;
+        this.pricedAt = pricedAt;
+        this.positions = positions;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public BigDecimal getCashBalance() {
+        return cashBalance;
+    }
+
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getUnrealizedPnl() {
+        return unrealizedPnl;
+    }
+
+    public BigDecimal getRealizedPnl() {
+        return realizedPnl;
+    }
+
+    //Time of the latest price tick included in the valuation, 0 if none.
+    public long getPricedAt() {
+        return pricedAt;
+    }
+
+    public List<PositionValuation> getPositions() {
+        return positions;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cryptotradingplatform.model;
+
+import java.math.BigDecimal;
+
+// One symbol of a portfolio, valued at its last traded price. Cost basis is the average cost of the
+// quantity still held; realized P&L covers every sale of the symbol, including from closed positions.
+// Until the feed has priced the symbol, marketPrice is the price it last traded at in the account.
+public class PositionValuation {
+
+    private final String cryptoSymbol;
+    private final BigDecimal quantity;
+    private final BigDecimal averageCost;
+    private final BigDecimal costBasis;
+    private final BigDecimal marketPrice;
+    private final BigDecimal marketValue;
+    private final BigDecimal unrealizedPnl;
+    private final BigDecimal realizedPnl;
+
+    public PositionValuation(String cryptoSymbol, BigDecimal quantity, BigDecimal averageCost, BigDecimal costBasis,
+                             BigDecimal marketPrice, BigDecimal marketValue, BigDecimal unrealizedPnl,
+                             BigDecimal realizedPnl) {
+        this.cryptoSymbol = cryptoSymbol;
+        this.quantity = quantity;
+        this.averageCost = averageCost;
+        this.costBasis = costBasis;
+        this.marketPrice = marketPrice;
+        this.marketValue = marketValue;
+        this.unrealizedPnl = unrealizedPnl;
+        this.realizedPnl = realizedPnl;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getAverageCost() {
+        return averageCost;
+    }
+
+    public BigDecimal getCostBasis() {
+        return costBasis;
+    }
+
+    public BigDecimal getMarketPrice() {
+        return marketPrice;
+    }
+
+    public BigDecimal getMarketValue() {
+        return marketValue;
+    }
+
+    public BigDecimal getUnrealizedPnl() {
+        return unrealizedPnl;
+    }
+
+    public BigDecimal getRealizedPnl() {
+        return realizedPnl;
+    }
+}
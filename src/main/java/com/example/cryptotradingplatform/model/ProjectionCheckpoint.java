@@ -0,0 +1,35 @@
+package com.example.cryptotradingplatform.model;
+
+import jakarta.persistence.*;
+
+// How far the projection has applied one engine shard's journal. Saved in the same transaction as the
+// trades it covers, so the tables and the position can never disagree.
+@Entity
+@Table(name = "projection_checkpoint")
+public class ProjectionCheckpoint {
+    @Id
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "position", nullable = false)
+    private long position;
+
+    public ProjectionCheckpoint() {}
+
+    public ProjectionCheckpoint(Integer shard, long position) {
+        this.shard = shard;
+        this.position = position;
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+}
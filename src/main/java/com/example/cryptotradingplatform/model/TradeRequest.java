@@ -0,0 +1,58 @@
+package com.example.cryptotradingplatform.model;
+
+import java.math.BigDecimal;
+
+// One trade of a batch submitted to POST /api/account/trades.
+public class TradeRequest {
+
+    private TransactionType type;
+    private String cryptoSymbol;
+    private BigDecimal quantity;
+    private BigDecimal pricePerUnit;
+
+    public TradeRequest() {}
+
+    public TradeRequest(TransactionType type, String cryptoSymbol, BigDecimal quantity, BigDecimal pricePerUnit) {
+        this.type = type;
+        this.cryptoSymbol = cryptoSymbol;
+        this.quantity = quantity;
+        this.pricePerUnit = pricePerUnit;
+    }
+
+    //pricePerUnit is optional: with live pricing it is only a reference for the slippage check.
+    public boolean isComplete() {
+        return type != null && cryptoSymbol != null && quantity != null;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public void setCryptoSymbol(String cryptoSymbol) {
+        this.cryptoSymbol = cryptoSymbol;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPricePerUnit() {
+        return pricePerUnit;
+    }
+
+    public void setPricePerUnit(BigDecimal pricePerUnit) {
+        this.pricePerUnit = pricePerUnit;
+    }
+}
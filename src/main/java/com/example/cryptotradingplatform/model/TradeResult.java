@@ -0,0 +1,48 @@
+package com.example.cryptotradingplatform.model;
+
+// Outcome of one trade of a batch, identified by its position in the submitted array.
+public class TradeResult {
+
+    public enum Status {
+        EXECUTED, REJECTED, NOT_EXECUTED
+    }
+
+    private final int index;
+    private final Status status;
+    private final String message;
+
+    public TradeResult(int index, Status status, String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static TradeResult executed(int index, String message) {
+        return new TradeResult(index, Status.EXECUTED, message);
+    }
+
+    public static TradeResult rejected(int index, String message) {
+        return new TradeResult(index, Status.REJECTED, message);
+    }
+
+    //For trades of an atomic batch that were fine on their own but dropped with the rest of the batch.
+    public static TradeResult notExecuted(int index) {
+        return new TradeResult(index, Status.NOT_EXECUTED, "Not executed because another trade in the batch was rejected.");
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isExecuted() {
+        return status == Status.EXECUTED;
+    }
+}
@@ -4,13 +4,21 @@ import jakarta.persistence.*;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "transaction")
+// History reads filter by account and optionally symbol and page newest first, so both indexes end in
+// (transaction_date, id) descending, the keyset the pages seek on.
+@Table(name = "transaction", indexes = {
+        @Index(name = "idx_transaction_account_date", columnList = "account_id, transaction_date desc, id desc"),
+        @Index(name = "idx_transaction_account_symbol_date",
+                columnList = "account_id, crypto_symbol, transaction_date desc, id desc")
+})
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (allocated 50 at a time) let Hibernate batch ledger inserts; IDENTITY forces one insert per row.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
@@ -20,21 +28,21 @@ public class Transaction {
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
-    @Column(name = "quantity", nullable = false)
-    private double quantity;
+    @Column(name = "quantity", nullable = false, precision = 38, scale = 18)
+    private Amount quantity;
 
-    @Column(name = "price_per_unit")
-    private double pricePerUnit;
+    @Column(name = "price_per_unit", precision = 38, scale = 18)
+    private Amount pricePerUnit;
 
-    @Column(name = "total_price")
-    private double totalPrice;
+    @Column(name = "total_price", precision = 38, scale = 18)
+    private Amount totalPrice;
 
     @Column(name = "transaction_date", updatable = false)
     private Timestamp transactionDate;
 
     public Transaction() {}
 
-    public Transaction(Account account, String cryptoSymbol, TransactionType type, double quantity, double pricePerUnit, double totalPrice) {
+    public Transaction(Account account, String cryptoSymbol, TransactionType type, Amount quantity, Amount pricePerUnit, Amount totalPrice) {
         this.account = account;
         this.cryptoSymbol = cryptoSymbol;
         this.type = type;
@@ -76,27 +84,27 @@ public class Transaction {
         this.type = type;
     }
 
-    public double getQuantity() {
+    public Amount getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(double quantity) {
+    public void setQuantity(Amount quantity) {
         this.quantity = quantity;
     }
 
-    public double getPricePerUnit() {
+    public Amount getPricePerUnit() {
         return pricePerUnit;
     }
 
-    public void setPricePerUnit(double pricePerUnit) {
+    public void setPricePerUnit(Amount pricePerUnit) {
         this.pricePerUnit = pricePerUnit;
     }
 
-    public double getTotalPrice() {
+    public Amount getTotalPrice() {
         return totalPrice;
     }
 
-    public void setTotalPrice(double totalPrice) {
+    public void setTotalPrice(Amount totalPrice) {
         this.totalPrice = totalPrice;
     }
 
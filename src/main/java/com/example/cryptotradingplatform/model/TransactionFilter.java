@@ -0,0 +1,42 @@
+package com.example.cryptotradingplatform.model;
+
+import java.sql.Timestamp;
+
+// Which of an account's ledger rows a history query returns; null fields do not filter. The date range
+// is inclusive.
+public class TransactionFilter {
+
+    private final Long accountId;
+    private final String cryptoSymbol;
+    private final TransactionType type;
+    private final Timestamp from;
+    private final Timestamp to;
+
+    public TransactionFilter(Long accountId, String cryptoSymbol, TransactionType type, Timestamp from, Timestamp to) {
+        this.accountId = accountId;
+        this.cryptoSymbol = cryptoSymbol;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public Timestamp getFrom() {
+        return from;
+    }
+
+    public Timestamp getTo() {
+        return to;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.cryptotradingplatform.model;
+
+import java.util.List;
+
+// One page of an account's history, newest first. nextCursor fetches the page after it and is null on
+// the last page.
+public class TransactionPage {
+
+    private final List<TransactionView> transactions;
+    private final String nextCursor;
+
+    public TransactionPage(List<TransactionView> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionView> getTransactions() {
+        return transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
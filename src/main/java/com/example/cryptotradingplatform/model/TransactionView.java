@@ -0,0 +1,56 @@
+package com.example.cryptotradingplatform.model;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+// A ledger row as returned by the history API, selected column by column so the account is never loaded.
+public class TransactionView {
+
+    private final long id;
+    private final String cryptoSymbol;
+    private final TransactionType type;
+    private final BigDecimal quantity;
+    private final BigDecimal pricePerUnit;
+    private final BigDecimal totalPrice;
+    private final long transactionDate;
+
+    public TransactionView(Long id, String cryptoSymbol, TransactionType type, Amount quantity, Amount pricePerUnit,
+                           Amount totalPrice, Timestamp transactionDate) {
+        this.id = id;
+        this.cryptoSymbol = cryptoSymbol;
+        this.type = type;
+        this.quantity = quantity.toBigDecimal();
+        this.pricePerUnit = pricePerUnit != null ? pricePerUnit.toBigDecimal() : null;
+        this.totalPrice = totalPrice != null ? totalPrice.toBigDecimal() : null;
+        this.transactionDate = transactionDate.getTime();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPricePerUnit() {
+        return pricePerUnit;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    //Epoch millis.
+    public long getTransactionDate() {
+        return transactionDate;
+    }
+}
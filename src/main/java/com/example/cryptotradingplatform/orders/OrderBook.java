@@ -0,0 +1,126 @@
+package com.example.cryptotradingplatform.orders;
+
+import com.example.cryptotradingplatform.model.TransactionType;
+
+import java.util.function.Consumer;
+
+// Resting orders of every pair, sorted by trigger price so a price update only visits the orders it
+// crosses. Each pair has four heaps, one per side and trigger direction: orders that trigger on a fall
+// are keyed by the negated trigger price so the highest trigger is on top, orders that trigger on a
+// rise by the trigger price itself. Matching a tick is a look at the four tops plus O(log n) per
+// triggered order, independent of how many orders are resting.
+// Cancelled orders are skipped when they reach the top of their heap, which drops them in bulk once they
+// are half of it, so orders cancelled far from the market do not pile up.
+public final class OrderBook {
+
+    private final PairOrders[] pairs;
+
+    public OrderBook(int pairCount) {
+        this.pairs = new PairOrders[pairCount];
+        for (int id = 0; id < pairCount; id++) {
+            pairs[id] = new PairOrders();
+        }
+    }
+
+    public void add(RestingOrder order) {
+        PairOrders pair = pairs[order.pairId()];
+        synchronized (pair) {
+            long trigger = order.triggerUnits();
+            if (order.triggersBelow()) {
+                pair.heap(order.getSide(), true).push(-trigger, order);
+            } else {
+                pair.heap(order.getSide(), false).push(trigger, order);
+            }
+            pair.open++;
+        }
+    }
+
+    //Cancels an order that has not been triggered yet; returns false if it already has been.
+    public boolean cancel(RestingOrder order) {
+        PairOrders pair = pairs[order.pairId()];
+        synchronized (pair) {
+            if (!order.isOpen()) {
+                return false;
+            }
+            order.cancelled();
+            pair.open--;
+            pair.heap(order.getSide(), order.triggersBelow()).cancelled();
+            return true;
+        }
+    }
+
+    //Triggers every open order of the pair crossed by the new prices: buy orders are checked against
+    //buyPrice (the ask) and sell orders against sellPrice (the bid). Each triggered order is handed
+    //to the consumer while the pair is locked, so the consumer must only queue it. Returns how many
+    //orders were triggered.
+    public int match(int pairId, long buyPrice, long sellPrice, Consumer<RestingOrder> triggered) {
+        PairOrders pair = pairs[pairId];
+        synchronized (pair) {
+            if (pair.open == 0) {
+                return 0;
+            }
+            int count = triggerBelow(pair.buyBelow, buyPrice, triggered)
+                    + triggerAbove(pair.buyAbove, buyPrice, triggered)
+                    + triggerBelow(pair.sellBelow, sellPrice, triggered)
+                    + triggerAbove(pair.sellAbove, sellPrice, triggered);
+            pair.open -= count;
+            return count;
+        }
+    }
+
+    //Orders held in the pair's heaps, cancelled ones not yet dropped included.
+    int heldOrders(int pairId) {
+        PairOrders pair = pairs[pairId];
+        synchronized (pair) {
+            return pair.buyBelow.size() + pair.buyAbove.size() + pair.sellBelow.size() + pair.sellAbove.size();
+        }
+    }
+
+    public int openOrders(int pairId) {
+        PairOrders pair = pairs[pairId];
+        synchronized (pair) {
+            return pair.open;
+        }
+    }
+
+    private static int triggerBelow(TriggerHeap heap, long price, Consumer<RestingOrder> triggered) {
+        int count = 0;
+        while (!heap.isEmpty() && -heap.peekKey() >= price) {
+            count += trigger(heap.pop(), price, triggered);
+        }
+        return count;
+    }
+
+    private static int triggerAbove(TriggerHeap heap, long price, Consumer<RestingOrder> triggered) {
+        int count = 0;
+        while (!heap.isEmpty() && heap.peekKey() <= price) {
+            count += trigger(heap.pop(), price, triggered);
+        }
+        return count;
+    }
+
+    private static int trigger(RestingOrder order, long price, Consumer<RestingOrder> triggered) {
+        if (!order.isOpen()) {
+            return 0;
+        }
+        order.triggered(price);
+        triggered.accept(order);
+        return 1;
+    }
+
+    private static final class PairOrders {
+
+        private final TriggerHeap buyBelow = new TriggerHeap();
+        private final TriggerHeap buyAbove = new TriggerHeap();
+        private final TriggerHeap sellBelow = new TriggerHeap();
+        private final TriggerHeap sellAbove = new TriggerHeap();
+        private int open;
+
+        private TriggerHeap heap(TransactionType side, boolean below) {
+            if (side == TransactionType.BUY) {
+                return below ? buyBelow : buyAbove;
+            }
+            return below ? sellBelow : sellAbove;
+        }
+    }
+}
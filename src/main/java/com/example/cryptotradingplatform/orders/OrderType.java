@@ -0,0 +1,8 @@
+package com.example.cryptotradingplatform.orders;
+
+// Kinds of resting order. Which way the market has to move to trigger one depends on its side:
+// a limit buy waits for the price to fall to its limit, a limit sell for it to rise; a stop-loss
+// sell triggers on a fall and a stop-loss buy on a rise; take-profit is the reverse of stop-loss.
+public enum OrderType {
+    LIMIT, STOP_LOSS, TAKE_PROFIT
+}
@@ -0,0 +1,129 @@
+package com.example.cryptotradingplatform.orders;
+
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.TransactionType;
+
+import java.math.BigDecimal;
+
+// An order waiting in the OrderBook for the market to reach its trigger price.
+// It moves from OPEN to TRIGGERED under its pair's lock when a price crosses it, or to CANCELLED;
+// a triggered order is then FILLED or REJECTED by the thread that executes it.
+public final class RestingOrder {
+
+    public enum Status {
+        OPEN, TRIGGERED, FILLED, REJECTED, CANCELLED
+    }
+
+    private final long id;
+    private final long accountId;
+    private final String cryptoSymbol;
+    private final int pairId;
+    private final OrderType type;
+    private final TransactionType side;
+    private final BigDecimal quantity;
+    private final long triggerPrice;
+    private final long createdAt;
+    private volatile Status status = Status.OPEN;
+    private volatile long fillPrice;
+    private volatile String message;
+
+    public RestingOrder(long id, long accountId, String cryptoSymbol, int pairId, OrderType type, TransactionType side,
+                        BigDecimal quantity, long triggerPrice, long createdAt) {
+        this.id = id;
+        this.accountId = accountId;
+        this.cryptoSymbol = cryptoSymbol;
+        this.pairId = pairId;
+        this.type = type;
+        this.side = side;
+        this.quantity = quantity;
+        this.triggerPrice = triggerPrice;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public String getCryptoSymbol() {
+        return cryptoSymbol;
+    }
+
+    public OrderType getType() {
+        return type;
+    }
+
+    public TransactionType getSide() {
+        return side;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getTriggerPrice() {
+        return Amount.toBigDecimal(triggerPrice, AssetScales.PRICE_SCALE);
+    }
+
+    //Market price that triggered the order, or null while it is open.
+    public BigDecimal getTriggeredAt() {
+        return status == Status.OPEN || status == Status.CANCELLED
+                ? null : Amount.toBigDecimal(fillPrice, AssetScales.PRICE_SCALE);
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    //Outcome of executing the order, once it has been.
+    public String getMessage() {
+        return message;
+    }
+
+    int pairId() {
+        return pairId;
+    }
+
+    long triggerUnits() {
+        return triggerPrice;
+    }
+
+    //Whether the order triggers when the price falls to its trigger price, rather than rises to it.
+    boolean triggersBelow() {
+        return switch (type) {
+            case LIMIT, TAKE_PROFIT -> side == TransactionType.BUY;
+            case STOP_LOSS -> side == TransactionType.SELL;
+        };
+    }
+
+    boolean isOpen() {
+        return status == Status.OPEN;
+    }
+
+    void triggered(long price) {
+        fillPrice = price;
+        status = Status.TRIGGERED;
+    }
+
+    void cancelled() {
+        status = Status.CANCELLED;
+    }
+
+    public void filled(String message) {
+        this.message = message;
+        status = Status.FILLED;
+    }
+
+    public void rejected(String message) {
+        this.message = message;
+        status = Status.REJECTED;
+    }
+}
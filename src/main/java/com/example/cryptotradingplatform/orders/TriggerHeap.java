@@ -0,0 +1,105 @@
+package com.example.cryptotradingplatform.orders;
+
+import java.util.Arrays;
+
+// Binary min-heap of orders keyed by a long, kept in parallel arrays so sifting moves primitives and
+// references without boxing or per-entry nodes. Not thread-safe; the OrderBook guards each heap with
+// its pair's lock.
+// Cancelled orders stay where they are until they reach the top or until they make up half the heap,
+// when they are all dropped in one pass, so cancelling is amortised O(1) and the heap never holds more
+// cancelled orders than open ones.
+final class TriggerHeap {
+
+    private long[] keys = new long[16];
+    private RestingOrder[] orders = new RestingOrder[16];
+    private int size;
+    private int cancelled;
+
+    void push(long key, RestingOrder order) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            orders = Arrays.copyOf(orders, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            orders[i] = orders[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        orders[i] = order;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    //Smallest key; only valid when the heap is not empty.
+    long peekKey() {
+        return keys[0];
+    }
+
+    RestingOrder pop() {
+        RestingOrder top = orders[0];
+        if (!top.isOpen()) {
+            cancelled--;
+        }
+        int last = --size;
+        long key = keys[last];
+        RestingOrder order = orders[last];
+        orders[last] = null;
+        if (last > 0) {
+            siftDown(0, key, order);
+        }
+        return top;
+    }
+
+    //Counts one more order in the heap as cancelled, dropping them all once they are half of it.
+    void cancelled() {
+        if (++cancelled * 2 > size) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (orders[i].isOpen()) {
+                keys[kept] = keys[i];
+                orders[kept++] = orders[i];
+            }
+        }
+        Arrays.fill(orders, kept, size, null);
+        size = kept;
+        cancelled = 0;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i, keys[i], orders[i]);
+        }
+    }
+
+    private void siftDown(int i, long key, RestingOrder order) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[i] = keys[child];
+            orders[i] = orders[child];
+            i = child;
+        }
+        keys[i] = key;
+        orders[i] = order;
+    }
+}
@@ -2,8 +2,27 @@ package com.example.cryptotradingplatform.repository;
 
 import com.example.cryptotradingplatform.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-}
\ No newline at end of file
+
+    @Query("select a.id from Account a order by a.id")
+    List<Long> findAllIds();
+
+    //Inserts an account under the id it already has, as when another shard hands it over.
+    @Modifying
+    @Query(value = "insert into account (id, balance, created_at) values (:id, :balance, :createdAt)", nativeQuery = true)
+    void insertWithId(@Param("id") Long id, @Param("balance") BigDecimal balance, @Param("createdAt") Timestamp createdAt);
+
+    @Modifying
+    @Query("delete from Account a where a.id = :id")
+    int deleteInBulk(@Param("id") Long id);
+}
@@ -2,12 +2,26 @@ package com.example.cryptotradingplatform.repository;
 
 import com.example.cryptotradingplatform.model.Holding;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface HoldingRepository extends JpaRepository<Holding, Long> {
     Optional<Holding> findByAccountIdAndCryptoSymbol(Long accountId, String cryptoSymbol);
+
+    List<Holding> findByAccountId(Long accountId);
+
+    List<Holding> findByAccountIdIn(Collection<Long> accountIds);
+
+    //One statement, where a derived delete would load and remove the holdings one by one.
+    @Modifying
+    @Query("delete from Holding h where h.account.id = :accountId")
+    int deleteAllOfAccount(@Param("accountId") Long accountId);
 }
 
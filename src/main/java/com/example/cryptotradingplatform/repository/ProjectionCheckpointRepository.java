@@ -0,0 +1,9 @@
+package com.example.cryptotradingplatform.repository;
+
+import com.example.cryptotradingplatform.model.ProjectionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProjectionCheckpointRepository extends JpaRepository<ProjectionCheckpoint, Integer> {
+}
@@ -0,0 +1,14 @@
+package com.example.cryptotradingplatform.repository;
+
+import com.example.cryptotradingplatform.model.TransactionFilter;
+import com.example.cryptotradingplatform.model.TransactionView;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface TransactionHistoryRepository {
+
+    //Up to limit rows matching the filter, newest first, starting after the row (beforeDate, beforeId) when
+    //those are given.
+    List<TransactionView> findHistory(TransactionFilter filter, Timestamp beforeDate, Long beforeId, int limit);
+}
@@ -0,0 +1,68 @@
+package com.example.cryptotradingplatform.repository;
+
+import com.example.cryptotradingplatform.model.TransactionFilter;
+import com.example.cryptotradingplatform.model.TransactionView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// Builds the history query from the filters actually given, so the database sees plain equality and
+// range conditions it can match to the (account_id[, crypto_symbol], transaction_date, id) indexes
+// rather than "param is null or ..." clauses. Pages seek past the last row of the previous page instead
+// of using OFFSET, so every page costs the same however deep it is.
+public class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionView> findHistory(TransactionFilter filter, Timestamp beforeDate, Long beforeId, int limit) {
+        StringBuilder jpql = new StringBuilder("select new com.example.cryptotradingplatform.model.TransactionView("
+                + "t.id, t.cryptoSymbol, t.type, t.quantity, t.pricePerUnit, t.totalPrice, t.transactionDate) "
+                + "from Transaction t where t.account.id = :accountId");
+        if (filter.getCryptoSymbol() != null) {
+            jpql.append(" and t.cryptoSymbol = :cryptoSymbol");
+        }
+        if (filter.getType() != null) {
+            jpql.append(" and t.type = :type");
+        }
+        if (filter.getFrom() != null) {
+            jpql.append(" and t.transactionDate >= :from");
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" and t.transactionDate <= :to");
+        }
+        if (beforeDate != null) {
+            // The first condition is implied by the second but is the one an index range scan can seek on.
+            jpql.append(" and t.transactionDate <= :beforeDate and (t.transactionDate < :beforeDate or t.id < :beforeId)");
+        }
+        // The equality columns lead the ORDER BY as well. They do not change the order, but planners that only
+        // match ORDER BY against a whole index prefix (H2) then read the index in order and stop after a page.
+        jpql.append(filter.getCryptoSymbol() != null
+                ? " order by t.account.id, t.cryptoSymbol, t.transactionDate desc, t.id desc"
+                : " order by t.account.id, t.transactionDate desc, t.id desc");
+
+        TypedQuery<TransactionView> query = entityManager.createQuery(jpql.toString(), TransactionView.class)
+                .setParameter("accountId", filter.getAccountId())
+                .setMaxResults(limit);
+        if (filter.getCryptoSymbol() != null) {
+            query.setParameter("cryptoSymbol", filter.getCryptoSymbol());
+        }
+        if (filter.getType() != null) {
+            query.setParameter("type", filter.getType());
+        }
+        if (filter.getFrom() != null) {
+            query.setParameter("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            query.setParameter("to", filter.getTo());
+        }
+        if (beforeDate != null) {
+            query.setParameter("beforeDate", beforeDate).setParameter("beforeId", beforeId);
+        }
+        return query.getResultList();
+    }
+}
@@ -2,8 +2,20 @@ package com.example.cryptotradingplatform.repository;
 
 import com.example.cryptotradingplatform.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-}
\ No newline at end of file
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionHistoryRepository {
+
+    //An account's ledger in the order it was written.
+    List<Transaction> findByAccountIdOrderByIdAsc(Long accountId);
+
+    @Modifying
+    @Query("delete from Transaction t where t.account.id = :accountId")
+    int deleteAllOfAccount(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,438 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.metrics.LatencyHistogram;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Bounded in-process cache of account balances and holdings, so hot accounts are not reloaded from the
+// database on every trade. An account is loaded with all of its holdings on its first trade and kept as
+// an immutable, versioned view. A trade computes its outcome from the current view without locks and
+// then commits only if the view is still the same version, retrying otherwise; the commit hands the
+// trade to the TradePersistencePipeline (write-through, batched) in version order.
+// The cache is split into segments, each an LRU map with a share of the size limit. Accounts with
+// trades not yet written are never evicted, since reloading them would lose those trades. Anything
+// that changes accounts in the database directly must evict them here.
+@Component
+public class AccountCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final AccountRepository accountRepository;
+    private final HoldingRepository holdingRepository;
+    private final TradePersistencePipeline persistencePipeline;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Map<Long, CompletableFuture<Void>> loads = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter conflicts;
+    private final LatencyHistogram lookupLatency;
+    private final LatencyHistogram validationLatency;
+    private final LatencyHistogram persistLatency;
+
+    public AccountCache(AccountRepository accountRepository, HoldingRepository holdingRepository,
+                        TradePersistencePipeline persistencePipeline, MeterRegistry meterRegistry,
+                        @Value("${trading.account-cache.max-size:10000}") int maxSize) {
+        this.accountRepository = accountRepository;
+        this.holdingRepository = holdingRepository;
+        this.persistencePipeline = persistencePipeline;
+        int segmentCapacity = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.hits = Counter.builder("cache.gets").tag("cache", "accounts").tag("result", "hit")
+                .description("Account lookups served from the cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "accounts").tag("result", "miss")
+                .description("Account lookups that loaded from the database")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "accounts")
+                .description("Accounts dropped from the cache")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("cache.conflicts").tag("cache", "accounts")
+                .description("Trades retried because the account changed while they were computed")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, AccountCache::size).tag("cache", "accounts")
+                .description("Accounts held in the cache")
+                .register(meterRegistry);
+        this.lookupLatency = stageTimer(meterRegistry, "lookup");
+        this.validationLatency = stageTimer(meterRegistry, "validation");
+        this.persistLatency = stageTimer(meterRegistry, "persist");
+    }
+
+    //Time per attempt in each stage of a trade; the persist stage is handing the events to the pipeline,
+    //waiting for room if it is full, not the database write. AccountService adds the pricing stage.
+    static LatencyHistogram stageTimer(MeterRegistry meterRegistry, String stage) {
+        return LatencyHistogram.register(meterRegistry, "trading.trade.stage.latency",
+                "Time a trade spends in each stage before it is accepted or rejected", "stage", stage);
+    }
+
+    //Applies a trade: the function validates it against the account's current view and returns the
+    //resulting event, or throws to reject it. It may run more than once if the account changes meanwhile.
+    public TradeEvent trade(Long accountId, Function<AccountView, TradeEvent> trade) {
+        return tradeAll(accountId, view -> List.of(trade.apply(view))).get(0);
+    }
+
+    //As trade, for several trades of one account that are applied, and written, together or not at all.
+    //Returning no events commits nothing.
+    public List<TradeEvent> tradeAll(Long accountId, Function<AccountView, List<TradeEvent>> trades) {
+        while (true) {
+            long start = System.nanoTime();
+            CachedAccount account = get(accountId);
+            AccountView view = account.view;
+            long found = System.nanoTime();
+            lookupLatency.record(found - start);
+            List<TradeEvent> events;
+            long validated = found;
+            try {
+                events = trades.apply(view);
+            } finally {
+                validated = System.nanoTime();
+                validationLatency.record(validated - found);
+            }
+            if (events.isEmpty()) {
+                return events;
+            }
+            boolean committed;
+            try {
+                committed = account.commit(view, events);
+            } finally {
+                persistLatency.record(System.nanoTime() - validated);
+            }
+            if (committed) {
+                return events;
+            }
+            conflicts.increment();
+        }
+    }
+
+    //Drops an account, or marks it to be dropped once its queued trades are written; the next trade reloads it.
+    public void evict(Long accountId) {
+        segmentFor(accountId).evict(accountId);
+    }
+
+    //Drops an account once its queued trades are written, waiting up to timeoutMillis for that, and
+    //returns whether it is gone. The caller keeps new trades away from the account meanwhile, as a shard
+    //handing the account to another node does; otherwise a trade could load it straight back.
+    public boolean release(Long accountId, long timeoutMillis) throws InterruptedException {
+        Segment segment = segmentFor(accountId);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            segment.evict(accountId);
+            if (segment.get(accountId) == null) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    //Loads outside the segment lock; a load the account was evicted during is discarded and repeated, since
+    //evicting it means the database changed and the load may predate that. Evictions of other accounts do
+    //not matter. Concurrent misses on one account wait for a single load rather than each reading the database.
+    private CachedAccount get(Long accountId) {
+        Segment segment = segmentFor(accountId);
+        while (true) {
+            CachedAccount cached = segment.get(accountId);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            CompletableFuture<Void> loading = new CompletableFuture<>();
+            CompletableFuture<Void> inFlight = loads.putIfAbsent(accountId, loading);
+            if (inFlight != null) {
+                inFlight.join();
+                continue;
+            }
+            try {
+                // Another load may have installed the account between the miss and winning the slot; loading
+                // again would replace its live view with rows the pipeline may not have caught up with.
+                cached = segment.get(accountId);
+                if (cached != null) {
+                    hits.increment();
+                    return cached;
+                }
+                misses.increment();
+                segment.loadStarted(accountId);
+                CachedAccount loaded;
+                try {
+                    loaded = load(accountId);
+                } catch (RuntimeException e) {
+                    segment.loadAbandoned(accountId);
+                    throw e;
+                }
+                CachedAccount installed = segment.install(accountId, loaded);
+                if (installed != null) {
+                    return installed;
+                }
+            } finally {
+                loads.remove(accountId, loading);
+                loading.complete(null);
+            }
+        }
+    }
+
+    private CachedAccount load(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found."));
+        Map<String, Long> holdings = new HashMap<>();
+        for (Holding holding : holdingRepository.findByAccountId(accountId)) {
+            String symbol = holding.getCryptoSymbol();
+            holdings.put(symbol, holding.getQuantity().unitsAt(AssetScales.quantityScale(symbol)));
+        }
+        return new CachedAccount(accountId,
+                new AccountView(accountId, 0, account.getBalance().unitsAt(AssetScales.CASH_SCALE), holdings));
+    }
+
+    private Segment segmentFor(Long accountId) {
+        return segments[segmentOf(accountId)];
+    }
+
+    static int segmentOf(Long accountId) {
+        return Math.floorMod(Long.hashCode(accountId) * 0x9E3779B9, SEGMENTS);
+    }
+
+    //Immutable state of an account as of one version; holdings are fixed-point units of each asset's scale.
+    public static final class AccountView {
+
+        private final long accountId;
+        private final long version;
+        private final long balance;
+        private final Map<String, Long> holdings;
+
+        private AccountView(long accountId, long version, long balance, Map<String, Long> holdings) {
+            this.accountId = accountId;
+            this.version = version;
+            this.balance = balance;
+            this.holdings = Collections.unmodifiableMap(holdings);
+        }
+
+        public long getAccountId() {
+            return accountId;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+
+        public long getHolding(String cryptoSymbol) {
+            Long quantity = holdings.get(cryptoSymbol);
+            return quantity == null ? 0 : quantity;
+        }
+
+        private AccountView after(List<TradeEvent> events) {
+            Map<String, Long> updated = new HashMap<>(holdings);
+            for (TradeEvent event : events) {
+                if (event.getHoldingAfter() == 0) {
+                    updated.remove(event.getCryptoSymbol());
+                } else {
+                    updated.put(event.getCryptoSymbol(), event.getHoldingAfter());
+                }
+            }
+            return new AccountView(accountId, version + 1, events.get(events.size() - 1).getBalanceAfter(), updated);
+        }
+    }
+
+    private final class CachedAccount {
+
+        private final Long accountId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger unwritten = new AtomicInteger();
+        private volatile AccountView view;
+        private volatile boolean evictWhenWritten;
+        private boolean evicted;
+
+        private CachedAccount(Long accountId, AccountView view) {
+            this.accountId = accountId;
+            this.view = view;
+        }
+
+        //Installs the trades' outcome if the account is still at the version it was computed from.
+        //The trades are queued first, so refused trades leave the account untouched. Queueing may wait for
+        //room in the pipeline, which is why the account is guarded by a lock rather than its monitor: a
+        //virtual thread waiting inside a monitor would keep its carrier thread. For the same reason the
+        //writer thread never takes this lock, or a full queue would wait on a writer waiting on the lock.
+        private boolean commit(AccountView expected, List<TradeEvent> events) {
+            lock.lock();
+            try {
+                if (evicted || view != expected) {
+                    return false;
+                }
+                unwritten.incrementAndGet();
+                try {
+                    persistencePipeline.submitAll(events, this::written);
+                } catch (RuntimeException e) {
+                    unwritten.decrementAndGet();
+                    throw e;
+                }
+                view = expected.after(events);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void written(boolean persisted) {
+            if (!persisted) {
+                // A lost write leaves the database behind the cache; reload the account once it is quiet.
+                evictWhenWritten = true;
+            }
+            if (unwritten.decrementAndGet() == 0 && evictWhenWritten) {
+                segmentFor(accountId).evict(accountId);
+            }
+        }
+
+        //Marks the account evicted, or if it is busy, flags it (when evictWhenWritten is set) to be evicted
+        //once its trades are written. Busy means trades still to be written or a commit in progress; the
+        //latter is only tried, as the committer may be waiting for the writer.
+        private boolean tryEvict(boolean evictWhenWritten) {
+            if (!lock.tryLock()) {
+                this.evictWhenWritten |= evictWhenWritten;
+                return false;
+            }
+            try {
+                if (unwritten.get() > 0) {
+                    this.evictWhenWritten |= evictWhenWritten;
+                    return false;
+                }
+                evicted = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    //One LRU slice of the cache. Lock order is segment, then account, and the account lock is only tried,
+    //so the writer thread evicting an account never waits behind a commit.
+    private final class Segment {
+
+        private final int capacity;
+        private final LinkedHashMap<Long, CachedAccount> accounts = new LinkedHashMap<>(16, 0.75f, true);
+        private final ReentrantLock lock = new ReentrantLock();
+        //Accounts being loaded, each mapped to whether it has been evicted since, which makes its load stale.
+        private final Map<Long, Boolean> loading = new HashMap<>();
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private CachedAccount get(Long accountId) {
+            lock.lock();
+            try {
+                return accounts.get(accountId);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void loadStarted(Long accountId) {
+            lock.lock();
+            try {
+                loading.put(accountId, false);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void loadAbandoned(Long accountId) {
+            lock.lock();
+            try {
+                loading.remove(accountId);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //Adds a freshly loaded account, evicting least recently used ones over capacity. Returns the account
+        //already cached if there is one, or null if the account was evicted since its load began.
+        private CachedAccount install(Long accountId, CachedAccount loaded) {
+            lock.lock();
+            try {
+                boolean stale = Boolean.TRUE.equals(loading.remove(accountId));
+                CachedAccount existing = accounts.get(accountId);
+                if (existing != null) {
+                    return existing;
+                }
+                if (stale) {
+                    return null;
+                }
+                accounts.put(accountId, loaded);
+                Iterator<CachedAccount> eldest = accounts.values().iterator();
+                while (accounts.size() > capacity && eldest.hasNext()) {
+                    CachedAccount candidate = eldest.next();
+                    if (candidate != loaded && candidate.tryEvict(false)) {
+                        eldest.remove();
+                        evicted();
+                    }
+                }
+                return loaded;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void evict(Long accountId) {
+            lock.lock();
+            try {
+                loading.replace(accountId, true);
+                CachedAccount account = accounts.get(accountId);
+                if (account != null && account.tryEvict(true)) {
+                    accounts.remove(accountId);
+                    evicted();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void evicted() {
+            evictions.increment();
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return accounts.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,93 +1,246 @@
 package com.example.cryptotradingplatform.service;
 
 
-import com.example.cryptotradingplatform.model.Account;
-import com.example.cryptotradingplatform.model.Holding;
-import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.exception.InvalidBatchException;
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.metrics.LatencyHistogram;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.BatchMode;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
 import com.example.cryptotradingplatform.model.TransactionType;
-import com.example.cryptotradingplatform.repository.AccountRepository;
-import com.example.cryptotradingplatform.repository.HoldingRepository;
-import com.example.cryptotradingplatform.repository.TransactionRepository;
-import com.example.cryptotradingplatform.exception.AccountNotFoundException;
 import com.example.cryptotradingplatform.exception.InsufficientBalanceException;
 import com.example.cryptotradingplatform.exception.InsufficientHoldingException;
+import com.example.cryptotradingplatform.exception.SlippageExceededException;
+import com.example.cryptotradingplatform.exception.StalePriceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Validates trades on the request thread against the account's cached balance and holdings; the
+// AccountCache queues the accepted trades for writing. The cache is per instance, so this assumes a
+// single application instance.
+// Amounts are handled as fixed-point units (see AssetScales) from the request parameters onwards.
 @Service
 public class AccountService {
 
-    private final AccountRepository accountRepository;
-    private final HoldingRepository holdingRepository;
-    private final TransactionRepository transactionRepository;
+    private final AccountCache accountCache;
+    private final MarketPricer marketPricer;
+    private final int maxBatchSize;
+    private final LatencyHistogram buyLatency;
+    private final LatencyHistogram sellLatency;
+    private final LatencyHistogram batchLatency;
+    private final LatencyHistogram pricingLatency;
+
+    public AccountService(AccountCache accountCache, MarketPricer marketPricer, MeterRegistry meterRegistry,
+                          @Value("${trading.batch.max-size:1000}") int maxBatchSize) {
+        this.accountCache = accountCache;
+        this.marketPricer = marketPricer;
+        this.maxBatchSize = maxBatchSize;
+        this.buyLatency = tradeTimer(meterRegistry, "buy");
+        this.sellLatency = tradeTimer(meterRegistry, "sell");
+        this.batchLatency = tradeTimer(meterRegistry, "batch");
+        this.pricingLatency = AccountCache.stageTimer(meterRegistry, "pricing");
+    }
 
-    public AccountService(AccountRepository accountRepository, HoldingRepository holdingRepository,
-                          TransactionRepository transactionRepository) {
-        this.accountRepository = accountRepository;
-        this.holdingRepository = holdingRepository;
-        this.transactionRepository = transactionRepository;
+    private static LatencyHistogram tradeTimer(MeterRegistry meterRegistry, String type) {
+        return LatencyHistogram.register(meterRegistry, "trading.trade.latency",
+                "Time to accept or reject a trade request, from pricing to queueing its write", "type", type);
     }
 
-    public String buyCrypto(Long accountId, String cryptoSymbol, double quantity, double pricePerUnit) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be greater than zero.");
+    //pricePerUnit is optional with live pricing; see MarketPricer.
+    public String buyCrypto(Long accountId, String cryptoSymbol, BigDecimal quantity, BigDecimal pricePerUnit) {
+        long start = System.nanoTime();
+        try {
+            return trade(accountId, prepare(TransactionType.BUY, cryptoSymbol, quantity, pricePerUnit));
+        } finally {
+            buyLatency.record(System.nanoTime() - start);
         }
+    }
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException("Account not found."));
-        double totalCost = quantity * pricePerUnit;
+    public String sellCrypto(Long accountId, String cryptoSymbol, BigDecimal quantity, BigDecimal pricePerUnit) {
+        long start = System.nanoTime();
+        try {
+            return trade(accountId, prepare(TransactionType.SELL, cryptoSymbol, quantity, pricePerUnit));
+        } finally {
+            sellLatency.record(System.nanoTime() - start);
+        }
+    }
 
-        if (account.getBalance() < totalCost) {
-            throw new InsufficientBalanceException("Insufficient balance to complete the purchase.");
+    //Trades a triggered limit order at the market price, refused if that is worse than the limit price.
+    public String tradeAtLimit(Long accountId, TransactionType type, String cryptoSymbol, BigDecimal quantity,
+                               BigDecimal limitPrice) {
+        long start = System.nanoTime();
+        try {
+            return trade(accountId, prepare(type, cryptoSymbol, quantity, limitPrice, true));
+        } finally {
+            (type == TransactionType.BUY ? buyLatency : sellLatency).record(System.nanoTime() - start);
         }
+    }
 
-        account.setBalance(account.getBalance() - totalCost);
-        accountRepository.save(account);
+    //Applies a batch of one account's trades in order, each seeing the ones before it. The account is
+    //loaded once and the executed trades are written in one database transaction. In ATOMIC mode one
+    //rejected trade drops the whole batch; in BEST_EFFORT mode only the rejected trades are dropped.
+    public List<TradeResult> submitTrades(Long accountId, List<TradeRequest> trades, BatchMode mode) {
+        checkBatchSize(trades);
+        long start = System.nanoTime();
+        try {
+            return submit(accountId, trades, mode);
+        } finally {
+            batchLatency.record(System.nanoTime() - start);
+        }
+    }
 
-        Optional<Holding> existingHolding = holdingRepository.findByAccountIdAndCryptoSymbol(accountId, cryptoSymbol);
-        existingHolding.ifPresentOrElse(
-                holding -> {
-                    holding.setQuantity(holding.getQuantity() + quantity);
-                    holdingRepository.save(holding);
-                },
-                () -> holdingRepository.save(new Holding(account, cryptoSymbol, quantity))
-        );
+    //Refuses a batch that is empty or larger than trading.batch.max-size, whichever path will execute it.
+    public void checkBatchSize(List<TradeRequest> trades) {
+        if (trades.isEmpty() || trades.size() > maxBatchSize) {
+            throw new InvalidBatchException("A batch must contain between 1 and " + maxBatchSize + " trades.");
+        }
+    }
 
-        Transaction transaction = new Transaction(account, cryptoSymbol, TransactionType.BUY, quantity, pricePerUnit, totalCost);
-        transactionRepository.save(transaction);
+    private List<TradeResult> submit(Long accountId, List<TradeRequest> trades, BatchMode mode) {
+        PreparedTrade[] prepared = new PreparedTrade[trades.size()];
+        TradeResult[] results = new TradeResult[trades.size()];
+        for (int i = 0; i < prepared.length; i++) {
+            TradeRequest trade = trades.get(i);
+            try {
+                if (!trade.isComplete()) {
+                    throw new IllegalArgumentException("Each trade needs a type, cryptoSymbol and quantity.");
+                }
+                prepared[i] = prepare(trade.getType(), trade.getCryptoSymbol(), trade.getQuantity(),
+                        trade.getPricePerUnit());
+            } catch (IllegalArgumentException | ArithmeticException | StalePriceException
+                     | SlippageExceededException e) {
+                results[i] = TradeResult.rejected(i, e.getMessage());
+            }
+        }
+
+        accountCache.tradeAll(accountId, account -> {
+            List<TradeEvent> events = new ArrayList<>(prepared.length);
+            Map<String, Long> holdings = new HashMap<>();
+            long balance = account.getBalance();
+            long timestamp = System.currentTimeMillis();
+            boolean anyRejected = false;
+            for (int i = 0; i < prepared.length; i++) {
+                PreparedTrade trade = prepared[i];
+                if (trade == null) {
+                    anyRejected = true;
+                    continue;
+                }
+                Long holding = holdings.get(trade.cryptoSymbol);
+                try {
+                    TradeEvent event = trade.apply(account.getAccountId(), balance,
+                            holding != null ? holding : account.getHolding(trade.cryptoSymbol), timestamp);
+                    events.add(event);
+                    balance = event.getBalanceAfter();
+                    holdings.put(trade.cryptoSymbol, event.getHoldingAfter());
+                    results[i] = TradeResult.executed(i, trade.successMessage());
+                } catch (InsufficientBalanceException | InsufficientHoldingException | IllegalArgumentException
+                         | ArithmeticException e) {
+                    results[i] = TradeResult.rejected(i, e.getMessage());
+                    anyRejected = true;
+                }
+            }
+            if (anyRejected && mode == BatchMode.ATOMIC) {
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i].isExecuted()) {
+                        results[i] = TradeResult.notExecuted(i);
+                    }
+                }
+                return List.of();
+            }
+            return events;
+        });
+        return Arrays.asList(results);
+    }
 
-        return "Purchase successful!";
+    //Converts a trade to fixed-point units, pricing it at the market.
+    private PreparedTrade prepare(TransactionType type, String cryptoSymbol, BigDecimal quantity,
+                                  BigDecimal pricePerUnit) {
+        return prepare(type, cryptoSymbol, quantity, pricePerUnit, false);
     }
 
-    public String sellCrypto(Long accountId, String cryptoSymbol, double quantity, double pricePerUnit) {
-        if (quantity <= 0) {
+    //As prepare, taking pricePerUnit as a limit the fill may not be worse than when limit is set.
+    private PreparedTrade prepare(TransactionType type, String cryptoSymbol, BigDecimal quantity,
+                                  BigDecimal pricePerUnit, boolean limit) {
+        if (quantity.signum() <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero.");
         }
-
-        Holding holding = holdingRepository.findByAccountIdAndCryptoSymbol(accountId, cryptoSymbol)
-                .orElseThrow(() -> new InsufficientHoldingException("You do not own any of this cryptocurrency."));
-
-        if (holding.getQuantity() < quantity) {
-            throw new IllegalArgumentException("Insufficient holdings to complete the sale.");
+        int quantityScale = AssetScales.quantityScale(cryptoSymbol);
+        long quantityUnits = AssetScales.quantityUnits(cryptoSymbol, quantity);
+        long start = System.nanoTime();
+        long priceUnits;
+        try {
+            priceUnits = limit ? marketPricer.limitPrice(cryptoSymbol, type, pricePerUnit)
+                    : marketPricer.executionPrice(cryptoSymbol, type, pricePerUnit);
+        } finally {
+            pricingLatency.record(System.nanoTime() - start);
         }
+        long totalPrice = Amount.multiply(quantityUnits, quantityScale, priceUnits, AssetScales.PRICE_SCALE,
+                AssetScales.CASH_SCALE);
+        return new PreparedTrade(type, cryptoSymbol, quantityScale, quantityUnits, priceUnits, totalPrice);
+    }
 
-        Account account = holding.getAccount();
-        double totalAmount = quantity * pricePerUnit;
+    private String trade(Long accountId, PreparedTrade trade) {
+        accountCache.trade(accountId, account -> trade.apply(account.getAccountId(), account.getBalance(),
+                account.getHolding(trade.cryptoSymbol), System.currentTimeMillis()));
+        return trade.successMessage();
+    }
 
-        holding.setQuantity(holding.getQuantity() - quantity);
-        if (holding.getQuantity() == 0) {
-            holdingRepository.delete(holding);
-        } else {
-            holdingRepository.save(holding);
+    //A priced trade in fixed-point units, ready to be checked against an account.
+    private static final class PreparedTrade {
+
+        private final TransactionType type;
+        private final String cryptoSymbol;
+        private final int quantityScale;
+        private final long quantity;
+        private final long pricePerUnit;
+        private final long totalPrice;
+
+        private PreparedTrade(TransactionType type, String cryptoSymbol, int quantityScale, long quantity,
+                              long pricePerUnit, long totalPrice) {
+            this.type = type;
+            this.cryptoSymbol = cryptoSymbol;
+            this.quantityScale = quantityScale;
+            this.quantity = quantity;
+            this.pricePerUnit = pricePerUnit;
+            this.totalPrice = totalPrice;
         }
 
-        account.setBalance(account.getBalance() + totalAmount);
-        accountRepository.save(account);
-
-        Transaction transaction = new Transaction(account, cryptoSymbol, TransactionType.SELL, quantity, pricePerUnit, totalAmount);
-        transactionRepository.save(transaction);
+        //The event this trade produces on an account with the given balance and holding, or an exception if
+        //the account cannot cover it.
+        private TradeEvent apply(long accountId, long balance, long holding, long timestamp) {
+            if (type == TransactionType.BUY) {
+                if (balance < totalPrice) {
+                    throw new InsufficientBalanceException("Insufficient balance to complete the purchase.");
+                }
+                return new TradeEvent(accountId, cryptoSymbol, type, quantityScale, quantity, pricePerUnit, totalPrice,
+                        balance - totalPrice, Math.addExact(holding, quantity), timestamp);
+            }
+
+            if (holding == 0) {
+                throw new InsufficientHoldingException("You do not own any of this cryptocurrency.");
+            }
+
+            if (holding < quantity) {
+                throw new IllegalArgumentException("Insufficient holdings to complete the sale.");
+            }
+
+            return new TradeEvent(accountId, cryptoSymbol, type, quantityScale, quantity, pricePerUnit, totalPrice,
+                    Math.addExact(balance, totalPrice), holding - quantity, timestamp);
+        }
 
-        return "Sale successful!";
+        private String successMessage() {
+            return type == TransactionType.BUY ? "Purchase successful!" : "Sale successful!";
+        }
     }
-}
\ No newline at end of file
+}
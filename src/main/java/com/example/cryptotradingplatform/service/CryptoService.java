@@ -1,103 +1,94 @@
 package com.example.cryptotradingplatform.service;
 
-import jakarta.websocket.*;
+import com.example.cryptotradingplatform.exception.HistoryUnavailableException;
+import com.example.cryptotradingplatform.exception.PairNotFoundException;
+import com.example.cryptotradingplatform.history.Tick;
+import com.example.cryptotradingplatform.history.TickConsumer;
+import com.example.cryptotradingplatform.history.TickHistoryStore;
+import com.example.cryptotradingplatform.marketdata.Candle;
+import com.example.cryptotradingplatform.marketdata.CandleAggregator;
+import com.example.cryptotradingplatform.marketdata.CandleInterval;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshot;
+import com.example.cryptotradingplatform.marketdata.PriceMerger;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshotCache;
+import com.example.cryptotradingplatform.marketdata.VenueQuote;
 import org.springframework.stereotype.Service;
 
-import java.net.URI;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
+// Serves the live prices that PriceMerger consolidates across venues into the PriceBook, the candles and
+// tick history built from them, and each venue's own quote behind them.
 @Service
-@ClientEndpoint
 public class CryptoService {
 
-    private static final String KRAKEN_WEBSOCKET_URL = "wss://ws.kraken.com/v2";
-    private Session session;
-    private final ConcurrentMap<String, Double> cryptoPrices = new ConcurrentHashMap<>();
-
-    //Constructor to establish the WebSocket connection to Kraken API.
-    public CryptoService() {
-        connectToWebSocket();
+    static final int MAX_TICKS = 10_000;
+
+    private final PriceBook priceBook;
+    private final PriceSnapshotCache priceSnapshotCache;
+    private final PriceMerger priceMerger;
+    private final CandleAggregator candleAggregator;
+    private final TickHistoryStore tickHistory;
+
+    public CryptoService(PriceBook priceBook, PriceSnapshotCache priceSnapshotCache, PriceMerger priceMerger,
+                         CandleAggregator candleAggregator, Optional<TickHistoryStore> tickHistory) {
+        this.priceBook = priceBook;
+        this.priceSnapshotCache = priceSnapshotCache;
+        this.priceMerger = priceMerger;
+        this.candleAggregator = candleAggregator;
+        this.tickHistory = tickHistory.orElse(null);
     }
 
-    //Establishes the WebSocket connection to Kraken API.
-    private void connectToWebSocket() {
-        try {
-            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-            container.connectToServer(this, new URI(KRAKEN_WEBSOCKET_URL));
-            System.out.println("Connected to Kraken WebSocket API.");
-        } catch (Exception e) {
-            System.err.println("Error connecting to Kraken WebSocket API: " + e.getMessage());
-        }
+    //Retrieves live prices for all subscribed cryptocurrencies.
+    public String getLivePrices() {
+        return new String(getPriceSnapshot().getJson(), StandardCharsets.UTF_8);
     }
 
-    //Handles the WebSocket connection opening.
-    @OnOpen
-    public void onOpen(Session session) {
-        this.session = session;
-        subscribeToTicker();
+    //Retrieves the pre-encoded live prices, re-encoded only when a price has changed since the last call.
+    public PriceSnapshot getPriceSnapshot() {
+        return priceSnapshotCache.get();
     }
 
-    //Handles incoming WebSocket messages containing price updates.
-    @OnMessage
-    public void onMessage(String message) {
-        // Example message: [42, {"c":["28000.0", "1.0"]}, "ticker", "XBT/USD"]
-        if (message.contains("\"ticker\"")) {
-            try {
-                String[] parts = message.split(",");
-                String pair = parts[3].replace("\"", "").replace("]", ""); // Extract cryptocurrency pair
-                String priceString = parts[1].split(":")[2].replace("[", "").replace("]", "").replace("\"", ""); // Extract price
-                double price = Double.parseDouble(priceString);
-
-                cryptoPrices.put(pair, price);
-                System.out.println("Updated price for " + pair + ": " + price);
-            } catch (Exception e) {
-                System.err.println("Error processing message: " + message);
-            }
-        }
+    //Retrieves every venue's latest quote for a pair, marking those the consolidated price is made of.
+    public List<VenueQuote> getVenueQuotes(String pair) {
+        return priceMerger.venueQuotes(pairId(pair));
     }
 
-    //Handles the WebSocket connection closure.
-    @OnClose
-    public void onClose() {
-        System.out.println("WebSocket connection closed.");
+    //Retrieves a pair's most recent candles, oldest first. The pair is written "BTC-USD" in URLs, or as its
+    //base asset "BTC".
+    public List<Candle> getCandles(String pair, String interval, int limit) {
+        return candleAggregator.candles(pairId(pair), CandleInterval.fromLabel(interval), limit);
     }
 
-    //Handles any WebSocket errors that occur.
-    @OnError
-    public void onError(Session session, Throwable throwable) {
-        System.err.println("WebSocket error: " + throwable.getMessage());
+    //Retrieves up to limit of a pair's stored ticks between two epoch millis, inclusive, oldest first.
+    public List<Tick> getTicks(String pair, long fromMillis, long toMillis, int limit) {
+        List<Tick> ticks = new ArrayList<>();
+        scanTicks(pair, fromMillis, toMillis, limit,
+                (timestamp, bid, ask, last, volume) -> ticks.add(new Tick(timestamp, bid, ask, last, volume)));
+        return ticks;
     }
 
-    //Subscribes to the Kraken WebSocket API for ticker updates for the top cryptocurrencies.
-    private void subscribeToTicker() {
-        if (session != null && session.isOpen()) {
-            String subscribeMessage = "{\"event\":\"subscribe\",\"pair\":["
-                    + "\"XBT/USD\",\"ETH/USD\",\"XRP/USD\",\"ADA/USD\",\"DOT/USD\","
-                    + "\"SOL/USD\",\"SHIB/USD\",\"LTC/USD\",\"LINK/USD\",\"BCH/USD\","
-                    + "\"XLM/USD\",\"ATOM/USD\",\"FIL/USD\",\"APE/USD\",\"ICP/USD\","
-                    + "\"NEAR/USD\",\"DOGE/USD\",\"MATIC/USD\""
-                    + "],\"subscription\":{\"name\":\"ticker\"}}";
-
-            session.getAsyncRemote().sendText(subscribeMessage);
-            System.out.println("Subscribed to ticker updates for supported cryptocurrencies.");
+    //As getTicks, passing each tick to the consumer instead of collecting them; returns the pair's symbol.
+    public String scanTicks(String pair, long fromMillis, long toMillis, int limit, TickConsumer consumer) {
+        if (tickHistory == null) {
+            throw new HistoryUnavailableException("Tick history is disabled.");
         }
-    }
-
-    //Retrieves live prices for all subscribed cryptocurrencies.
-    public String getLivePrices() {
-        StringBuilder pricesJson = new StringBuilder("{");
-
-        for (String pair : cryptoPrices.keySet()) {
-            pricesJson.append("\"").append(pair).append("\": ").append(cryptoPrices.get(pair)).append(",");
+        if (limit < 1 || limit > MAX_TICKS || fromMillis > toMillis) {
+            throw new IllegalArgumentException("Need from <= to and a limit between 1 and " + MAX_TICKS + ".");
         }
+        int pairId = pairId(pair);
+        tickHistory.scan(pairId, fromMillis, toMillis, limit, consumer);
+        return priceBook.symbol(pairId);
+    }
 
-        // Remove trailing comma, if any
-        if (pricesJson.length() > 1) {
-            pricesJson.deleteCharAt(pricesJson.length() - 1);
+    private int pairId(String pair) {
+        int id = priceBook.resolve(pair.replace('-', '/'));
+        if (id < 0) {
+            throw new PairNotFoundException("Unknown pair: " + pair);
         }
-
-        pricesJson.append("}");
-        return pricesJson.toString();
+        return id;
     }
-}
\ No newline at end of file
+}
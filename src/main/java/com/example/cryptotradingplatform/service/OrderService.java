@@ -0,0 +1,193 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.ExecutionEngine;
+import com.example.cryptotradingplatform.exception.OrderNotFoundException;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceListener;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.orders.OrderBook;
+import com.example.cryptotradingplatform.orders.OrderType;
+import com.example.cryptotradingplatform.orders.RestingOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Limit, stop-loss and take-profit orders that rest until the ticker feed reaches their price.
+// Every price update matches the pair's OrderBook on the feed thread; crossed orders are queued to a
+// single executor thread, which trades them through AccountService (or the execution engine when it
+// is enabled) in the order they triggered. A limit order fills at the market price only if that is no
+// worse than its limit price; a stop-loss or take-profit order passes the price that triggered it as the
+// trade's reference price, so its fill is bounded by the usual slippage check.
+// Resting orders live in memory only and are lost on restart. Balances are checked when an order
+// executes, not when it is placed. Finished orders stay visible until closed-retention newer ones
+// have finished.
+@Service
+@ConditionalOnProperty(name = "trading.orders.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderService implements PriceListener {
+
+    private static final double PRICE_FACTOR = Math.pow(10, AssetScales.PRICE_SCALE);
+
+    private final PriceBook priceBook;
+    private final AccountService accountService;
+    private final ExecutionEngine executionEngine;
+    private final OrderBook orderBook;
+    private final AtomicLong orderIds = new AtomicLong();
+    private final Map<Long, RestingOrder> activeOrders = new ConcurrentHashMap<>();
+    private final Map<Long, RestingOrder> finishedOrders;
+    private final ExecutorService executor;
+    private final Consumer<RestingOrder> onTriggered = this::dispatch;
+    private final Timer matchLatency;
+    private final Counter filledOrders;
+    private final Counter rejectedOrders;
+
+    public OrderService(PriceBook priceBook, AccountService accountService, Optional<ExecutionEngine> executionEngine,
+                        MeterRegistry meterRegistry,
+                        @Value("${trading.orders.closed-retention:10000}") int closedRetention) {
+        this.priceBook = priceBook;
+        this.accountService = accountService;
+        this.executionEngine = executionEngine.orElse(null);
+        this.orderBook = new OrderBook(priceBook.size());
+        this.finishedOrders = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RestingOrder> eldest) {
+                return size() > closedRetention;
+            }
+        });
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-executor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("trading.orders.open", activeOrders, Map::size)
+                .description("Orders resting or waiting to execute")
+                .register(meterRegistry);
+        this.matchLatency = Timer.builder("trading.orders.match.latency")
+                .description("Time to match one price update against the resting orders of its pair")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.filledOrders = Counter.builder("trading.orders.executed").tag("result", "filled")
+                .description("Triggered orders that traded")
+                .register(meterRegistry);
+        this.rejectedOrders = Counter.builder("trading.orders.executed").tag("result", "rejected")
+                .description("Triggered orders the account could not cover")
+                .register(meterRegistry);
+    }
+
+    public RestingOrder placeOrder(Long accountId, String cryptoSymbol, OrderType type, TransactionType side,
+                                   BigDecimal quantity, BigDecimal triggerPrice) {
+        int pairId = priceBook.resolve(cryptoSymbol);
+        if (pairId < 0) {
+            throw new IllegalArgumentException("Unsupported cryptocurrency symbol.");
+        }
+        if (quantity.signum() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero.");
+        }
+        AssetScales.quantityUnits(cryptoSymbol, quantity);
+        if (triggerPrice.signum() <= 0) {
+            throw new IllegalArgumentException("Price must be greater than zero.");
+        }
+        RestingOrder order = new RestingOrder(orderIds.incrementAndGet(), accountId, cryptoSymbol, pairId, type, side,
+                quantity, AssetScales.priceUnits(triggerPrice), System.currentTimeMillis());
+        activeOrders.put(order.getId(), order);
+        orderBook.add(order);
+        return order;
+    }
+
+    public RestingOrder getOrder(Long orderId) {
+        RestingOrder order = activeOrders.get(orderId);
+        if (order == null) {
+            order = finishedOrders.get(orderId);
+        }
+        if (order == null) {
+            throw new OrderNotFoundException("Order not found.");
+        }
+        return order;
+    }
+
+    //Cancels an order unless it has already triggered; returns false if it has.
+    public boolean cancelOrder(Long orderId) {
+        RestingOrder order = getOrder(orderId);
+        if (!orderBook.cancel(order)) {
+            return false;
+        }
+        finish(order);
+        return true;
+    }
+
+    //Matches the pair's resting orders against the new prices. Runs on the feed thread.
+    @Override
+    public void onPriceUpdate(int pairId, double bid, double ask, double last, double volume, long timestamp) {
+        long start = System.nanoTime();
+        long buyPrice = Math.round((ask > 0 ? ask : last) * PRICE_FACTOR);
+        long sellPrice = Math.round((bid > 0 ? bid : last) * PRICE_FACTOR);
+        if (buyPrice > 0 && sellPrice > 0) {
+            orderBook.match(pairId, buyPrice, sellPrice, onTriggered);
+        }
+        matchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void dispatch(RestingOrder order) {
+        executor.execute(() -> execute(order));
+    }
+
+    private void execute(RestingOrder order) {
+        BigDecimal reference = order.getTriggeredAt();
+        try {
+            String result;
+            if (order.getType() == OrderType.LIMIT) {
+                result = executionEngine != null
+                        ? executionEngine.tradeAtLimit(order.getAccountId(), order.getSide(), order.getCryptoSymbol(),
+                                order.getQuantity(), order.getTriggerPrice()).join()
+                        : accountService.tradeAtLimit(order.getAccountId(), order.getSide(), order.getCryptoSymbol(),
+                                order.getQuantity(), order.getTriggerPrice());
+            } else if (executionEngine != null) {
+                result = (order.getSide() == TransactionType.BUY
+                        ? executionEngine.buyCrypto(order.getAccountId(), order.getCryptoSymbol(), order.getQuantity(), reference)
+                        : executionEngine.sellCrypto(order.getAccountId(), order.getCryptoSymbol(), order.getQuantity(), reference))
+                        .join();
+            } else if (order.getSide() == TransactionType.BUY) {
+                result = accountService.buyCrypto(order.getAccountId(), order.getCryptoSymbol(), order.getQuantity(), reference);
+            } else {
+                result = accountService.sellCrypto(order.getAccountId(), order.getCryptoSymbol(), order.getQuantity(), reference);
+            }
+            order.filled(result);
+            filledOrders.increment();
+        } catch (CompletionException e) {
+            order.rejected(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            rejectedOrders.increment();
+        } catch (RuntimeException e) {
+            order.rejected(e.getMessage());
+            rejectedOrders.increment();
+        }
+        finish(order);
+    }
+
+    private void finish(RestingOrder order) {
+        finishedOrders.put(order.getId(), order);
+        activeOrders.remove(order.getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
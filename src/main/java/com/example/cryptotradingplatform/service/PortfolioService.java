@@ -0,0 +1,374 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.engine.TradeEventListener;
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceListener;
+import com.example.cryptotradingplatform.marketdata.Quote;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.AssetScales;
+import com.example.cryptotradingplatform.model.PortfolioValuation;
+import com.example.cryptotradingplatform.model.PositionValuation;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live valuation of accounts: cash, positions at average cost and their value at the last traded price.
+// An account's portfolio is built from its ledger the first time it is asked for, then kept current by
+// the trades TradeEventProjection commits and by the ticker feed. Each pair has an index of the
+// positions holding it, so a tick revalues only those, and every portfolio keeps its totals up to date,
+// so reading one costs the same however many ticks and trades it has seen.
+// Portfolios follow the database, so a trade shows up once the write-behind has stored it. Past
+// trading.portfolio.max-accounts the least recently read tenth are dropped and rebuilt on demand.
+@Service
+public class PortfolioService implements PriceListener, TradeEventListener {
+
+    private static final double PRICE_FACTOR = Math.pow(10, AssetScales.PRICE_SCALE);
+
+    private final PriceBook priceBook;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAccounts;
+    private final Map<Long, Portfolio> portfolios = new ConcurrentHashMap<>();
+    private final Set<Position>[] holders;
+    private final ThreadLocal<Quote> quotes = ThreadLocal.withInitial(Quote::new);
+
+    @SuppressWarnings("unchecked")
+    public PortfolioService(PriceBook priceBook, AccountRepository accountRepository,
+                            TransactionRepository transactionRepository, TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${trading.portfolio.max-accounts:100000}") int maxAccounts) {
+        this.priceBook = priceBook;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAccounts = maxAccounts;
+        this.holders = new Set[priceBook.size()];
+        for (int id = 0; id < holders.length; id++) {
+            holders[id] = ConcurrentHashMap.newKeySet();
+        }
+        Gauge.builder("trading.portfolio.accounts", portfolios, Map::size)
+                .description("Portfolios kept up to date in memory")
+                .register(meterRegistry);
+    }
+
+    public PortfolioValuation getPortfolio(Long accountId) {
+        Portfolio portfolio = portfolios.get(accountId);
+        if (portfolio == null) {
+            Portfolio created = new Portfolio(accountId);
+            portfolio = portfolios.putIfAbsent(accountId, created);
+            if (portfolio == null) {
+                portfolio = created;
+                load(created);
+                trim();
+            }
+        }
+        try {
+            portfolio.loaded.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        portfolio.lastReadAt = System.nanoTime();
+        return portfolio.valuation();
+    }
+
+    //Revalues the positions holding the pair at its last traded price.
+    @Override
+    public void onPriceUpdate(int pairId, double bid, double ask, double last, double volume, long timestamp) {
+        if (!(last > 0)) {
+            return;
+        }
+        long price = Math.round(last * PRICE_FACTOR);
+        for (Position position : holders[pairId]) {
+            position.portfolio.mark(position, price, timestamp);
+        }
+    }
+
+    //Applies committed trades to the portfolios in memory; accounts not loaded will read them from the ledger.
+    @Override
+    public void onTradesWritten(List<TradeEvent> batch, long[] transactionIds) {
+        for (int i = 0; i < batch.size(); i++) {
+            TradeEvent event = batch.get(i);
+            Portfolio portfolio = portfolios.get(event.getAccountId());
+            if (portfolio != null) {
+                portfolio.written(transactionIds[i], event);
+            }
+        }
+    }
+
+    //Forgets an account's portfolio, as when its shard has handed the account to another node.
+    public void evict(Long accountId) {
+        Portfolio portfolio = portfolios.remove(accountId);
+        if (portfolio != null) {
+            portfolio.unindex();
+        }
+    }
+
+    int loadedAccounts() {
+        return portfolios.size();
+    }
+
+    //Registering the portfolio before reading the ledger means a trade committed after the read is still
+    //delivered to it; trades delivered while loading are held back and applied unless the ledger had them.
+    private void load(Portfolio portfolio) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Transaction> ledger = transactionRepository.findByAccountIdOrderByIdAsc(portfolio.accountId);
+                Account account = accountRepository.findById(portfolio.accountId)
+                        .orElseThrow(() -> new AccountNotFoundException("Account not found."));
+                portfolio.install(account.getBalance().unitsAt(AssetScales.CASH_SCALE), ledger);
+            });
+            portfolio.loaded.complete(null);
+        } catch (RuntimeException e) {
+            portfolios.remove(portfolio.accountId, portfolio);
+            portfolio.loaded.completeExceptionally(e);
+        }
+    }
+
+    private void trim() {
+        if (portfolios.size() <= maxAccounts) {
+            return;
+        }
+        List<Portfolio> byLastRead = new ArrayList<>(portfolios.values());
+        byLastRead.sort(Comparator.comparingLong(portfolio -> portfolio.lastReadAt));
+        int excess = byLastRead.size() - maxAccounts + maxAccounts / 10;
+        for (int i = 0; i < excess; i++) {
+            Portfolio portfolio = byLastRead.get(i);
+            if (portfolios.remove(portfolio.accountId, portfolio)) {
+                portfolio.unindex();
+            }
+        }
+    }
+
+    //Last traded price of a pair in PRICE_SCALE units, or 0 if the feed has none.
+    private long lastPrice(int pairId) {
+        Quote quote = quotes.get();
+        if (pairId < 0 || !priceBook.read(pairId, quote) || !(quote.getLast() > 0)) {
+            return 0;
+        }
+        return Math.round(quote.getLast() * PRICE_FACTOR);
+    }
+
+    private static long proportion(long amount, long part, long whole) {
+        return BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(part))
+                .divide(BigDecimal.valueOf(whole), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    private static BigDecimal cash(long units) {
+        return Amount.toBigDecimal(units, AssetScales.CASH_SCALE);
+    }
+
+    //One account's positions and running totals, guarded by the portfolio's monitor. Amounts are
+    //fixed-point units like TradeEvent's.
+    private final class Portfolio {
+
+        private final long accountId;
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private final Map<String, Position> positions = new LinkedHashMap<>();
+        private List<PendingTrade> pending = new ArrayList<>();
+        private boolean evicted;
+        private long balance;
+        private long costBasis;
+        private long marketValue;
+        private long realizedPnl;
+        private long pricedAt;
+        private volatile long lastReadAt = System.nanoTime();
+
+        private Portfolio(long accountId) {
+            this.accountId = accountId;
+        }
+
+        private synchronized void install(long balance, List<Transaction> ledger) {
+            this.balance = balance;
+            Set<Long> loadedIds = new HashSet<>();
+            for (Transaction transaction : ledger) {
+                loadedIds.add(transaction.getId());
+                String symbol = transaction.getCryptoSymbol();
+                int scale = AssetScales.quantityScale(symbol);
+                long quantity = transaction.getQuantity().unitsAt(scale);
+                long price = transaction.getPricePerUnit() != null
+                        ? transaction.getPricePerUnit().unitsAt(AssetScales.PRICE_SCALE) : 0;
+                long total = transaction.getTotalPrice() != null
+                        ? transaction.getTotalPrice().unitsAt(AssetScales.CASH_SCALE)
+                        : Amount.multiply(quantity, scale, price, AssetScales.PRICE_SCALE, AssetScales.CASH_SCALE);
+                Position position = position(symbol, scale, price);
+                long held = transaction.getType() == TransactionType.BUY
+                        ? position.quantity + quantity : Math.max(0, position.quantity - quantity);
+                trade(position, transaction.getType(), quantity, total, held);
+            }
+            for (PendingTrade trade : pending) {
+                if (!loadedIds.contains(trade.transactionId)) {
+                    apply(trade.event);
+                }
+            }
+            pending = null;
+            for (Position position : positions.values()) {
+                index(position);
+            }
+        }
+
+        private synchronized void written(long transactionId, TradeEvent event) {
+            if (pending != null) {
+                pending.add(new PendingTrade(transactionId, event));
+            } else {
+                apply(event);
+                index(positions.get(event.getCryptoSymbol()));
+            }
+        }
+
+        private void apply(TradeEvent event) {
+            balance = event.getBalanceAfter();
+            Position position = position(event.getCryptoSymbol(), event.getQuantityScale(), event.getPricePerUnit());
+            trade(position, event.getType(), event.getQuantity(), event.getTotalPrice(), event.getHoldingAfter());
+        }
+
+        private Position position(String symbol, int scale, long tradePrice) {
+            Position position = positions.get(symbol);
+            if (position == null) {
+                position = new Position(this, symbol, priceBook.resolve(symbol), scale);
+                positions.put(symbol, position);
+            }
+            if (position.markPrice == 0) {
+                long last = lastPrice(position.pairId);
+                position.markPrice = last > 0 ? last : tradePrice;
+            }
+            return position;
+        }
+
+        //Average cost: a buy adds its total to the cost basis, a sale removes the sold share of it and
+        //realizes the difference to the proceeds.
+        private void trade(Position position, TransactionType type, long quantity, long total, long heldAfter) {
+            if (type == TransactionType.BUY) {
+                position.costBasis += total;
+                costBasis += total;
+            } else {
+                long removed = quantity >= position.quantity
+                        ? position.costBasis : proportion(position.costBasis, quantity, position.quantity);
+                position.costBasis -= removed;
+                costBasis -= removed;
+                position.realizedPnl += total - removed;
+                realizedPnl += total - removed;
+            }
+            position.quantity = heldAfter;
+            if (heldAfter == 0) {
+                costBasis -= position.costBasis;
+                position.costBasis = 0;
+            }
+            revalue(position);
+        }
+
+        private synchronized void mark(Position position, long price, long timestamp) {
+            if (position.indexed) {
+                position.markPrice = price;
+                pricedAt = Math.max(pricedAt, timestamp);
+                revalue(position);
+            }
+        }
+
+        private void revalue(Position position) {
+            long value = position.markPrice > 0
+                    ? Amount.multiply(position.quantity, position.quantityScale, position.markPrice,
+                    AssetScales.PRICE_SCALE, AssetScales.CASH_SCALE)
+                    : position.costBasis;
+            marketValue += value - position.marketValue;
+            position.marketValue = value;
+        }
+
+        //Keeps the pair's index to the positions with something held.
+        private void index(Position position) {
+            if (position.pairId < 0 || evicted) {
+                return;
+            }
+            boolean held = position.quantity > 0;
+            if (held && !position.indexed) {
+                holders[position.pairId].add(position);
+            } else if (!held && position.indexed) {
+                holders[position.pairId].remove(position);
+            }
+            position.indexed = held;
+        }
+
+        private synchronized void unindex() {
+            evicted = true;
+            for (Position position : positions.values()) {
+                if (position.indexed) {
+                    holders[position.pairId].remove(position);
+                    position.indexed = false;
+                }
+            }
+        }
+
+        private synchronized PortfolioValuation valuation() {
+            List<PositionValuation> valuations = new ArrayList<>(positions.size());
+            for (Position position : positions.values()) {
+                BigDecimal quantity = Amount.toBigDecimal(position.quantity, position.quantityScale);
+                BigDecimal basis = cash(position.costBasis);
+                BigDecimal averageCost = position.quantity > 0
+                        ? basis.divide(quantity, AssetScales.PRICE_SCALE, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+                valuations.add(new PositionValuation(position.symbol, quantity, averageCost, basis,
+                        Amount.toBigDecimal(position.markPrice, AssetScales.PRICE_SCALE),
+                        cash(position.marketValue),
+                        cash(position.marketValue - position.costBasis),
+                        cash(position.realizedPnl)));
+            }
+            return new PortfolioValuation(accountId, cash(balance), cash(marketValue), cash(balance + marketValue),
+                    cash(costBasis), cash(marketValue - costBasis), cash(realizedPnl), pricedAt, valuations);
+        }
+    }
+
+    private static final class PendingTrade {
+
+        private final long transactionId;
+        private final TradeEvent event;
+
+        private PendingTrade(long transactionId, TradeEvent event) {
+            this.transactionId = transactionId;
+            this.event = event;
+        }
+    }
+
+    //A symbol an account has traded. Closed positions stay for their realized P&L but leave the index.
+    private static final class Position {
+
+        private final Portfolio portfolio;
+        private final String symbol;
+        private final int pairId;
+        private final int quantityScale;
+        private long quantity;
+        private long costBasis;
+        private long realizedPnl;
+        private long markPrice;
+        private long marketValue;
+        private boolean indexed;
+
+        private Position(Portfolio portfolio, String symbol, int pairId, int quantityScale) {
+            this.portfolio = portfolio;
+            this.symbol = symbol;
+            this.pairId = pairId;
+            this.quantityScale = quantityScale;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceListener;
+import com.example.cryptotradingplatform.marketdata.Quote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pushes price updates to Server-Sent Events subscribers.
+// Subscribers are indexed by pair, so a tick only touches the clients that asked for that pair.
+// Each subscriber keeps a bit set of pairs changed since its last send; a tick just sets its bit and
+// schedules a send if none is pending. A slow client therefore receives the latest quote of every
+// changed pair in one event instead of a growing queue of stale ones.
+// A send blocks while the client's socket is full. One still running after send-timeout-ms closes its
+// subscriber, and the sender pool gets a thread in place of the one stuck in it until the write fails or
+// completes, so stalled clients cannot use up the pool and stop pushes to everyone else.
+@Service
+public class PriceStreamService implements PriceListener {
+
+    private final PriceBook priceBook;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final ExecutorService senders;
+    // The bounded pool that stuck sends are replaced in; null with virtual threads, which need no replacing.
+    private final ThreadPoolExecutor senderPool;
+    private final ScheduledExecutorService watchdog;
+    private final CopyOnWriteArrayList<Subscriber>[] subscribersByPair;
+    private final AtomicInteger clients = new AtomicInteger();
+    private final Counter conflatedUpdates;
+    private final Counter droppedUpdates;
+    private final Counter stalledSubscribers;
+    private final Timer fanOutLatency;
+
+    @SuppressWarnings("unchecked")
+    public PriceStreamService(PriceBook priceBook, MeterRegistry meterRegistry,
+                              @Value("${price-stream.sender-threads:4}") int senderThreads,
+                              @Value("${price-stream.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${price-stream.send-timeout-ms:5000}") long sendTimeoutMillis,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (priceBook.size() > Long.SIZE) {
+            throw new IllegalStateException("Price streaming supports at most 64 pairs.");
+        }
+        this.priceBook = priceBook;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            // A virtual thread per send, so a client stalled on a full socket holds no pool thread. Below
+            // Java 21 the flag is ignored here as it is by Spring Boot.
+            this.senders = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    new VirtualThreadTaskExecutor("price-stream-").getVirtualThreadFactory());
+            this.senderPool = null;
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.senderPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(senderThreads, runnable -> {
+                Thread thread = new Thread(runnable, "price-stream-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.senders = senderPool;
+        }
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-stream-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(sendTimeoutMillis / 2, 1);
+        watchdog.scheduleWithFixedDelay(this::closeStalledSubscribers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        this.subscribersByPair = new CopyOnWriteArrayList[priceBook.size()];
+        for (int id = 0; id < subscribersByPair.length; id++) {
+            subscribersByPair[id] = new CopyOnWriteArrayList<>();
+        }
+        Gauge.builder("prices.stream.clients", clients, AtomicInteger::get)
+                .description("Connected price stream subscribers")
+                .register(meterRegistry);
+        this.conflatedUpdates = Counter.builder("prices.stream.conflated")
+                .description("Updates merged into a send that was already pending")
+                .register(meterRegistry);
+        this.droppedUpdates = Counter.builder("prices.stream.dropped")
+                .description("Updates discarded because the subscriber disconnected or failed")
+                .register(meterRegistry);
+        this.stalledSubscribers = Counter.builder("prices.stream.stalled")
+                .description("Subscribers closed because a send stayed blocked past the send timeout")
+                .register(meterRegistry);
+        this.fanOutLatency = Timer.builder("prices.stream.fanout.latency")
+                .description("Time from the first pending update to its delivery to a subscriber")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+    }
+
+    //Opens a stream of the given pair ids; every pair's current quote is sent straight away.
+    public SseEmitter subscribe(int[] pairIds) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        long pairs = 0;
+        for (int id : pairIds) {
+            pairs |= 1L << id;
+        }
+        register(emitter, pairs);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter, long pairs) {
+        Subscriber subscriber = new Subscriber(emitter, pairs);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        clients.incrementAndGet();
+        for (int id = 0; id < subscribersByPair.length; id++) {
+            if ((pairs & (1L << id)) != 0) {
+                subscribersByPair[id].add(subscriber);
+            }
+        }
+        subscriber.markDirty(pairs, System.nanoTime());
+    }
+
+    public int getConnectedClients() {
+        return clients.get();
+    }
+
+    @Override
+    public void onPriceUpdate(int pairId, double bid, double ask, double last, double volume, long timestamp) {
+        long now = System.nanoTime();
+        long bit = 1L << pairId;
+        for (Subscriber subscriber : subscribersByPair[pairId]) {
+            subscriber.markDirty(bit, now);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private void closeStalledSubscribers() {
+        long now = System.nanoTime();
+        for (CopyOnWriteArrayList<Subscriber> subscribers : subscribersByPair) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.closeIfStalled(now);
+            }
+        }
+    }
+
+    //Adds a sender thread in place of one stuck in a timed-out send.
+    private synchronized void lendSender() {
+        if (senderPool != null) {
+            senderPool.setMaximumPoolSize(senderPool.getMaximumPoolSize() + 1);
+            senderPool.setCorePoolSize(senderPool.getCorePoolSize() + 1);
+        }
+    }
+
+    //Gives the thread back once the timed-out send has returned.
+    private synchronized void returnSender() {
+        if (senderPool != null) {
+            senderPool.setCorePoolSize(senderPool.getCorePoolSize() - 1);
+            senderPool.setMaximumPoolSize(senderPool.getMaximumPoolSize() - 1);
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private static final long IDLE = 0;
+        private static final long STALLED = Long.MIN_VALUE;
+
+        private final SseEmitter emitter;
+        private final long pairs;
+        private final AtomicLong dirty = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // nanoTime the running send started at, IDLE between sends, STALLED once the watchdog timed it out.
+        private final AtomicLong sendStarted = new AtomicLong(IDLE);
+        private final Quote quote = new Quote();
+        private volatile long pendingSince;
+
+        private Subscriber(SseEmitter emitter, long pairs) {
+            this.emitter = emitter;
+            this.pairs = pairs;
+        }
+
+        //Records changed pairs and schedules a send unless one is already pending.
+        private void markDirty(long bits, long now) {
+            long previous = dirty.getAndAccumulate(bits, (current, added) -> current | added);
+            if (previous == 0) {
+                pendingSince = now;
+            } else if ((previous & bits) != 0) {
+                conflatedUpdates.increment();
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        //Sends everything that changed; only one send per subscriber runs at a time.
+        @Override
+        public void run() {
+            do {
+                long since = pendingSince;
+                long bits = dirty.getAndSet(0);
+                if (bits != 0 && !closed.get()) {
+                    send(bits, since);
+                }
+                scheduled.set(false);
+            } while (dirty.get() != 0 && !closed.get() && scheduled.compareAndSet(false, true));
+        }
+
+        private void send(long bits, long since) {
+            StringBuilder json = new StringBuilder("{");
+            for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+                int id = Long.numberOfTrailingZeros(remaining);
+                if (priceBook.read(id, quote)) {
+                    json.append(json.length() > 1 ? ",\"" : "\"").append(priceBook.symbol(id))
+                            .append("\":{\"bid\":").append(quote.getBid())
+                            .append(",\"ask\":").append(quote.getAsk())
+                            .append(",\"last\":").append(quote.getLast())
+                            .append(",\"volume\":").append(quote.getVolume())
+                            .append(",\"timestamp\":").append(quote.getTimestamp())
+                            .append("}");
+                }
+            }
+            if (json.length() == 1) {
+                return;
+            }
+            json.append("}");
+            // The low bit set keeps the start clear of IDLE and STALLED.
+            long started = System.nanoTime() | 1;
+            sendStarted.set(started);
+            boolean sent = false;
+            try {
+                emitter.send(SseEmitter.event().name("prices").data(json.toString(), MediaType.APPLICATION_JSON));
+                fanOutLatency.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+                sent = true;
+            } catch (IOException | IllegalStateException e) {
+                droppedUpdates.increment(Long.bitCount(bits));
+                close();
+                emitter.completeWithError(e);
+            }
+            if (!sendStarted.compareAndSet(started, IDLE)) {
+                // Timed out meanwhile: the subscriber is already closed and a thread was lent in this one's place.
+                sendStarted.set(IDLE);
+                returnSender();
+                if (sent) {
+                    emitter.complete();
+                }
+            }
+        }
+
+        //Closes the subscriber if its running send has been blocked for longer than the send timeout. The
+        //emitter is completed by the sending thread once the write returns, as it cannot be while blocked.
+        private void closeIfStalled(long now) {
+            long started = sendStarted.get();
+            if (started != IDLE && started != STALLED && now - started > sendTimeoutNanos
+                    && sendStarted.compareAndSet(started, STALLED)) {
+                stalledSubscribers.increment();
+                close();
+                lendSender();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                for (int id = 0; id < subscribersByPair.length; id++) {
+                    if ((pairs & (1L << id)) != 0) {
+                        subscribersByPair[id].remove(this);
+                    }
+                }
+                clients.decrementAndGet();
+                long pending = dirty.getAndSet(0);
+                if (pending != 0) {
+                    droppedUpdates.increment(Long.bitCount(pending));
+                }
+            }
+        }
+    }
+}
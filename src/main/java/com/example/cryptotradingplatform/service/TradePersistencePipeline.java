@@ -0,0 +1,224 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.engine.TradeEventProjection;
+import com.example.cryptotradingplatform.engine.TradeEventProjection.WriteOutcome;
+import com.example.cryptotradingplatform.exception.PersistenceBackpressureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Takes trade writes off the request threads. Trades are queued on a bounded queue and a single writer
+// thread drains it, handing each batch to the projection as one database transaction so Hibernate can
+// send the inserts and updates as JDBC batches. A full queue pushes back on the callers: request
+// threads wait up to offer-timeout-ms and are then refused, engine shards wait as long as it takes.
+// When a batch fails its queued writes are retried one at a time, so a write the database refuses (say its
+// account was deleted) goes to the dead-letter table alone instead of taking the rest of the batch with it.
+// While the database is not answering a write is retried until it is; only at shutdown is it given up,
+// and logged in full. Trades still queued are lost if the process dies.
+@Component
+public class TradePersistencePipeline implements SmartLifecycle, Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(TradePersistencePipeline.class);
+
+    private static final long RETRY_INTERVAL_MILLIS = 1000;
+
+    //Stops after the web server and the execution engine, so everything they queued gets written.
+    static final int PHASE = Integer.MAX_VALUE - 4096;
+
+    private final TradeEventProjection projection;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final Thread writer = new Thread(this, "trade-persistence-writer");
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+    private final Counter rejectedTrades;
+    private final Counter failedTrades;
+    private final Counter deadLetteredTrades;
+    private volatile boolean running;
+    //Set once a write is given up during shutdown; the database is down, so the rest are not tried either.
+    private boolean givingUp;
+
+    public TradePersistencePipeline(TradeEventProjection projection, MeterRegistry meterRegistry,
+                                    @Value("${trading.persistence.queue-capacity:65536}") int capacity,
+                                    @Value("${trading.persistence.batch-size:500}") int batchSize,
+                                    @Value("${trading.persistence.offer-timeout-ms:2000}") long offerTimeoutMillis) {
+        this.projection = projection;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        Gauge.builder("trading.persistence.queue.depth", queue, BlockingQueue::size)
+                .description("Trades waiting to be written to the database")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("trading.persistence.batch.size")
+                .description("Trades written per database transaction")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("trading.persistence.flush.latency")
+                .description("Time to write one batch of trades, including retries")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedTrades = Counter.builder("trading.persistence.rejected")
+                .description("Trades refused because the queue stayed full")
+                .register(meterRegistry);
+        this.failedTrades = Counter.builder("trading.persistence.failed")
+                .description("Trades dropped at shutdown because the database could not be reached")
+                .register(meterRegistry);
+        this.deadLetteredTrades = Counter.builder("trading.persistence.dead.lettered")
+                .description("Trades moved to the dead-letter table because the database refused them")
+                .register(meterRegistry);
+    }
+
+    //Called on the writer thread once a trade has been committed, or dead-lettered or given up (persisted false).
+    public interface WriteCallback {
+        void written(boolean persisted);
+    }
+
+    //Queues a trade, waiting a bounded time for space.
+    public void submit(TradeEvent event, WriteCallback whenWritten) {
+        submitAll(List.of(event), whenWritten);
+    }
+
+    //Queues trades that must be written in the same database transaction, waiting a bounded time for space.
+    public void submitAll(List<TradeEvent> events, WriteCallback whenWritten) {
+        try {
+            if (!queue.offer(new PendingWrite(events, whenWritten), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejectedTrades.increment();
+                throw new PersistenceBackpressureException("Too many trades are waiting to be saved, please retry.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceBackpressureException("Interrupted while waiting to save the trade.");
+        }
+    }
+
+    //Queues a trade, waiting for space however long it takes.
+    public void put(TradeEvent event) throws InterruptedException {
+        putAll(List.of(event));
+    }
+
+    //Queues trades that must be written in the same database transaction, waiting for space however long it takes.
+    public void putAll(List<TradeEvent> events) throws InterruptedException {
+        queue.put(new PendingWrite(events, null));
+    }
+
+    //Writes queued trades in batches until stopped and the queue is empty.
+    @Override
+    public void run() {
+        List<PendingWrite> pending = new ArrayList<>(batchSize);
+        List<TradeEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+                // Counts queued writes rather than trades, so a batch can go over batchSize by the size of the
+                // groups in it; a group is never split across transactions.
+                queue.drainTo(pending, batchSize - 1);
+                for (PendingWrite write : pending) {
+                    batch.addAll(write.events);
+                }
+                long start = System.nanoTime();
+                if (!givingUp && projection.write(batch)) {
+                    for (PendingWrite write : pending) {
+                        written(write, true);
+                    }
+                } else {
+                    for (PendingWrite write : pending) {
+                        writeAlone(write);
+                    }
+                }
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                pending.clear();
+                batch.clear();
+            }
+        }
+    }
+
+    //Writes one queued write in a transaction of its own, retrying while the database is not answering.
+    private void writeAlone(PendingWrite write) throws InterruptedException {
+        WriteOutcome outcome = givingUp ? WriteOutcome.FAILED : projection.writeOrDeadLetter(write.events);
+        while (outcome == WriteOutcome.FAILED && running) {
+            Thread.sleep(RETRY_INTERVAL_MILLIS);
+            outcome = projection.writeOrDeadLetter(write.events);
+        }
+        if (outcome == WriteOutcome.DEAD_LETTERED) {
+            deadLetteredTrades.increment(write.events.size());
+        } else if (outcome == WriteOutcome.FAILED) {
+            givingUp = true;
+            failedTrades.increment(write.events.size());
+            for (TradeEvent event : write.events) {
+                log.error("Dropped trade at shutdown: account={} symbol={} type={} quantity={} quantityScale={} "
+                                + "pricePerUnit={} totalPrice={} balanceAfter={} holdingAfter={} timestamp={}",
+                        event.getAccountId(), event.getCryptoSymbol(), event.getType(), event.getQuantity(),
+                        event.getQuantityScale(), event.getPricePerUnit(), event.getTotalPrice(),
+                        event.getBalanceAfter(), event.getHoldingAfter(), event.getTimestamp());
+            }
+        }
+        written(write, outcome == WriteOutcome.WRITTEN);
+    }
+
+    private static void written(PendingWrite write, boolean persisted) {
+        if (write.whenWritten != null) {
+            write.whenWritten.written(persisted);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    //Stops once every queued trade has been written.
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static final class PendingWrite {
+
+        private final List<TradeEvent> events;
+        private final WriteCallback whenWritten;
+
+        private PendingWrite(List<TradeEvent> events, WriteCallback whenWritten) {
+            this.events = events;
+            this.whenWritten = whenWritten;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.model.TransactionFilter;
+import com.example.cryptotradingplatform.model.TransactionPage;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.model.TransactionView;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.List;
+
+// Pages through an account's ledger newest first. A cursor is the (date, id) of the last row handed out,
+// so the next page seeks straight to it on the index and stays correct while new trades are written.
+@Service
+public class TransactionHistoryService {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+
+    public TransactionHistoryService(AccountRepository accountRepository, TransactionRepository transactionRepository) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    //from and to are epoch millis and may be null; cursor is null for the first page.
+    @Transactional(readOnly = true)
+    public TransactionPage getHistory(Long accountId, String cryptoSymbol, TransactionType type, Long fromMillis,
+                                      Long toMillis, int limit, String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (fromMillis != null && toMillis != null && fromMillis > toMillis) {
+            throw new IllegalArgumentException("From must not be after to.");
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException("Account not found.");
+        }
+        TransactionFilter filter = new TransactionFilter(accountId, cryptoSymbol, type,
+                fromMillis != null ? new Timestamp(fromMillis) : null, toMillis != null ? new Timestamp(toMillis) : null);
+        Timestamp beforeDate = null;
+        Long beforeId = null;
+        if (cursor != null) {
+            long[] position = decodeCursor(cursor);
+            beforeDate = new Timestamp(position[0]);
+            beforeId = position[1];
+        }
+        // One row more than asked for tells whether there is a next page.
+        List<TransactionView> rows = transactionRepository.findHistory(filter, beforeDate, beforeId, limit + 1);
+        if (rows.size() <= limit) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionView> page = rows.subList(0, limit);
+        TransactionView last = page.get(limit - 1);
+        return new TransactionPage(List.copyOf(page), encodeCursor(last.getTransactionDate(), last.getId()));
+    }
+
+    static String encodeCursor(long dateMillis, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((dateMillis + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static long[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int colon = decoded.indexOf(':');
+            return new long[]{Long.parseLong(decoded.substring(0, colon)), Long.parseLong(decoded.substring(colon + 1))};
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.cryptotradingplatform.sharding;
+
+import com.example.cryptotradingplatform.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// An account with its holdings and ledger, as the shard giving it up sends it to the shard taking it over.
+// Timestamps are epoch millis; the ledger is in the order it was written.
+public record AccountHandoff(long accountId, BigDecimal balance, Long createdAt, List<HoldingEntry> holdings,
+                             List<LedgerEntry> transactions) {
+
+    public record HoldingEntry(String cryptoSymbol, BigDecimal quantity) {
+    }
+
+    public record LedgerEntry(String cryptoSymbol, TransactionType type, BigDecimal quantity, BigDecimal pricePerUnit,
+                              BigDecimal totalPrice, Long transactionDate) {
+    }
+}
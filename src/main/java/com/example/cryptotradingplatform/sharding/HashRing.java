@@ -0,0 +1,89 @@
+package com.example.cryptotradingplatform.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+// Consistent hashing of account ids onto nodes. Each node sits at virtualNodes points on a ring of 64-bit
+// hashes and owns the accounts hashing after the point before its own, up to it. Adding or removing a
+// node therefore moves about 1/N of the accounts, all of them to or from that node, and the many points
+// per node keep the shares within a few percent of each other. Immutable; the ring for the same node
+// names is the same on every node.
+public final class HashRing {
+
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final long[] points;
+    private final int[] owners;
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one node and one point per node");
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        this.virtualNodes = virtualNodes;
+        long[][] placed = new long[this.nodes.size() * virtualNodes][];
+        for (int n = 0; n < this.nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                placed[n * virtualNodes + v] = new long[]{hash(this.nodes.get(n), v), n};
+            }
+        }
+        // Ties, however unlikely, go to the node that sorts first, so every node breaks them alike.
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[placed.length];
+        this.owners = new int[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    public String owner(long accountId) {
+        int index = Arrays.binarySearch(points, hash(accountId));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    //Node names in sorted order.
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    public HashRing with(String node) {
+        List<String> grown = new ArrayList<>(nodes);
+        grown.add(node);
+        return new HashRing(grown, virtualNodes);
+    }
+
+    public HashRing without(String node) {
+        List<String> shrunk = new ArrayList<>(nodes);
+        shrunk.remove(node);
+        return new HashRing(shrunk, virtualNodes);
+    }
+
+    //SplitMix64's finalizer; consecutive ids land far apart on the ring.
+    static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //FNV-1a over the node name, mixed with the point's number.
+    static long hash(String node, int point) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : node.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return hash(h * 31 + point);
+    }
+}
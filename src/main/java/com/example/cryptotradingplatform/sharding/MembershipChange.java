@@ -0,0 +1,8 @@
+package com.example.cryptotradingplatform.sharding;
+
+import java.net.URI;
+import java.util.Map;
+
+// A move from one set of nodes to another, each node named with its base URL.
+public record MembershipChange(Map<String, URI> from, Map<String, URI> to) {
+}
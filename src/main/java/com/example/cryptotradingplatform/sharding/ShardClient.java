@@ -0,0 +1,93 @@
+package com.example.cryptotradingplatform.sharding;
+
+import com.example.cryptotradingplatform.exception.ShardUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// HTTP between shard nodes: client requests forwarded to the node owning their account, and the internal
+// membership and handoff calls. Forwarded requests carry FORWARDED_HEADER with the sending node's name,
+// so the receiving node serves them itself rather than forwarding again.
+@Component
+@ConditionalOnProperty(name = "trading.sharding.enabled", havingValue = "true")
+public class ShardClient {
+
+    static final String FORWARDED_HEADER = "X-Shard-Forwarded";
+
+    private final ShardMembership membership;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public ShardClient(ShardMembership membership, ObjectMapper objectMapper,
+                       @Value("${trading.sharding.request-timeout-ms:5000}") long timeoutMillis) {
+        this.membership = membership;
+        this.objectMapper = objectMapper;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    //Sends a client request on to another node as it came in; contentType and body may be null.
+    public HttpResponse<byte[]> forward(String node, String method, String pathAndQuery, String contentType,
+                                        String accept, byte[] body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(address(node).resolve(pathAndQuery))
+                .timeout(timeout)
+                .header(FORWARDED_HEADER, membership.localNode())
+                .method(method, body == null || body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    //Posts body as JSON to one of the internal endpoints and reads the answer as responseType.
+    public <T> T post(String node, String path, Object body, Class<T> responseType) {
+        return post(node, path, body, responseType, timeout);
+    }
+
+    //As post(), for calls that may take longer than a client request, such as a node's whole handoff.
+    public <T> T post(String node, String path, Object body, Class<T> responseType, Duration timeout) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(address(node).resolve(path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header(FORWARDED_HEADER, membership.localNode())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new ShardUnavailableException("Node " + node + " answered " + response.statusCode() + " to " + path
+                        + ": " + new String(response.body()));
+            }
+            return objectMapper.readValue(response.body(), responseType);
+        } catch (IOException e) {
+            throw new ShardUnavailableException("Node " + node + " could not be reached for " + path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException("Interrupted calling node " + node, e);
+        }
+    }
+
+    private URI address(String node) {
+        URI address = membership.view().addresses().get(node);
+        if (address == null) {
+            throw new ShardUnavailableException("Unknown node " + node);
+        }
+        return address;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.cryptotradingplatform.sharding;
+
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import com.example.cryptotradingplatform.service.AccountCache;
+import com.example.cryptotradingplatform.service.PortfolioService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Moves accounts between shard nodes when the membership changes. The node asked to change it drives
+// every node through ShardMembership's steps over HTTP: prepare the new ring everywhere, have each node of
+// the old membership hand off the accounts it no longer owns, then complete everywhere. A node hands an
+// account off under the write side of the account's lock stripe, which ShardRouter takes the read side
+// of to serve a request for a moving account, so no trade runs on it meanwhile. It waits for the
+// account's queued writes, sends the account with its holdings and ledger to the new owner, and deletes
+// its own copy once the new owner has stored it.
+@Service
+@ConditionalOnProperty(name = "trading.sharding.enabled", havingValue = "true")
+public class ShardHandoff {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardHandoff.class);
+    private static final int STRIPES = 256;
+
+    private final ShardMembership membership;
+    private final ShardClient shardClient;
+    private final AccountRepository accountRepository;
+    private final HoldingRepository holdingRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountCache accountCache;
+    private final PortfolioService portfolioService;
+    private final TransactionTemplate transactionTemplate;
+    private final long releaseTimeoutMillis;
+    private final Duration handoffTimeout;
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+    private final Counter handedOff;
+    private final Counter takenOver;
+
+    public ShardHandoff(ShardMembership membership, ShardClient shardClient, AccountRepository accountRepository,
+                        HoldingRepository holdingRepository, TransactionRepository transactionRepository,
+                        AccountCache accountCache, PortfolioService portfolioService,
+                        TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                        @Value("${trading.sharding.release-timeout-ms:10000}") long releaseTimeoutMillis,
+                        @Value("${trading.sharding.handoff-timeout-ms:600000}") long handoffTimeoutMillis) {
+        this.membership = membership;
+        this.shardClient = shardClient;
+        this.accountRepository = accountRepository;
+        this.holdingRepository = holdingRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountCache = accountCache;
+        this.portfolioService = portfolioService;
+        this.transactionTemplate = transactionTemplate;
+        this.releaseTimeoutMillis = releaseTimeoutMillis;
+        this.handoffTimeout = Duration.ofMillis(handoffTimeoutMillis);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.handedOff = Counter.builder("trading.shard.accounts.moved").tag("direction", "out")
+                .description("Accounts handed to another node after a membership change")
+                .register(meterRegistry);
+        this.takenOver = Counter.builder("trading.shard.accounts.moved").tag("direction", "in")
+                .description("Accounts taken over from another node after a membership change")
+                .register(meterRegistry);
+    }
+
+    //Held while serving a request for an account this node may be handing off.
+    public Lock servingLock(long accountId) {
+        return stripe(accountId).readLock();
+    }
+
+    //Whether the account is stored on this node, which during a membership change it may not yet or no
+    //longer be.
+    public boolean holds(long accountId) {
+        return accountRepository.existsById(accountId);
+    }
+
+    //Moves the cluster to the given nodes, driving every node of both memberships, and returns the number
+    //of accounts each node handed off. A change that failed part way can be repeated with the same nodes.
+    public Map<String, Integer> changeMembership(Map<String, URI> to) {
+        ShardMembership.View view = membership.view();
+        Map<String, URI> from = new LinkedHashMap<>();
+        for (String node : (view.previous() != null ? view.previous() : view.ring()).nodes()) {
+            from.put(node, view.addresses().get(node));
+        }
+        Set<String> everyone = new LinkedHashSet<>(from.keySet());
+        everyone.addAll(to.keySet());
+        log.info("Changing shard membership: from={} to={}", from.keySet(), to.keySet());
+
+        MembershipChange change = new MembershipChange(from, to);
+        for (String node : everyone) {
+            shardClient.post(node, "/internal/shards/prepare", change, Map.class);
+        }
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        for (String node : from.keySet()) {
+            Map<?, ?> answer = shardClient.post(node, "/internal/shards/handoff", Map.of(), Map.class, handoffTimeout);
+            moved.put(node, ((Number) answer.get("moved")).intValue());
+        }
+        for (String node : everyone) {
+            shardClient.post(node, "/internal/shards/complete", Map.of(), Map.class);
+        }
+        log.info("Shard membership changed: nodes={} moved={}", to.keySet(), moved);
+        return moved;
+    }
+
+    //Hands every account stored here that the new ring gives to another node over to that node.
+    public int handOff() throws InterruptedException {
+        ShardMembership.View view = membership.view();
+        if (view.previous() == null) {
+            return 0;
+        }
+        int moved = 0;
+        for (Long accountId : accountRepository.findAllIds()) {
+            String owner = view.ring().owner(accountId);
+            if (!owner.equals(membership.localNode())) {
+                move(accountId, owner);
+                moved++;
+            }
+        }
+        log.info("Shard handoff finished: node={} moved={}", membership.localNode(), moved);
+        return moved;
+    }
+
+    //Stores an account handed over by another node, replacing any copy a failed earlier attempt left.
+    public void takeOver(AccountHandoff handoff) {
+        Long accountId = handoff.accountId();
+        transactionTemplate.executeWithoutResult(status -> {
+            deleteStored(accountId);
+            accountRepository.insertWithId(accountId, handoff.balance(),
+                    handoff.createdAt() == null ? null : new Timestamp(handoff.createdAt()));
+            Account account = accountRepository.getReferenceById(accountId);
+            List<Holding> holdings = new ArrayList<>();
+            for (AccountHandoff.HoldingEntry holding : handoff.holdings()) {
+                holdings.add(new Holding(account, holding.cryptoSymbol(), Amount.of(holding.quantity())));
+            }
+            holdingRepository.saveAll(holdings);
+            List<Transaction> ledger = new ArrayList<>();
+            for (AccountHandoff.LedgerEntry entry : handoff.transactions()) {
+                Transaction transaction = new Transaction(account, entry.cryptoSymbol(), entry.type(),
+                        Amount.of(entry.quantity()), amount(entry.pricePerUnit()), amount(entry.totalPrice()));
+                transaction.setTransactionDate(entry.transactionDate() == null ? null
+                        : new Timestamp(entry.transactionDate()));
+                ledger.add(transaction);
+            }
+            transactionRepository.saveAll(ledger);
+        });
+        accountCache.evict(accountId);
+        portfolioService.evict(accountId);
+        takenOver.increment();
+    }
+
+    private void move(Long accountId, String node) throws InterruptedException {
+        Lock lock = stripe(accountId).writeLock();
+        lock.lock();
+        try {
+            if (!accountCache.release(accountId, releaseTimeoutMillis)) {
+                throw new IllegalStateException("Account " + accountId + " still has unwritten trades");
+            }
+            AccountHandoff handoff = transactionTemplate.execute(status -> export(accountId));
+            shardClient.post(node, "/internal/shards/accounts", handoff, Map.class);
+            transactionTemplate.executeWithoutResult(status -> deleteStored(accountId));
+            portfolioService.evict(accountId);
+            handedOff.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AccountHandoff export(Long accountId) {
+        Account account = accountRepository.findById(accountId).orElseThrow();
+        List<AccountHandoff.HoldingEntry> holdings = new ArrayList<>();
+        for (Holding holding : holdingRepository.findByAccountId(accountId)) {
+            holdings.add(new AccountHandoff.HoldingEntry(holding.getCryptoSymbol(), holding.getQuantity().toBigDecimal()));
+        }
+        List<AccountHandoff.LedgerEntry> ledger = new ArrayList<>();
+        for (Transaction transaction : transactionRepository.findByAccountIdOrderByIdAsc(accountId)) {
+            ledger.add(new AccountHandoff.LedgerEntry(transaction.getCryptoSymbol(), transaction.getType(),
+                    transaction.getQuantity().toBigDecimal(), decimal(transaction.getPricePerUnit()),
+                    decimal(transaction.getTotalPrice()), transaction.getTransactionDate() == null ? null
+                    : transaction.getTransactionDate().getTime()));
+        }
+        return new AccountHandoff(accountId, account.getBalance().toBigDecimal(),
+                account.getCreatedAt() == null ? null : account.getCreatedAt().getTime(), holdings, ledger);
+    }
+
+    private void deleteStored(Long accountId) {
+        transactionRepository.deleteAllOfAccount(accountId);
+        holdingRepository.deleteAllOfAccount(accountId);
+        accountRepository.deleteInBulk(accountId);
+    }
+
+    private ReentrantReadWriteLock stripe(long accountId) {
+        return stripes[(int) Math.floorMod(HashRing.hash(accountId), (long) STRIPES)];
+    }
+
+    private static Amount amount(BigDecimal value) {
+        return value == null ? null : Amount.of(value);
+    }
+
+    private static BigDecimal decimal(Amount amount) {
+        return amount == null ? null : amount.toBigDecimal();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.cryptotradingplatform.sharding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Which node owns which accounts: a HashRing over the nodes of trading.sharding.nodes, this node's name
+// and every node's base URL. A membership change is applied on every node in two steps. prepare installs
+// the new ring and keeps the one it replaces as previous while accounts move between nodes; complete
+// drops the previous ring once every node has handed its moved accounts over. Changes are not persisted,
+// so a node restarted after one needs trading.sharding.nodes updated to match.
+@Component
+@ConditionalOnProperty(name = "trading.sharding.enabled", havingValue = "true")
+public class ShardMembership {
+
+    private final String localNode;
+    private final int virtualNodes;
+    private volatile View view;
+
+    public ShardMembership(@Value("${trading.sharding.node-id}") String localNode,
+                           @Value("${trading.sharding.nodes}") String nodes,
+                           @Value("${trading.sharding.virtual-nodes:160}") int virtualNodes,
+                           @Value("${trading.engine.enabled:false}") boolean engineEnabled,
+                           @Value("${trading.orders.enabled:true}") boolean ordersEnabled) {
+        if (engineEnabled) {
+            // The engine keeps accounts in its own shards and journal, which a handoff does not move.
+            throw new IllegalStateException("trading.sharding.enabled needs trading.engine.enabled=false");
+        }
+        if (ordersEnabled) {
+            // Resting orders are held by the node that took them, under ids only it knows, and a handoff
+            // leaves them behind to fire there against an account that has moved.
+            throw new IllegalStateException("trading.sharding.enabled needs trading.orders.enabled=false");
+        }
+        Map<String, URI> addresses = parse(nodes);
+        if (!addresses.containsKey(localNode)) {
+            throw new IllegalArgumentException("trading.sharding.nodes has no entry for this node, " + localNode);
+        }
+        this.localNode = localNode;
+        this.virtualNodes = virtualNodes;
+        this.view = new View(new HashRing(addresses.keySet(), virtualNodes), null, addresses);
+    }
+
+    public String localNode() {
+        return localNode;
+    }
+
+    public View view() {
+        return view;
+    }
+
+    //Starts moving from one membership to another. Repeating a change already in progress is allowed, so
+    //an interrupted change can be driven to the end again; starting a different one is not.
+    public synchronized void prepare(Map<String, URI> from, Map<String, URI> to) {
+        HashRing previous = new HashRing(from.keySet(), virtualNodes);
+        HashRing next = new HashRing(to.keySet(), virtualNodes);
+        View current = view;
+        if (current.previous() != null && !(current.previous().nodes().equals(previous.nodes())
+                && current.ring().nodes().equals(next.nodes()))) {
+            throw new IllegalStateException("Another membership change is in progress");
+        }
+        // Until complete, both memberships' nodes may be asked for accounts they hold.
+        Map<String, URI> addresses = new LinkedHashMap<>(from);
+        addresses.putAll(to);
+        view = new View(next, previous, addresses);
+    }
+
+    public synchronized void complete() {
+        View current = view;
+        Map<String, URI> addresses = new LinkedHashMap<>(current.addresses());
+        addresses.keySet().retainAll(current.ring().nodes());
+        view = new View(current.ring(), null, addresses);
+    }
+
+    //"node-1=http://host-1:8080,node-2=http://host-2:8080"
+    static Map<String, URI> parse(String nodes) {
+        Map<String, URI> addresses = new LinkedHashMap<>();
+        for (String entry : nodes.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Expected node=url in trading.sharding.nodes, got " + entry);
+            }
+            addresses.put(parts[0].trim(), URI.create(parts[1].trim()));
+        }
+        return addresses;
+    }
+
+    //The ring in force, the ring being moved away from while a change is in progress (else null), and
+    //the base URL of every node either of them names.
+    public record View(HashRing ring, HashRing previous, Map<String, URI> addresses) {
+
+        public View {
+            addresses = Map.copyOf(addresses);
+        }
+
+        public Map<String, URI> members() {
+            Map<String, URI> members = new LinkedHashMap<>();
+            for (String node : ring.nodes()) {
+                members.put(node, addresses.get(node));
+            }
+            return members;
+        }
+    }
+}
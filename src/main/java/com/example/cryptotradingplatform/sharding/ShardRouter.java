@@ -0,0 +1,180 @@
+package com.example.cryptotradingplatform.sharding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+// Sends each account request to the node that owns the account: /api/account/{id}/... and the trade
+// endpoints under /api/account, which name it in accountId. Requests for accounts
+// this node owns go on to the controllers; others are forwarded and their answer relayed, with the node
+// that produced it in X-Shard-Node. While a membership change moves an account, its new owner passes
+// requests for it back to the old owner until the account has arrived, and the old owner serves them
+// under the handoff's lock stripe while it still holds the account. A forwarded request is always served
+// where it lands; if the account is in transit right then it is answered 503, to be retried.
+@Component
+@ConditionalOnProperty(name = "trading.sharding.enabled", havingValue = "true")
+public class ShardRouter extends OncePerRequestFilter {
+
+    static final String NODE_HEADER = "X-Shard-Node";
+    private static final String ACCOUNT_PATH = "/api/account/";
+
+    private final ShardMembership membership;
+    private final ShardHandoff handoff;
+    private final ShardClient shardClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> forwards = new ConcurrentHashMap<>();
+
+    public ShardRouter(ShardMembership membership, ShardHandoff handoff, ShardClient shardClient,
+                       MeterRegistry meterRegistry) {
+        this.membership = membership;
+        this.handoff = handoff;
+        this.shardClient = shardClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith(ACCOUNT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long accountId = accountId(request);
+        if (accountId == null) {
+            // Malformed; the controller answers it.
+            chain.doFilter(request, response);
+            return;
+        }
+        String local = membership.localNode();
+        ShardMembership.View view = membership.view();
+        String owner = view.ring().owner(accountId);
+        String before = view.previous() == null ? owner : view.previous().owner(accountId);
+        boolean forwarded = request.getHeader(ShardClient.FORWARDED_HEADER) != null;
+
+        if (before.equals(owner)) {
+            if (owner.equals(local) || forwarded) {
+                serve(request, response, chain);
+            } else {
+                forward(owner, request, response);
+            }
+            return;
+        }
+        // The account is moving from `before` to `owner`.
+        if (before.equals(local)) {
+            Lock lock = handoff.servingLock(accountId);
+            lock.lock();
+            try {
+                if (handoff.holds(accountId)) {
+                    serve(request, response, chain);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        } else if (owner.equals(local) && handoff.holds(accountId)) {
+            serve(request, response, chain);
+            return;
+        }
+        if (forwarded) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.getWriter().write("Account " + accountId + " is moving between nodes; retry.");
+            return;
+        }
+        forward(owner.equals(local) ? before : owner, request, response);
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.setHeader(NODE_HEADER, membership.localNode());
+        chain.doFilter(request, response);
+    }
+
+    //Relays the request. A form post's fields are read by accountId(), so they travel in the query string.
+    private void forward(String node, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean form = isForm(request);
+        String query = form ? encode(request.getParameterMap()) : request.getQueryString();
+        byte[] body = form ? null : request.getInputStream().readAllBytes();
+        String target = request.getRequestURI() + (query == null || query.isEmpty() ? "" : "?" + query);
+        HttpResponse<byte[]> answer;
+        try {
+            answer = shardClient.forward(node, request.getMethod(), target, form ? null : request.getContentType(),
+                    request.getHeader("Accept"), body);
+        } catch (IOException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+            response.getWriter().write("Node " + node + " owning the account could not be reached.");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        forwards.computeIfAbsent(node, name -> Counter.builder("trading.shard.forwards")
+                .description("Account requests forwarded to the node owning the account")
+                .tag("node", name)
+                .register(meterRegistry)).increment();
+        response.setStatus(answer.statusCode());
+        answer.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+        answer.headers().firstValue("Retry-After").ifPresent(value -> response.setHeader("Retry-After", value));
+        response.setHeader(NODE_HEADER, answer.headers().firstValue(NODE_HEADER).orElse(node));
+        response.getOutputStream().write(answer.body());
+    }
+
+    //The account a request is about, or null if it names none or not a number.
+    static Long accountId(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String value = null;
+        if (path.startsWith(ACCOUNT_PATH)) {
+            String rest = path.substring(ACCOUNT_PATH.length());
+            int slash = rest.indexOf('/');
+            String segment = slash < 0 ? rest : rest.substring(0, slash);
+            if (!segment.isEmpty() && Character.isDigit(segment.charAt(0))) {
+                value = segment;
+            }
+        }
+        if (value == null) {
+            value = request.getParameter("accountId");
+        }
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && MediaType.APPLICATION_FORM_URLENCODED.includes(MediaType.parseMediaType(contentType));
+    }
+
+    private static String encode(Map<String, String[]> parameters) {
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                if (!query.isEmpty()) {
+                    query.append('&');
+                }
+                query.append(URLEncoder.encode(parameter.getKey(), StandardCharsets.UTF_8)).append('=')
+                        .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.cryptotradingplatform.wire;
+
+import com.example.cryptotradingplatform.history.TickConsumer;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Binary encoding of the API's bulk messages, laid out as Simple Binary Encoding (SBE) lays out
+// messages, for clients that find JSON too costly to produce or parse. Every message is
+//   message header: uint16 block length, uint16 template id, uint16 schema id, uint16 schema version
+//   the template's fixed block
+//   one repeating group: uint16 entry block length, uint32 entry count, then the entries, each a fixed
+//                        block followed by its variable-length field
+//   the message's variable-length field, if it has one
+// Variable-length fields are a uint16 byte count and UTF-8 bytes; decimals are an int64 mantissa and an
+// int8 power-of-ten exponent, with a mantissa of Long.MIN_VALUE for none. Integers and doubles are
+// little-endian. Readers use the block lengths on the wire, so fields appended to a block in a later
+// version are skipped by older readers. The templates:
+//   1 prices        block: int64 version        entry: double last, symbol
+//   2 ticks         block: -                    entry: int64 timestamp, double bid, ask, last, volume; then pair
+//   3 trades        block: -                    entry: uint8 type (0 buy, 1 sell), decimal quantity,
+//                                                      decimal pricePerUnit, cryptoSymbol
+//   4 trade results block: -                    entry: int32 index, uint8 status (TradeResult.Status), message
+public final class SbeCodec {
+
+    public static final String MEDIA_TYPE = "application/x-sbe";
+
+    static final int PRICES = 1;
+    static final int TICKS = 2;
+    static final int TRADES = 3;
+    static final int TRADE_RESULTS = 4;
+    static final int SCHEMA_ID = 1;
+    static final int SCHEMA_VERSION = 1;
+
+    private static final int HEADER = 8;
+    private static final int GROUP_HEADER = 6;
+    private static final int PRICE_ENTRY = 8;
+    private static final int TICK_ENTRY = 40;
+    private static final int TRADE_ENTRY = 19;
+    private static final int RESULT_ENTRY = 5;
+    private static final long NULL_MANTISSA = Long.MIN_VALUE;
+
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    //Receives one price of a prices message. The symbol is message[symbolOffset, symbolOffset + symbolLength)
+    //in UTF-8.
+    public interface PriceListener {
+        void onPrice(byte[] message, int symbolOffset, int symbolLength, double last);
+    }
+
+    private SbeCodec() {
+    }
+
+    //Collects prices, in the order added, into a prices message.
+    public static final class PricesWriter {
+
+        private final Writer writer = new Writer(HEADER + 8 + GROUP_HEADER + 32 * 16);
+        private int count;
+
+        public PricesWriter(long version) {
+            writer.header(8, PRICES);
+            writer.putLong(version);
+            writer.groupHeader(PRICE_ENTRY);
+        }
+
+        public void add(String symbol, double last) {
+            writer.ensure(PRICE_ENTRY);
+            writer.putDouble(last);
+            writer.putString(symbol);
+            count++;
+        }
+
+        public byte[] toBytes() {
+            writer.groupCount(HEADER + 8, count);
+            return writer.toBytes();
+        }
+    }
+
+    //Collects the ticks of a history scan into a ticks message, writing each as it arrives.
+    public static final class TicksWriter implements TickConsumer {
+
+        private final Writer writer;
+        private int count;
+
+        public TicksWriter(int expected) {
+            this.writer = new Writer(HEADER + GROUP_HEADER + TICK_ENTRY * Math.max(Math.min(expected, 1024), 1) + 32);
+            writer.header(0, TICKS);
+            writer.groupHeader(TICK_ENTRY);
+        }
+
+        @Override
+        public void onTick(long timestamp, double bid, double ask, double last, double volume) {
+            writer.ensure(TICK_ENTRY);
+            writer.putLong(timestamp);
+            writer.putDouble(bid);
+            writer.putDouble(ask);
+            writer.putDouble(last);
+            writer.putDouble(volume);
+            count++;
+        }
+
+        public byte[] toBytes(String pair) {
+            writer.groupCount(HEADER, count);
+            writer.putString(pair);
+            return writer.toBytes();
+        }
+    }
+
+    //Returns the version of a prices message after passing each of its prices to the listener.
+    public static long decodePrices(byte[] message, PriceListener listener) {
+        Reader reader = new Reader(message, PRICES, 8);
+        long version = reader.getLong(reader.position);
+        reader.skipBlock();
+        int count = reader.groupHeader(PRICE_ENTRY);
+        for (int i = 0; i < count; i++) {
+            double last = reader.getDouble(reader.position);
+            reader.skipEntry();
+            int length = reader.stringLength();
+            listener.onPrice(message, reader.position, length, last);
+            reader.skip(length);
+        }
+        return version;
+    }
+
+    //Passes each tick of a ticks message to the consumer and returns the pair they are of.
+    public static String decodeTicks(byte[] message, TickConsumer consumer) {
+        Reader reader = new Reader(message, TICKS, 0);
+        reader.skipBlock();
+        int count = reader.groupHeader(TICK_ENTRY);
+        for (int i = 0; i < count; i++) {
+            int at = reader.position;
+            consumer.onTick(reader.getLong(at), reader.getDouble(at + 8), reader.getDouble(at + 16),
+                    reader.getDouble(at + 24), reader.getDouble(at + 32));
+            reader.skipEntry();
+        }
+        return reader.getString();
+    }
+
+    public static byte[] encodeTrades(List<TradeRequest> trades) {
+        Writer writer = new Writer(HEADER + GROUP_HEADER + trades.size() * (TRADE_ENTRY + 8));
+        writer.header(0, TRADES);
+        writer.groupHeader(TRADE_ENTRY);
+        for (TradeRequest trade : trades) {
+            writer.ensure(TRADE_ENTRY);
+            writer.putByte(trade.getType() == TransactionType.SELL ? 1 : 0);
+            writer.putDecimal(trade.getQuantity());
+            writer.putDecimal(trade.getPricePerUnit());
+            writer.putString(trade.getCryptoSymbol());
+        }
+        writer.groupCount(HEADER, trades.size());
+        return writer.toBytes();
+    }
+
+    //Reads a trades message; throws IllegalArgumentException if it is not one.
+    public static List<TradeRequest> decodeTrades(byte[] message) {
+        Reader reader = new Reader(message, TRADES, 0);
+        reader.skipBlock();
+        int count = reader.groupHeader(TRADE_ENTRY);
+        List<TradeRequest> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int at = reader.position;
+            int type = reader.getByte(at);
+            if (type > 1) {
+                throw new IllegalArgumentException("Unknown trade type " + type);
+            }
+            BigDecimal quantity = reader.getDecimal(at + 1);
+            BigDecimal pricePerUnit = reader.getDecimal(at + 10);
+            reader.skipEntry();
+            trades.add(new TradeRequest(type == 0 ? TransactionType.BUY : TransactionType.SELL, reader.getString(),
+                    quantity, pricePerUnit));
+        }
+        return trades;
+    }
+
+    public static byte[] encodeTradeResults(List<TradeResult> results) {
+        Writer writer = new Writer(HEADER + GROUP_HEADER + results.size() * (RESULT_ENTRY + 64));
+        writer.header(0, TRADE_RESULTS);
+        writer.groupHeader(RESULT_ENTRY);
+        for (TradeResult result : results) {
+            writer.ensure(RESULT_ENTRY);
+            writer.putInt(result.getIndex());
+            writer.putByte(result.getStatus().ordinal());
+            writer.putString(result.getMessage());
+        }
+        writer.groupCount(HEADER, results.size());
+        return writer.toBytes();
+    }
+
+    public static List<TradeResult> decodeTradeResults(byte[] message) {
+        Reader reader = new Reader(message, TRADE_RESULTS, 0);
+        reader.skipBlock();
+        int count = reader.groupHeader(RESULT_ENTRY);
+        TradeResult.Status[] statuses = TradeResult.Status.values();
+        List<TradeResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int at = reader.position;
+            int index = reader.getInt(at);
+            int status = reader.getByte(at + 4);
+            if (status >= statuses.length) {
+                throw new IllegalArgumentException("Unknown trade status " + status);
+            }
+            reader.skipEntry();
+            results.add(new TradeResult(index, statuses[status], reader.getString()));
+        }
+        return results;
+    }
+
+    //Appends to a growing array.
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void header(int blockLength, int templateId) {
+            ensure(HEADER);
+            putShort(blockLength);
+            putShort(templateId);
+            putShort(SCHEMA_ID);
+            putShort(SCHEMA_VERSION);
+        }
+
+        //Writes a group header with no entries yet; groupCount fills in the count.
+        private void groupHeader(int entryLength) {
+            ensure(GROUP_HEADER);
+            putShort(entryLength);
+            putInt(0);
+        }
+
+        private void groupCount(int groupOffset, int count) {
+            INT.set(buffer, groupOffset + 2, count);
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        private void putByte(int value) {
+            buffer[position++] = (byte) value;
+        }
+
+        private void putShort(int value) {
+            SHORT.set(buffer, position, (short) value);
+            position += 2;
+        }
+
+        private void putInt(int value) {
+            INT.set(buffer, position, value);
+            position += 4;
+        }
+
+        private void putLong(long value) {
+            LONG.set(buffer, position, value);
+            position += 8;
+        }
+
+        private void putDouble(double value) {
+            DOUBLE.set(buffer, position, value);
+            position += 8;
+        }
+
+        private void putDecimal(BigDecimal value) {
+            if (value == null) {
+                putLong(NULL_MANTISSA);
+                putByte(0);
+                return;
+            }
+            BigDecimal stripped = value.scale() < 0 ? value.setScale(0) : value;
+            if (stripped.scale() > Byte.MAX_VALUE) {
+                stripped = stripped.stripTrailingZeros();
+            }
+            putLong(stripped.unscaledValue().longValueExact());
+            putByte(-stripped.scale());
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long to encode");
+            }
+            ensure(2 + bytes.length);
+            putShort(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private byte[] toBytes() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+    }
+
+    //Walks a message in place, checking every length against the array so malformed input fails with
+    //IllegalArgumentException.
+    private static final class Reader {
+
+        private final byte[] message;
+        private final int blockLength;
+        private int entryLength;
+        private int position;
+
+        private Reader(byte[] message, int templateId, int minBlockLength) {
+            this.message = message;
+            require(HEADER);
+            this.blockLength = Short.toUnsignedInt((short) SHORT.get(message, 0));
+            int template = Short.toUnsignedInt((short) SHORT.get(message, 2));
+            int schema = Short.toUnsignedInt((short) SHORT.get(message, 4));
+            if (template != templateId || schema != SCHEMA_ID) {
+                throw new IllegalArgumentException("Expected template " + templateId + " of schema " + SCHEMA_ID
+                        + " but got template " + template + " of schema " + schema);
+            }
+            if (blockLength < minBlockLength) {
+                throw new IllegalArgumentException("Block of " + blockLength + " bytes is shorter than "
+                        + minBlockLength);
+            }
+            this.position = HEADER;
+            require(blockLength);
+        }
+
+        private void skipBlock() {
+            position += blockLength;
+        }
+
+        //Reads a group header and returns the entry count. Entries may be longer than this version writes
+        //them, never shorter.
+        private int groupHeader(int minEntryLength) {
+            require(GROUP_HEADER);
+            entryLength = Short.toUnsignedInt((short) SHORT.get(message, position));
+            int count = (int) INT.get(message, position + 2);
+            position += GROUP_HEADER;
+            if (entryLength < minEntryLength) {
+                throw new IllegalArgumentException("Entries of " + entryLength + " bytes are shorter than "
+                        + minEntryLength);
+            }
+            if (count < 0 || (long) count * entryLength > message.length - position) {
+                throw new IllegalArgumentException("Group of " + count + " entries does not fit the message");
+            }
+            return count;
+        }
+
+        //Checks the next entry fits; its fields are then read at position.
+        private void skipEntry() {
+            require(entryLength);
+            position += entryLength;
+        }
+
+        private int stringLength() {
+            require(2);
+            int length = Short.toUnsignedInt((short) SHORT.get(message, position));
+            position += 2;
+            require(length);
+            return length;
+        }
+
+        private String getString() {
+            int length = stringLength();
+            String value = new String(message, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void skip(int bytes) {
+            position += bytes;
+        }
+
+        private int getByte(int at) {
+            require(at - position + 1);
+            return Byte.toUnsignedInt(message[at]);
+        }
+
+        private int getInt(int at) {
+            require(at - position + 4);
+            return (int) INT.get(message, at);
+        }
+
+        private long getLong(int at) {
+            require(at - position + 8);
+            return (long) LONG.get(message, at);
+        }
+
+        private double getDouble(int at) {
+            require(at - position + 8);
+            return (double) DOUBLE.get(message, at);
+        }
+
+        private BigDecimal getDecimal(int at) {
+            long mantissa = getLong(at);
+            require(at - position + 9);
+            return mantissa == NULL_MANTISSA ? null : BigDecimal.valueOf(mantissa, -message[at + 8]);
+        }
+
+        private void require(int bytes) {
+            if (bytes < 0 || position + bytes > message.length) {
+                throw new IllegalArgumentException("Message ends before its " + (position + bytes) + "th byte");
+            }
+        }
+    }
+}
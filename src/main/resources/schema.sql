@@ -1,28 +1,69 @@
 -- Table for user accounts
 CREATE TABLE account (
-                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
-                         balance DOUBLE NOT NULL,
+                         id BIGINT PRIMARY KEY,
+                         balance DECIMAL(38, 18) NOT NULL,
                          created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- Table for cryptocurrency holdings
 CREATE TABLE holding (
-                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                         id BIGINT PRIMARY KEY,
                          account_id BIGINT NOT NULL,
                          crypto_symbol VARCHAR(10) NOT NULL,
-                         quantity DOUBLE NOT NULL,
+                         quantity DECIMAL(38, 18) NOT NULL,
                          FOREIGN KEY (account_id) REFERENCES account(id) ON DELETE CASCADE
 );
 
 -- Table for transaction history
 CREATE TABLE transaction (
-                             id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                             id BIGINT PRIMARY KEY,
                              account_id BIGINT NOT NULL,
                              crypto_symbol VARCHAR(10) NOT NULL,
                              type ENUM('BUY', 'SELL') NOT NULL,
-                             quantity DOUBLE NOT NULL,
-                             price_per_unit DOUBLE NOT NULL,
-                             total_price DOUBLE NOT NULL,
+                             quantity DECIMAL(38, 18) NOT NULL,
+                             price_per_unit DECIMAL(38, 18),
+                             total_price DECIMAL(38, 18),
                              transaction_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                              FOREIGN KEY (account_id) REFERENCES account(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- How far the projection has applied each execution engine shard's journal, committed with the trades it covers
+CREATE TABLE projection_checkpoint (
+                                       shard INT PRIMARY KEY,
+                                       position BIGINT NOT NULL
+);
+
+-- Trades the projection could not write while the database was answering (e.g. their account was gone), for
+-- inspection and manual replay; amounts are the event's fixed-point units
+CREATE TABLE dead_letter_trade (
+                                   id BIGINT PRIMARY KEY,
+                                   account_id BIGINT NOT NULL,
+                                   crypto_symbol VARCHAR(10) NOT NULL,
+                                   type ENUM('BUY', 'SELL') NOT NULL,
+                                   quantity_scale INT NOT NULL,
+                                   quantity BIGINT NOT NULL,
+                                   price_per_unit BIGINT NOT NULL,
+                                   total_price BIGINT NOT NULL,
+                                   balance_after BIGINT NOT NULL,
+                                   holding_after BIGINT NOT NULL,
+                                   trade_timestamp BIGINT NOT NULL,
+                                   shard INT,
+                                   journal_position BIGINT,
+                                   error VARCHAR(1000),
+                                   failed_at TIMESTAMP NOT NULL
+);
+
+-- History pages filter by account and optionally symbol, newest first
+CREATE INDEX idx_transaction_account_date ON transaction (account_id, transaction_date DESC, id DESC);
+CREATE INDEX idx_transaction_account_symbol_date
+    ON transaction (account_id, crypto_symbol, transaction_date DESC, id DESC);
+
+-- Id sequences; MySQL has none, so Hibernate keeps each in a one-row table and takes 50 ids at a time
+CREATE TABLE account_seq (next_val BIGINT);
+INSERT INTO account_seq VALUES (1);
+CREATE TABLE holding_seq (next_val BIGINT);
+INSERT INTO holding_seq VALUES (1);
+CREATE TABLE transaction_seq (next_val BIGINT);
+INSERT INTO transaction_seq VALUES (1);
+CREATE TABLE dead_letter_trade_seq (next_val BIGINT);
+INSERT INTO dead_letter_trade_seq VALUES (1);
@@ -0,0 +1,136 @@
+package com.example.cryptotradingplatform.controller;
+
+import com.example.cryptotradingplatform.engine.ExecutionEngine;
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.model.BatchMode;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.service.AccountCache;
+import com.example.cryptotradingplatform.service.AccountService;
+import com.example.cryptotradingplatform.service.PortfolioService;
+import com.example.cryptotradingplatform.service.TransactionHistoryService;
+import com.example.cryptotradingplatform.wire.SbeCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AccountControllerTest {
+
+    private final AccountService accountService = mock(AccountService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new AccountController(accountService, Optional.empty(),
+                mock(PortfolioService.class), mock(TransactionHistoryService.class))).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitsABatchAndReportsEachTrade() throws Exception {
+        when(accountService.submitTrades(eq(7L), any(), eq(BatchMode.ATOMIC))).thenReturn(List.of(
+                TradeResult.notExecuted(0),
+                TradeResult.rejected(1, "Insufficient balance to complete the purchase.")));
+
+        MvcResult result = mockMvc.perform(post("/api/account/trades").param("accountId", "7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"type\":\"SELL\",\"cryptoSymbol\":\"BTC/USD\",\"quantity\":0.5,\"pricePerUnit\":28000},"
+                                + "{\"type\":\"BUY\",\"cryptoSymbol\":\"ETH/USD\",\"quantity\":100,\"pricePerUnit\":3000.25}]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].status").value("NOT_EXECUTED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].message").value("Insufficient balance to complete the purchase."));
+
+        ArgumentCaptor<List<TradeRequest>> trades = ArgumentCaptor.forClass(List.class);
+        verify(accountService).submitTrades(eq(7L), trades.capture(), eq(BatchMode.ATOMIC));
+        assertThat(trades.getValue()).hasSize(2);
+        assertThat(trades.getValue().get(0).getType()).isEqualTo(TransactionType.SELL);
+        assertThat(trades.getValue().get(1).getPricePerUnit()).isEqualByComparingTo(new BigDecimal("3000.25"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void takesABinaryBatchAndAnswersInKind() throws Exception {
+        when(accountService.submitTrades(eq(7L), any(), eq(BatchMode.BEST_EFFORT))).thenReturn(List.of(
+                TradeResult.executed(0, "Sale successful!")));
+
+        MvcResult result = mockMvc.perform(post("/api/account/trades").param("accountId", "7")
+                        .param("mode", "BEST_EFFORT")
+                        .contentType(SbeCodec.MEDIA_TYPE)
+                        .accept(SbeCodec.MEDIA_TYPE)
+                        .content(SbeCodec.encodeTrades(List.of(new TradeRequest(TransactionType.SELL, "BTC/USD",
+                                new BigDecimal("0.5"), new BigDecimal("28000"))))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SbeCodec.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(SbeCodec.decodeTradeResults(body)).singleElement()
+                .satisfies(trade -> assertThat(trade.getMessage()).isEqualTo("Sale successful!"));
+        ArgumentCaptor<List<TradeRequest>> trades = ArgumentCaptor.forClass(List.class);
+        verify(accountService).submitTrades(eq(7L), trades.capture(), eq(BatchMode.BEST_EFFORT));
+        assertThat(trades.getValue().get(0).getQuantity()).isEqualByComparingTo("0.5");
+
+        MvcResult malformed = mockMvc.perform(post("/api/account/trades").param("accountId", "7")
+                        .contentType(SbeCodec.MEDIA_TYPE)
+                        .accept(SbeCodec.MEDIA_TYPE)
+                        .content(new byte[]{1, 2, 3}))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(malformed))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void refusesEmptyAndOversizedBatchesOnEveryPath() throws Exception {
+        AccountService limited = new AccountService(mock(AccountCache.class), mock(MarketPricer.class),
+                new SimpleMeterRegistry(), 2);
+        ExecutionEngine executionEngine = mock(ExecutionEngine.class);
+        String trade = "{\"type\":\"BUY\",\"cryptoSymbol\":\"BTC\",\"quantity\":1}";
+        byte[] threeTrades = SbeCodec.encodeTrades(List.of(
+                new TradeRequest(TransactionType.BUY, "BTC", BigDecimal.ONE, null),
+                new TradeRequest(TransactionType.BUY, "BTC", BigDecimal.ONE, null),
+                new TradeRequest(TransactionType.BUY, "BTC", BigDecimal.ONE, null)));
+
+        for (Optional<ExecutionEngine> engine : List.of(Optional.<ExecutionEngine>empty(), Optional.of(executionEngine))) {
+            MockMvc limitedMvc = MockMvcBuilders.standaloneSetup(new AccountController(limited, engine,
+                    mock(PortfolioService.class), mock(TransactionHistoryService.class))).build();
+
+            limitedMvc.perform(post("/api/account/trades").param("accountId", "7")
+                            .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                    .andExpect(status().isBadRequest());
+            limitedMvc.perform(post("/api/account/trades").param("accountId", "7")
+                            .contentType(MediaType.APPLICATION_JSON).content("[" + trade + "," + trade + "," + trade + "]"))
+                    .andExpect(status().isBadRequest());
+            limitedMvc.perform(post("/api/account/trades").param("accountId", "7")
+                            .contentType(SbeCodec.MEDIA_TYPE).accept(SbeCodec.MEDIA_TYPE).content(threeTrades))
+                    .andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(executionEngine);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.cryptotradingplatform.controller;
+
+import com.example.cryptotradingplatform.marketdata.CandleAggregator;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.marketdata.PriceMerger;
+import com.example.cryptotradingplatform.marketdata.PriceSnapshotCache;
+import com.example.cryptotradingplatform.marketdata.VenueFeed;
+import com.example.cryptotradingplatform.service.CryptoService;
+import com.example.cryptotradingplatform.wire.SbeCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class CryptoControllerTest {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final PriceSnapshotCache snapshots = new PriceSnapshotCache(priceBook);
+    private final PriceMerger merger = new PriceMerger(priceBook, List.of(), new SimpleMeterRegistry(), 5000);
+    private final CandleAggregator candles = new CandleAggregator(priceBook, 60);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        CryptoService cryptoService = new CryptoService(priceBook, snapshots, merger, candles, Optional.empty());
+        mockMvc = MockMvcBuilders.standaloneSetup(new CryptoController(cryptoService)).build();
+    }
+
+    @Test
+    void servesSnapshotWithEtagAndHonoursIfNoneMatch() throws Exception {
+        priceBook.update(priceBook.idOf("BTC/USD"), 27999.0, 28001.0, 28000.0, 5.0, 1L);
+        String etag = snapshots.get().getEtag();
+
+        mockMvc.perform(get("/api/cryptos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().json("{\"BTC/USD\": 28000.0}"));
+
+        mockMvc.perform(get("/api/cryptos").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        priceBook.update(priceBook.idOf("BTC/USD"), 28000.0, 28002.0, 28001.0, 5.0, 2L);
+
+        mockMvc.perform(get("/api/cryptos").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"BTC/USD\": 28001.0}"));
+    }
+
+    @Test
+    void servesTheBinarySnapshotOnlyToClientsThatAskForIt() throws Exception {
+        priceBook.update(priceBook.idOf("BTC/USD"), 27999.0, 28001.0, 28000.0, 5.0, 1L);
+        String etag = snapshots.get().getSbeEtag();
+
+        byte[] body = mockMvc.perform(get("/api/cryptos").header("Accept", SbeCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SbeCodec.MEDIA_TYPE))
+                .andExpect(header().string("ETag", etag))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+        Map<String, Double> prices = new HashMap<>();
+        SbeCodec.decodePrices(body, (message, offset, length, last) ->
+                prices.put(new String(message, offset, length, StandardCharsets.UTF_8), last));
+        assertThat(prices).containsExactly(Map.entry("BTC/USD", 28000.0));
+
+        mockMvc.perform(get("/api/cryptos").header("Accept", SbeCodec.MEDIA_TYPE).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/cryptos").header("Accept", "*/*"))
+                .andExpect(content().contentType("application/json"))
+                .andExpect(content().json("{\"BTC/USD\": 28000.0}"));
+        mockMvc.perform(get("/api/cryptos"))
+                .andExpect(content().contentType("application/json"));
+    }
+
+    @Test
+    void servesCandlesByPairAndInterval() throws Exception {
+        int btc = priceBook.idOf("BTC/USD");
+        candles.onPriceUpdate(btc, 0, 0, 28000.0, 5.0, 120_000);
+        candles.onPriceUpdate(btc, 0, 0, 28010.0, 6.0, 150_000);
+        candles.onPriceUpdate(btc, 0, 0, 27990.0, 6.5, 185_000);
+
+        mockMvc.perform(get("/api/cryptos/BTC-USD/candles").param("interval", "1m"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"start\":120000,\"open\":28000.0,\"high\":28010.0,\"low\":28000.0,"
+                        + "\"close\":28010.0,\"volume\":1.0,\"ticks\":2},{\"start\":180000,\"open\":27990.0,"
+                        + "\"close\":27990.0,\"volume\":0.5,\"ticks\":1}]"));
+
+        mockMvc.perform(get("/api/cryptos/BTC/candles").param("interval", "1m").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/api/cryptos/BTC-USD/candles").param("interval", "2m"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/cryptos/NOPE-USD/candles"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void servesTheConsolidatedPriceAndEachVenueBehindIt() throws Exception {
+        VenueFeed kraken = merger.register("kraken");
+        VenueFeed other = merger.register("other");
+        int btc = priceBook.idOf("BTC/USD");
+        long now = System.currentTimeMillis();
+        kraken.update(btc, 27999.0, 28001.0, 28000.0, 5.0, now - 10);
+        other.update(btc, 27998.0, 28000.5, 27999.5, 2.0, now);
+
+        mockMvc.perform(get("/api/cryptos"))
+                .andExpect(content().json("{\"BTC/USD\": 27999.5}"));
+        mockMvc.perform(get("/api/cryptos/BTC-USD/venues"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].venue").value("kraken"))
+                .andExpect(jsonPath("$[0].bid").value(27999.0))
+                .andExpect(jsonPath("$[0].included").value(true))
+                .andExpect(jsonPath("$[1].venue").value("other"))
+                .andExpect(jsonPath("$[1].ask").value(28000.5));
+
+        other.markStale(btc, now + 1);
+
+        mockMvc.perform(get("/api/cryptos/BTC-USD/venues"))
+                .andExpect(jsonPath("$[1].included").value(false))
+                .andExpect(jsonPath("$[1].staleSince").value(now + 1));
+        mockMvc.perform(get("/api/cryptos"))
+                .andExpect(content().json("{\"BTC/USD\": 28000.0}"));
+        mockMvc.perform(get("/api/cryptos/NOPE-USD/venues"))
+                .andExpect(status().isNotFound());
+    }
+}
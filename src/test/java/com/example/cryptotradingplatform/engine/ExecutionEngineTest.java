@@ -0,0 +1,188 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.exception.InsufficientBalanceException;
+import com.example.cryptotradingplatform.exception.InsufficientHoldingException;
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.BatchMode;
+import com.example.cryptotradingplatform.model.Holding;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ExecutionEngineTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final HoldingRepository holdingRepository = mock(HoldingRepository.class);
+    private final List<TradeEvent> journal = new ArrayList<>();
+    private volatile boolean failNextAppend;
+    private ExecutionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        Account account = new Account();
+        account.setId(1L);
+        account.setBalance(Amount.of(new BigDecimal("8000")));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findById(2L)).thenReturn(Optional.empty());
+        when(holdingRepository.findByAccountId(1L)).thenReturn(List.of(new Holding(account, "ETH/USD", Amount.of(new BigDecimal("2.0")))));
+
+        TradeJournal recording = (shard, event) -> {
+            if (failNextAppend) {
+                failNextAppend = false;
+                throw new IllegalStateException("Journal segment could not be mapped.");
+            }
+            synchronized (journal) {
+                journal.add(event);
+            }
+            return 0;
+        };
+        engine = new ExecutionEngine(accountRepository, holdingRepository, recording,
+                new MarketPricer(new PriceBook(), new SimpleMeterRegistry(), false, 5000, 50), 2, 64);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void concurrentBuysOnOneAccountNeverLoseUpdates() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        List<Future<?>> producers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            producers.add(clients.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    CompletableFuture<String> result = engine.buyCrypto(1L, "BTC/USD", BigDecimal.ONE, BigDecimal.ONE);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            }));
+        }
+        for (Future<?> producer : producers) {
+            producer.get();
+        }
+        clients.shutdown();
+        for (CompletableFuture<String> result : results) {
+            assertThat(result.join()).isEqualTo("Purchase successful!");
+        }
+
+        assertThatThrownBy(() -> engine.buyCrypto(1L, "BTC/USD", BigDecimal.ONE, BigDecimal.ONE).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(InsufficientBalanceException.class);
+
+        engine.stop();
+        assertThat(journal).hasSize(8000);
+        TradeEvent last = journal.get(journal.size() - 1);
+        assertThat(last.getBalanceAfter()).isZero();
+        assertThat(last.getHoldingAfter()).isEqualTo(8000_00000000L);
+        verify(accountRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void sellsAgainstLoadedHoldingsAndRejectsInvalidTrades() {
+        BigDecimal price = new BigDecimal("1500");
+        assertThat(engine.sellCrypto(1L, "ETH/USD", new BigDecimal("2"), price).join()).isEqualTo("Sale successful!");
+        assertThatThrownBy(() -> engine.sellCrypto(1L, "ETH/USD", BigDecimal.ONE, price).join())
+                .hasCauseInstanceOf(InsufficientHoldingException.class);
+        assertThatThrownBy(() -> engine.buyCrypto(2L, "ETH/USD", BigDecimal.ONE, price).join())
+                .hasCauseInstanceOf(AccountNotFoundException.class);
+        assertThatThrownBy(() -> engine.buyCrypto(1L, "ETH/USD", BigDecimal.ZERO, price))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> engine.buyCrypto(1L, "BTC/USD", new BigDecimal("0.000000001"), price))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Quantity has more decimal places than BTC/USD supports.");
+
+        engine.stop();
+        assertThat(journal).singleElement().satisfies(event -> {
+            assertThat(event.getBalanceAfter()).isEqualTo(11000_00000000L);
+            assertThat(event.getHoldingAfter()).isZero();
+            assertThat(event.getQuantityScale()).isEqualTo(12);
+        });
+    }
+
+    @Test
+    void leavesTheAccountUntouchedWhenTheJournalRefusesATrade() {
+        BigDecimal price = new BigDecimal("1000");
+        failNextAppend = true;
+        assertThatThrownBy(() -> engine.buyCrypto(1L, "BTC/USD", BigDecimal.ONE, price).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(engine.buyCrypto(1L, "BTC/USD", BigDecimal.ONE, price).join()).isEqualTo("Purchase successful!");
+
+        engine.stop();
+        assertThat(journal).singleElement().satisfies(event -> {
+            assertThat(event.getBalanceAfter()).isEqualTo(7000_00000000L);
+            assertThat(event.getHoldingAfter()).isEqualTo(1_00000000L);
+        });
+    }
+
+    @Test
+    void executesAnAtomicBatchInOrderAndJournalsAllOfIt() {
+        BigDecimal price = new BigDecimal("1000");
+        List<TradeResult> results = engine.submitTrades(1L, List.of(
+                new TradeRequest(TransactionType.BUY, "BTC/USD", BigDecimal.ONE, price),
+                new TradeRequest(TransactionType.SELL, "BTC/USD", BigDecimal.ONE, new BigDecimal("1500")),
+                new TradeRequest(TransactionType.SELL, "ETH/USD", BigDecimal.ONE, price)), BatchMode.ATOMIC).join();
+
+        assertThat(results).extracting(TradeResult::getStatus).containsOnly(TradeResult.Status.EXECUTED);
+        engine.stop();
+        assertThat(journal).extracting(TradeEvent::getBalanceAfter)
+                .containsExactly(7000_00000000L, 8500_00000000L, 9500_00000000L);
+    }
+
+    @Test
+    void rejectsAWholeAtomicBatchWithoutTouchingTheAccount() {
+        BigDecimal price = new BigDecimal("1000");
+        List<TradeResult> results = engine.submitTrades(1L, List.of(
+                new TradeRequest(TransactionType.BUY, "BTC/USD", BigDecimal.ONE, price),
+                new TradeRequest(TransactionType.BUY, "BTC/USD", new BigDecimal("8"), price)), BatchMode.ATOMIC).join();
+
+        assertThat(results).extracting(TradeResult::getStatus)
+                .containsExactly(TradeResult.Status.NOT_EXECUTED, TradeResult.Status.REJECTED);
+        assertThat(results.get(1).getMessage()).isEqualTo("Insufficient balance to complete the purchase.");
+        // The first trade only ran on a scratch copy, so the whole balance is still there.
+        assertThat(engine.buyCrypto(1L, "BTC/USD", new BigDecimal("8"), price).join()).isEqualTo("Purchase successful!");
+        engine.stop();
+        assertThat(journal).singleElement().satisfies(event -> assertThat(event.getBalanceAfter()).isZero());
+    }
+
+    @Test
+    void sellingEverythingLeavesNoDust() {
+        BigDecimal price = new BigDecimal("0.1");
+        for (int i = 0; i < 3; i++) {
+            assertThat(engine.buyCrypto(1L, "BTC/USD", new BigDecimal("0.1"), price).join()).isEqualTo("Purchase successful!");
+        }
+        assertThat(engine.sellCrypto(1L, "BTC/USD", new BigDecimal("0.3"), price).join()).isEqualTo("Sale successful!");
+
+        engine.stop();
+        TradeEvent last = journal.get(journal.size() - 1);
+        assertThat(last.getHoldingAfter()).isZero();
+        assertThat(last.getBalanceAfter()).isEqualTo(8000_00000000L);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class MappedTradeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final HoldingRepository holdingRepository = mock(HoldingRepository.class);
+    private final TradeEventProjection projection = mock(TradeEventProjection.class);
+    private final List<TradeEvent> projected = new CopyOnWriteArrayList<>();
+    private final List<TradeEvent> deadLettered = new CopyOnWriteArrayList<>();
+    private final Map<Integer, Long> checkpoints = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        Account account = new Account();
+        account.setId(7L);
+        account.setBalance(Amount.of(new BigDecimal("1000")));
+        when(accountRepository.findById(7L)).thenReturn(Optional.of(account));
+        when(accountRepository.findById(8L)).thenReturn(Optional.empty());
+        when(holdingRepository.findByAccountId(anyLong())).thenReturn(List.of());
+        // Stands in for the database: trades of account 8 are refused, as if the account had been deleted.
+        when(projection.checkpoint(anyInt())).thenAnswer(invocation ->
+                checkpoints.containsKey(invocation.<Integer>getArgument(0))
+                        ? OptionalLong.of(checkpoints.get(invocation.<Integer>getArgument(0))) : OptionalLong.empty());
+        when(projection.write(anyInt(), anyLong(), anyLong(), anyList())).thenAnswer(invocation -> {
+            List<TradeEvent> batch = invocation.getArgument(3);
+            if (batch.stream().anyMatch(event -> event.getAccountId() == 8L)) {
+                return false;
+            }
+            projected.addAll(batch);
+            checkpoints.put(invocation.getArgument(0), invocation.getArgument(2));
+            return true;
+        });
+        when(projection.writeOrDeadLetter(anyInt(), anyLong(), anyLong(), anyList())).thenAnswer(invocation -> {
+            List<TradeEvent> batch = invocation.getArgument(3);
+            boolean refused = batch.get(0).getAccountId() == 8L;
+            (refused ? deadLettered : projected).addAll(batch);
+            checkpoints.put(invocation.getArgument(0), invocation.getArgument(2));
+            return refused ? TradeEventProjection.WriteOutcome.DEAD_LETTERED : TradeEventProjection.WriteOutcome.WRITTEN;
+        });
+    }
+
+    @Test
+    void restartRecoversAccountsFromSnapshotAndJournalTail() {
+        MappedTradeJournal journal = journal(3);
+        ExecutionEngine engine = engine(journal);
+        for (int i = 0; i < 5; i++) {
+            assertThat(engine.buyCrypto(7L, "BTC/USD", BigDecimal.ONE, new BigDecimal("100")).join()).isEqualTo("Purchase successful!");
+        }
+        engine.stop();
+        journal.stop();
+        assertThat(projected).hasSize(5);
+        assertThat(projected.get(4).getBalanceAfter()).isEqualTo(500_00000000L);
+
+        // The restarted engine must not need the database for account 7 any more.
+        when(accountRepository.findById(7L)).thenReturn(Optional.empty());
+        MappedTradeJournal restartedJournal = journal(3);
+        ExecutionEngine restarted = engine(restartedJournal);
+        assertThat(restarted.sellCrypto(7L, "BTC/USD", new BigDecimal("5"), new BigDecimal("100")).join()).isEqualTo("Sale successful!");
+        assertThat(restarted.buyCrypto(7L, "BTC/USD", new BigDecimal("11"), new BigDecimal("100")))
+                .failsWithin(java.time.Duration.ofSeconds(5));
+        restarted.stop();
+        restartedJournal.stop();
+
+        assertThat(projected).hasSize(6);
+        assertThat(projected.get(5).getType()).isEqualTo(TransactionType.SELL);
+        assertThat(projected.get(5).getBalanceAfter()).isEqualTo(1000_00000000L);
+    }
+
+    @Test
+    void ignoresTornTailAndRefusesDifferentShardCount() throws IOException {
+        MappedTradeJournal journal = journal(1000);
+        journal.start();
+        journal.append(0, event(900));
+        journal.append(0, event(800));
+        journal.stop();
+
+        // Corrupt the second record as if the process died halfway through writing it.
+        Path segment;
+        try (Stream<Path> files = Files.list(directory.resolve("shard-0"))) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{1, 2, 3}), JournalRecord.SIZE + 40);
+        }
+        // A torn record was never durable, so the database cannot have projected it.
+        checkpoints.computeIfPresent(0, (shard, position) -> Math.min(position, JournalRecord.SIZE));
+
+        MappedTradeJournal reopened = journal(1000);
+        reopened.start();
+        List<TradeEvent> replayed = new ArrayList<>();
+        reopened.recover(0, snapshot -> { }, replayed::add);
+        reopened.stop();
+        assertThat(replayed).extracting(TradeEvent::getBalanceAfter).containsExactly(900L);
+
+        MappedTradeJournal resharded = new MappedTradeJournal(projection, directory.toString(), 4, 1,
+                MappedTradeJournal.FsyncPolicy.BATCH, 10, 1000, 16);
+        assertThatThrownBy(resharded::start).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void deadLettersARefusedRecordAndProjectsTheRestOfItsBatch() throws InterruptedException {
+        MappedTradeJournal journal = journal(1000);
+        journal.start();
+        journal.append(0, event(7L, 900));
+        journal.append(0, event(8L, 800));
+        journal.append(0, event(7L, 700));
+        // Stopping only projects what is durable, so let the flusher cover all three first.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.durablePosition(0) < 3L * JournalRecord.SIZE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        journal.stop();
+
+        assertThat(projected).extracting(TradeEvent::getBalanceAfter).containsExactly(900L, 700L);
+        assertThat(deadLettered).extracting(TradeEvent::getAccountId).containsExactly(8L);
+        assertThat(checkpoints).containsEntry(0, 3L * JournalRecord.SIZE);
+    }
+
+    @Test
+    void refusesToStartWhenTheDatabaseIsAheadOfTheJournal() {
+        checkpoints.put(0, 5L * JournalRecord.SIZE);
+
+        assertThatThrownBy(journal(1000)::start).isInstanceOf(IllegalStateException.class);
+    }
+
+    private MappedTradeJournal journal(long snapshotInterval) {
+        return new MappedTradeJournal(projection, directory.toString(), 2, 1,
+                MappedTradeJournal.FsyncPolicy.BATCH, 10, snapshotInterval, 16);
+    }
+
+    private ExecutionEngine engine(MappedTradeJournal journal) {
+        journal.start();
+        ExecutionEngine engine = new ExecutionEngine(accountRepository, holdingRepository, journal,
+                new MarketPricer(new PriceBook(), new SimpleMeterRegistry(), false, 5000, 50), 2, 64);
+        engine.start();
+        return engine;
+    }
+
+    private static TradeEvent event(long balanceAfter) {
+        return event(7L, balanceAfter);
+    }
+
+    private static TradeEvent event(long accountId, long balanceAfter) {
+        return new TradeEvent(accountId, "ETH/USD", TransactionType.BUY, 12, 1, 100, 100, balanceAfter, 1, 1L);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.cryptotradingplatform.engine;
+
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.DeadLetterTrade;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.DeadLetterTradeRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import com.example.cryptotradingplatform.repository.ProjectionCheckpointRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the database: the projection commits its own transactions, so the tests do not wrap them in one.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TradeEventProjectionTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private HoldingRepository holdingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ProjectionCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private DeadLetterTradeRepository deadLetterRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TradeEventProjection projection;
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() {
+        projection = new TradeEventProjection(accountRepository, holdingRepository, transactionRepository,
+                checkpointRepository, deadLetterRepository, new TransactionTemplate(transactionManager), List.of());
+        accountId = accountRepository.save(new Account(Amount.of(new BigDecimal("1000")), new Timestamp(0))).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        holdingRepository.deleteAll();
+        deadLetterRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void replayingABatchAfterACrashSkipsTheRecordsItsCheckpointCovers() throws InterruptedException {
+        TradeEvent first = buy(accountId, 900_00000000L, 1);
+        TradeEvent second = buy(accountId, 800_00000000L, 2);
+        TradeEvent third = buy(accountId, 700_00000000L, 3);
+        assertThat(projection.write(0, 0, 2L * JournalRecord.SIZE, List.of(first, second))).isTrue();
+
+        // The process died before remembering the position anywhere else, so the projector starts over at 0.
+        assertThat(projection.write(0, 0, 3L * JournalRecord.SIZE, List.of(first, second, third))).isTrue();
+        assertThat(projection.write(0, 0, 3L * JournalRecord.SIZE, List.of(first, second, third))).isTrue();
+
+        assertThat(transactionRepository.count()).isEqualTo(3);
+        assertThat(projection.checkpoint(0)).hasValue(3L * JournalRecord.SIZE);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getBalance())
+                .isEqualTo(Amount.of(new BigDecimal("700")));
+    }
+
+    @Test
+    void deadLettersARecordWhoseAccountIsGoneAndMovesItsCheckpointPast() throws InterruptedException {
+        TradeEvent orphan = buy(accountId + 1000, 900_00000000L, 1);
+        assertThat(projection.write(1, 0, JournalRecord.SIZE, List.of(orphan))).isFalse();
+        assertThat(projection.checkpoint(1)).isEmpty();
+
+        assertThat(projection.writeOrDeadLetter(1, 0, JournalRecord.SIZE, List.of(orphan)))
+                .isEqualTo(TradeEventProjection.WriteOutcome.DEAD_LETTERED);
+
+        assertThat(transactionRepository.count()).isZero();
+        assertThat(projection.checkpoint(1)).hasValue(JournalRecord.SIZE);
+        List<DeadLetterTrade> deadLetters = deadLetterRepository.findAll();
+        assertThat(deadLetters).singleElement().satisfies(deadLetter -> {
+            assertThat(deadLetter.getAccountId()).isEqualTo(accountId + 1000);
+            assertThat(deadLetter.getShard()).isEqualTo(1);
+            assertThat(deadLetter.getJournalPosition()).isZero();
+            assertThat(deadLetter.getBalanceAfter()).isEqualTo(900_00000000L);
+            assertThat(deadLetter.getError()).isNotBlank();
+        });
+    }
+
+    @Test
+    void deadLettersAGroupWhoseAccountIsGoneWithoutWritingAnyOfIt() throws InterruptedException {
+        List<TradeEvent> group = List.of(buy(accountId, 900_00000000L, 1), buy(accountId + 1000, 900_00000000L, 1));
+
+        assertThat(projection.writeOrDeadLetter(group)).isEqualTo(TradeEventProjection.WriteOutcome.DEAD_LETTERED);
+
+        assertThat(transactionRepository.count()).isZero();
+        assertThat(deadLetterRepository.findAll()).extracting(DeadLetterTrade::getAccountId)
+                .containsExactlyInAnyOrder(accountId, accountId + 1000);
+        assertThat(deadLetterRepository.findAll()).allSatisfy(deadLetter -> assertThat(deadLetter.getShard()).isNull());
+    }
+
+    private static TradeEvent buy(long accountId, long balanceAfter, long holdingAfter) {
+        return new TradeEvent(accountId, "BTC", TransactionType.BUY, 8, 1, 100_00000000L, 100_00000000L,
+                balanceAfter, holdingAfter, 1_000L);
+    }
+}
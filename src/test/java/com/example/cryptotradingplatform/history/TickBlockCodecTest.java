@@ -0,0 +1,79 @@
+package com.example.cryptotradingplatform.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickBlockCodecTest {
+
+    @Test
+    void roundTripsArbitraryValues() {
+        Random random = new Random(7);
+        TickBlock block = new TickBlock(1000);
+        long timestamp = -5_000;
+        for (int i = 0; i < block.capacity(); i++) {
+            timestamp += random.nextInt(3) == 0 ? -random.nextInt(50) : random.nextInt(100_000);
+            block.add(timestamp, random.nextDouble() * 1e6, i % 7 == 0 ? Double.NaN : -random.nextDouble(),
+                    random.nextBoolean() ? 0.0 : Double.longBitsToDouble(random.nextLong()), i);
+        }
+
+        TickBlock decoded = roundTrip(block);
+
+        assertThat(decoded.count).isEqualTo(block.count);
+        for (int i = 0; i < block.count; i++) {
+            assertThat(decoded.timestamps[i]).isEqualTo(block.timestamps[i]);
+            assertThat(Double.doubleToRawLongBits(decoded.bids[i])).isEqualTo(Double.doubleToRawLongBits(block.bids[i]));
+            assertThat(Double.doubleToRawLongBits(decoded.asks[i])).isEqualTo(Double.doubleToRawLongBits(block.asks[i]));
+            assertThat(Double.doubleToRawLongBits(decoded.lasts[i])).isEqualTo(Double.doubleToRawLongBits(block.lasts[i]));
+            assertThat(decoded.volumes[i]).isEqualTo(block.volumes[i]);
+        }
+    }
+
+    @Test
+    void compressesTickerLikeSeries() {
+        TickBlock block = new TickBlock(1024);
+        double price = 67341.4;
+        double volume = 1543.66;
+        for (int i = 0; i < block.capacity(); i++) {
+            if (i % 3 == 0) {
+                price += 0.1;
+                volume += 0.02;
+            }
+            block.add(1_700_000_000_000L + i * 250L, price - 0.1, price, price, volume);
+        }
+        byte[] encoded = new byte[TickBlockCodec.maxEncodedSize(block.capacity())];
+
+        int length = TickBlockCodec.encode(block, encoded);
+
+        // 40 raw bytes per tick.
+        assertThat(length).isLessThan(block.count * 40 / 3);
+        assertThat(roundTrip(block).lasts[1023]).isEqualTo(price);
+    }
+
+    @Test
+    void encodesASingleTick() {
+        TickBlock block = new TickBlock(4);
+        block.add(42, 1.5, 2.5, 2.0, 10);
+
+        TickBlock decoded = roundTrip(block);
+
+        assertThat(decoded.count).isEqualTo(1);
+        assertThat(decoded.timestamps[0]).isEqualTo(42);
+        assertThat(decoded.lasts[0]).isEqualTo(2.0);
+    }
+
+    private static TickBlock roundTrip(TickBlock block) {
+        byte[] encoded = new byte[TickBlockCodec.maxEncodedSize(block.capacity())];
+        int length = TickBlockCodec.encode(block, encoded);
+        // Decode at an offset, as blocks sit after others in a file.
+        ByteBuffer buffer = ByteBuffer.allocate(length + 10);
+        buffer.put(10, encoded, 0, length);
+        assertThat(TickBlockCodec.length(buffer, 10)).isEqualTo(length);
+        TickBlock decoded = new TickBlock(block.capacity());
+        TickBlockCodec.decode(buffer, 10, decoded);
+        return decoded;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.cryptotradingplatform.history;
+
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TickHistoryStoreTest {
+
+    private static final long DAY = 86_400_000L;
+    private static final long MIDNIGHT = 19_700 * DAY;
+
+    @TempDir
+    Path directory;
+
+    private final PriceBook priceBook = new PriceBook(List.of("BTC/USD", "ETH/USD"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void storesTicksPerPairAndDayAndScansRanges() {
+        TickHistoryStore store = store(10_000);
+        store.start();
+        // Ten ticks a second for an hour either side of midnight.
+        int offered = 0;
+        for (long t = MIDNIGHT - 3_600_000; t < MIDNIGHT + 3_600_000; t += 100) {
+            double price = 60_000 + (t / 1000) % 100;
+            store.onPriceUpdate(0, price - 1, price + 1, price, 1000, t);
+            store.onPriceUpdate(1, 3000, 3001, 3000.5, 50, t);
+            offered += 2;
+            if (offered % 4000 == 0) {
+                // Let the writer keep up with the 8192-tick rings; up to a block per pair may still be open.
+                awaitWritten(offered - 2 * 1024);
+            }
+        }
+        store.stop();
+
+        assertThat(Files.exists(directory.resolve("BTC-USD").resolve("2023-12-08.ticks"))).isTrue();
+        assertThat(Files.exists(directory.resolve("BTC-USD").resolve("2023-12-09.ticks"))).isTrue();
+        assertThat(meterRegistry.get("trading.history.ticks").counter().count()).isEqualTo(144_000);
+        assertThat(meterRegistry.get("trading.history.dropped").counter().count()).isZero();
+
+        List<Long> timestamps = new ArrayList<>();
+        int fed = store.scan(0, MIDNIGHT - 1000, MIDNIGHT + 1000, 1000,
+                (timestamp, bid, ask, last, volume) -> timestamps.add(timestamp));
+        assertThat(fed).isEqualTo(21);
+        assertThat(timestamps).first().isEqualTo(MIDNIGHT - 1000);
+        assertThat(timestamps).last().isEqualTo(MIDNIGHT + 1000);
+        assertThat(timestamps).isSorted();
+
+        List<Double> lasts = new ArrayList<>();
+        store.scan(1, MIDNIGHT - 3_600_000, MIDNIGHT + 3_600_000, 5, (timestamp, bid, ask, last, volume) -> lasts.add(last));
+        assertThat(lasts).containsExactly(3000.5, 3000.5, 3000.5, 3000.5, 3000.5);
+        assertThat(store.scan(0, MIDNIGHT + 7_200_000, MIDNIGHT + 8_000_000, 10, (t, b, a, l, v) -> { })).isZero();
+        // Read again from the cached mappings of the closed days.
+        assertThat(store.scan(0, MIDNIGHT - 1000, MIDNIGHT + 1000, 1000, (t, b, a, l, v) -> { })).isEqualTo(21);
+    }
+
+    @Test
+    void refusesRangesSpanningTooManyDays() {
+        TickHistoryStore store = store(10);
+
+        assertThat(store.scan(0, MIDNIGHT, MIDNIGHT + 31 * DAY - 1, 10, (t, b, a, l, v) -> { })).isZero();
+        assertThatThrownBy(() -> store.scan(0, MIDNIGHT, MIDNIGHT + 31 * DAY, 10, (t, b, a, l, v) -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.scan(0, 0, 9_000_000_000_000_000_000L, 10, (t, b, a, l, v) -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void appendsToTheDaysFileAfterARestart() {
+        TickHistoryStore first = store(10);
+        first.start();
+        first.onPriceUpdate(0, 1, 2, 1.5, 10, MIDNIGHT + 1);
+        first.stop();
+
+        TickHistoryStore second = store(10);
+        second.start();
+        second.onPriceUpdate(0, 2, 3, 2.5, 11, MIDNIGHT + 2);
+        awaitWritten(2);
+
+        List<Double> lasts = new ArrayList<>();
+        second.scan(0, MIDNIGHT, MIDNIGHT + DAY - 1, 100, (timestamp, bid, ask, last, volume) -> lasts.add(last));
+        second.stop();
+        assertThat(lasts).containsExactly(1.5, 2.5);
+    }
+
+    private TickHistoryStore store(long flushIntervalMillis) {
+        return new TickHistoryStore(priceBook, meterRegistry, directory.toString(), 8192, 1024, 1, flushIntervalMillis,
+                31);
+    }
+
+    private void awaitWritten(int ticks) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("trading.history.ticks").counter().count() < ticks) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
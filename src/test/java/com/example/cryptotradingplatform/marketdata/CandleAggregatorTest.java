@@ -0,0 +1,85 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CandleAggregatorTest {
+
+    private final PriceBook priceBook = new PriceBook(List.of("BTC/USD", "ETH/USD"));
+    private final CandleAggregator aggregator = new CandleAggregator(priceBook, 3);
+
+    @Test
+    void foldsTicksIntoCandlesOfEveryInterval() {
+        aggregator.onPriceUpdate(0, 0, 0, 100.0, 10.0, 60_000);
+        aggregator.onPriceUpdate(0, 0, 0, 105.0, 12.5, 60_400);
+        aggregator.onPriceUpdate(0, 0, 0, 98.0, 12.0, 61_200);
+        aggregator.onPriceUpdate(0, 0, 0, 101.0, 13.0, 61_900);
+
+        List<Candle> seconds = aggregator.candles(0, CandleInterval.SECOND_1, 10);
+        assertThat(seconds).extracting(Candle::getStart).containsExactly(60_000L, 61_000L);
+        assertCandle(seconds.get(0), 100.0, 105.0, 100.0, 105.0, 2.5, 2);
+        assertCandle(seconds.get(1), 98.0, 101.0, 98.0, 101.0, 1.0, 2);
+
+        List<Candle> minutes = aggregator.candles(0, CandleInterval.MINUTE_1, 10);
+        assertThat(minutes).hasSize(1);
+        assertThat(minutes.get(0).getStart()).isEqualTo(60_000L);
+        assertCandle(minutes.get(0), 100.0, 105.0, 98.0, 101.0, 3.5, 4);
+
+        assertThat(aggregator.candles(0, CandleInterval.HOUR_1, 10).get(0).getStart()).isZero();
+        assertThat(aggregator.candles(1, CandleInterval.SECOND_1, 10)).isEmpty();
+    }
+
+    @Test
+    void keepsOnlyTheLatestDepthCandles() {
+        for (long second = 0; second < 10; second++) {
+            aggregator.onPriceUpdate(1, 0, 0, 1000.0 + second, 0, second * 1000);
+        }
+
+        assertThat(aggregator.candles(1, CandleInterval.SECOND_1, 100))
+                .extracting(Candle::getClose).containsExactly(1007.0, 1008.0, 1009.0);
+        assertThat(aggregator.candles(1, CandleInterval.SECOND_1, 2))
+                .extracting(Candle::getStart).containsExactly(8000L, 9000L);
+        assertThatThrownBy(() -> aggregator.candles(1, CandleInterval.SECOND_1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void readersNeverSeeTornCandles() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (long i = 1; running.get(); i++) {
+                // Every candle's ticks are all the same price, so open, high, low and close must match.
+                aggregator.onPriceUpdate(0, 0, 0, i / 4 + 1, 0, i / 4 * 1000);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                for (Candle candle : aggregator.candles(0, CandleInterval.SECOND_1, 3)) {
+                    assertThat(candle.getHigh()).isEqualTo(candle.getOpen());
+                    assertThat(candle.getLow()).isEqualTo(candle.getOpen());
+                    assertThat(candle.getClose()).isEqualTo(candle.getOpen());
+                    assertThat(candle.getStart()).isEqualTo((long) (candle.getOpen() - 1) * 1000);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static void assertCandle(Candle candle, double open, double high, double low, double close,
+                                     double volume, long ticks) {
+        assertThat(candle.getOpen()).isEqualTo(open);
+        assertThat(candle.getHigh()).isEqualTo(high);
+        assertThat(candle.getLow()).isEqualTo(low);
+        assertThat(candle.getClose()).isEqualTo(close);
+        assertThat(candle.getVolume()).isEqualTo(volume);
+        assertThat(candle.getTicks()).isEqualTo(ticks);
+    }
+}
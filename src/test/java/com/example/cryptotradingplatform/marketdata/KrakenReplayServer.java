@@ -0,0 +1,166 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for the Kraken v2 WebSocket API. Replays recorded frames in a loop at a fixed rate,
+// sending ticker frames only to connections subscribed to their symbol, and answers each subscribe with
+// the latest frame of every requested symbol, as Kraken does with its snapshot. Can drop every
+// connection or go silent to exercise the client's recovery.
+final class KrakenReplayServer extends WebSocketServer {
+
+    private static final Pattern SYMBOL = Pattern.compile("\"symbol\":\"([^\"]+)\"");
+    private static final Pattern SYMBOL_LIST = Pattern.compile("\"symbol\":\\[([^]]*)]");
+
+    private final List<String> frames;
+    private final long frameIntervalMicros;
+    private final Map<WebSocket, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, String> latest = new ConcurrentHashMap<>();
+    private final List<Set<String>> subscribeRequests = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ScheduledExecutorService replay = Executors.newSingleThreadScheduledExecutor();
+    private volatile boolean silent;
+    private int next;
+
+    KrakenReplayServer(String recording, int framesPerSecond) throws IOException {
+        super(new InetSocketAddress("127.0.0.1", 0));
+        this.frames = load(recording);
+        this.frameIntervalMicros = 1_000_000L / framesPerSecond;
+        setReuseAddr(true);
+        for (String frame : frames) {
+            Matcher symbol = SYMBOL.matcher(frame);
+            if (symbol.find()) {
+                latest.putIfAbsent(symbol.group(1), frame);
+            }
+        }
+    }
+
+    //Starts listening and replaying; returns the URL to connect to.
+    String begin() throws InterruptedException {
+        start();
+        started.await(5, TimeUnit.SECONDS);
+        replay.scheduleAtFixedRate(this::sendNext, frameIntervalMicros, frameIntervalMicros, TimeUnit.MICROSECONDS);
+        return "ws://127.0.0.1:" + getPort();
+    }
+
+    void end() throws InterruptedException {
+        replay.shutdownNow();
+        stop(1000);
+    }
+
+    //Closes every connection without a close handshake, as a network failure would.
+    void dropConnections() {
+        for (WebSocket connection : getConnections()) {
+            connection.closeConnection(CloseFrame.ABNORMAL_CLOSE, "dropped");
+        }
+    }
+
+    //Stops sending anything, heartbeats included, while keeping connections open.
+    void setSilent(boolean silent) {
+        this.silent = silent;
+    }
+
+    //The symbols of every subscribe request received, in arrival order.
+    List<Set<String>> subscribeRequests() {
+        return subscribeRequests;
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket connection, ClientHandshake handshake) {
+        if (!silent) {
+            connection.send(frames.get(0));
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocket connection, String message) {
+        Matcher list = SYMBOL_LIST.matcher(message);
+        if (!message.contains("\"subscribe\"") || !list.find()) {
+            return;
+        }
+        Set<String> symbols = ConcurrentHashMap.newKeySet();
+        for (String symbol : list.group(1).split(",")) {
+            symbols.add(symbol.trim().replace("\"", ""));
+        }
+        subscribeRequests.add(Set.copyOf(symbols));
+        subscriptions.put(connection, symbols);
+        if (silent) {
+            return;
+        }
+        for (String symbol : symbols) {
+            connection.send("{\"method\":\"subscribe\",\"result\":{\"channel\":\"ticker\",\"symbol\":\"" + symbol
+                    + "\"},\"success\":true}");
+            String snapshot = latest.get(symbol);
+            if (snapshot != null) {
+                connection.send(snapshot.replace("\"type\":\"update\"", "\"type\":\"snapshot\""));
+            }
+        }
+    }
+
+    @Override
+    public void onClose(WebSocket connection, int code, String reason, boolean remote) {
+        subscriptions.remove(connection);
+    }
+
+    @Override
+    public void onError(WebSocket connection, Exception e) {
+    }
+
+    private void sendNext() {
+        String frame = frames.get(next);
+        next = (next + 1) % frames.size();
+        Matcher symbol = SYMBOL.matcher(frame);
+        String target = symbol.find() ? symbol.group(1) : null;
+        if (target != null) {
+            latest.put(target, frame);
+        }
+        if (silent) {
+            return;
+        }
+        for (Map.Entry<WebSocket, Set<String>> subscription : subscriptions.entrySet()) {
+            WebSocket connection = subscription.getKey();
+            if (connection.isOpen() && (target == null || subscription.getValue().contains(target))) {
+                connection.send(frame);
+            }
+        }
+    }
+
+    private static List<String> load(String recording) throws IOException {
+        try (InputStream in = KrakenReplayServer.class.getResourceAsStream(recording)) {
+            if (in == null) {
+                throw new IOException("No recording at " + recording);
+            }
+            List<String> frames = new ArrayList<>();
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isBlank()) {
+                    frames.add(line.trim());
+                }
+            }
+            return frames;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+class MarketDataClientTest {
+
+    private static final String RECORDING = "/marketdata/kraken-ticker-frames.txt";
+
+    private final PriceBook priceBook = new PriceBook(List.of("BTC/USD", "ETH/USD", "SOL/USD", "XRP/USD"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger notified = new AtomicInteger();
+    private final PriceMerger merger = new PriceMerger(priceBook,
+            List.of((pairId, bid, ask, last, volume, timestamp) -> notified.incrementAndGet()), meterRegistry, 5000);
+    private KrakenReplayServer server;
+    private MarketDataClient client;
+    private KrakenReplayServer otherServer;
+    private MarketDataClient otherClient;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (MarketDataClient started : new MarketDataClient[]{client, otherClient}) {
+            if (started != null) {
+                started.stop();
+            }
+        }
+        for (KrakenReplayServer begun : new KrakenReplayServer[]{server, otherServer}) {
+            if (begun != null) {
+                begun.end();
+            }
+        }
+    }
+
+    @Test
+    void splitsPairsAcrossSessionsAndFeedsTheBook() throws Exception {
+        start(5000, 100);
+        await(this::allLive);
+
+        assertThat(server.subscribeRequests()).containsExactlyInAnyOrder(
+                Set.of("BTC/USD", "SOL/USD"), Set.of("ETH/USD", "XRP/USD"));
+        assertThat(client.connectedSessions()).isEqualTo(2);
+        Quote quote = new Quote();
+        priceBook.read(priceBook.idOf("BTC/USD"), quote);
+        assertThat(quote.getLast()).isIn(67341.4, 67342.1);
+        assertThat(notified.get()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void marksPairsStaleAndResubscribesAfterADrop() throws Exception {
+        start(5000, 400);
+        await(this::allLive);
+
+        long dropped = System.currentTimeMillis();
+        server.dropConnections();
+        await(this::allStale);
+        Quote quote = new Quote();
+        priceBook.read(priceBook.idOf("ETH/USD"), quote);
+        assertThat(quote.getStaleSince()).isGreaterThanOrEqualTo(dropped);
+        assertThat(quote.getLast()).isPositive();
+
+        await(this::allLive);
+        assertThat(server.subscribeRequests()).hasSize(4);
+        assertThat(meterRegistry.get("marketdata.reconnects").tag("venue", "kraken").counter().count()).isEqualTo(2);
+        await(() -> client.connectedSessions() == 2);
+    }
+
+    @Test
+    void reconnectsWhenTheFeedGoesQuiet() throws Exception {
+        start(300, 50);
+        await(this::allLive);
+
+        server.setSilent(true);
+        await(this::allStale);
+        assertThat(meterRegistry.get("marketdata.heartbeat.timeouts").counter().count()).isGreaterThanOrEqualTo(2);
+
+        server.setSilent(false);
+        await(this::allLive);
+        assertThat(server.subscribeRequests().size()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void staysOutOfReadinessUntilEverySessionHasPrices() throws Exception {
+        start(5000, 100, true);
+        MarketDataHealthIndicator health = new MarketDataHealthIndicator(List.of(client));
+        await(() -> client.connectedSessions() == 2);
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        server.setSilent(false);
+        await(this::allLive);
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(health.health().getDetails()).containsEntry("primed", 2);
+
+        // A drop after the first prices leaves the instance in rotation.
+        server.dropConnections();
+        await(this::allStale);
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void keepsPricesLiveWhileAnyVenueIsAndGoesStaleWithTheLast() throws Exception {
+        start(5000, 60_000);
+        otherServer = new KrakenReplayServer(RECORDING, 200);
+        otherClient = new MarketDataClient(merger, meterRegistry, "other", otherServer.begin(), 1, 5000, 60_000, 60_000);
+        otherClient.start();
+        await(this::allLive);
+        await(() -> otherClient.primedSessions() == 1);
+        MarketDataHealthIndicator health = new MarketDataHealthIndicator(List.of(client, otherClient));
+        assertThat(health.health().getDetails()).containsEntry("sessions", 3);
+
+        // The venues' reconnects are put off for a minute, so each stays down once dropped.
+        otherServer.dropConnections();
+        await(() -> merger.venueQuotes(priceBook.idOf("BTC/USD")).stream().anyMatch(quote -> !quote.isIncluded()));
+        assertThat(allLive()).isTrue();
+        int notifiedBefore = notified.get();
+        Thread.sleep(50);
+        assertThat(notified.get()).isGreaterThan(notifiedBefore);
+
+        long dropped = System.currentTimeMillis();
+        server.dropConnections();
+        await(this::allStale);
+        Quote quote = new Quote();
+        priceBook.read(priceBook.idOf("SOL/USD"), quote);
+        assertThat(quote.getStaleSince()).isGreaterThanOrEqualTo(dropped);
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    private void start(long heartbeatTimeoutMillis, long initialBackoffMillis) throws Exception {
+        start(heartbeatTimeoutMillis, initialBackoffMillis, false);
+    }
+
+    private void start(long heartbeatTimeoutMillis, long initialBackoffMillis, boolean silent) throws Exception {
+        server = new KrakenReplayServer(RECORDING, 200);
+        String url = server.begin();
+        server.setSilent(silent);
+        client = new MarketDataClient(merger, meterRegistry, "kraken", url, 2,
+                heartbeatTimeoutMillis, initialBackoffMillis, Math.max(initialBackoffMillis, 1000));
+        client.start();
+    }
+
+    private boolean allLive() {
+        Quote quote = new Quote();
+        for (int id = 0; id < priceBook.size(); id++) {
+            if (!priceBook.read(id, quote) || quote.isStale()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean allStale() {
+        Quote quote = new Quote();
+        for (int id = 0; id < priceBook.size(); id++) {
+            if (!priceBook.read(id, quote) || !quote.isStale()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
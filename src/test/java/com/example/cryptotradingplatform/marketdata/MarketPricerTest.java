@@ -0,0 +1,89 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import com.example.cryptotradingplatform.exception.SlippageExceededException;
+import com.example.cryptotradingplatform.exception.StalePriceException;
+import com.example.cryptotradingplatform.model.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MarketPricerTest {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MarketPricer pricer = new MarketPricer(priceBook, meterRegistry, true, 5000, 50);
+
+    @Test
+    void buysAtTheAskAndSellsAtTheBid() {
+        priceBook.update(priceBook.idOf("BTC/USD"), 27999.5, 28000.5, 28000.0, 5.0, System.currentTimeMillis());
+
+        assertThat(pricer.executionPrice("BTC/USD", TransactionType.BUY, (BigDecimal) null)).isEqualTo(28000_50000000L);
+        assertThat(pricer.executionPrice("BTC", TransactionType.SELL, (BigDecimal) null)).isEqualTo(27999_50000000L);
+        assertThat(meterRegistry.get("trading.execution.price.age").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void fallsBackToTheLastPriceWithoutABookSide() {
+        priceBook.update(priceBook.idOf("ETH/USD"), 0, 0, 3000.25, 1.0, System.currentTimeMillis());
+
+        assertThat(pricer.executionPrice("ETH/USD", TransactionType.BUY, (BigDecimal) null)).isEqualTo(3000_25000000L);
+    }
+
+    @Test
+    void refusesMissingAndStalePrices() {
+        assertThatThrownBy(() -> pricer.executionPrice("SOL/USD", TransactionType.BUY, (BigDecimal) null))
+                .isInstanceOf(StalePriceException.class);
+
+        priceBook.update(priceBook.idOf("SOL/USD"), 20, 21, 20.5, 1.0, System.currentTimeMillis() - 10_000);
+        assertThatThrownBy(() -> pricer.executionPrice("SOL/USD", TransactionType.BUY, (BigDecimal) null))
+                .isInstanceOf(StalePriceException.class)
+                .hasMessage("The market price for SOL/USD is out of date, please retry.");
+
+        priceBook.update(priceBook.idOf("SOL/USD"), 20, 21, 20.5, 1.0, System.currentTimeMillis());
+        priceBook.markStale(priceBook.idOf("SOL/USD"), System.currentTimeMillis());
+        assertThatThrownBy(() -> pricer.executionPrice("SOL/USD", TransactionType.BUY, (BigDecimal) null))
+                .isInstanceOf(StalePriceException.class);
+
+        assertThatThrownBy(() -> pricer.executionPrice("NOPE/USD", TransactionType.BUY, (BigDecimal) null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(meterRegistry.get("trading.execution.price.age").timer().count()).isZero();
+    }
+
+    @Test
+    void boundsSlippageAgainstTheClientsPrice() {
+        priceBook.update(priceBook.idOf("BTC/USD"), 99.0, 100.5, 100.0, 5.0, System.currentTimeMillis());
+
+        // 50 bps of 100 is 0.5: buying at 100.5 is just within, selling at 99 is not.
+        assertThat(pricer.executionPrice("BTC/USD", TransactionType.BUY, new BigDecimal("100"))).isEqualTo(100_50000000L);
+        assertThatThrownBy(() -> pricer.executionPrice("BTC/USD", TransactionType.BUY, new BigDecimal("99.99")))
+                .isInstanceOf(SlippageExceededException.class);
+        assertThatThrownBy(() -> pricer.executionPrice("BTC/USD", TransactionType.SELL, new BigDecimal("100")))
+                .isInstanceOf(SlippageExceededException.class);
+        assertThat(pricer.executionPrice("BTC/USD", TransactionType.SELL, new BigDecimal("99.4"))).isEqualTo(99_00000000L);
+    }
+
+    @Test
+    void holdsLimitOrdersToTheirLimitPriceWithoutSlippage() {
+        priceBook.update(priceBook.idOf("BTC/USD"), 99.0, 100.5, 100.0, 5.0, System.currentTimeMillis());
+
+        assertThat(pricer.limitPrice("BTC/USD", TransactionType.BUY, new BigDecimal("100.5"))).isEqualTo(100_50000000L);
+        assertThatThrownBy(() -> pricer.limitPrice("BTC/USD", TransactionType.BUY, new BigDecimal("100.49")))
+                .isInstanceOf(SlippageExceededException.class);
+        assertThat(pricer.limitPrice("BTC/USD", TransactionType.SELL, new BigDecimal("98.5"))).isEqualTo(99_00000000L);
+        assertThatThrownBy(() -> pricer.limitPrice("BTC/USD", TransactionType.SELL, new BigDecimal("99.01")))
+                .isInstanceOf(SlippageExceededException.class);
+    }
+
+    @Test
+    void usesTheClientsPriceWhenLivePricingIsOff() {
+        MarketPricer clientPrices = new MarketPricer(priceBook, meterRegistry, false, 5000, 50);
+
+        assertThat(clientPrices.executionPrice("BTC/USD", TransactionType.BUY, new BigDecimal("123.45"))).isEqualTo(123_45000000L);
+        assertThatThrownBy(() -> clientPrices.executionPrice("BTC/USD", TransactionType.BUY, (BigDecimal) null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
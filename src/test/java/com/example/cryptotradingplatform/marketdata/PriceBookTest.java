@@ -0,0 +1,85 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceBookTest {
+
+    private final PriceBook priceBook = new PriceBook();
+
+    @Test
+    void internsSubscribedPairs() {
+        assertThat(priceBook.size()).isEqualTo(18);
+        for (int id = 0; id < priceBook.size(); id++) {
+            assertThat(priceBook.idOf(priceBook.symbol(id))).isEqualTo(id);
+        }
+        assertThat(priceBook.idOf("{\"symbol\":\"ETH/USD\"}", 11, 18)).isEqualTo(priceBook.idOf("ETH/USD"));
+        assertThat(priceBook.idOf("XBT/USD")).isEqualTo(-1);
+        assertThat(priceBook.idOf("")).isEqualTo(-1);
+    }
+
+    @Test
+    void readsBackLatestQuote() {
+        int id = priceBook.idOf("SOL/USD");
+        Quote quote = new Quote();
+        assertThat(priceBook.read(id, quote)).isFalse();
+
+        priceBook.update(id, 20.1, 20.3, 20.2, 1500.0, 1234L);
+        priceBook.update(id, 21.1, 21.3, 21.2, 1600.0, 1235L);
+
+        assertThat(priceBook.read(id, quote)).isTrue();
+        assertThat(quote.getBid()).isEqualTo(21.1);
+        assertThat(quote.getAsk()).isEqualTo(21.3);
+        assertThat(quote.getLast()).isEqualTo(21.2);
+        assertThat(quote.getVolume()).isEqualTo(1600.0);
+        assertThat(quote.getTimestamp()).isEqualTo(1235L);
+        assertThat(priceBook.version()).isEqualTo(2);
+    }
+
+    @Test
+    void marksQuotesStaleUntilTheNextUpdate() {
+        int id = priceBook.idOf("ETH/USD");
+        Quote quote = new Quote();
+        priceBook.markStale(id, 100L);
+        assertThat(priceBook.read(id, quote)).isFalse();
+
+        priceBook.update(id, 3000.0, 3001.0, 3000.5, 10.0, 50L);
+        priceBook.markStale(id, 100L);
+        priceBook.markStale(id, 200L);
+        assertThat(priceBook.read(id, quote)).isTrue();
+        assertThat(quote.getLast()).isEqualTo(3000.5);
+        assertThat(quote.getStaleSince()).isEqualTo(100L);
+
+        priceBook.update(id, 3002.0, 3003.0, 3002.5, 11.0, 300L);
+        assertThat(priceBook.read(id, quote)).isTrue();
+        assertThat(quote.isStale()).isFalse();
+    }
+
+    @Test
+    void readersNeverSeeTornQuotes() throws InterruptedException {
+        int id = priceBook.idOf("BTC/USD");
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (long i = 1; running.get(); i++) {
+                priceBook.update(id, i, i, i, i, i);
+            }
+        });
+        writer.start();
+        try {
+            Quote quote = new Quote();
+            for (int i = 0; i < 1_000_000; i++) {
+                if (priceBook.read(id, quote)) {
+                    assertThat(quote.getBid()).isEqualTo(quote.getLast());
+                    assertThat(quote.getAsk()).isEqualTo(quote.getLast());
+                    assertThat(quote.getTimestamp()).isEqualTo((long) quote.getLast());
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceMergerTest {
+
+    private final PriceBook priceBook = new PriceBook(List.of("BTC/USD", "ETH/USD"));
+    private final List<double[]> notified = new ArrayList<>();
+    private final PriceMerger merger = new PriceMerger(priceBook,
+            List.of((pairId, bid, ask, last, volume, timestamp) -> notified.add(new double[]{bid, ask, last, volume})),
+            new SimpleMeterRegistry(), 1000);
+    private final int btc = priceBook.idOf("BTC/USD");
+
+    @Test
+    void takesTheBestBidAndAskAcrossVenuesAndTheFreshestLast() {
+        VenueFeed a = merger.register("a");
+        VenueFeed b = merger.register("b");
+        VenueFeed c = merger.register("c");
+
+        a.update(btc, 100.0, 102.0, 101.0, 10.0, 5000);
+        b.update(btc, 100.5, 103.0, 100.8, 20.0, 5100);
+        c.update(btc, 99.0, 101.5, 100.2, 30.0, 5050);
+
+        Quote quote = new Quote();
+        assertThat(priceBook.read(btc, quote)).isTrue();
+        assertThat(quote.getBid()).isEqualTo(100.5);
+        assertThat(quote.getAsk()).isEqualTo(101.5);
+        assertThat(quote.getLast()).isEqualTo(100.8);
+        assertThat(quote.getVolume()).isEqualTo(60.0);
+        assertThat(quote.getTimestamp()).isEqualTo(5100);
+        assertThat(notified).hasSize(3);
+        assertThat(priceBook.read(priceBook.idOf("ETH/USD"), quote)).isFalse();
+    }
+
+    @Test
+    void leavesOutVenuesThatAreStaleOrLagBehind() {
+        VenueFeed a = merger.register("a");
+        VenueFeed b = merger.register("b");
+        a.update(btc, 100.0, 101.0, 100.5, 10.0, 5000);
+        b.update(btc, 100.9, 101.1, 101.0, 20.0, 5000);
+
+        a.update(btc, 100.1, 101.2, 100.6, 11.0, 6001);
+
+        Quote quote = new Quote();
+        priceBook.read(btc, quote);
+        assertThat(quote.getBid()).isEqualTo(100.1);
+        assertThat(quote.getAsk()).isEqualTo(101.2);
+        // Lagging prices are left out, not the volume.
+        assertThat(quote.getVolume()).isEqualTo(31.0);
+        assertThat(merger.venueQuotes(btc)).extracting(VenueQuote::isIncluded).containsExactly(true, false);
+
+        b.update(btc, 100.9, 101.1, 101.0, 21.0, 6002);
+        a.markStale(btc, 6003);
+
+        priceBook.read(btc, quote);
+        assertThat(quote.isStale()).isFalse();
+        assertThat(quote.getBid()).isEqualTo(100.9);
+        assertThat(quote.getLast()).isEqualTo(101.0);
+        assertThat(quote.getVolume()).isEqualTo(32.0);
+    }
+
+    @Test
+    void goesStaleWhenTheLastVenueIsLostAndLiveWithTheFirstBack() {
+        VenueFeed a = merger.register("a");
+        VenueFeed b = merger.register("b");
+        a.update(btc, 100.0, 101.0, 100.5, 10.0, 5000);
+        b.update(btc, 100.2, 101.2, 100.7, 20.0, 5000);
+
+        a.markStale(btc, 5100);
+        int before = notified.size();
+        b.markStale(btc, 5200);
+
+        Quote quote = new Quote();
+        priceBook.read(btc, quote);
+        assertThat(quote.getStaleSince()).isEqualTo(5200);
+        assertThat(quote.getLast()).isEqualTo(100.7);
+        assertThat(notified).hasSize(before);
+
+        a.update(btc, 100.4, 101.4, 100.9, 12.0, 5300);
+
+        priceBook.read(btc, quote);
+        assertThat(quote.isStale()).isFalse();
+        assertThat(quote.getAsk()).isEqualTo(101.4);
+        assertThat(quote.getVolume()).isEqualTo(32.0);
+    }
+
+    @Test
+    void rejectsAVenueRegisteredTwice() {
+        merger.register("a");
+
+        assertThatThrownBy(() -> merger.register("a")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void mergesConcurrentVenuesOneAtATimeAndEndsOnTheirLastWrites() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        PriceBook book = new PriceBook(List.of("BTC/USD"));
+        PriceMerger concurrent = new PriceMerger(book, List.of((pairId, bid, ask, last, volume, timestamp) -> {
+            if (inside.incrementAndGet() != 1) {
+                overlaps.incrementAndGet();
+            }
+            Thread.yield();
+            inside.decrementAndGet();
+        }), new SimpleMeterRegistry(), Long.MAX_VALUE);
+        int venues = 4;
+        int writes = 20_000;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int v = 0; v < venues; v++) {
+            VenueFeed feed = concurrent.register("venue-" + v);
+            int venue = v;
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= writes; i++) {
+                    feed.update(0, i + venue, i + 100 - venue, i, venue, i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Quote quote = new Quote();
+        book.read(0, quote);
+        assertThat(overlaps.get()).isZero();
+        assertThat(quote.getBid()).isEqualTo(writes + venues - 1);
+        assertThat(quote.getAsk()).isEqualTo(writes + 100 - venues + 1);
+        assertThat(quote.getVolume()).isEqualTo(6.0);
+        assertThat(quote.getTimestamp()).isEqualTo(writes);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceSnapshotCacheTest {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final PriceSnapshotCache cache = new PriceSnapshotCache(priceBook);
+
+    @Test
+    void reusesSnapshotUntilPricesChange() {
+        PriceSnapshot empty = cache.get();
+        assertThat(new String(empty.getJson(), StandardCharsets.UTF_8)).isEqualTo("{}");
+        assertThat(cache.get()).isSameAs(empty);
+
+        priceBook.update(priceBook.idOf("ETH/USD"), 1800.0, 1801.0, 1800.5, 10.0, 1L);
+        priceBook.update(priceBook.idOf("BTC/USD"), 27999.0, 28001.0, 28000.0, 5.0, 1L);
+
+        PriceSnapshot updated = cache.get();
+        assertThat(updated).isNotSameAs(empty);
+        assertThat(updated.getEtag()).isNotEqualTo(empty.getEtag());
+        assertThat(new String(updated.getJson(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"BTC/USD\": 28000.0,\"ETH/USD\": 1800.5}");
+        assertThat(cache.get()).isSameAs(updated);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.cryptotradingplatform.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickerDecoderTest {
+
+    private final TickerDecoder decoder = new TickerDecoder();
+    private final List<String> decoded = new ArrayList<>();
+    private final TickerDecoder.Listener listener = (frame, symbolStart, symbolEnd, bid, ask, last, volume) ->
+            decoded.add(frame.subSequence(symbolStart, symbolEnd) + " " + bid + " " + ask + " " + last + " " + volume);
+
+    @Test
+    void decodesV2TickerFrame() {
+        String frame = "{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[{\"symbol\":\"BTC/USD\",\"bid\":27999.9,"
+                + "\"bid_qty\":2.0,\"ask\":28000.1,\"ask_qty\":1.0,\"last\":28000.0,\"volume\":3591.17907851,"
+                + "\"vwap\":27980.5,\"low\":27850.0,\"high\":28150.0,\"change\":100.0,\"change_pct\":0.36}]}";
+
+        assertThat(decoder.decode(frame, listener)).isEqualTo(1);
+        assertThat(decoded).containsExactly("BTC/USD 27999.9 28000.1 28000.0 3591.17907851");
+    }
+
+    @Test
+    void decodesEveryEntryOfV2Snapshot() {
+        String frame = "{\"channel\":\"ticker\",\"type\":\"snapshot\",\"data\":["
+                + "{\"symbol\":\"ETH/USD\",\"bid\":1800.5,\"ask\":1800.75,\"last\":1800.6,\"volume\":10},"
+                + "{\"symbol\":\"SHIB/USD\",\"bid\":0.00000712,\"ask\":0.00000713,\"last\":7.125e-6,\"volume\":1.5E10}]}";
+
+        assertThat(decoder.decode(frame, listener)).isEqualTo(2);
+        assertThat(decoded).containsExactly(
+                "ETH/USD 1800.5 1800.75 1800.6 10.0",
+                "SHIB/USD 7.12E-6 7.13E-6 7.125E-6 1.5E10");
+    }
+
+    @Test
+    void decodesV1TickerFrame() {
+        String frame = "[340,{\"a\":[\"28000.10000\",1,\"1.000\"],\"b\":[\"27999.90000\",2,\"2.000\"],"
+                + "\"c\":[\"28000.00000\",\"0.00398963\"],\"v\":[\"2634.11501494\",\"3591.17907851\"],"
+                + "\"t\":[11493,16267]},\"ticker\",\"XBT/USD\"]";
+
+        assertThat(decoder.decode(frame, listener)).isEqualTo(1);
+        assertThat(decoded).containsExactly("XBT/USD 27999.9 28000.1 28000.0 3591.17907851");
+    }
+
+    @Test
+    void ignoresNonTickerAndMalformedFrames() {
+        assertThat(decoder.decode("{\"channel\":\"heartbeat\"}", listener)).isZero();
+        assertThat(decoder.decode("{\"method\":\"subscribe\",\"result\":{\"channel\":\"ticker\"},\"success\":true}", listener)).isZero();
+        assertThat(decoder.decode("[340,{\"a\":[\"1.0\"]},\"book-10\",\"XBT/USD\"]", listener)).isZero();
+        assertThat(decoder.decode("{\"channel\":\"ticker\",\"data\":[{\"symbol\":\"BTC/USD\",\"last\":", listener)).isZero();
+        assertThat(decoder.decode("", listener)).isZero();
+        assertThat(decoded).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.cryptotradingplatform.metrics;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LatencyHistogram histogram = LatencyHistogram.register(meterRegistry, "test.latency",
+            "Test latency", "stage", "lookup");
+
+    @Test
+    void publishesCountTotalAndPercentilesOfTheRecordedValues() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        FunctionTimer timer = meterRegistry.get("test.latency").tag("stage", "lookup").functionTimer();
+        assertThat(timer.count()).isEqualTo(1000);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isCloseTo(500.5, within(5.0));
+        assertThat(percentile("0.5")).isCloseTo(500e-6, within(5e-6));
+        assertThat(percentile("0.99")).isCloseTo(990e-6, within(10e-6));
+        assertThat(percentile("0.999")).isCloseTo(999e-6, within(10e-6));
+        assertThat(meterRegistry.get("test.latency.max").gauge().value()).isCloseTo(1000e-6, within(10e-6));
+    }
+
+    @Test
+    void eachScrapeSeesOnlyTheValuesSinceThePreviousOne() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(80));
+        assertThat(meterRegistry.get("test.latency.max").gauge().value()).isCloseTo(0.08, within(0.001));
+
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        // The next scrape, as if a second had passed.
+        histogram.takeInterval();
+
+        assertThat(meterRegistry.get("test.latency.max").gauge().value()).isCloseTo(0.003, within(0.0001));
+        assertThat(meterRegistry.get("test.latency").functionTimer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void clampsNegativeAndHugeValues() {
+        histogram.record(-5);
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+
+        assertThat(meterRegistry.get("test.latency").functionTimer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("test.latency.max").gauge().value()).isCloseTo(60, within(1.0));
+    }
+
+    private double percentile(String phi) {
+        return meterRegistry.get("test.latency.percentile").tag("phi", phi).gauge().value();
+    }
+}
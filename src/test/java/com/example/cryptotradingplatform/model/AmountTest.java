@@ -0,0 +1,92 @@
+package com.example.cryptotradingplatform.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AmountTest {
+
+    @Test
+    void multiplyMatchesBigDecimalRoundedHalfUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            long a = random.nextLong(-(1L << 62), 1L << 62) >> random.nextInt(63);
+            long b = random.nextLong(-(1L << 62), 1L << 62) >> random.nextInt(63);
+            int aScale = random.nextInt(Amount.MAX_SCALE + 1);
+            int bScale = random.nextInt(Amount.MAX_SCALE + 1);
+            int resultScale = random.nextInt(Amount.MAX_SCALE + 1);
+            BigDecimal expected = BigDecimal.valueOf(a, aScale).multiply(BigDecimal.valueOf(b, bScale))
+                    .setScale(resultScale, RoundingMode.HALF_UP);
+            if (expected.unscaledValue().bitLength() < 63) {
+                assertThat(Amount.multiply(a, aScale, b, bScale, resultScale))
+                        .as("%d@%d * %d@%d at %d", a, aScale, b, bScale, resultScale)
+                        .isEqualTo(expected.unscaledValue().longValueExact());
+            }
+        }
+    }
+
+    @Test
+    void multiplyKeepsFullPrecisionOfLargeTrades() {
+        // 1,000,000 ETH at 3,456.78901234 USD: the unscaled product needs about 98 bits.
+        long quantity = Amount.toUnits(new BigDecimal("1000000"), 12);
+        long price = Amount.toUnits(new BigDecimal("3456.78901234"), AssetScales.PRICE_SCALE);
+        assertThat(Amount.multiply(quantity, 12, price, AssetScales.PRICE_SCALE, AssetScales.CASH_SCALE))
+                .isEqualTo(3456789012_34000000L);
+
+        assertThatThrownBy(() -> Amount.multiply(Long.MAX_VALUE, 0, 10, 0, 0))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Amount.multiply(Long.MAX_VALUE, 8, Long.MAX_VALUE, 8, 8))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void repeatedTradesLeaveNoDust() {
+        long holding = 0;
+        long tenth = Amount.toUnits(new BigDecimal("0.1"), 8);
+        for (int i = 0; i < 3; i++) {
+            holding += tenth;
+        }
+        holding -= Amount.toUnits(new BigDecimal("0.3"), 8);
+        assertThat(holding).isZero();
+        assertThat(0.1 + 0.1 + 0.1 - 0.3).isNotZero();
+    }
+
+    @Test
+    void convertsAtTheEdgesExactlyOrFails() {
+        assertThat(Amount.toUnits(new BigDecimal("1.50000000000"), 8)).isEqualTo(150000000L);
+        assertThatThrownBy(() -> Amount.toUnits(new BigDecimal("0.000000001"), 8))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(Amount.rescale(155, 2, 1)).isEqualTo(16);
+        assertThat(Amount.rescale(-155, 2, 1)).isEqualTo(-16);
+        assertThat(Amount.rescale(154, 2, 1)).isEqualTo(15);
+        assertThat(Amount.rescale(15, 1, 3)).isEqualTo(1500);
+
+        assertThatThrownBy(() -> AssetScales.quantityUnits("BTC/USD", new BigDecimal("0.123456789")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Quantity has more decimal places than BTC/USD supports.");
+        assertThat(AssetScales.quantityScale("eth/usd")).isEqualTo(12);
+        assertThat(AssetScales.quantityScale("SHIB")).isEqualTo(2);
+        assertThat(AssetScales.quantityScale("ADA/USD")).isEqualTo(AssetScales.DEFAULT_QUANTITY_SCALE);
+    }
+
+    @Test
+    void roundTripsThroughTheDecimalColumn() {
+        AmountConverter converter = new AmountConverter();
+        Amount amount = Amount.of(123456789L, 8);
+        BigDecimal column = converter.convertToDatabaseColumn(amount);
+        assertThat(column).isEqualByComparingTo("1.23456789");
+
+        // DECIMAL(38,18) hands values back zero-padded to 18 places.
+        Amount read = converter.convertToEntityAttribute(column.setScale(18));
+        assertThat(read).isEqualTo(amount);
+        assertThat(read.getScale()).isEqualTo(8);
+        assertThat(read.unitsAt(12)).isEqualTo(1234567890000L);
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("2.00")).getScale()).isZero();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.cryptotradingplatform.orders;
+
+import com.example.cryptotradingplatform.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderBookTest {
+
+    private final OrderBook book = new OrderBook(2);
+    // Prices are in units of AssetScales.PRICE_SCALE.
+    private final List<RestingOrder> triggered = new ArrayList<>();
+    private long nextId;
+
+    @Test
+    void triggersEachKindOfOrderOnlyWhenItsPriceIsCrossed() {
+        RestingOrder limitBuy = order(OrderType.LIMIT, TransactionType.BUY, 90);
+        RestingOrder limitSell = order(OrderType.LIMIT, TransactionType.SELL, 110);
+        RestingOrder stopLoss = order(OrderType.STOP_LOSS, TransactionType.SELL, 95);
+        RestingOrder takeProfit = order(OrderType.TAKE_PROFIT, TransactionType.SELL, 120);
+        RestingOrder stopBuy = order(OrderType.STOP_LOSS, TransactionType.BUY, 105);
+
+        assertThat(book.match(0, 101, 99, triggered::add)).isZero();
+
+        // The ask rises to 105 and the bid to 104: only the buy stop is crossed.
+        assertThat(book.match(0, 105, 104, triggered::add)).isEqualTo(1);
+        assertThat(triggered).containsExactly(stopBuy);
+        assertThat(stopBuy.getStatus()).isEqualTo(RestingOrder.Status.TRIGGERED);
+        assertThat(stopBuy.getTriggeredAt()).isEqualByComparingTo("0.00000105");
+
+        assertThat(book.match(0, 112, 111, triggered::add)).isEqualTo(1);
+        assertThat(triggered).endsWith(limitSell);
+
+        assertThat(book.match(0, 89, 88, triggered::add)).isEqualTo(2);
+        assertThat(triggered).endsWith(limitBuy, stopLoss);
+        assertThat(takeProfit.getStatus()).isEqualTo(RestingOrder.Status.OPEN);
+        assertThat(book.openOrders(0)).isEqualTo(1);
+        assertThat(book.openOrders(1)).isZero();
+    }
+
+    @Test
+    void dropsCancelledOrdersFarFromTheMarket() {
+        List<RestingOrder> far = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            far.add(order(OrderType.LIMIT, TransactionType.BUY, 10 + i));
+        }
+        RestingOrder near = order(OrderType.LIMIT, TransactionType.BUY, 2000);
+        for (RestingOrder order : far) {
+            assertThat(book.cancel(order)).isTrue();
+        }
+
+        assertThat(book.heldOrders(0)).isLessThanOrEqualTo(2);
+        assertThat(book.match(0, 1, 1, triggered::add)).isEqualTo(1);
+        assertThat(triggered).containsExactly(near);
+        assertThat(book.heldOrders(0)).isZero();
+    }
+
+    @Test
+    void cancelledOrdersNeverTrigger() {
+        RestingOrder cancelled = order(OrderType.LIMIT, TransactionType.BUY, 100);
+        RestingOrder kept = order(OrderType.LIMIT, TransactionType.BUY, 99);
+
+        assertThat(book.cancel(cancelled)).isTrue();
+        assertThat(book.match(0, 98, 97, triggered::add)).isEqualTo(1);
+        assertThat(triggered).containsExactly(kept);
+        assertThat(book.cancel(kept)).isFalse();
+        assertThat(cancelled.getStatus()).isEqualTo(RestingOrder.Status.CANCELLED);
+        assertThat(book.openOrders(0)).isZero();
+    }
+
+    @Test
+    void triggersExactlyWhatAScanOfEveryOrderWould() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<RestingOrder> open = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            OrderType type = OrderType.values()[random.nextInt(3)];
+            TransactionType side = random.nextBoolean() ? TransactionType.BUY : TransactionType.SELL;
+            open.add(order(type, side, 9_000 + random.nextInt(2_000)));
+        }
+        long price = 10_000;
+        for (int tick = 0; tick < 5_000; tick++) {
+            price += random.nextInt(-20, 21);
+            long ask = price + 1;
+            long bid = price - 1;
+            if (random.nextInt(10) == 0) {
+                book.cancel(open.get(random.nextInt(open.size())));
+            }
+            Set<RestingOrder> expected = new HashSet<>();
+            for (RestingOrder order : open) {
+                long against = order.getSide() == TransactionType.BUY ? ask : bid;
+                boolean crossed = order.triggersBelow() ? against <= order.triggerUnits() : against >= order.triggerUnits();
+                if (order.isOpen() && crossed) {
+                    expected.add(order);
+                }
+            }
+            triggered.clear();
+            book.match(0, ask, bid, triggered::add);
+            assertThat(new HashSet<>(triggered)).isEqualTo(expected);
+            open.removeIf(order -> !order.isOpen());
+        }
+    }
+
+    private RestingOrder order(OrderType type, TransactionType side, long triggerPrice) {
+        RestingOrder order = new RestingOrder(++nextId, 1L, "BTC/USD", 0, type, side, BigDecimal.ONE,
+                triggerPrice, 0L);
+        book.add(order);
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.cryptotradingplatform.repository;
+
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.model.TransactionFilter;
+import com.example.cryptotradingplatform.model.TransactionPage;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.model.TransactionView;
+import com.example.cryptotradingplatform.service.TransactionHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class TransactionRepositoryTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        account = accountRepository.save(new Account(Amount.of(new BigDecimal("1000")), new Timestamp(0)));
+        Account other = accountRepository.save(new Account(Amount.of(new BigDecimal("1000")), new Timestamp(0)));
+        List<Transaction> ledger = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // Pairs of trades share a timestamp, so pages have to break ties on the id.
+            ledger.add(transaction(account, i % 3 == 0 ? "ETH" : "BTC", i % 2 == 0 ? TransactionType.BUY : TransactionType.SELL,
+                    1_000L * (i / 2)));
+        }
+        ledger.add(transaction(other, "BTC", TransactionType.BUY, 500L));
+        transactionRepository.saveAll(ledger);
+    }
+
+    @Test
+    void filtersBySymbolTypeAndDateRangeNewestFirst() {
+        List<TransactionView> rows = transactionRepository.findHistory(new TransactionFilter(account.getId(), "BTC",
+                TransactionType.SELL, new Timestamp(1_000), new Timestamp(3_000)), null, null, 10);
+
+        assertThat(rows).extracting(TransactionView::getTransactionDate).containsExactly(3_000L, 2_000L);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.getCryptoSymbol()).isEqualTo("BTC");
+            assertThat(row.getType()).isEqualTo(TransactionType.SELL);
+        });
+    }
+
+    @Test
+    void pagesThroughTheLedgerWithCursors() {
+        TransactionHistoryService history = new TransactionHistoryService(accountRepository, transactionRepository);
+        List<Long> seen = new ArrayList<>();
+        TransactionPage page = history.getHistory(account.getId(), null, null, null, null, 3, null);
+        seen.addAll(page.getTransactions().stream().map(TransactionView::getId).toList());
+        while (page.getNextCursor() != null) {
+            page = history.getHistory(account.getId(), null, null, null, null, 3, page.getNextCursor());
+            seen.addAll(page.getTransactions().stream().map(TransactionView::getId).toList());
+        }
+
+        List<Long> expected = transactionRepository.findByAccountIdOrderByIdAsc(account.getId()).stream()
+                .map(Transaction::getId).sorted((a, b) -> Long.compare(b, a)).toList();
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    private static Transaction transaction(Account account, String symbol, TransactionType type, long dateMillis) {
+        Transaction transaction = new Transaction(account, symbol, type, Amount.of(new BigDecimal("0.5")),
+                Amount.of(new BigDecimal("100")), Amount.of(new BigDecimal("50")));
+        transaction.setTransactionDate(new Timestamp(dateMillis));
+        return transaction;
+    }
+}
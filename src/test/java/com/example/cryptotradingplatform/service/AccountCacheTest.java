@@ -0,0 +1,243 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.engine.TradeEventProjection;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.HoldingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountCacheTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final HoldingRepository holdingRepository = mock(HoldingRepository.class);
+    private final TradePersistencePipeline persistencePipeline = mock(TradePersistencePipeline.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<TradeEvent> submitted = new CopyOnWriteArrayList<>();
+    private final List<TradePersistencePipeline.WriteCallback> unwritten = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(accountRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Account account = new Account();
+            account.setBalance(Amount.of(1_000_000, 8));
+            return Optional.of(account);
+        });
+        when(holdingRepository.findByAccountId(anyLong())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            submitted.addAll(invocation.getArgument(0));
+            unwritten.add(invocation.getArgument(1));
+            return null;
+        }).when(persistencePipeline).submitAll(anyList(), any(TradePersistencePipeline.WriteCallback.class));
+    }
+
+    @Test
+    void keepsRecentlyTradedAccountsAndCountsHitsAndMisses() {
+        // Two accounts per segment: account 1 is traded before every new account, so it is never the eldest.
+        AccountCache cache = cache(32);
+        for (long accountId = 2; accountId <= 200; accountId++) {
+            cache.trade(1L, AccountCacheTest::buyOne);
+            cache.trade(accountId, AccountCacheTest::buyOne);
+            writeAll();
+        }
+
+        verify(accountRepository, times(1)).findById(1L);
+        assertThat(cache.size()).isLessThanOrEqualTo(32);
+        assertThat(counter("cache.gets", "hit")).isEqualTo(198);
+        assertThat(counter("cache.gets", "miss")).isEqualTo(200);
+        assertThat(meterRegistry.get("cache.evictions").counter().count()).isEqualTo(200 - cache.size());
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(cache.size());
+    }
+
+    @Test
+    void neverEvictsAccountsWithUnwrittenTrades() {
+        AccountCache cache = cache(16);
+        for (long accountId = 1; accountId <= 100; accountId++) {
+            cache.trade(accountId, AccountCacheTest::buyOne);
+        }
+        assertThat(cache.size()).isEqualTo(100);
+
+        cache.evict(1L);
+        assertThat(cache.size()).isEqualTo(100);
+        cache.trade(1L, AccountCacheTest::buyOne);
+        verify(accountRepository, times(1)).findById(1L);
+
+        writeAll();
+        cache.trade(1L, AccountCacheTest::buyOne);
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void keepsALoadWhileOtherAccountsOfItsSegmentAreEvicted() throws Exception {
+        // One account per segment, so every account loaded into the segment evicts the one before it.
+        AccountCache cache = cache(16);
+        long[] neighbours = accountsInSegmentOf(1L, 2);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finishLoad = blockLoadOf(1L, loading);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<TradeEvent> trade = executor.submit(() -> cache.trade(1L, AccountCacheTest::buyOne));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.trade(neighbours[0], AccountCacheTest::buyOne);
+        writeAll();
+        cache.trade(neighbours[1], AccountCacheTest::buyOne);
+        finishLoad.countDown();
+        trade.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        verify(accountRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void discardsALoadTheAccountWasEvictedDuring() throws Exception {
+        AccountCache cache = cache(16);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finishLoad = blockLoadOf(1L, loading);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<TradeEvent> trade = executor.submit(() -> cache.trade(1L, AccountCacheTest::buyOne));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The account changed in the database after the load read it.
+        cache.evict(1L);
+        finishLoad.countDown();
+        trade.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        verify(accountRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void concurrentTradesOnOneAccountAreAllApplied() throws Exception {
+        AccountCache cache = cache(16);
+        int threads = 8;
+        int tradesPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < tradesPerThread; j++) {
+                    cache.trade(1L, AccountCacheTest::buyOne);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int trades = threads * tradesPerThread;
+        assertThat(submitted).hasSize(trades);
+        // Events reach the pipeline in version order, each built on the one before it.
+        for (int i = 0; i < trades; i++) {
+            assertThat(submitted.get(i).getHoldingAfter()).isEqualTo(i + 1);
+            assertThat(submitted.get(i).getBalanceAfter()).isEqualTo(1_000_000 - (i + 1));
+        }
+        verify(accountRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void tradesOnOneAccountKeepFlowingThroughAFullQueue() throws Exception {
+        // Committers wait for room in a one-slot queue while holding the account, and the writer reports
+        // every write back to that account.
+        TradeEventProjection projection = mock(TradeEventProjection.class);
+        AtomicInteger written = new AtomicInteger();
+        when(projection.write(anyList())).thenAnswer(invocation -> {
+            written.addAndGet(invocation.<List<?>>getArgument(0).size());
+            return true;
+        });
+        TradePersistencePipeline pipeline = new TradePersistencePipeline(projection, meterRegistry, 1, 1, 5000);
+        pipeline.start();
+        AccountCache cache = new AccountCache(accountRepository, holdingRepository, pipeline, meterRegistry, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 500; j++) {
+                    cache.trade(1L, AccountCacheTest::buyOne);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(20, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        pipeline.stop();
+
+        assertThat(written).hasValue(2000);
+        assertThat(meterRegistry.get("trading.persistence.rejected").counter().count()).isZero();
+    }
+
+    //Makes loads of the account wait for the returned latch, counting down loading as each one starts.
+    private CountDownLatch blockLoadOf(long accountId, CountDownLatch loading) {
+        CountDownLatch finishLoad = new CountDownLatch(1);
+        when(accountRepository.findById(accountId)).thenAnswer(invocation -> {
+            loading.countDown();
+            finishLoad.await();
+            Account account = new Account();
+            account.setBalance(Amount.of(1_000_000, 8));
+            return Optional.of(account);
+        });
+        return finishLoad;
+    }
+
+    private static long[] accountsInSegmentOf(long accountId, int count) {
+        long[] found = new long[count];
+        int n = 0;
+        for (long candidate = accountId + 1; n < count; candidate++) {
+            if (AccountCache.segmentOf(candidate) == AccountCache.segmentOf(accountId)) {
+                found[n++] = candidate;
+            }
+        }
+        return found;
+    }
+
+    private AccountCache cache(int maxSize) {
+        return new AccountCache(accountRepository, holdingRepository, persistencePipeline, meterRegistry, maxSize);
+    }
+
+    private void writeAll() {
+        for (TradePersistencePipeline.WriteCallback callback : unwritten) {
+            callback.written(true);
+        }
+        unwritten.clear();
+    }
+
+    private double counter(String name, String result) {
+        return meterRegistry.get(name).tag("result", result).counter().count();
+    }
+
+    private static TradeEvent buyOne(AccountCache.AccountView account) {
+        return new TradeEvent(account.getAccountId(), "BTC/USD", TransactionType.BUY, 0, 1, 1, 1,
+                account.getBalance() - 1, account.getHolding("BTC/USD") + 1, 0);
+    }
+}
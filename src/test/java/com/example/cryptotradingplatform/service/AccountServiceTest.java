@@ -1,19 +1,30 @@
 package com.example.cryptotradingplatform.service;
 
+import com.example.cryptotradingplatform.engine.TradeEvent;
 import com.example.cryptotradingplatform.exception.InsufficientBalanceException;
 import com.example.cryptotradingplatform.exception.InsufficientHoldingException;
+import com.example.cryptotradingplatform.exception.PersistenceBackpressureException;
+import com.example.cryptotradingplatform.marketdata.MarketPricer;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
 import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.BatchMode;
 import com.example.cryptotradingplatform.model.Holding;
-import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
 import com.example.cryptotradingplatform.repository.AccountRepository;
 import com.example.cryptotradingplatform.repository.HoldingRepository;
-import com.example.cryptotradingplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -28,45 +39,79 @@ public class AccountServiceTest {
     private HoldingRepository holdingRepository;
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private TradePersistencePipeline persistencePipeline;
+
+    private AccountCache accountCache;
 
-    @InjectMocks
     private AccountService accountService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Before
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        accountCache = new AccountCache(accountRepository, holdingRepository, persistencePipeline,
+                meterRegistry, 100);
+        accountService = new AccountService(accountCache,
+                new MarketPricer(new PriceBook(), meterRegistry, false, 5000, 50), meterRegistry, 1000);
+    }
+
+    @Test
+    public void testTradesAreTimedPerTypeAndStage() {
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("200000.0")));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(1L)).thenReturn(List.of());
+
+        accountService.buyCrypto(1L, "BTC", new BigDecimal("1"), new BigDecimal("50000"));
+        assertThrows(InsufficientBalanceException.class,
+                () -> accountService.buyCrypto(1L, "BTC", new BigDecimal("10"), new BigDecimal("50000")));
+
+        assertEquals(2, meterRegistry.get("trading.trade.latency").tag("type", "buy").functionTimer().count(), 0);
+        assertEquals(0, meterRegistry.get("trading.trade.latency").tag("type", "sell").functionTimer().count(), 0);
+        assertEquals(2, stageCount("pricing"), 0);
+        assertEquals(2, stageCount("lookup"), 0);
+        assertEquals(2, stageCount("validation"), 0);
+        // The rejected trade never reaches the pipeline.
+        assertEquals(1, stageCount("persist"), 0);
+    }
+
+    private double stageCount(String stage) {
+        return meterRegistry.get("trading.trade.stage.latency").tag("stage", stage).functionTimer().count();
     }
 
     @Test
     public void testBuyCrypto_Success() {
         Long accountId = 1L;
         String cryptoSymbol = "BTC";
-        double quantity = 2.0;
-        double pricePerUnit = 50000.0;
-        double balance = 200000.0;
+        BigDecimal quantity = new BigDecimal("2.0");
+        BigDecimal pricePerUnit = new BigDecimal("50000.0");
+        Amount balance = Amount.of(new BigDecimal("200000.0"));
 
         Account account = new Account();
         account.setBalance(balance);
 
         when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
-        when(holdingRepository.findByAccountIdAndCryptoSymbol(accountId, cryptoSymbol)).thenReturn(Optional.empty());
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
 
         String result = accountService.buyCrypto(accountId, cryptoSymbol, quantity, pricePerUnit);
 
         assertEquals("Purchase successful!", result);
-        verify(accountRepository).save(account);
-        verify(holdingRepository).save(any(Holding.class));
-        verify(transactionRepository).save(any(Transaction.class));
+        TradeEvent event = submittedEvent();
+        assertEquals(TransactionType.BUY, event.getType());
+        assertEquals(100000_00000000L, event.getBalanceAfter());
+        assertEquals(2_00000000L, event.getHoldingAfter());
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(holdingRepository, never()).save(any(Holding.class));
     }
 
     @Test
     public void testBuyCrypto_InsufficientBalance_GracefulHandling() {
         Long accountId = 1L;
         String cryptoSymbol = "BTC";
-        double quantity = 2.0;
-        double pricePerUnit = 50000.0;
-        double balance = 50000.0;
+        BigDecimal quantity = new BigDecimal("2.0");
+        BigDecimal pricePerUnit = new BigDecimal("50000.0");
+        Amount balance = Amount.of(new BigDecimal("50000.0"));
 
         Account account = new Account();
         account.setBalance(balance);
@@ -85,36 +130,192 @@ public class AccountServiceTest {
     public void testSellCrypto_Success() {
         Long accountId = 1L;
         String cryptoSymbol = "BTC";
-        double quantity = 1.0;
-        double pricePerUnit = 50000.0;
+        BigDecimal quantity = new BigDecimal("1.0");
+        BigDecimal pricePerUnit = new BigDecimal("50000.0");
 
         Account account = new Account();
-        account.setBalance(0.0);
+        account.setBalance(Amount.of(new BigDecimal("0.0")));
 
-        Holding holding = new Holding(account, cryptoSymbol, 2.0);
+        Holding holding = new Holding(account, cryptoSymbol, Amount.of(new BigDecimal("2.0")));
 
-        when(holdingRepository.findByAccountIdAndCryptoSymbol(accountId, cryptoSymbol)).thenReturn(Optional.of(holding));
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of(holding));
 
         String result = accountService.sellCrypto(accountId, cryptoSymbol, quantity, pricePerUnit);
 
         assertEquals("Sale successful!", result);
-        verify(holdingRepository).save(holding);
-        verify(accountRepository).save(account);
-        verify(transactionRepository).save(any(Transaction.class));
+        TradeEvent event = submittedEvent();
+        assertEquals(TransactionType.SELL, event.getType());
+        assertEquals(50000_00000000L, event.getBalanceAfter());
+        assertEquals(1_00000000L, event.getHoldingAfter());
+        verify(holdingRepository, never()).save(holding);
+        verify(accountRepository, never()).save(account);
     }
 
     @Test
     public void testSellCrypto_NoHoldings_GracefulHandling() {
         Long accountId = 1L;
         String cryptoSymbol = "BTC";
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("0.0")));
 
-        when(holdingRepository.findByAccountIdAndCryptoSymbol(accountId, cryptoSymbol)).thenReturn(Optional.empty());
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
 
         try {
-            accountService.sellCrypto(accountId, cryptoSymbol, 1.0, 50000.0);
+            accountService.sellCrypto(accountId, cryptoSymbol, new BigDecimal("1.0"), new BigDecimal("50000.0"));
             fail("Expected InsufficientHoldingException to be thrown");
         } catch (InsufficientHoldingException e) {
             assertEquals("You do not own any of this cryptocurrency.", e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTradesSeeEarlierTradesBeforeTheyAreWritten() {
+        Long accountId = 1L;
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("100000.0")));
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
+
+        accountService.buyCrypto(accountId, "BTC", new BigDecimal("1.0"), new BigDecimal("50000.0"));
+        accountService.sellCrypto(accountId, "BTC", new BigDecimal("0.5"), new BigDecimal("60000.0"));
+
+        try {
+            accountService.buyCrypto(accountId, "BTC", new BigDecimal("2.0"), new BigDecimal("50000.0"));
+            fail("Expected InsufficientBalanceException to be thrown");
+        } catch (InsufficientBalanceException e) {
+            assertEquals("Insufficient balance to complete the purchase.", e.getMessage());
+        }
+
+        List<TradeEvent> events = submittedEvents(2);
+        assertEquals(80000_00000000L, events.get(1).getBalanceAfter());
+        assertEquals(50000000L, events.get(1).getHoldingAfter());
+        verify(accountRepository, times(1)).findById(accountId);
+    }
+
+    @Test
+    public void testAccountStaysCachedUntilEvicted() {
+        Long accountId = 1L;
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("100000.0")));
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
+
+        accountService.buyCrypto(accountId, "BTC", new BigDecimal("1.0"), new BigDecimal("50000.0"));
+        ArgumentCaptor<TradePersistencePipeline.WriteCallback> whenWritten =
+                ArgumentCaptor.forClass(TradePersistencePipeline.WriteCallback.class);
+        verify(persistencePipeline).submitAll(anyList(), whenWritten.capture());
+        whenWritten.getValue().written(true);
+
+        accountService.buyCrypto(accountId, "BTC", new BigDecimal("0.5"), new BigDecimal("50000.0"));
+        verify(accountRepository, times(1)).findById(accountId);
+
+        // Evicting while a trade is still queued only takes effect once it is written.
+        account.setBalance(Amount.of(new BigDecimal("10000.0")));
+        accountCache.evict(accountId);
+        verify(persistencePipeline, times(2)).submitAll(anyList(), whenWritten.capture());
+        assertEquals(1, accountCache.size());
+        whenWritten.getValue().written(true);
+        assertEquals(0, accountCache.size());
+
+        try {
+            accountService.buyCrypto(accountId, "BTC", new BigDecimal("0.5"), new BigDecimal("50000.0"));
+            fail("Expected InsufficientBalanceException to be thrown");
+        } catch (InsufficientBalanceException e) {
+            assertEquals("Insufficient balance to complete the purchase.", e.getMessage());
+        }
+        verify(accountRepository, times(2)).findById(accountId);
+    }
+
+    @Test
+    public void testRefusedTradeLeavesBalanceUnchanged() {
+        Long accountId = 1L;
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("100000.0")));
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
+        doThrow(new PersistenceBackpressureException("Too many trades are waiting to be saved, please retry."))
+                .doNothing()
+                .when(persistencePipeline).submitAll(anyList(), any(TradePersistencePipeline.WriteCallback.class));
+
+        try {
+            accountService.buyCrypto(accountId, "BTC", new BigDecimal("2.0"), new BigDecimal("50000.0"));
+            fail("Expected PersistenceBackpressureException to be thrown");
+        } catch (PersistenceBackpressureException e) {
+            assertEquals("Too many trades are waiting to be saved, please retry.", e.getMessage());
+        }
+
+        assertEquals("Purchase successful!", accountService.buyCrypto(accountId, "BTC", new BigDecimal("2.0"), new BigDecimal("50000.0")));
+    }
+
+    @Test
+    public void testAtomicBatchIsRejectedAsAWhole() {
+        Long accountId = 1L;
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("100000.0")));
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
+
+        List<TradeResult> results = accountService.submitTrades(accountId, List.of(
+                new TradeRequest(TransactionType.BUY, "BTC", new BigDecimal("1.0"), new BigDecimal("50000.0")),
+                new TradeRequest(TransactionType.SELL, "ETH", new BigDecimal("1.0"), new BigDecimal("3000.0")),
+                new TradeRequest(TransactionType.BUY, "BTC", new BigDecimal("0.5"), new BigDecimal("50000.0"))),
+                BatchMode.ATOMIC);
+
+        assertEquals(TradeResult.Status.NOT_EXECUTED, results.get(0).getStatus());
+        assertEquals(TradeResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals("You do not own any of this cryptocurrency.", results.get(1).getMessage());
+        assertEquals(TradeResult.Status.NOT_EXECUTED, results.get(2).getStatus());
+        verify(persistencePipeline, never()).submitAll(anyList(), any(TradePersistencePipeline.WriteCallback.class));
+
+        assertEquals("Purchase successful!", accountService.buyCrypto(accountId, "BTC", new BigDecimal("2.0"), new BigDecimal("50000.0")));
+    }
+
+    @Test
+    public void testBestEffortBatchIsWrittenTogetherWithEachTradeSeeingTheOnesBefore() {
+        Long accountId = 1L;
+        Account account = new Account();
+        account.setBalance(Amount.of(new BigDecimal("100000.0")));
+
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(account));
+        when(holdingRepository.findByAccountId(accountId)).thenReturn(List.of());
+
+        List<TradeResult> results = accountService.submitTrades(accountId, List.of(
+                new TradeRequest(TransactionType.BUY, "BTC", new BigDecimal("1.0"), new BigDecimal("50000.0")),
+                new TradeRequest(TransactionType.BUY, "BTC", new BigDecimal("1.0"), new BigDecimal("60000.0")),
+                new TradeRequest(TransactionType.SELL, "BTC", new BigDecimal("0.25"), new BigDecimal("40000.0")),
+                new TradeRequest(TransactionType.BUY, "BTC", new BigDecimal("0.000000001"), new BigDecimal("1.0")),
+                new TradeRequest(TransactionType.BUY, "ETH", null, new BigDecimal("3000.0"))),
+                BatchMode.BEST_EFFORT);
+
+        assertEquals(TradeResult.Status.EXECUTED, results.get(0).getStatus());
+        assertEquals("Insufficient balance to complete the purchase.", results.get(1).getMessage());
+        assertEquals("Sale successful!", results.get(2).getMessage());
+        assertEquals("Quantity has more decimal places than BTC supports.", results.get(3).getMessage());
+        assertEquals(TradeResult.Status.REJECTED, results.get(4).getStatus());
+
+        List<TradeEvent> events = submittedEvents(1);
+        assertEquals(2, events.size());
+        assertEquals(60000_00000000L, events.get(1).getBalanceAfter());
+        assertEquals(75000000L, events.get(1).getHoldingAfter());
+        verify(accountRepository, times(1)).findById(accountId);
+    }
+
+    private TradeEvent submittedEvent() {
+        return submittedEvents(1).get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TradeEvent> submittedEvents(int submissions) {
+        ArgumentCaptor<List<TradeEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(persistencePipeline, times(submissions)).submitAll(events.capture(), any(TradePersistencePipeline.WriteCallback.class));
+        List<TradeEvent> all = new ArrayList<>();
+        events.getAllValues().forEach(all::addAll);
+        return all;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.exception.InsufficientBalanceException;
+import com.example.cryptotradingplatform.exception.OrderNotFoundException;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.orders.OrderType;
+import com.example.cryptotradingplatform.orders.RestingOrder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderServiceTest {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final AccountService accountService = mock(AccountService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderService orderService = new OrderService(priceBook, accountService, Optional.empty(), meterRegistry, 100);
+    private final int btc = priceBook.idOf("BTC/USD");
+
+    @AfterEach
+    void tearDown() {
+        orderService.shutdown();
+    }
+
+    @Test
+    void executesTriggeredOrdersThroughTheAccountService() {
+        when(accountService.tradeAtLimit(eq(1L), eq(TransactionType.BUY), eq("BTC"), any(), any()))
+                .thenReturn("Purchase successful!");
+        when(accountService.sellCrypto(eq(2L), eq("BTC"), any(), any()))
+                .thenThrow(new InsufficientBalanceException("You do not own any of this cryptocurrency."));
+        RestingOrder limitBuy = orderService.placeOrder(1L, "BTC", OrderType.LIMIT, TransactionType.BUY,
+                new BigDecimal("0.5"), new BigDecimal("27000"));
+        RestingOrder stopLoss = orderService.placeOrder(2L, "BTC", OrderType.STOP_LOSS, TransactionType.SELL,
+                new BigDecimal("1"), new BigDecimal("26000"));
+
+        orderService.onPriceUpdate(btc, 27999.0, 28001.0, 28000.0, 1.0, 1L);
+        orderService.onPriceUpdate(btc, 26999.0, 26999.5, 26999.5, 1.0, 2L);
+
+        // A limit order is bounded by its limit price, a stop by the price that triggered it.
+        verify(accountService, timeout(5000)).tradeAtLimit(1L, TransactionType.BUY, "BTC", new BigDecimal("0.5"),
+                new BigDecimal("27000.00000000"));
+        await(limitBuy, RestingOrder.Status.FILLED);
+        assertThat(limitBuy.getMessage()).isEqualTo("Purchase successful!");
+        assertThat(orderService.getOrder(stopLoss.getId()).getStatus()).isEqualTo(RestingOrder.Status.OPEN);
+
+        orderService.onPriceUpdate(btc, 25990.0, 25991.0, 25990.5, 1.0, 3L);
+        await(stopLoss, RestingOrder.Status.REJECTED);
+        verify(accountService).sellCrypto(2L, "BTC", BigDecimal.ONE, new BigDecimal("25990.00000000"));
+        assertThat(stopLoss.getMessage()).isEqualTo("You do not own any of this cryptocurrency.");
+        assertThat(meterRegistry.get("trading.orders.executed").tag("result", "filled").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("trading.orders.match.latency").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void cancelledOrdersStayCancelled() {
+        RestingOrder order = orderService.placeOrder(1L, "ETH/USD", OrderType.TAKE_PROFIT, TransactionType.SELL,
+                new BigDecimal("2"), new BigDecimal("3500"));
+
+        assertThat(orderService.cancelOrder(order.getId())).isTrue();
+        orderService.onPriceUpdate(priceBook.idOf("ETH/USD"), 3600, 3601, 3600.5, 1.0, 1L);
+
+        assertThat(orderService.getOrder(order.getId()).getStatus()).isEqualTo(RestingOrder.Status.CANCELLED);
+        assertThat(orderService.cancelOrder(order.getId())).isFalse();
+        verifyNoInteractions(accountService);
+        assertThatThrownBy(() -> orderService.getOrder(99L)).isInstanceOf(OrderNotFoundException.class);
+        assertThatThrownBy(() -> orderService.placeOrder(1L, "NOPE", OrderType.LIMIT, TransactionType.BUY,
+                BigDecimal.ONE, BigDecimal.ONE)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(RestingOrder order, RestingOrder.Status status) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (order.getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(order.getStatus()).isEqualTo(status);
+    }
+}
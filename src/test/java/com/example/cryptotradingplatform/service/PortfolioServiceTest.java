@@ -0,0 +1,121 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.exception.AccountNotFoundException;
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import com.example.cryptotradingplatform.model.Account;
+import com.example.cryptotradingplatform.model.Amount;
+import com.example.cryptotradingplatform.model.PortfolioValuation;
+import com.example.cryptotradingplatform.model.PositionValuation;
+import com.example.cryptotradingplatform.model.Transaction;
+import com.example.cryptotradingplatform.model.TransactionType;
+import com.example.cryptotradingplatform.repository.AccountRepository;
+import com.example.cryptotradingplatform.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioServiceTest {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final PortfolioService portfolioService = new PortfolioService(priceBook, accountRepository,
+            transactionRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            new SimpleMeterRegistry(), 100);
+    private final int btc = priceBook.idOf("BTC/USD");
+    private final int eth = priceBook.idOf("ETH/USD");
+
+    @Test
+    void valuesTheLedgerAtAverageCostAndMarksHoldersOnEveryTick() {
+        account(1L, "1000");
+        when(transactionRepository.findByAccountIdOrderByIdAsc(1L)).thenReturn(List.of(
+                transaction(1L, TransactionType.BUY, "BTC", "1", "20000"),
+                transaction(2L, TransactionType.BUY, "BTC", "1", "30000"),
+                transaction(3L, TransactionType.SELL, "BTC", "1", "40000")));
+        priceBook.update(btc, 27999, 28001, 28000, 10, 1L);
+
+        PortfolioValuation portfolio = portfolioService.getPortfolio(1L);
+
+        PositionValuation position = portfolio.getPositions().get(0);
+        assertThat(position.getQuantity()).isEqualByComparingTo("1");
+        assertThat(position.getAverageCost()).isEqualByComparingTo("25000");
+        assertThat(position.getRealizedPnl()).isEqualByComparingTo("15000");
+        assertThat(position.getMarketValue()).isEqualByComparingTo("28000");
+        assertThat(portfolio.getUnrealizedPnl()).isEqualByComparingTo("3000");
+        assertThat(portfolio.getTotalValue()).isEqualByComparingTo("29000");
+
+        portfolioService.onPriceUpdate(btc, 30999, 31001, 31000, 10, 2L);
+        portfolioService.onPriceUpdate(eth, 1999, 2001, 2000, 10, 3L);
+
+        portfolio = portfolioService.getPortfolio(1L);
+        assertThat(portfolio.getMarketValue()).isEqualByComparingTo("31000");
+        assertThat(portfolio.getUnrealizedPnl()).isEqualByComparingTo("6000");
+        assertThat(portfolio.getPricedAt()).isEqualTo(2L);
+    }
+
+    @Test
+    void appliesCommittedTradesOnceEvenWhenTheyRaceTheLoad() {
+        account(1L, "50000");
+        // Trade 1 is both in the ledger and delivered while the ledger is read; trade 2 only delivered.
+        when(transactionRepository.findByAccountIdOrderByIdAsc(1L)).thenAnswer(invocation -> {
+            portfolioService.onTradesWritten(List.of(
+                    event(TransactionType.BUY, 100_000_000L, 2_000_000_000_000L, 3_000_000_000_000L, 100_000_000L),
+                    event(TransactionType.BUY, 100_000_000L, 4_000_000_000_000L, -1_000_000_000_000L, 200_000_000L)),
+                    new long[]{1, 2});
+            return List.of(transaction(1L, TransactionType.BUY, "BTC", "1", "20000"));
+        });
+
+        PortfolioValuation portfolio = portfolioService.getPortfolio(1L);
+        assertThat(portfolio.getPositions().get(0).getQuantity()).isEqualByComparingTo("2");
+        assertThat(portfolio.getCostBasis()).isEqualByComparingTo("60000");
+        assertThat(portfolio.getCashBalance()).isEqualByComparingTo("-10000");
+
+        portfolioService.onTradesWritten(List.of(
+                event(TransactionType.SELL, 200_000_000L, 7_000_000_000_000L, 6_000_000_000_000L, 0L)), new long[]{3});
+
+        portfolio = portfolioService.getPortfolio(1L);
+        assertThat(portfolio.getCostBasis()).isEqualByComparingTo("0");
+        assertThat(portfolio.getMarketValue()).isEqualByComparingTo("0");
+        assertThat(portfolio.getRealizedPnl()).isEqualByComparingTo("10000");
+        assertThat(portfolio.getCashBalance()).isEqualByComparingTo("60000");
+    }
+
+    @Test
+    void doesNotKeepUnknownAccounts() {
+        when(accountRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> portfolioService.getPortfolio(9L)).isInstanceOf(AccountNotFoundException.class);
+        assertThat(portfolioService.loadedAccounts()).isZero();
+    }
+
+    private void account(Long id, String balance) {
+        Account account = new Account(Amount.of(new BigDecimal(balance)), new Timestamp(0));
+        account.setId(id);
+        when(accountRepository.findById(id)).thenReturn(Optional.of(account));
+    }
+
+    private static Transaction transaction(Long id, TransactionType type, String symbol, String quantity, String total) {
+        BigDecimal price = new BigDecimal(total).divide(new BigDecimal(quantity));
+        Transaction transaction = new Transaction(null, symbol, type, Amount.of(new BigDecimal(quantity)),
+                Amount.of(price), Amount.of(new BigDecimal(total)));
+        transaction.setId(id);
+        return transaction;
+    }
+
+    private static TradeEvent event(TransactionType type, long quantity, long total, long balanceAfter, long holdingAfter) {
+        return new TradeEvent(1L, "BTC", type, 8, quantity, total / (quantity / 100_000_000L), total, balanceAfter,
+                holdingAfter, 0L);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.marketdata.PriceBook;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceStreamServiceTest {
+
+    private final PriceBook priceBook = new PriceBook();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PriceStreamService service = new PriceStreamService(priceBook, meterRegistry, 2, 60_000, 60_000, false);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void conflatesUpdatesForSlowSubscriberAndSkipsUnsubscribedPairs() throws Exception {
+        int btc = priceBook.idOf("BTC/USD");
+        int eth = priceBook.idOf("ETH/USD");
+        CountDownLatch firstSendStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstSend = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(firstSendStarted, releaseFirstSend);
+
+        publish(btc, 100.0);
+        service.register(emitter, 1L << btc);
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // While the first send is blocked, further ticks collapse into one pending update.
+        for (int i = 1; i <= 50; i++) {
+            publish(btc, 100.0 + i);
+            publish(eth, 2000.0 + i);
+        }
+        releaseFirstSend.countDown();
+
+        emitter.awaitSends(2);
+        assertThat(emitter.sent.get(0)).contains("\"last\":100.0");
+        assertThat(emitter.sent.get(1)).contains("\"last\":150.0").doesNotContain("ETH/USD");
+        assertThat(meterRegistry.get("prices.stream.conflated").counter().count()).isEqualTo(49);
+        assertThat(meterRegistry.get("prices.stream.clients").gauge().value()).isEqualTo(1);
+
+        emitter.complete();
+        assertThat(service.getConnectedClients()).isZero();
+    }
+
+    @Test
+    void closesASubscriberStuckInASendAndKeepsServingTheOthers() throws Exception {
+        PriceStreamService oneSender = new PriceStreamService(priceBook, meterRegistry, 1, 60_000, 100, false);
+        try {
+            int btc = priceBook.idOf("BTC/USD");
+            publish(btc, 100.0);
+            CountDownLatch stuckSendStarted = new CountDownLatch(1);
+            CountDownLatch releaseStuckSend = new CountDownLatch(1);
+            RecordingEmitter stuck = new RecordingEmitter(stuckSendStarted, releaseStuckSend);
+            RecordingEmitter healthy = new RecordingEmitter(new CountDownLatch(1), new CountDownLatch(0));
+
+            oneSender.register(stuck, 1L << btc);
+            assertThat(stuckSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            // Queued behind the stuck send on the only sender thread.
+            oneSender.register(healthy, 1L << btc);
+
+            healthy.awaitSends(1);
+            assertThat(healthy.sent).hasSize(1);
+            priceBook.update(btc, 101.0, 101.0, 101.0, 1.0, System.currentTimeMillis());
+            oneSender.onPriceUpdate(btc, 101.0, 101.0, 101.0, 1.0, System.currentTimeMillis());
+            healthy.awaitSends(2);
+            assertThat(healthy.sent.get(1)).contains("\"last\":101.0");
+            assertThat(meterRegistry.get("prices.stream.stalled").counter().count()).isEqualTo(1);
+            assertThat(oneSender.getConnectedClients()).isEqualTo(1);
+
+            releaseStuckSend.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!stuck.completed && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(stuck.completed).isTrue();
+            assertThat(stuck.sent).hasSize(1);
+        } finally {
+            oneSender.shutdown();
+        }
+    }
+
+    private void publish(int id, double price) {
+        priceBook.update(id, price, price, price, 1.0, System.currentTimeMillis());
+        service.onPriceUpdate(id, price, price, price, 1.0, System.currentTimeMillis());
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstSendStarted;
+        private final CountDownLatch releaseFirstSend;
+        private Runnable completionCallback;
+        private volatile boolean completed;
+
+        private RecordingEmitter(CountDownLatch firstSendStarted, CountDownLatch releaseFirstSend) {
+            this.firstSendStarted = firstSendStarted;
+            this.releaseFirstSend = releaseFirstSend;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            if (sent.isEmpty()) {
+                firstSendStarted.countDown();
+                try {
+                    releaseFirstSend.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.add(event.toString());
+        }
+
+        @Override
+        public void onCompletion(Runnable callback) {
+            this.completionCallback = callback;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            completionCallback.run();
+        }
+
+        private void awaitSends(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.cryptotradingplatform.service;
+
+import com.example.cryptotradingplatform.engine.TradeEvent;
+import com.example.cryptotradingplatform.engine.TradeEventProjection;
+import com.example.cryptotradingplatform.engine.TradeEventProjection.WriteOutcome;
+import com.example.cryptotradingplatform.exception.PersistenceBackpressureException;
+import com.example.cryptotradingplatform.model.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TradePersistencePipelineTest {
+
+    private final TradeEventProjection projection = mock(TradeEventProjection.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void writesQueuedTradesInBatchesAndDrainsOnStop() throws InterruptedException {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        when(projection.write(anyList())).thenAnswer(invocation -> {
+            batchSizes.add(invocation.<List<?>>getArgument(0).size());
+            firstBatchStarted.countDown();
+            releaseFirstBatch.await();
+            return true;
+        });
+        TradePersistencePipeline pipeline = new TradePersistencePipeline(projection, meterRegistry, 1000, 100, 1000);
+        pipeline.start();
+
+        AtomicInteger written = new AtomicInteger();
+        pipeline.submit(trade(0), persisted -> written.incrementAndGet());
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 250; i++) {
+            pipeline.submit(trade(i), persisted -> written.incrementAndGet());
+        }
+        releaseFirstBatch.countDown();
+        pipeline.stop();
+
+        assertThat(written).hasValue(251);
+        assertThat(batchSizes).containsExactly(1, 100, 100, 50);
+        assertThat(meterRegistry.get("trading.persistence.batch.size").summary().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("trading.persistence.flush.latency").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    void refusesTradesWhenTheQueueStaysFull() throws InterruptedException {
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        when(projection.write(anyList())).thenAnswer(invocation -> {
+            releaseWriter.await();
+            return false;
+        });
+        // The database is not answering, so nothing gets written until the pipeline gives up at shutdown.
+        when(projection.writeOrDeadLetter(anyList())).thenReturn(WriteOutcome.FAILED);
+        TradePersistencePipeline pipeline = new TradePersistencePipeline(projection, meterRegistry, 2, 1, 50);
+        pipeline.start();
+
+        pipeline.submit(trade(0), null);
+        pipeline.submit(trade(1), null);
+        pipeline.submit(trade(2), null);
+        assertThatThrownBy(() -> {
+            for (int i = 3; i < 10; i++) {
+                pipeline.submit(trade(i), null);
+            }
+        }).isInstanceOf(PersistenceBackpressureException.class);
+
+        releaseWriter.countDown();
+        pipeline.stop();
+        assertThat(meterRegistry.get("trading.persistence.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("trading.persistence.failed").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void deadLettersOnlyTheGroupWhoseAccountIsMissing() throws InterruptedException {
+        // Account 2 has been deleted: any transaction holding one of its trades is rolled back.
+        List<TradeEvent> written = new CopyOnWriteArrayList<>();
+        when(projection.write(anyList())).thenAnswer(invocation -> {
+            List<TradeEvent> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(event -> event.getAccountId() == 2L)) {
+                return false;
+            }
+            written.addAll(batch);
+            return true;
+        });
+        when(projection.writeOrDeadLetter(anyList())).thenAnswer(invocation -> {
+            List<TradeEvent> group = invocation.getArgument(0);
+            if (group.stream().anyMatch(event -> event.getAccountId() == 2L)) {
+                return WriteOutcome.DEAD_LETTERED;
+            }
+            written.addAll(group);
+            return WriteOutcome.WRITTEN;
+        });
+        TradePersistencePipeline pipeline = new TradePersistencePipeline(projection, meterRegistry, 100, 100, 1000);
+        Map<Long, Boolean> persisted = new ConcurrentHashMap<>();
+        // Queued before the writer starts, so all three groups land in one batch.
+        pipeline.submitAll(List.of(trade(1L, 0), trade(1L, 1)), result -> persisted.put(1L, result));
+        pipeline.submitAll(List.of(trade(2L, 0), trade(2L, 1)), result -> persisted.put(2L, result));
+        pipeline.submitAll(List.of(trade(3L, 0)), result -> persisted.put(3L, result));
+        pipeline.start();
+        pipeline.stop();
+
+        assertThat(persisted).containsOnly(entry(1L, true), entry(2L, false), entry(3L, true));
+        assertThat(written).extracting(TradeEvent::getAccountId).containsExactly(1L, 1L, 3L);
+        assertThat(meterRegistry.get("trading.persistence.dead.lettered").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("trading.persistence.failed").counter().count()).isZero();
+    }
+
+    @Test
+    void keepsRetryingAGroupWhileTheDatabaseIsDown() throws InterruptedException {
+        when(projection.write(anyList())).thenReturn(false);
+        when(projection.writeOrDeadLetter(anyList()))
+                .thenReturn(WriteOutcome.FAILED, WriteOutcome.FAILED, WriteOutcome.WRITTEN);
+        TradePersistencePipeline pipeline = new TradePersistencePipeline(projection, meterRegistry, 10, 10, 1000);
+        pipeline.start();
+        CountDownLatch persisted = new CountDownLatch(1);
+        pipeline.submit(trade(0), result -> {
+            if (result) {
+                persisted.countDown();
+            }
+        });
+
+        assertThat(persisted.await(10, TimeUnit.SECONDS)).isTrue();
+        pipeline.stop();
+        verify(projection, times(3)).writeOrDeadLetter(anyList());
+        assertThat(meterRegistry.get("trading.persistence.failed").counter().count()).isZero();
+    }
+
+    private static TradeEvent trade(int i) {
+        return trade(1L, i);
+    }
+
+    private static TradeEvent trade(long accountId, int i) {
+        return new TradeEvent(accountId, "BTC/USD", TransactionType.BUY, 8, 1, 100, 100, 10000 - 100L * i, i + 1, i);
+    }
+}
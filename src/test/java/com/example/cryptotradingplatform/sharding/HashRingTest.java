@@ -0,0 +1,73 @@
+package com.example.cryptotradingplatform.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashRingTest {
+
+    private static final int ACCOUNTS = 100_000;
+
+    @Test
+    void spreadsAccountsEvenlyOverTheNodes() {
+        HashRing ring = new HashRing(List.of("a", "b", "c", "d"), 160);
+
+        Map<String, Integer> shares = new HashMap<>();
+        for (long id = 1; id <= ACCOUNTS; id++) {
+            shares.merge(ring.owner(id), 1, Integer::sum);
+        }
+        assertThat(shares).hasSize(4);
+        assertThat(shares.values()).allSatisfy(share ->
+                assertThat(share).isBetween(ACCOUNTS / 4 * 85 / 100, ACCOUNTS / 4 * 115 / 100));
+    }
+
+    @Test
+    void aJoiningNodeTakesAFairShareFromTheOthersAndNothingElseMoves() {
+        HashRing before = new HashRing(List.of("a", "b", "c"), 160);
+        HashRing after = before.with("d");
+
+        int moved = 0;
+        for (long id = 1; id <= ACCOUNTS; id++) {
+            if (!before.owner(id).equals(after.owner(id))) {
+                assertThat(after.owner(id)).isEqualTo("d");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(ACCOUNTS / 4 * 85 / 100, ACCOUNTS / 4 * 115 / 100);
+    }
+
+    @Test
+    void aLeavingNodesAccountsAreTheOnlyOnesToMove() {
+        HashRing before = new HashRing(List.of("a", "b", "c", "d"), 160);
+        HashRing after = before.without("b");
+
+        for (long id = 1; id <= ACCOUNTS; id++) {
+            if (!before.owner(id).equals("b")) {
+                assertThat(after.owner(id)).isEqualTo(before.owner(id));
+            } else {
+                assertThat(after.owner(id)).isNotEqualTo("b");
+            }
+        }
+    }
+
+    @Test
+    void everyNodeBuildsTheSameRingWhateverTheOrderOfNames() {
+        HashRing one = new HashRing(List.of("c", "a", "b"), 64);
+        HashRing other = new HashRing(List.of("a", "b", "c"), 64);
+
+        for (long id = 1; id <= 1000; id++) {
+            assertThat(one.owner(id)).isEqualTo(other.owner(id));
+        }
+        assertThat(one.nodes()).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void refusesAnEmptyRing() {
+        assertThatThrownBy(() -> new HashRing(List.of(), 160)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.cryptotradingplatform.sharding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShardRouterTest {
+
+    private static final Map<String, URI> ONE_NODE = Map.of("a", URI.create("http://a:8080"));
+    private static final Map<String, URI> TWO_NODES = Map.of("a", URI.create("http://a:8080"),
+            "b", URI.create("http://b:8080"));
+
+    private final ShardHandoff handoff = mock(ShardHandoff.class);
+    private final ShardClient shardClient = mock(ShardClient.class);
+    private final HashRing ring = new HashRing(List.of("a", "b"), 160);
+    private final long localAccount = firstOwnedBy("a");
+    private final long remoteAccount = firstOwnedBy("b");
+
+    @Test
+    void servesAccountsThisNodeOwns() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        router(node("a")).doFilter(get("/api/account/" + localAccount + "/portfolio"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getHeader(ShardRouter.NODE_HEADER)).isEqualTo("a");
+        verify(shardClient, never()).forward(anyString(), anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void forwardsOtherAccountsToTheirOwnerAndRelaysTheAnswer() throws Exception {
+        HttpResponse<byte[]> answer = answer(200, "{\"cash\":1}");
+        when(shardClient.forward(eq("b"), eq("GET"), anyString(), isNull(), isNull(), any())).thenReturn(answer);
+        MockHttpServletRequest request = get("/api/account/" + remoteAccount + "/transactions");
+        request.setQueryString("limit=20");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        router(node("a")).doFilter(request, response, chain);
+
+        verify(shardClient).forward(eq("b"), eq("GET"), eq("/api/account/" + remoteAccount + "/transactions?limit=20"),
+                isNull(), isNull(), any());
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("{\"cash\":1}");
+        assertThat(response.getHeader(ShardRouter.NODE_HEADER)).isEqualTo("b");
+    }
+
+    @Test
+    void forwardsAFormPostWithItsFieldsInTheQuery() throws Exception {
+        HttpResponse<byte[]> answer = answer(200, "Purchase successful");
+        when(shardClient.forward(eq("b"), eq("POST"), anyString(), isNull(), isNull(), isNull())).thenReturn(answer);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/account/buy");
+        request.setContentType("application/x-www-form-urlencoded");
+        request.addParameter("accountId", Long.toString(remoteAccount));
+        request.addParameter("cryptoSymbol", "BTC/USD");
+
+        router(node("a")).doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(shardClient).forward(eq("b"), eq("POST"),
+                eq("/api/account/buy?accountId=" + remoteAccount + "&cryptoSymbol=BTC%2FUSD"), isNull(), isNull(), isNull());
+    }
+
+    @Test
+    void servesAForwardedRequestWhereItLands() throws Exception {
+        MockHttpServletRequest request = get("/api/account/" + remoteAccount + "/portfolio");
+        request.addHeader(ShardClient.FORWARDED_HEADER, "b");
+        MockFilterChain chain = new MockFilterChain();
+
+        router(node("a")).doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void theOldOwnerServesAMovingAccountUntilItIsHandedOff() throws Exception {
+        ShardMembership membership = node("a");
+        membership.prepare(ONE_NODE, TWO_NODES);
+        when(handoff.servingLock(remoteAccount)).thenReturn(new ReentrantLock());
+        when(handoff.holds(remoteAccount)).thenReturn(true);
+        MockFilterChain chain = new MockFilterChain();
+
+        router(membership).doFilter(get("/api/account/" + remoteAccount + "/portfolio"), new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isNotNull();
+
+        when(handoff.holds(remoteAccount)).thenReturn(false);
+        HttpResponse<byte[]> answer = answer(200, "{}");
+        when(shardClient.forward(eq("b"), anyString(), anyString(), any(), any(), any())).thenReturn(answer);
+        chain = new MockFilterChain();
+        router(membership).doFilter(get("/api/account/" + remoteAccount + "/portfolio"), new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isNull();
+        verify(shardClient).forward(eq("b"), anyString(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void theNewOwnerSendsAMovingAccountBackUntilItArrives() throws Exception {
+        ShardMembership membership = node("b");
+        membership.prepare(ONE_NODE, TWO_NODES);
+        when(handoff.holds(remoteAccount)).thenReturn(false);
+        HttpResponse<byte[]> answer = answer(200, "{}");
+        when(shardClient.forward(eq("a"), anyString(), anyString(), any(), any(), any())).thenReturn(answer);
+
+        router(membership).doFilter(get("/api/account/" + remoteAccount + "/portfolio"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        verify(shardClient).forward(eq("a"), anyString(), anyString(), any(), any(), any());
+
+        // Sent back here by the old owner after all: it is in transit.
+        MockHttpServletRequest request = get("/api/account/" + remoteAccount + "/portfolio");
+        request.addHeader(ShardClient.FORWARDED_HEADER, "a");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        router(membership).doFilter(request, response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    void leavesOtherRequestsAlone() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        router(node("a")).doFilter(get("/api/cryptos"), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    private ShardMembership node(String name) {
+        return new ShardMembership(name, "a=http://a:8080,b=http://b:8080", 160, false, false);
+    }
+
+    private ShardRouter router(ShardMembership membership) {
+        return new ShardRouter(membership, handoff, shardClient, new SimpleMeterRegistry());
+    }
+
+    private long firstOwnedBy(String node) {
+        long id = 1;
+        while (!ring.owner(id).equals(node)) {
+            id++;
+        }
+        return id;
+    }
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<byte[]> answer(int status, String body) {
+        HttpResponse<byte[]> answer = mock(HttpResponse.class);
+        when(answer.statusCode()).thenReturn(status);
+        when(answer.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        when(answer.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Type", List.of("application/json")),
+                (name, value) -> true));
+        return answer;
+    }
+}
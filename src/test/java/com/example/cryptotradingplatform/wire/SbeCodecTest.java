@@ -0,0 +1,99 @@
+package com.example.cryptotradingplatform.wire;
+
+import com.example.cryptotradingplatform.model.TradeRequest;
+import com.example.cryptotradingplatform.model.TradeResult;
+import com.example.cryptotradingplatform.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SbeCodecTest {
+
+    @Test
+    void roundTripsPricesWithSymbolsInPlace() {
+        SbeCodec.PricesWriter writer = new SbeCodec.PricesWriter(42);
+        writer.add("BTC/USD", 67341.4);
+        writer.add("SHIB/USD", 0.00002431);
+        byte[] message = writer.toBytes();
+
+        Map<String, Double> prices = new LinkedHashMap<>();
+        long version = SbeCodec.decodePrices(message, (bytes, offset, length, last) ->
+                prices.put(new String(bytes, offset, length, StandardCharsets.US_ASCII), last));
+
+        assertThat(version).isEqualTo(42);
+        assertThat(prices).containsExactly(Map.entry("BTC/USD", 67341.4), Map.entry("SHIB/USD", 0.00002431));
+        // Header, version, group header, then 8 + 2 + symbol bytes a price.
+        assertThat(message).hasSize(8 + 8 + 6 + (8 + 2 + 7) + (8 + 2 + 8));
+    }
+
+    @Test
+    void roundTripsTicksAcrossBufferGrowth() {
+        SbeCodec.TicksWriter writer = new SbeCodec.TicksWriter(1);
+        for (int i = 0; i < 3000; i++) {
+            writer.onTick(1_700_000_000_000L + i, 100 + i, 101 + i, 100.5 + i, i * 0.25);
+        }
+        byte[] message = writer.toBytes("ETH/USD");
+
+        List<double[]> ticks = new ArrayList<>();
+        String pair = SbeCodec.decodeTicks(message, (timestamp, bid, ask, last, volume) ->
+                ticks.add(new double[]{timestamp, bid, ask, last, volume}));
+
+        assertThat(pair).isEqualTo("ETH/USD");
+        assertThat(ticks).hasSize(3000);
+        assertThat(ticks.get(2999)).containsExactly(1_700_000_002_999d, 3099, 3100, 3099.5, 749.75);
+    }
+
+    @Test
+    void roundTripsTradesWithExactDecimals() {
+        List<TradeRequest> trades = List.of(
+                new TradeRequest(TransactionType.BUY, "BTC", new BigDecimal("0.00012345"), new BigDecimal("67341.40")),
+                new TradeRequest(TransactionType.SELL, "ETH/USD", new BigDecimal("1E+3"), null));
+
+        List<TradeRequest> decoded = SbeCodec.decodeTrades(SbeCodec.encodeTrades(trades));
+
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(0).getType()).isEqualTo(TransactionType.BUY);
+        assertThat(decoded.get(0).getCryptoSymbol()).isEqualTo("BTC");
+        assertThat(decoded.get(0).getQuantity()).isEqualTo(new BigDecimal("0.00012345"));
+        assertThat(decoded.get(0).getPricePerUnit()).isEqualTo(new BigDecimal("67341.40"));
+        assertThat(decoded.get(1).getType()).isEqualTo(TransactionType.SELL);
+        assertThat(decoded.get(1).getQuantity()).isEqualByComparingTo("1000");
+        assertThat(decoded.get(1).getPricePerUnit()).isNull();
+    }
+
+    @Test
+    void roundTripsTradeResults() {
+        List<TradeResult> results = List.of(TradeResult.executed(0, "Purchase successful!"),
+                TradeResult.notExecuted(1), TradeResult.rejected(2, "Insufficient balance to complete the purchase."));
+
+        List<TradeResult> decoded = SbeCodec.decodeTradeResults(SbeCodec.encodeTradeResults(results));
+
+        assertThat(decoded).extracting(TradeResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(decoded).extracting(TradeResult::getStatus).containsExactly(TradeResult.Status.EXECUTED,
+                TradeResult.Status.NOT_EXECUTED, TradeResult.Status.REJECTED);
+        assertThat(decoded.get(2).getMessage()).isEqualTo("Insufficient balance to complete the purchase.");
+    }
+
+    @Test
+    void rejectsOtherTemplatesAndTruncatedMessages() {
+        byte[] trades = SbeCodec.encodeTrades(List.of(
+                new TradeRequest(TransactionType.BUY, "BTC", BigDecimal.ONE, null)));
+
+        assertThatThrownBy(() -> SbeCodec.decodeTradeResults(trades)).isInstanceOf(IllegalArgumentException.class);
+        for (int length = 0; length < trades.length; length++) {
+            byte[] truncated = Arrays.copyOf(trades, length);
+            assertThatThrownBy(() -> SbeCodec.decodeTrades(truncated)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> SbeCodec.decodeTrades("[{\"type\":\"BUY\"}]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}